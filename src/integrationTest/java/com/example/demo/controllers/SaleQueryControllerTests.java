@@ -0,0 +1,94 @@
+package com.example.demo.controllers;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for {@link SaleQueryController}
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"sale.index.enabled=true", "spring.main.web-application-type=servlet"})
+@AutoConfigureMockMvc
+public class SaleQueryControllerTests {
+
+  private final String TEST_PRODUCT_TYPE_CHIPS = "Chips";
+  private final String TEST_PRODUCT_TYPE_COLA = "Cola";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private SaleManager saleManager;
+
+  @Before
+  public void setUp() throws Exception {
+    saleManager.recordSales(TEST_PRODUCT_TYPE_CHIPS, new BigDecimal("1.20"), 3);
+    saleManager.recordSales(TEST_PRODUCT_TYPE_CHIPS, new BigDecimal("2.50"), 1);
+    saleManager.recordSaleAdjustment(new SaleAdjustment(TEST_PRODUCT_TYPE_CHIPS, SaleAdjustmentOperation.MULTIPLY, new BigDecimal("2")));
+    saleManager.recordSales(TEST_PRODUCT_TYPE_COLA, new BigDecimal("20"), 1);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_CHIPS);
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_COLA);
+    saleManager.clearSalesAdjustmentsForProductType(TEST_PRODUCT_TYPE_CHIPS);
+  }
+
+  @Test
+  public void testFetchSalesInRange() throws Exception {
+    mockMvc.perform(get("/query/sales/Chips").param("minValue", "2").param("maxValue", "4.8"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.saleCount").value(3))
+      .andExpect(jsonPath("$.values['2.40']").value(3));
+
+    mockMvc.perform(get("/query/sales/Chips").param("limit", "1"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.saleCount").value(4))
+      .andExpect(jsonPath("$.values.length()").value(1));
+  }
+
+  @Test
+  public void testFetchTopProductTypesByRevenue() throws Exception {
+    mockMvc.perform(get("/query/revenue").param("count", "1"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$", hasSize(1)))
+      .andExpect(jsonPath("$[0].productType").value(TEST_PRODUCT_TYPE_COLA))
+      .andExpect(jsonPath("$[0].totalValue").value(20));
+  }
+
+  @Test
+  public void testFetchSaleAdjustmentsForOperation() throws Exception {
+    mockMvc.perform(get("/query/adjustments/MULTIPLY").param("productType", TEST_PRODUCT_TYPE_CHIPS))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.Chips", hasSize(1)))
+      .andExpect(jsonPath("$.Chips[0].adjustmentValue").value(2));
+
+    mockMvc.perform(get("/query/adjustments/DIVIDE"))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void testIsReadOnly() throws Exception {
+    mockMvc.perform(post("/query/sales/Chips"))
+      .andExpect(status().isMethodNotAllowed());
+  }
+}
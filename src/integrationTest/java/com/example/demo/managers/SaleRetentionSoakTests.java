@@ -0,0 +1,75 @@
+package com.example.demo.managers;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Soak test of a steady feed of sales into a {@link SaleManager} retaining the latest sales of each product only
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"sale.retention.enabled=true", "sale.retention.maxSalesPerProduct=10000"})
+public class SaleRetentionSoakTests {
+
+  private static final int PRODUCT_COUNT = 10;
+  private static final int ROUNDS = 300;
+  private static final int SALES_PER_ROUND = 2000;
+  private static final long MAX_HEAP_GROWTH = 16 * 1024 * 1024;
+
+  @Autowired
+  private SaleManager saleManager;
+
+  @After
+  public void tearDown() throws Exception {
+    for (int product = 0; product < PRODUCT_COUNT; product++) {
+      saleManager.clearSalesForProductType("Soak" + product);
+    }
+  }
+
+  @Test
+  public void testHeapPlateausUnderSteadyFeed() throws SaleProcessingException {
+    long heapAtWarmup = 0;
+    for (int round = 1; round <= ROUNDS; round++) {
+      for (int product = 0; product < PRODUCT_COUNT; product++) {
+        String productType = "Soak" + product;
+        for (int sale = 0; sale < SALES_PER_ROUND; sale++) {
+          saleManager.recordSale(productType, BigDecimal.valueOf(sale % 500, 2));
+        }
+        saleManager.recordSaleAdjustment(new SaleAdjustment(productType, SaleAdjustmentOperation.ADD, new BigDecimal("0.01")));
+      }
+      saleManager.compactSales();
+
+      if (round == ROUNDS / 3) {
+        heapAtWarmup = usedHeap();
+      }
+    }
+    long heapAtEnd = usedHeap();
+
+    //Without compaction every sale of the last two thirds of the feed would still be retained
+    assertTrue("Heap grew by " + (heapAtEnd - heapAtWarmup) / 1024 + " KiB", heapAtEnd - heapAtWarmup < MAX_HEAP_GROWTH);
+    for (int product = 0; product < PRODUCT_COUNT; product++) {
+      String productType = "Soak" + product;
+      assertEquals(10000, saleManager.fetchSalesForProductType(productType).size());
+      assertEquals((long) ROUNDS * SALES_PER_ROUND, saleManager.fetchSaleAggregateForProductType(productType).getSaleCount());
+      SaleAggregateConsistencyChecker.assertConsistent(saleManager, productType);
+    }
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
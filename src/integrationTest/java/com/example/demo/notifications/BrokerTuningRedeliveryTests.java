@@ -0,0 +1,264 @@
+package com.example.demo.notifications;
+
+import com.example.demo.managers.SaleManager;
+import org.apache.activemq.ActiveMQConnection;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the redelivery of notifications under each acknowledgement mode of {@link BrokerTuning}, notifications
+ * being skipped once recorded
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"notifications.dedup.enabled=true", "message.threshold=100000",
+  "notifications.broker.prefetch=100",
+  "spring.activemq.broker-url=vm://brokerTuningRedeliveryTests?broker.persistent=false"})
+public class BrokerTuningRedeliveryTests {
+
+  @Autowired
+  private BrokerTuning brokerTuning;
+
+  @Autowired
+  private MessageConverter messageConverter;
+
+  @Autowired
+  private SaleNotificationBatchListener saleNotificationBatchListener;
+
+  @Autowired
+  private SaleManager saleManager;
+
+  @Value("${spring.activemq.broker-url}")
+  private String brokerUrl;
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_SALE_VALUE = ".20";
+  private final List<BatchMessageListenerContainer> containers = new ArrayList<>();
+
+  @After
+  public void tearDown() throws Exception {
+    containers.forEach(BatchMessageListenerContainer::shutdown);
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_APPLE);
+  }
+
+  @Test
+  public void testFailedTransactedBatchIsRedelivered() throws Exception {
+    assertFailedBatchIsRedelivered("brokerTuning.transacted", true, Session.AUTO_ACKNOWLEDGE, true);
+  }
+
+  @Test
+  public void testFailedClientAcknowledgedBatchIsRedelivered() throws Exception {
+    assertFailedBatchIsRedelivered("brokerTuning.client", false, Session.CLIENT_ACKNOWLEDGE, true);
+  }
+
+  @Test
+  public void testFailedNonPersistentBatchIsRedelivered() throws Exception {
+    assertFailedBatchIsRedelivered("brokerTuning.nonPersistent", false, Session.CLIENT_ACKNOWLEDGE, false);
+  }
+
+  @Test
+  public void testFailedAutoAcknowledgedBatchIsLost() throws Exception {
+    assertFailedBatchIsLost("brokerTuning.auto", Session.AUTO_ACKNOWLEDGE);
+  }
+
+  @Test
+  public void testFailedDupsOkBatchIsLost() throws Exception {
+    assertFailedBatchIsLost("brokerTuning.dupsOk", Session.DUPS_OK_ACKNOWLEDGE);
+  }
+
+  @Test
+  public void testDupsOkDeliveriesAreRecordedOnceAfterConnectionFailure() throws Exception {
+    //Whether the deliveries were acknowledged before the failure depends on timing
+    long redelivered = failConnectionAfterRecording("brokerTuning.dupsOkFailure", Session.DUPS_OK_ACKNOWLEDGE, false);
+    assertTrue(redelivered <= 10);
+  }
+
+  @Test
+  public void testOptimizedAcknowledgementsAreRedeliveredAfterConnectionFailure() throws Exception {
+    assertEquals(10, failConnectionAfterRecording("brokerTuning.optimizedFailure", Session.AUTO_ACKNOWLEDGE, true));
+  }
+
+  /**
+   * Fails the first batch once it is recorded, which the broker then delivers again
+   */
+  private void assertFailedBatchIsRedelivered(String destination, boolean sessionTransacted, int acknowledgeMode,
+                                              boolean persistent) throws Exception {
+    AtomicBoolean failed = new AtomicBoolean();
+    CountDownLatch redelivered = new CountDownLatch(1);
+    startContainer(destination, sessionTransacted, acknowledgeMode, messages -> {
+      saleNotificationBatchListener.onMessages(messages);
+      if (failed.compareAndSet(false, true)) {
+        throw new IllegalStateException("Failed after recording");
+      }
+      if (messages.get(0).getJMSRedelivered()) {
+        redelivered.countDown();
+      }
+    });
+
+    send(destination, 5, persistent);
+
+    assertTrue(redelivered.await(10, TimeUnit.SECONDS));
+    assertEquals(5, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+  }
+
+  /**
+   * Fails the first batch before it is recorded, which was acknowledged as received
+   */
+  private void assertFailedBatchIsLost(String destination, int acknowledgeMode) throws Exception {
+    AtomicInteger failed = new AtomicInteger();
+    AtomicInteger recorded = new AtomicInteger();
+    AtomicBoolean redelivered = new AtomicBoolean();
+    startContainer(destination, false, acknowledgeMode, messages -> {
+      if (failed.compareAndSet(0, messages.size())) {
+        throw new IllegalStateException("Failed before recording");
+      }
+      redelivered.compareAndSet(false, messages.get(0).getJMSRedelivered());
+      saleNotificationBatchListener.onMessages(messages);
+      recorded.addAndGet(messages.size());
+    });
+
+    send(destination, 5, true);
+    for (int i = 0; i < 200 && failed.get() + recorded.get() < 5; i++) {
+      Thread.sleep(50);
+    }
+    send(destination, 5, true);
+    for (int i = 0; i < 200 && failed.get() + recorded.get() < 10; i++) {
+      Thread.sleep(50);
+    }
+
+    assertTrue(failed.get() > 0);
+    assertEquals(10, failed.get() + recorded.get());
+    assertFalse(redelivered.get());
+    assertEquals(recorded.get(), saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+  }
+
+  /**
+   * Records 10 of 15 notifications received on a connection which then fails, then records on a new connection what
+   * the broker delivers again, every notification being recorded once
+   *
+   * @return the number of recorded notifications which were delivered again
+   */
+  private long failConnectionAfterRecording(String destination, int acknowledgeMode, boolean optimizeAcknowledge)
+    throws Exception {
+    BrokerTuning lazyBrokerTuning = new BrokerTuning();
+    lazyBrokerTuning.setPrefetch(brokerTuning.getPrefetch());
+    lazyBrokerTuning.setOptimizeAcknowledge(optimizeAcknowledge);
+    //Only acknowledged once enough messages are consumed
+    lazyBrokerTuning.setOptimizeAcknowledgeTimeout(TimeUnit.MINUTES.toMillis(1));
+    ActiveMQConnectionFactory connectionFactory = newConnectionFactory(lazyBrokerTuning);
+    send(destination, 15, true);
+
+    Set<String> recorded = new HashSet<>();
+    ActiveMQConnection failingConnection = (ActiveMQConnection) connectionFactory.createConnection();
+    try {
+      failingConnection.start();
+      Session session = failingConnection.createSession(false, acknowledgeMode);
+      List<Message> messages = receive(session.createConsumer(session.createQueue(destination)), 10);
+      saleNotificationBatchListener.onMessages(messages);
+      for (Message message : messages) {
+        recorded.add(message.getJMSMessageID());
+      }
+      failingConnection.getTransport().stop();
+    } finally {
+      try {
+        failingConnection.close();
+      } catch (JMSException e) {
+        //Already failed
+      }
+    }
+
+    long redelivered;
+    Connection connection = connectionFactory.createConnection();
+    try {
+      connection.start();
+      Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+      MessageConsumer consumer = session.createConsumer(session.createQueue(destination));
+      List<Message> messages = new ArrayList<>();
+      for (Message message = consumer.receive(1000); message != null; message = consumer.receive(1000)) {
+        messages.add(message);
+      }
+      redelivered = messages.stream().filter(message -> isRecorded(message, recorded)).count();
+      saleNotificationBatchListener.onMessages(messages);
+      messages.get(messages.size() - 1).acknowledge();
+    } finally {
+      connection.close();
+    }
+
+    assertEquals(15, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+    return redelivered;
+  }
+
+  private void startContainer(String destination, boolean sessionTransacted, int acknowledgeMode,
+                              BatchMessageListener batchMessageListener) {
+    BatchMessageListenerContainer container = new BatchMessageListenerContainer();
+    container.setConnectionFactory(newConnectionFactory(brokerTuning));
+    container.setDestinationName(destination);
+    container.setSessionTransacted(sessionTransacted);
+    container.setSessionAcknowledgeMode(acknowledgeMode);
+    container.setBatchSize(5);
+    container.setBatchTimeout(1000);
+    container.setBatchMessageListener(batchMessageListener);
+    container.afterPropertiesSet();
+    container.start();
+    containers.add(container);
+  }
+
+  private ActiveMQConnectionFactory newConnectionFactory(BrokerTuning brokerTuning) {
+    ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(brokerUrl);
+    brokerTuning.customize(connectionFactory);
+    return connectionFactory;
+  }
+
+  private void send(String destination, int count, boolean persistent) {
+    JmsTemplate jmsTemplate = new JmsTemplate(newConnectionFactory(brokerTuning));
+    jmsTemplate.setMessageConverter(messageConverter);
+    jmsTemplate.setExplicitQosEnabled(true);
+    jmsTemplate.setDeliveryPersistent(persistent);
+    for (int i = 0; i < count; i++) {
+      jmsTemplate.convertAndSend(destination, new SaleNotification(TEST_PRODUCT_TYPE_APPLE, TEST_SALE_VALUE, 1));
+    }
+  }
+
+  private static List<Message> receive(MessageConsumer consumer, int count) throws JMSException {
+    List<Message> messages = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Message message = consumer.receive(5000);
+      assertTrue(message != null);
+      messages.add(message);
+    }
+    return messages;
+  }
+
+  private static boolean isRecorded(Message message, Set<String> recorded) {
+    try {
+      return message.getJMSRedelivered() && recorded.contains(message.getJMSMessageID());
+    } catch (JMSException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
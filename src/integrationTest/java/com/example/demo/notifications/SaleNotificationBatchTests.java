@@ -0,0 +1,58 @@
+package com.example.demo.notifications;
+
+import com.example.demo.managers.SaleManager;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the batch consumption of {@link SaleNotification} messages
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"notifications.batch.size=20", "notifications.batch.timeout=200",
+  "spring.jms.listener.acknowledge-mode=client",
+  "spring.activemq.broker-url=vm://saleNotificationBatchTests?broker.persistent=false"})
+public class SaleNotificationBatchTests {
+
+  @Autowired
+  private JmsTemplate jmsTemplate;
+
+  @Autowired
+  private SaleManager saleManager;
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_PRODUCT_TYPE_BANANA = "Banana";
+  private final String TEST_SALE_VALUE = ".20";
+
+  @After
+  public void tearDown() throws Exception {
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_APPLE);
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_BANANA);
+  }
+
+  @Test
+  public void testReceiveSaleNotificationsInBatches() throws InterruptedException {
+    for (int i = 0; i < 15; i++) {
+      jmsTemplate.convertAndSend("saleNotifications", new SaleNotification(TEST_PRODUCT_TYPE_APPLE, TEST_SALE_VALUE, 1));
+      jmsTemplate.convertAndSend("saleNotifications", new SaleNotification(TEST_PRODUCT_TYPE_BANANA, TEST_SALE_VALUE, 2));
+    }
+    jmsTemplate.convertAndSend("saleNotifications", new SaleNotification(TEST_PRODUCT_TYPE_APPLE, TEST_SALE_VALUE, 1, "ADD", ".10"));
+
+    for (int i = 0; i < 100 && saleManager.fetchSaleAdjustmentForProductType(TEST_PRODUCT_TYPE_APPLE).isEmpty(); i++) {
+      Thread.sleep(50);
+    }
+
+    assertEquals(16, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+    assertEquals(30, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_BANANA).size());
+    assertEquals(new BigDecimal(".30").multiply(new BigDecimal(16)),
+      saleManager.fetchSaleAggregateForProductType(TEST_PRODUCT_TYPE_APPLE).getTotalValue());
+  }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.notifications;
+
+import com.example.demo.managers.SaleManager;
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link SaleNotificationLoadGenerator} against the embedded broker
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"message.threshold=100000", "report.frequency=100000",
+  "notifications.load.producers=2", "notifications.load.rate=400", "notifications.load.durationSeconds=1",
+  "notifications.load.productTypes=5", "notifications.load.adjustmentRatio=0", "notifications.load.drainSeconds=10",
+  "spring.activemq.broker-url=vm://saleNotificationLoadGeneratorTests?broker.persistent=false"})
+public class SaleNotificationLoadGeneratorTests {
+
+  @Autowired
+  private SaleNotificationLoadGenerator loadGenerator;
+
+  @Autowired
+  private SaleManager saleManager;
+
+  @After
+  public void tearDown() throws Exception {
+    for (int i = 0; i < loadGenerator.getProductTypes(); i++) {
+      saleManager.clearSalesForProductType("Product" + i);
+    }
+  }
+
+  @Test
+  public void testEveryNotificationSentIsProcessed() throws InterruptedException {
+    Histogram latencies = loadGenerator.run();
+
+    long produced = loadGenerator.getProduced();
+    //At the rate asked for, give or take the sends due as the run ends
+    assertEquals(400, produced, 40);
+    assertEquals(produced, latencies.getTotalCount());
+    assertTrue(latencies.getMaxValue() > 0);
+
+    long sales = 0;
+    for (int i = 0; i < loadGenerator.getProductTypes(); i++) {
+      sales += saleManager.fetchSalesForProductType("Product" + i).size();
+    }
+    assertEquals(produced, sales);
+  }
+}
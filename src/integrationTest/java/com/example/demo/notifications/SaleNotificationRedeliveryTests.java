@@ -0,0 +1,116 @@
+package com.example.demo.notifications;
+
+import com.example.demo.dao.SaleSequences;
+import com.example.demo.managers.SaleManager;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the skipping of redelivered {@link SaleNotification} messages
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"notifications.dedup.enabled=true",
+  "spring.activemq.broker-url=vm://saleNotificationRedeliveryTests?broker.persistent=false"})
+public class SaleNotificationRedeliveryTests {
+
+  @Autowired
+  private JmsTemplate jmsTemplate;
+
+  @Autowired
+  private ConnectionFactory connectionFactory;
+
+  @Autowired
+  private SaleNotificationBatchListener saleNotificationBatchListener;
+
+  @Autowired
+  private SaleManager saleManager;
+
+  private final String TEST_DESTINATION = "saleNotificationRedeliveries";
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_PRODUCT_TYPE_BANANA = "Banana";
+  private final String TEST_SALE_VALUE = ".20";
+
+  @After
+  public void tearDown() throws Exception {
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_APPLE);
+    saleManager.clearSalesAdjustmentsForProductType(TEST_PRODUCT_TYPE_APPLE);
+    saleManager.clearSalesForProductType(TEST_PRODUCT_TYPE_BANANA);
+  }
+
+  @Test
+  public void testRedeliveredNotificationsAreRecordedOnce() throws JMSException {
+    jmsTemplate.convertAndSend(TEST_DESTINATION, new SaleNotification(TEST_PRODUCT_TYPE_APPLE, TEST_SALE_VALUE, 2));
+    jmsTemplate.convertAndSend(TEST_DESTINATION, new SaleNotification(TEST_PRODUCT_TYPE_APPLE, TEST_SALE_VALUE, 1, "ADD", ".10"));
+
+    Connection connection = connectionFactory.createConnection();
+    try {
+      connection.start();
+      Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+      MessageConsumer consumer = session.createConsumer(session.createQueue(TEST_DESTINATION));
+
+      saleNotificationBatchListener.onMessages(receive(consumer, 2));
+
+      //Not acknowledged, so the broker delivers both messages again
+      session.recover();
+      List<Message> redelivered = receive(consumer, 2);
+      for (Message message : redelivered) {
+        assertTrue(message.getJMSRedelivered());
+      }
+      saleNotificationBatchListener.onMessages(redelivered);
+      redelivered.get(1).acknowledge();
+    } finally {
+      connection.close();
+    }
+
+    assertEquals(3, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+    assertEquals(1, saleManager.fetchSaleAdjustmentForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+    assertEquals(0, new BigDecimal(".90").compareTo(SaleSequences.totalValue(saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE))));
+  }
+
+  @Test
+  public void testResentNotificationsAreRecordedOnce() throws InterruptedException {
+    for (int i = 0; i < 3; i++) {
+      jmsTemplate.convertAndSend("saleNotifications", new SaleNotification(TEST_PRODUCT_TYPE_APPLE, TEST_SALE_VALUE, 1), message -> {
+        message.setStringProperty(SaleNotificationProcessor.NOTIFICATION_ID_PROPERTY, "apple-1");
+        return message;
+      });
+    }
+    jmsTemplate.convertAndSend("saleNotifications", new SaleNotification(TEST_PRODUCT_TYPE_BANANA, TEST_SALE_VALUE, 1));
+
+    for (int i = 0; i < 100 && saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_BANANA).isEmpty(); i++) {
+      Thread.sleep(50);
+    }
+
+    assertEquals(1, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_BANANA).size());
+    assertEquals(1, saleManager.fetchSalesForProductType(TEST_PRODUCT_TYPE_APPLE).size());
+  }
+
+  private List<Message> receive(MessageConsumer consumer, int count) throws JMSException {
+    List<Message> messages = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Message message = consumer.receive(5000);
+      assertNotNull(message);
+      messages.add(message);
+    }
+    return messages;
+  }
+}
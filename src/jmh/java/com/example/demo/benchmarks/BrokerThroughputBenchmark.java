@@ -0,0 +1,146 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.notifications.BatchMessageListenerContainer;
+import com.example.demo.notifications.BrokerTuning;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End to end throughput of notifications through a local embedded broker, from a producer to a
+ * {@link BatchMessageListenerContainer} set up as the application sets up its listener, for each {@link BrokerTuning}
+ * setting
+ * <p>
+ * Every invocation sends {@value #MESSAGES} notification messages and waits for the listener to have received them
+ * all, so the scores are in messages consumed per second. The listener only reads the message text, leaving the cost
+ * of processing notifications out. Other combinations are run with {@code -p}, e.g.
+ * {@code -p acknowledgement=DUPS_OK -p prefetch=1,100,1000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrokerThroughputBenchmark {
+
+  private static final int MESSAGES = 10000;
+  private static final String DESTINATION = "saleNotifications";
+  private static final String NOTIFICATION = "{\"productType\":\"Apple\",\"saleValue\":\".20\",\"noOfOccurrences\":1}";
+  private static final AtomicLong BROKERS = new AtomicLong();
+
+  /**
+   * Acknowledgement of the listener sessions, OPTIMIZED_AUTO being AUTO with optimized acknowledgements
+   */
+  public enum Acknowledgement {
+    TRANSACTED, AUTO, OPTIMIZED_AUTO, CLIENT, DUPS_OK
+  }
+
+  @Param({"TRANSACTED", "AUTO", "OPTIMIZED_AUTO", "CLIENT", "DUPS_OK"})
+  private Acknowledgement acknowledgement;
+
+  @Param({"PERSISTENT", "NON_PERSISTENT"})
+  private String deliveryMode;
+
+  @Param({"1000"})
+  private int prefetch;
+
+  @Param({"true"})
+  private boolean dispatchAsync;
+
+  @Param({"1", "100"})
+  private int batchSize;
+
+  private final AtomicLong received = new AtomicLong();
+  private long sent;
+  private BatchMessageListenerContainer container;
+  private Connection producerConnection;
+  private Session producerSession;
+  private MessageProducer producer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws JMSException {
+    BrokerTuning brokerTuning = new BrokerTuning();
+    brokerTuning.setPrefetch(prefetch);
+    brokerTuning.setOptimizeAcknowledge(acknowledgement == Acknowledgement.OPTIMIZED_AUTO);
+    brokerTuning.setDispatchAsync(dispatchAsync);
+    ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(
+      "vm://throughput" + BROKERS.incrementAndGet() + "?broker.persistent=false&broker.useJmx=false");
+    brokerTuning.customize(connectionFactory);
+
+    container = new BatchMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.setDestinationName(DESTINATION);
+    container.setSessionTransacted(acknowledgement == Acknowledgement.TRANSACTED);
+    container.setSessionAcknowledgeMode(acknowledgeMode(acknowledgement));
+    container.setBatchSize(batchSize);
+    //A short timeout, as every invocation ends on a partial batch
+    container.setBatchTimeout(1);
+    container.setBatchMessageListener(messages -> {
+      for (Message message : messages) {
+        ((TextMessage) message).getText();
+      }
+      received.addAndGet(messages.size());
+    });
+    container.afterPropertiesSet();
+    container.start();
+
+    producerConnection = connectionFactory.createConnection();
+    producerConnection.start();
+    producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    producer = producerSession.createProducer(producerSession.createQueue(DESTINATION));
+    producer.setDeliveryMode("PERSISTENT".equals(deliveryMode) ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws JMSException {
+    producerConnection.close();
+    container.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public void sendAndConsume() throws JMSException {
+    for (int i = 0; i < MESSAGES; i++) {
+      producer.send(producerSession.createTextMessage(NOTIFICATION));
+    }
+    sent += MESSAGES;
+    while (received.get() < sent) {
+      LockSupport.parkNanos(10_000);
+    }
+  }
+
+  private static int acknowledgeMode(Acknowledgement acknowledgement) {
+    switch (acknowledgement) {
+      case CLIENT:
+        return Session.CLIENT_ACKNOWLEDGE;
+      case DUPS_OK:
+        return Session.DUPS_OK_ACKNOWLEDGE;
+      default:
+        return Session.AUTO_ACKNOWLEDGE;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleSequences;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares BigDecimal sales ({@code fixedPointScale = -1}) with fixed-point ones
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+  private static final String PRODUCT_TYPE = "Apple";
+  private static final String RECORDED_PRODUCT_TYPE = "Banana";
+
+  @Param({"-1", "4"})
+  private int fixedPointScale;
+
+  @Param({"1000", "100000"})
+  private int salesPerProduct;
+
+  private SaleManager saleManager;
+  private List<Sale> sales;
+
+  private final BigDecimal saleValue = new BigDecimal("12.35");
+  private final SaleAdjustment add = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.ADD, new BigDecimal("0.10"));
+  private final SaleAdjustment subtract = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.SUBTRACT, new BigDecimal("0.10"));
+  private final SaleAdjustment multiply = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.MULTIPLY, BigDecimal.ONE);
+
+  @Setup(Level.Trial)
+  public void setUp() throws SaleProcessingException {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setFixedPointScale(fixedPointScale);
+    saleManager = new SaleManagerBuilder().saleDao(saleDao).build();
+
+    saleManager.recordSales(PRODUCT_TYPE, saleValue, salesPerProduct);
+    sales = saleManager.fetchSalesForProductType(PRODUCT_TYPE);
+  }
+
+  @Setup(Level.Iteration)
+  public void clearRecordedSales() {
+    saleManager.clearSalesForProductType(RECORDED_PRODUCT_TYPE);
+  }
+
+  /**
+   * An ADD and the SUBTRACT undoing it over all sales of a product, keeping their values steady
+   */
+  @Benchmark
+  public void addAndSubtract() {
+    SaleSequences.adjust(sales, add);
+    SaleSequences.adjust(sales, subtract);
+  }
+
+  @Benchmark
+  public void multiply() {
+    SaleSequences.adjust(sales, multiply);
+  }
+
+  @Benchmark
+  public BigDecimal totalValue() {
+    return SaleSequences.totalValue(sales);
+  }
+
+  @Benchmark
+  public void recordSale() throws SaleProcessingException {
+    saleManager.recordSale(RECORDED_PRODUCT_TYPE, saleValue);
+  }
+}
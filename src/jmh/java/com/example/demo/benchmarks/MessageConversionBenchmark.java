@@ -0,0 +1,121 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.SalesMessageProcessorApplication;
+import com.example.demo.managers.SaleMetrics;
+import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationFormat;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.MessageType;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of {@link SaleNotification}s through the {@code jacksonJmsMessageConverter} bean, writing JSON
+ * ({@code streaming}) or the binary format ({@code binary}), and through the Jackson databinding converter it replaced
+ * ({@code databind}). The encoded size of each format is printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageConversionBenchmark {
+
+  @Param({"databind", "streaming", "binary"})
+  private String converter;
+
+  private static final String[] PRODUCT_TYPES = {"Apple", "Banana", "Orange"};
+
+  private MessageConverter messageConverter;
+  private Session session;
+  private SaleNotification saleNotification;
+  private Message message;
+  private ActiveMQBytesMessage bytesMessage;
+
+  @Setup
+  public void setUp() throws JMSException {
+    if (converter.equals("databind")) {
+      MappingJackson2MessageConverter jacksonMessageConverter = new MappingJackson2MessageConverter();
+      jacksonMessageConverter.setTargetType(MessageType.TEXT);
+      jacksonMessageConverter.setTypeIdPropertyName("_type");
+      messageConverter = jacksonMessageConverter;
+    } else {
+      SaleNotificationFormat format = converter.equals("binary") ? SaleNotificationFormat.BINARY : SaleNotificationFormat.JSON;
+      messageConverter = new SalesMessageProcessorApplication().jacksonJmsMessageConverter(format, PRODUCT_TYPES, new SaleMetrics());
+    }
+
+    //Only creates the messages the converter asks for
+    session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+      (proxy, method, args) -> {
+        if (method.getName().equals("createTextMessage") && args != null && args.length == 1) {
+          ActiveMQTextMessage textMessage = new ActiveMQTextMessage();
+          textMessage.setText((String) args[0]);
+          return textMessage;
+        }
+        if (method.getName().equals("createBytesMessage") && args == null) {
+          return new ActiveMQBytesMessage();
+        }
+        throw new UnsupportedOperationException(method.getName());
+      });
+
+    saleNotification = new SaleNotification("Apple", ".20", 3, "ADD", ".10");
+    message = messageConverter.toMessage(saleNotification, session);
+
+    if (message instanceof BytesMessage) {
+      bytesMessage = (ActiveMQBytesMessage) message;
+      bytesMessage.reset();
+      System.out.println(converter + " SaleNotification: " + bytesMessage.getBodyLength() + " bytes");
+    } else {
+      byte[] json = ((TextMessage) message).getText().getBytes(StandardCharsets.UTF_8);
+      bytesMessage = new ActiveMQBytesMessage();
+      bytesMessage.writeBytes(json);
+      bytesMessage.setStringProperty("_type", SaleNotification.class.getName());
+      bytesMessage.reset();
+      System.out.println(converter + " SaleNotification: " + json.length + " bytes");
+    }
+  }
+
+  @Benchmark
+  public Message toMessage() throws JMSException {
+    return messageConverter.toMessage(saleNotification, session);
+  }
+
+  @Benchmark
+  public Object fromMessage() throws JMSException {
+    if (message == bytesMessage) {
+      bytesMessage.reset();
+    }
+    return messageConverter.fromMessage(message);
+  }
+
+  /**
+   * A UTF-8 JSON {@code BytesMessage}, read as a JSON string by the databinding converter, or the binary message
+   */
+  @Benchmark
+  public Object fromBytesMessage() throws JMSException {
+    bytesMessage.reset();
+    return messageConverter.fromMessage(bytesMessage);
+  }
+}
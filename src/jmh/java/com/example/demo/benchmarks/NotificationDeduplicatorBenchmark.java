@@ -0,0 +1,58 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.notifications.NotificationDeduplicator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NotificationDeduplicator#add(String)} of ids shaped like ActiveMQ message ids, fresh ones and ones just seen
+ * <p>
+ * The stream of fresh ids is longer than twice the capacity, so the tables keep rotating.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationDeduplicatorBenchmark {
+
+  @Param({"1000", "100000"})
+  private int capacity;
+
+  private NotificationDeduplicator notificationDeduplicator;
+  private String[] notificationIds;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    notificationDeduplicator = new NotificationDeduplicator(capacity);
+    notificationIds = new String[Integer.highestOneBit(capacity) * 8];
+    for (int i = 0; i < notificationIds.length; i++) {
+      notificationIds[i] = "ID:sales-host-41235-1600000000000-1:1:1:1:" + i;
+    }
+  }
+
+  @Benchmark
+  public boolean addFresh() {
+    return notificationDeduplicator.add(notificationIds[next++ & (notificationIds.length - 1)]);
+  }
+
+  @Benchmark
+  public boolean addDuplicate() {
+    String notificationId = notificationIds[next++ & (notificationIds.length - 1)];
+    notificationDeduplicator.add(notificationId);
+    return notificationDeduplicator.add(notificationId);
+  }
+}
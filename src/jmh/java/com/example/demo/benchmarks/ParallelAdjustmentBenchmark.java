@@ -0,0 +1,83 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleManager#recordSaleAdjustment(SaleAdjustment)} against one product holding {@code salesPerProduct} sales in
+ * a {@code saleStoreType} store, sweeping the {@code parallelThreshold} above which adjustments are split over the
+ * common fork-join pool, 0 adjusting sequentially
+ * <p>
+ * Sales are BigDecimal sales for a {@code fixedPointScale} of -1, fixed-point sales at that scale otherwise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelAdjustmentBenchmark {
+
+  private static final String PRODUCT_TYPE = "Product";
+
+  @Param({"10000", "100000", "1000000"})
+  private int salesPerProduct;
+
+  @Param({"0", "1000", "10000", "100000"})
+  private int parallelThreshold;
+
+  @Param({"LIST", "COLUMNAR"})
+  private SaleStoreType saleStoreType;
+
+  @Param({"-1", "2"})
+  private int fixedPointScale;
+
+  private SaleManager saleManager;
+
+  private final SaleAdjustment add = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.ADD, new BigDecimal("0.10"));
+  private final SaleAdjustment subtract = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.SUBTRACT, new BigDecimal("0.10"));
+
+  @Setup(Level.Trial)
+  public void setUp() throws SaleProcessingException {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(saleStoreType);
+    saleDao.setFixedPointScale(fixedPointScale);
+    saleManager = new SaleManagerBuilder().saleDao(saleDao).build();
+    saleManager.setParallelAdjustmentThreshold(parallelThreshold);
+    saleManager.recordSales(PRODUCT_TYPE, new BigDecimal("12.35"), salesPerProduct);
+  }
+
+  @Setup(Level.Iteration)
+  public void clearSaleAdjustments() {
+    saleManager.clearSalesAdjustmentsForProductType(PRODUCT_TYPE);
+  }
+
+  /**
+   * An ADD and the SUBTRACT undoing it
+   */
+  @Benchmark
+  public void recordSaleAdjustment() throws SaleProcessingException {
+    saleManager.recordSaleAdjustment(add);
+    saleManager.recordSaleAdjustment(subtract);
+  }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.ProductTypeDictionary;
+import com.example.demo.dao.SaleAdjustmentDao;
+import com.example.demo.dao.SaleDao;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleDao} lookups by product type against {@code productCount} products, given a fresh copy of the product
+ * type as deserialized from a message ({@code copied}), its canonical {@link ProductTypeDictionary} instance
+ * ({@code interned}) or its dictionary id
+ * <p>
+ * The heap retained by {@value #SAVED_ADJUSTMENTS} saved adjustments carrying copied or interned product types is
+ * printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductTypeDictionaryBenchmark {
+
+  private static final int SAVED_ADJUSTMENTS = 100_000;
+
+  @Param({"10", "1000"})
+  private int productCount;
+
+  @Param({"copied", "interned"})
+  private String productTypes;
+
+  private ProductTypeDictionary productTypeDictionary;
+  private SaleDao saleDao;
+  private SaleAdjustmentDao saleAdjustmentDao;
+  private String[] canonicalProductTypes;
+  private int next;
+
+  private final BigDecimal saleValue = new BigDecimal("12.35");
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    productTypeDictionary = new ProductTypeDictionary();
+    saleDao = new SaleDao(productTypeDictionary);
+    canonicalProductTypes = new String[productCount];
+    for (int i = 0; i < productCount; i++) {
+      canonicalProductTypes[i] = productTypeDictionary.intern("Product" + i);
+      saleDao.recordSale(canonicalProductTypes[i], saleValue);
+    }
+
+    long heapBefore = usedHeap();
+    saleAdjustmentDao = new SaleAdjustmentDao(productTypeDictionary);
+    for (int i = 0; i < SAVED_ADJUSTMENTS; i++) {
+      saleAdjustmentDao.save(new SaleAdjustment(productType(), SaleAdjustmentOperation.ADD, saleValue));
+    }
+    System.out.println(productTypes + " adjustments retain " + (usedHeap() - heapBefore) / 1024 + " KiB of heap");
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * The next product type, as the processor hands it to the DAOs
+   */
+  private String productType() {
+    String productType = canonicalProductTypes[next++ % productCount];
+    return productTypes.equals("copied") ? new String(productType.toCharArray()) : productType;
+  }
+
+  @Benchmark
+  public void recordSale() {
+    saleDao.recordSale(productType(), saleValue);
+  }
+
+  @Benchmark
+  public List<Sale> fetchForProductType() {
+    return saleDao.fetchForProductType(productType());
+  }
+
+  @Benchmark
+  public List<Sale> fetchForProductTypeId() {
+    return saleDao.fetchForProductType(next++ % productCount);
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleIndexDao;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping the {@link SaleIndexDao} up to date on the write path, and of ranking the product types when read,
+ * for {@code products} product types of {@code values} distinct sale values each
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleIndexBenchmark {
+
+  private static final String PRODUCT_TYPE = "Product0";
+
+  @Param({"1", "100"})
+  private int products;
+
+  @Param({"1000", "100000"})
+  private int values;
+
+  private SaleIndexDao saleIndexDao;
+  private BigDecimal[] saleValues;
+  private int next;
+
+  private final SaleAdjustment add = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.ADD, new BigDecimal("0.01"));
+  private final SaleAdjustment negate = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.MULTIPLY, new BigDecimal("-1"));
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    saleIndexDao = new SaleIndexDao();
+    saleIndexDao.setEnabled(true);
+    saleValues = new BigDecimal[values];
+    for (int i = 0; i < values; i++) {
+      saleValues[i] = BigDecimal.valueOf(i * 7919L % values, 2);
+    }
+    for (int product = 0; product < products; product++) {
+      for (BigDecimal saleValue : saleValues) {
+        saleIndexDao.recordSales("Product" + product, saleValue, 1);
+      }
+      //Freezes the values into runs, as adjustments do in between sales
+      saleIndexDao.recordSaleAdjustment(new SaleAdjustment("Product" + product, SaleAdjustmentOperation.ADD, BigDecimal.ZERO));
+    }
+  }
+
+  @Benchmark
+  public void recordSale() {
+    saleIndexDao.recordSales(PRODUCT_TYPE, saleValues[next++ % values], 1);
+  }
+
+  @Benchmark
+  public void recordSaleAdjustment() {
+    saleIndexDao.recordSaleAdjustment(next++ % 2 == 0 ? add : negate);
+  }
+
+  /**
+   * A sale then an adjustment, each freezing a run of one value, so that runs are merged as often as they can be
+   */
+  @Benchmark
+  public void recordSaleAndAdjustment() {
+    saleIndexDao.recordSales(PRODUCT_TYPE, saleValues[next++ % values], 1);
+    saleIndexDao.recordSaleAdjustment(next % 2 == 0 ? add : negate);
+  }
+
+  /**
+   * Ranks the product types, as they are ranked when read
+   */
+  @Benchmark
+  public List<SaleAggregate> fetchTopByRevenue() {
+    return saleIndexDao.fetchTopByRevenue(10);
+  }
+
+  @Benchmark
+  public long countSalesInRange() {
+    return saleIndexDao.countForProductType(PRODUCT_TYPE, saleValues[next++ % values], saleValues[next % values]);
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleIndexDao;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationProcessor;
+import com.example.demo.notifications.SaleNotificationProcessorBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleNotificationProcessor#receiveSaleNotification(SaleNotification)} with {@code partitions} workers
+ * recording, and the {@link SaleIndexDao} kept up to date when {@code indexEnabled}
+ * <p>
+ * The listener blocks once a partition queue is full, so the throughput is that of the workers recording in parallel,
+ * which only scales with the partitions as long as indexing product types does not serialize them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleIndexPartitionBenchmark {
+
+  private static final String[] OPERATIONS = {"ADD", "SUBTRACT", "MULTIPLY"};
+  private static final String[] VALUES = {".20", "1.5", "3", "0.99"};
+
+  @Param({"0", "4"})
+  private int partitions;
+
+  @Param({"false", "true"})
+  private boolean indexEnabled;
+
+  @Param({"100"})
+  private int productCount;
+
+  @Param({"0.0", "0.01"})
+  private double adjustmentRatio;
+
+  private SaleManager saleManager;
+  private SaleNotificationProcessor saleNotificationProcessor;
+  private SaleNotification[] saleNotifications;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SaleIndexDao saleIndexDao = new SaleIndexDao();
+    saleIndexDao.setEnabled(indexEnabled);
+    saleManager = new SaleManagerBuilder().saleIndexDao(saleIndexDao).build();
+    saleNotificationProcessor = new SaleNotificationProcessorBuilder(saleManager).build();
+    saleNotificationProcessor.setReportFrequency(Integer.MAX_VALUE);
+    saleNotificationProcessor.setMessageThreshold(Integer.MAX_VALUE);
+    saleNotificationProcessor.setPartitions(partitions);
+    saleNotificationProcessor.startPartitions();
+
+    Random random = new Random(42);
+    saleNotifications = new SaleNotification[4096];
+    for (int i = 0; i < saleNotifications.length; i++) {
+      String productType = "Product" + random.nextInt(productCount);
+      String saleValue = VALUES[random.nextInt(VALUES.length)];
+      saleNotifications[i] = random.nextDouble() < adjustmentRatio
+        ? new SaleNotification(productType, saleValue, 1, OPERATIONS[random.nextInt(OPERATIONS.length)],
+        VALUES[random.nextInt(VALUES.length)])
+        : new SaleNotification(productType, saleValue, 1);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void clearSales() {
+    for (int i = 0; i < productCount; i++) {
+      saleManager.clearSalesForProductType("Product" + i);
+      saleManager.clearSalesAdjustmentsForProductType("Product" + i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    saleNotificationProcessor.stopPartitions();
+  }
+
+  @Benchmark
+  public void receiveSaleNotification() {
+    saleNotificationProcessor.receiveSaleNotification(saleNotifications[next++ & (saleNotifications.length - 1)]);
+  }
+}
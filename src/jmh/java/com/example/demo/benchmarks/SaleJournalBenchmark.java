@@ -0,0 +1,138 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleJournal;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link SaleJournal} append throughput, committing every {@code commitInterval} milliseconds or on every append, and
+ * recovery time from a log of {@code logRecords} records or from a snapshot of them
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleJournalBenchmark {
+
+  private static final BigDecimal SALE_VALUE = new BigDecimal("12.35");
+  private static final SaleAdjustment ADD = new SaleAdjustment("Product0", SaleAdjustmentOperation.ADD, new BigDecimal("0.10"));
+
+  @State(Scope.Thread)
+  public static class AppendState {
+
+    @Param({"0", "10"})
+    private long commitInterval;
+
+    private Path directory;
+    private SaleJournal saleJournal;
+    private SaleManager saleManager;
+
+    //A fresh log per iteration keeps its size bounded
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+      directory = Files.createTempDirectory("sale-journal");
+      saleJournal = newSaleJournal(directory, commitInterval, Long.MAX_VALUE);
+      saleManager = newSaleManager(saleJournal);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+      saleJournal.close();
+      delete(directory);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class RecoveryState {
+
+    @Param({"10000", "100000"})
+    private int logRecords;
+
+    @Param({"false", "true"})
+    private boolean snapshot;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SaleProcessingException {
+      directory = Files.createTempDirectory("sale-journal");
+      SaleJournal saleJournal = newSaleJournal(directory, 10, snapshot ? 1 : Long.MAX_VALUE);
+      SaleManager saleManager = newSaleManager(saleJournal);
+      for (int i = 0; i < logRecords; i++) {
+        if (i % 10 == 9) {
+          saleManager.recordSaleAdjustment(ADD);
+        } else {
+          saleManager.recordSale("Product" + i % 10, SALE_VALUE);
+        }
+      }
+      saleManager.checkpoint();
+      saleJournal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      delete(directory);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void recordSale(AppendState state) throws SaleProcessingException {
+    state.saleManager.recordSale("Product0", SALE_VALUE);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SaleManager recover(RecoveryState state) throws IOException {
+    SaleJournal saleJournal = newSaleJournal(state.directory, 10, Long.MAX_VALUE);
+    SaleManager saleManager = newSaleManager(saleJournal);
+    saleJournal.close();
+    return saleManager;
+  }
+
+  private static SaleJournal newSaleJournal(Path directory, long commitInterval, long snapshotRecords) {
+    SaleJournal saleJournal = new SaleJournal();
+    saleJournal.setEnabled(true);
+    saleJournal.setDirectory(directory.toString());
+    saleJournal.setCommitInterval(commitInterval);
+    saleJournal.setSnapshotRecords(snapshotRecords);
+    return saleJournal;
+  }
+
+  private static SaleManager newSaleManager(SaleJournal saleJournal) throws IOException {
+    SaleManager saleManager = new SaleManagerBuilder().saleJournal(saleJournal).build();
+    saleManager.recoverSales();
+    return saleManager;
+  }
+
+  private static void delete(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleManager} and {@link SaleDao} operations against {@code productCount} products holding
+ * {@code salesPerProduct} sales each, in a {@code saleStoreType} store holding fixed-point sales at
+ * {@code fixedPointScale}, or BigDecimal sales for -1
+ * <p>
+ * The report is written to a discarding stream, so only producing it is measured. The heap retained by the recorded
+ * sales is printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleManagerBenchmark {
+
+  private static final String RECORDED_PRODUCT_TYPE = "Recorded";
+
+  @Param({"1", "10"})
+  private int productCount;
+
+  @Param({"100", "10000", "100000"})
+  private int salesPerProduct;
+
+  @Param({"LIST", "COLUMNAR", "OFF_HEAP"})
+  private SaleStoreType saleStoreType;
+
+  @Param({"-1", "2"})
+  private int fixedPointScale;
+
+  private SaleDao saleDao;
+  private SaleManager saleManager;
+  private PrintStream systemOut;
+
+  private final BigDecimal saleValue = new BigDecimal("12.35");
+  private final SaleAdjustment add = new SaleAdjustment("Product0", SaleAdjustmentOperation.ADD, new BigDecimal("0.10"));
+  private final SaleAdjustment subtract = new SaleAdjustment("Product0", SaleAdjustmentOperation.SUBTRACT, new BigDecimal("0.10"));
+
+  @Setup(Level.Trial)
+  public void setUp() throws SaleProcessingException {
+    long heapBefore = usedHeap();
+    saleDao = new SaleDao();
+    saleDao.setSaleStoreType(saleStoreType);
+    saleDao.setFixedPointScale(fixedPointScale);
+    saleManager = new SaleManagerBuilder().saleDao(saleDao).build();
+    for (int i = 0; i < productCount; i++) {
+      saleManager.recordSales("Product" + i, saleValue, salesPerProduct);
+    }
+    System.out.println(saleStoreType + " sales retain " + (usedHeap() - heapBefore) / 1024 + " KiB of heap");
+
+    systemOut = System.out;
+    System.setOut(new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+      }
+    }));
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.setOut(systemOut);
+  }
+
+  @Setup(Level.Iteration)
+  public void clearRecordedSales() {
+    saleManager.clearSalesForProductType(RECORDED_PRODUCT_TYPE);
+    saleManager.clearSalesAdjustmentsForProductType(add.getProductType());
+  }
+
+  @Benchmark
+  public void recordSale() throws SaleProcessingException {
+    saleManager.recordSale(RECORDED_PRODUCT_TYPE, saleValue);
+  }
+
+  /**
+   * An ADD and the SUBTRACT undoing it, over the sales of one product
+   */
+  @Benchmark
+  public void recordSaleAdjustment() throws SaleProcessingException {
+    saleManager.recordSaleAdjustment(add);
+    saleManager.recordSaleAdjustment(subtract);
+  }
+
+  @Benchmark
+  public Map<String, List<Sale>> fetchAllSales() {
+    return saleDao.fetchAllSales();
+  }
+
+  @Benchmark
+  public void logSaleReport() {
+    saleManager.logSaleReport();
+  }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationProcessor;
+import com.example.demo.notifications.SaleNotificationProcessorBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleNotificationProcessor#receiveSaleNotification(SaleNotification)} with the processor logging at INFO
+ * <p>
+ * Entries are written to a temporary file with the console pattern of Spring Boot, by the listener thread or with
+ * {@code asyncAppender} through a logback {@code AsyncAppender}, which drops INFO entries once its queue is 80% full.
+ * {@code maxLogsPerSecond} samples the notifications received, 0 logs every one. Sales are cleared before each
+ * iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleNotificationLoggingBenchmark {
+
+  private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p ${PID:- } --- [%15.15t] %-40.40logger{39} : %m%n";
+
+  @Param({"0", "100"})
+  private int maxLogsPerSecond;
+
+  @Param({"false", "true"})
+  private boolean asyncAppender;
+
+  private SaleManager saleManager;
+  private Logger processorLogger;
+  private Appender<ILoggingEvent> appender;
+  private File logFile;
+  private SaleNotificationProcessor saleNotificationProcessor;
+  private SaleNotification[] saleNotifications;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+    logFile = File.createTempFile("sale-notifications", ".log");
+
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(loggerContext);
+    encoder.setPattern(PATTERN);
+    encoder.start();
+    FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+    fileAppender.setContext(loggerContext);
+    fileAppender.setFile(logFile.getPath());
+    fileAppender.setEncoder(encoder);
+    fileAppender.start();
+    appender = fileAppender;
+    if (asyncAppender) {
+      AsyncAppender async = new AsyncAppender();
+      async.setContext(loggerContext);
+      async.setQueueSize(8192);
+      async.addAppender(fileAppender);
+      async.start();
+      appender = async;
+    }
+
+    processorLogger = loggerContext.getLogger(SaleNotificationProcessor.class);
+    processorLogger.setLevel(Level.INFO);
+    processorLogger.setAdditive(false);
+    processorLogger.addAppender(appender);
+
+    saleManager = new SaleManagerBuilder().build();
+    saleNotificationProcessor = new SaleNotificationProcessorBuilder(saleManager).build();
+    saleNotificationProcessor.setReportFrequency(Integer.MAX_VALUE);
+    saleNotificationProcessor.setMessageThreshold(Integer.MAX_VALUE);
+    saleNotificationProcessor.setMaxReceivedLogsPerSecond(maxLogsPerSecond);
+
+    saleNotifications = new SaleNotification[10];
+    for (int i = 0; i < saleNotifications.length; i++) {
+      saleNotifications[i] = new SaleNotification("Product" + i, ".20", 1);
+    }
+  }
+
+  @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+  public void clearSales() {
+    for (SaleNotification saleNotification : saleNotifications) {
+      saleManager.clearSalesForProductType(saleNotification.getProductType());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    processorLogger.detachAppender(appender);
+    processorLogger.setAdditive(true);
+    processorLogger.setLevel(null);
+    appender.stop();
+    logFile.delete();
+  }
+
+  @Benchmark
+  public void receiveSaleNotification() {
+    saleNotificationProcessor.receiveSaleNotification(saleNotifications[next++ % saleNotifications.length]);
+  }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.managers.SaleMetrics;
+import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationProcessor;
+import com.example.demo.notifications.SaleNotificationProcessorBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleNotificationProcessor#receiveSaleNotification(SaleNotification)} without a broker, on a stream of
+ * generated notifications
+ * <p>
+ * Reports and the threshold stop are left out. Sales are cleared before each iteration, adjustments are applied on
+ * the sales recorded within it. With {@code metricsEnabled} every stage is metered in a {@code SimpleMeterRegistry}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleNotificationProcessorBenchmark {
+
+  private static final String[] OPERATIONS = {"ADD", "SUBTRACT", "MULTIPLY"};
+  private static final String[] VALUES = {".20", "1.5", "3", "0.99"};
+
+  @Param({"1", "10", "100"})
+  private int productCount;
+
+  @Param({"1", "10"})
+  private int noOfOccurrences;
+
+  @Param({"0.0", "0.01", "0.1"})
+  private double adjustmentRatio;
+
+  @Param({"false", "true"})
+  private boolean metricsEnabled;
+
+  private SaleManager saleManager;
+  private SaleNotificationProcessor saleNotificationProcessor;
+  private SaleNotification[] saleNotifications;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SaleMetrics saleMetrics = new SaleMetrics();
+    saleMetrics.setEnabled(metricsEnabled);
+    saleMetrics.register();
+    saleManager = new SaleManagerBuilder().saleMetrics(saleMetrics).build();
+    saleNotificationProcessor = new SaleNotificationProcessorBuilder(saleManager).saleMetrics(saleMetrics).build();
+    saleNotificationProcessor.setReportFrequency(Integer.MAX_VALUE);
+    saleNotificationProcessor.setMessageThreshold(Integer.MAX_VALUE);
+
+    Random random = new Random(42);
+    saleNotifications = new SaleNotification[4096];
+    for (int i = 0; i < saleNotifications.length; i++) {
+      String productType = productType(random.nextInt(productCount));
+      String saleValue = VALUES[random.nextInt(VALUES.length)];
+      saleNotifications[i] = random.nextDouble() < adjustmentRatio
+        ? new SaleNotification(productType, saleValue, noOfOccurrences, OPERATIONS[random.nextInt(OPERATIONS.length)], VALUES[random.nextInt(VALUES.length)])
+        : new SaleNotification(productType, saleValue, noOfOccurrences);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void clearSales() {
+    for (int i = 0; i < productCount; i++) {
+      saleManager.clearSalesForProductType(productType(i));
+      saleManager.clearSalesAdjustmentsForProductType(productType(i));
+    }
+  }
+
+  @Benchmark
+  public void receiveSaleNotification() {
+    saleNotificationProcessor.receiveSaleNotification(saleNotifications[next++ & (saleNotifications.length - 1)]);
+  }
+
+  private static String productType(int index) {
+    return "Product" + index;
+  }
+}
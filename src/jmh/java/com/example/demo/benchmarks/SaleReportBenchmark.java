@@ -0,0 +1,98 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import com.example.demo.managers.SaleReporter;
+import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationProcessor;
+import com.example.demo.notifications.SaleNotificationProcessorBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleNotificationProcessor#receiveSaleNotification(SaleNotification)} with a sale report logged every
+ * {@code reportFrequency} notifications, over {@code productCount} products
+ * <p>
+ * Reports are written to an unbuffered stream on a temporary file, standing in for the console, by the listener
+ * thread or with {@code asyncReports} by the {@link SaleReporter} thread. The sample time percentiles show the
+ * notifications that paid for a report.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleReportBenchmark {
+
+  @Param({"10", "1000"})
+  private int productCount;
+
+  @Param({"10"})
+  private int reportFrequency;
+
+  @Param({"false", "true"})
+  private boolean incrementalReports;
+
+  @Param({"false", "true"})
+  private boolean asyncReports;
+
+  private SaleReporter saleReporter;
+  private SaleNotificationProcessor saleNotificationProcessor;
+  private SaleNotification[] saleNotifications;
+  private int next;
+
+  private File reportFile;
+  private PrintStream systemOut;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SaleManager saleManager = new SaleManagerBuilder().build();
+    saleManager.setIncrementalReportEnabled(incrementalReports);
+    saleReporter = new SaleReporter(saleManager);
+    saleReporter.setAsyncEnabled(asyncReports);
+    saleReporter.start();
+    saleNotificationProcessor = new SaleNotificationProcessorBuilder(saleManager).saleReporter(saleReporter).build();
+    saleNotificationProcessor.setReportFrequency(reportFrequency);
+    saleNotificationProcessor.setMessageThreshold(Integer.MAX_VALUE);
+
+    saleNotifications = new SaleNotification[productCount];
+    for (int i = 0; i < productCount; i++) {
+      saleNotifications[i] = new SaleNotification("Product" + i, "0.20", 1);
+    }
+
+    reportFile = File.createTempFile("sale-report", ".txt");
+    systemOut = System.out;
+    System.setOut(new PrintStream(new FileOutputStream(reportFile)));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    saleReporter.stop();
+    System.out.close();
+    System.setOut(systemOut);
+    reportFile.delete();
+  }
+
+  @Benchmark
+  public void receiveSaleNotification() {
+    saleNotificationProcessor.receiveSaleNotification(saleNotifications[next++ % productCount]);
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dao.SaleWindowDao;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaleWindowDao} operations on a product whose window of {@code buckets} buckets of one second is full, which
+ * cost the same whatever the number of sales recorded in the window
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleWindowBenchmark {
+
+  private static final String PRODUCT_TYPE = "Product";
+
+  @Param({"6", "60", "360"})
+  private int buckets;
+
+  private SaleWindowDao saleWindowDao;
+
+  private final BigDecimal saleValue = new BigDecimal("12.35");
+  private final SaleAdjustment add = new SaleAdjustment(PRODUCT_TYPE, SaleAdjustmentOperation.ADD, new BigDecimal("0.10"));
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    saleWindowDao = new SaleWindowDao(new BenchmarkClock(buckets));
+    saleWindowDao.setEnabled(true);
+    saleWindowDao.setBucketSeconds(1);
+    saleWindowDao.setBuckets(buckets);
+    for (int i = 0; i < buckets; i++) {
+      saleWindowDao.recordSales(PRODUCT_TYPE, saleValue, 1000);
+    }
+  }
+
+  @Benchmark
+  public void recordSale() {
+    saleWindowDao.recordSales(PRODUCT_TYPE, saleValue, 1);
+  }
+
+  @Benchmark
+  public void recordSaleAdjustment() {
+    saleWindowDao.recordSaleAdjustment(add);
+  }
+
+  @Benchmark
+  public SaleAggregate fetchWindowAggregate() {
+    return saleWindowDao.fetchForProductType(PRODUCT_TYPE);
+  }
+
+  /**
+   * Clock moving on by a bucket on every read during setup, then standing still at the end of the window
+   */
+  private static final class BenchmarkClock extends Clock {
+
+    private final int buckets;
+    private long reads;
+
+    private BenchmarkClock(int buckets) {
+      this.buckets = buckets;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public long millis() {
+      return Math.min(reads++, buckets - 1) * 1000L;
+    }
+  }
+}
@@ -1,6 +1,16 @@
 package com.example.demo;
 
+import com.example.demo.managers.SaleMetrics;
+import com.example.demo.notifications.BatchJmsListenerContainerFactory;
+import com.example.demo.notifications.BrokerTuning;
 import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationBatchListener;
+import com.example.demo.notifications.SaleNotificationCodec;
+import com.example.demo.notifications.SaleNotificationFormat;
+import com.example.demo.notifications.SaleNotificationLoadGenerator;
+import com.example.demo.notifications.SaleNotificationMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
@@ -15,6 +25,7 @@ import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.jms.support.converter.MessageType;
 
 import javax.jms.ConnectionFactory;
+import java.util.Arrays;
 
 @SpringBootApplication
 @EnableJms
@@ -22,25 +33,52 @@ public class SalesMessageProcessorApplication {
 
   @Bean
   public JmsListenerContainerFactory<?> myFactory(ConnectionFactory connectionFactory,
-                                                  DefaultJmsListenerContainerFactoryConfigurer configurer) {
+                                                  DefaultJmsListenerContainerFactoryConfigurer configurer,
+                                                  ObjectProvider<SaleNotificationBatchListener> saleNotificationBatchListener,
+                                                  BrokerTuning brokerTuning,
+                                                  @Value("${notifications.batch.size:1}") int batchSize,
+                                                  @Value("${notifications.batch.timeout:100}") long batchTimeout) {
     DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+    if (batchSize > 1) {
+      // Receive notifications in batches, bypassing the per message listener. The batch listener is looked up lazily
+      // as it depends on the listener endpoint registered with this factory
+      BatchJmsListenerContainerFactory batchFactory = new BatchJmsListenerContainerFactory(
+        messages -> saleNotificationBatchListener.getObject().onMessages(messages));
+      batchFactory.setBatchSize(batchSize);
+      batchFactory.setBatchTimeout(batchTimeout);
+      factory = batchFactory;
+    }
     // This provides all boot's default to this factory, including the message converter
     configurer.configure(factory, connectionFactory);
-    // You could still override some of Boot's default if necessary.
+    // You could still override some of Boot's default if necessary, as the broker tuning does for transacted sessions
+    brokerTuning.configure(factory);
     return factory;
   }
 
-  @Bean // Serialize message content to json using TextMessage
-  public MessageConverter jacksonJmsMessageConverter() {
+  @Bean // Serialize message content to json using TextMessage, SaleNotifications are streamed or binary encoded
+  public MessageConverter jacksonJmsMessageConverter(@Value("${notifications.format:JSON}") SaleNotificationFormat format,
+                                                     @Value("${notifications.binary.productTypes:}") String[] productTypes,
+                                                     SaleMetrics saleMetrics) {
     MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
     converter.setTargetType(MessageType.TEXT);
     converter.setTypeIdPropertyName("_type");
-    return converter;
+    return new SaleNotificationMessageConverter(converter, "_type", new SaleNotificationCodec(Arrays.asList(productTypes)), format,
+      saleMetrics);
   }
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws InterruptedException {
     ConfigurableApplicationContext context = SpringApplication.run(SalesMessageProcessorApplication.class, args);
-    JmsTemplate jmsTemplate = context.getBean(JmsTemplate.class);
+    SaleNotificationLoadGenerator loadGenerator = context.getBean(SaleNotificationLoadGenerator.class);
+    if (loadGenerator.isEnabled()) {
+      loadGenerator.run();
+      //The run is over once reported
+      SpringApplication.exit(context);
+    } else {
+      sendSampleNotifications(context.getBean(JmsTemplate.class));
+    }
+  }
+
+  private static void sendSampleNotifications(JmsTemplate jmsTemplate) {
 
     String TEST_PRODUCT_TYPE_APPLE = "Apple";
     String TEST_PRODUCT_TYPE_BANANA = "Banana";
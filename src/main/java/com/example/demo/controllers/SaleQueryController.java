@@ -0,0 +1,101 @@
+package com.example.demo.controllers;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.managers.SaleQueryManager;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read only REST endpoint for the queries of {@link SaleQueryManager}
+ * <p>
+ * Served when the application runs as a web application, see {@code spring.main.web-application-type}. Sale queries
+ * answer 404 while the sale index is disabled.
+ */
+@RestController
+@RequestMapping("/query")
+public class SaleQueryController {
+
+  private static final int MAX_LIMIT = 1000;
+
+  private final SaleQueryManager saleQueryManager;
+
+  /**
+   * Initialises a new {@link SaleQueryController} with the given parameters
+   *
+   * @param saleQueryManager
+   */
+  @Autowired
+  public SaleQueryController(SaleQueryManager saleQueryManager) {
+    this.saleQueryManager = saleQueryManager;
+  }
+
+  /**
+   * Counts and lists the values of the Sales of the given {@code productType} valued from {@code minValue} to
+   * {@code maxValue}
+   *
+   * @param productType
+   * @param minValue    no lower bound when missing
+   * @param maxValue    no upper bound when missing
+   * @param limit       number of distinct values listed at most, up to {@value #MAX_LIMIT}
+   * @return the sale count and the number of sales by value, lowest first
+   */
+  @GetMapping("/sales/{productType}")
+  public Map<String, Object> fetchSalesInRange(@PathVariable String productType,
+                                               @RequestParam(required = false) BigDecimal minValue,
+                                               @RequestParam(required = false) BigDecimal maxValue,
+                                               @RequestParam(defaultValue = "100") int limit) {
+    checkSaleIndexEnabled();
+    Map<String, Object> salesInRange = new LinkedHashMap<>();
+    salesInRange.put("productType", productType);
+    salesInRange.put("saleCount", saleQueryManager.countSalesInRange(productType, minValue, maxValue));
+    salesInRange.put("values", saleQueryManager.fetchSaleValuesInRange(productType, minValue, maxValue,
+      Math.min(limit, MAX_LIMIT)));
+    return salesInRange;
+  }
+
+  /**
+   * @param count number of product types fetched at most, up to {@value #MAX_LIMIT}
+   * @return the sale aggregates of the product types with the highest total sale value, highest first
+   */
+  @GetMapping("/revenue")
+  public List<SaleAggregate> fetchTopProductTypesByRevenue(@RequestParam(defaultValue = "10") int count) {
+    checkSaleIndexEnabled();
+    return saleQueryManager.fetchTopProductTypesByRevenue(Math.min(count, MAX_LIMIT));
+  }
+
+  /**
+   * @param saleAdjustmentOperation
+   * @param productType             all product types when missing
+   * @return the sale adjustments of the operation by product type
+   */
+  @GetMapping("/adjustments/{saleAdjustmentOperation}")
+  public Map<String, List<SaleAdjustment>> fetchSaleAdjustmentsForOperation(
+    @PathVariable SaleAdjustmentOperation saleAdjustmentOperation,
+    @RequestParam(required = false) String productType) {
+    if (productType == null) {
+      return saleQueryManager.fetchSaleAdjustmentsForOperation(saleAdjustmentOperation);
+    }
+    return Collections.singletonMap(productType,
+      saleQueryManager.fetchSaleAdjustmentsForOperation(productType, saleAdjustmentOperation));
+  }
+
+  private void checkSaleIndexEnabled() {
+    if (!saleQueryManager.isSaleIndexEnabled()) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sale index is not enabled");
+    }
+  }
+}
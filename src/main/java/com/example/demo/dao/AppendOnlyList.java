@@ -0,0 +1,125 @@
+package com.example.demo.dao;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread safe list supporting appends only
+ * <p>
+ * Appends are serialised on the list while reads take no lock: an element is published before the size covering it,
+ * so readers and iterators see a consistent, possibly growing, prefix and never fail with a
+ * {@link java.util.ConcurrentModificationException}. For the same reason {@link #snapshot()} shares the elements
+ * instead of copying them.
+ * <p>
+ * Elements are held in segments of {@value #SEGMENT_SIZE}, the first one growing up to that size as an array list
+ * does, so that growing past it never copies elements, and subclasses changing elements which snapshots share only
+ * copy the segments they change.
+ *
+ * @param <E> the type of elements
+ */
+public class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+  static final int SEGMENT_SIZE = 1 << 12;
+  static final int SEGMENT_SHIFT = 12;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+  private static final int INITIAL_CAPACITY = 10;
+
+  //Replaced rather than changed once published, but for the slots of elements appended past the size
+  private volatile Object[][] segments = {new Object[INITIAL_CAPACITY]};
+  private volatile int size = 0;
+
+  /**
+   * Initialises an empty {@link AppendOnlyList}
+   */
+  public AppendOnlyList() {
+  }
+
+  /**
+   * Initialises a list of the elements {@code list} holds now, sharing them, for subclasses taking snapshots
+   *
+   * @param list
+   */
+  protected AppendOnlyList(AppendOnlyList<E> list) {
+    synchronized (list) {
+      this.segments = list.segments;
+      this.size = list.size;
+    }
+  }
+
+  /**
+   * @return an unmodifiable view of the elements the list holds now, unaffected by later appends
+   */
+  public List<E> snapshot() {
+    return Collections.unmodifiableList(new AppendOnlyList<>(this));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    int size = this.size;
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return (E) segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized boolean add(E element) {
+    ensureCapacity(size + 1);
+    segments[size >>> SEGMENT_SHIFT][size & SEGMENT_MASK] = element;
+    size = size + 1;
+    return true;
+  }
+
+  /**
+   * Replaces a segment with a copy in which every element is copied with {@code copy}, for subclasses changing elements
+   * which snapshots share
+   *
+   * @param segment index of the segment, that of element {@code index} being {@code index >>> SEGMENT_SHIFT}
+   * @param copy
+   */
+  @SuppressWarnings("unchecked")
+  protected synchronized void copySegment(int segment, UnaryOperator<E> copy) {
+    Object[][] copied = segments.clone();
+    Object[] elements = copied[segment].clone();
+    int length = Math.min(elements.length, size - segment * SEGMENT_SIZE);
+    for (int i = 0; i < length; i++) {
+      elements[i] = copy.apply((E) elements[i]);
+    }
+    copied[segment] = elements;
+    segments = copied;
+  }
+
+  /**
+   * Ensures the list can hold {@code capacity} elements without growing, for subclasses appending in bulk
+   *
+   * @param capacity
+   */
+  protected synchronized void ensureCapacity(int capacity) {
+    Object[][] grown = segments;
+    Object[] first = grown[0];
+    if (grown.length == 1 && capacity > first.length && first.length < SEGMENT_SIZE) {
+      grown = new Object[][]{Arrays.copyOf(first, Math.min(SEGMENT_SIZE, Math.max(capacity, first.length + (first.length >> 1))))};
+    }
+    int segmentCount = (capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+    if (segmentCount > grown.length) {
+      int allocated = grown.length;
+      grown = Arrays.copyOf(grown, segmentCount);
+      for (int segment = allocated; segment < segmentCount; segment++) {
+        grown[segment] = new Object[SEGMENT_SIZE];
+      }
+    }
+    if (grown != segments) {
+      segments = grown;
+    }
+  }
+}
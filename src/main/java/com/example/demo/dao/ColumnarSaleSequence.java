@@ -0,0 +1,565 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.FixedPointMoney;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleValueTransform;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * {@link SaleSequence} storing sale ids and values in primitive columns
+ * <p>
+ * Columns are allocated in chunks of {@value #CHUNK_SIZE} sales, on the heap or in direct buffers, and are never copied
+ * as the sequence grows. The product type is held once by the sequence rather than once per sale.
+ * <p>
+ * Fixed-point sequences hold values as units of {@code 10^-valueScale}. Exact sequences, with a value scale of -1,
+ * hold the unscaled value and the scale of each value and so keep BigDecimal semantics. Either way the rare value
+ * whose unscaled value does not fit a long is kept on the heap. Elements are read only {@link Sale} views created on
+ * access, {@link #cursor()} scans without creating any. All access is synchronized on the sequence, parallel
+ * adjustments only split the work of the thread holding the lock.
+ * <p>
+ * Snapshots share the chunks, and an adjustment copies the value chunks it changes if they are shared. Values kept on
+ * the heap are held per chunk, shared and copied along with their value chunk. Appends only write past the sales of
+ * the snapshots, so sale id chunks are never copied.
+ */
+public class ColumnarSaleSequence extends AbstractList<Sale> implements SaleSequence, RandomAccess {
+
+  static final int CHUNK_SIZE = 1 << 14;
+  private static final int CHUNK_SHIFT = 14;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  //Chunk sums of values up to this bound cannot overflow
+  private static final long PLAIN_SUM_BOUND = Long.MAX_VALUE / CHUNK_SIZE;
+
+  private final String productType;
+  private final int valueScale;
+  private final boolean offHeap;
+
+  private IntBuffer[] saleIds = new IntBuffer[1];
+  private LongBuffer[] valueUnits = new LongBuffer[1];
+  //Only for exact sequences
+  private IntBuffer[] valueScales;
+  //Values whose unscaled value does not fit a long by index, per chunk, null for chunks without any
+  private Map<Integer, BigDecimal>[] overflowValues = newOverflowValues(1);
+  private int overflowCount;
+  private long maxAbsValueUnits;
+  private int size;
+
+  private final boolean readOnly;
+  private boolean[] sharedChunks = new boolean[1];
+  private boolean[] sharedOverflowValues = new boolean[1];
+  //Guards the overflow values against parallel range adjustments
+  private final Object overflowLock = new Object();
+
+  /**
+   * Initialises an empty {@link ColumnarSaleSequence} for the given parameters
+   *
+   * @param productType
+   * @param valueScale  scale the sale values are rounded to, -1 to keep them exact
+   * @param offHeap     whether columns are allocated in direct buffers
+   */
+  public ColumnarSaleSequence(String productType, int valueScale, boolean offHeap) {
+    if (valueScale != -1 && !FixedPointMoney.isSupportedScale(valueScale)) {
+      throw new IllegalArgumentException("Unsupported fixed-point scale " + valueScale);
+    }
+    this.productType = productType;
+    this.valueScale = valueScale;
+    this.offHeap = offHeap;
+    this.readOnly = false;
+    if (valueScale == -1) {
+      valueScales = new IntBuffer[1];
+    }
+  }
+
+  private ColumnarSaleSequence(ColumnarSaleSequence sales) {
+    this.productType = sales.productType;
+    this.valueScale = sales.valueScale;
+    this.offHeap = sales.offHeap;
+    this.saleIds = sales.saleIds.clone();
+    this.valueUnits = sales.valueUnits.clone();
+    this.valueScales = sales.valueScales == null ? null : sales.valueScales.clone();
+    this.overflowValues = sales.overflowValues.clone();
+    this.overflowCount = sales.overflowCount;
+    this.maxAbsValueUnits = sales.maxAbsValueUnits;
+    this.size = sales.size;
+    this.readOnly = true;
+  }
+
+  /**
+   * Appends {@code count} sales of the given {@code value}, rounded to the scale of fixed-point sequences
+   *
+   * @param value
+   * @param count
+   * @param saleIds generator for the id of each sale
+   */
+  public synchronized void append(BigDecimal value, int count, IntSupplier saleIds) {
+    checkWritable();
+    BigDecimal stored = isExact() ? value : FixedPointMoney.round(value, valueScale);
+    long units = unscaledValue(stored);
+    for (int i = 0; i < count; i++) {
+      int index = size;
+      if ((index & CHUNK_MASK) == 0) {
+        allocateChunk(index >>> CHUNK_SHIFT);
+      }
+      this.saleIds[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, saleIds.getAsInt());
+      store(index, units, stored);
+      size++;
+    }
+    if (units != FixedPointMoney.OVERFLOW) {
+      maxAbsValueUnits = Math.max(maxAbsValueUnits, Math.abs(units));
+    }
+  }
+
+  /**
+   * @return the scale of the sale values, -1 for exact sequences
+   */
+  public int getValueScale() {
+    return valueScale;
+  }
+
+  /**
+   * @return whether columns are allocated in direct buffers
+   */
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  /**
+   * @return a {@link Cursor} before the first sale
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  @Override
+  public synchronized Sale get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    long units = valueUnits[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+    int saleId = saleIds[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+    if (isExact()) {
+      return new ColumnarSale(productType, valueAt(index, units), saleId);
+    }
+    return units == FixedPointMoney.OVERFLOW ? new ColumnarSale(productType, overflowValueAt(index), valueScale, saleId)
+      : new ColumnarSale(productType, units, valueScale, saleId);
+  }
+
+  @Override
+  public synchronized SaleSequence snapshot() {
+    if (readOnly) {
+      return this;
+    }
+    int chunks = (size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+    Arrays.fill(sharedChunks, 0, chunks, true);
+    Arrays.fill(sharedOverflowValues, 0, chunks, true);
+    return new ColumnarSaleSequence(this);
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized BigDecimal totalValue() {
+    if (!isExact()) {
+      return totalValue(valueScale, true);
+    }
+
+    //Totals of exact values are at the largest value scale, and never below that of ZERO
+    int minScale = Integer.MAX_VALUE;
+    int maxScale = 0;
+    for (int chunk = 0; chunk * CHUNK_SIZE < size; chunk++) {
+      IntBuffer scales = valueScales[chunk];
+      int length = Math.min(CHUNK_SIZE, size - chunk * CHUNK_SIZE);
+      for (int i = 0; i < length; i++) {
+        int scale = scales.get(i);
+        minScale = Math.min(minScale, scale);
+        maxScale = Math.max(maxScale, scale);
+      }
+    }
+    return totalValue(maxScale, minScale == maxScale);
+  }
+
+  @Override
+  public synchronized void adjust(int fromIndex, int toIndex, SaleValueTransform transform) {
+    adjust(fromIndex, toIndex, transform, 0);
+  }
+
+  @Override
+  public synchronized void adjust(int fromIndex, int toIndex, SaleValueTransform transform, int splitSize) {
+    if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+    }
+    checkWritable();
+    for (int chunk = fromIndex >>> CHUNK_SHIFT; chunk * CHUNK_SIZE < toIndex; chunk++) {
+      if (sharedChunks[chunk]) {
+        copyChunk(chunk);
+      }
+    }
+    long maxAbsAdjustedUnits = splitSize <= 0 || toIndex - fromIndex <= splitSize
+      ? adjustRange(fromIndex, toIndex, transform)
+      : SaleRangeTask.invoke(fromIndex, toIndex, splitSize, (from, to) -> adjustRange(from, to, transform));
+    maxAbsValueUnits = Math.max(maxAbsValueUnits, maxAbsAdjustedUnits);
+  }
+
+  /**
+   * Adjusts values without locking the sequence, so that disjoint ranges can be adjusted concurrently
+   *
+   * @return the largest absolute value of the adjusted units
+   */
+  private long adjustRange(int fromIndex, int toIndex, SaleValueTransform transform) {
+    if (isExact()) {
+      return adjustExactRange(fromIndex, toIndex, transform);
+    }
+    LongUnaryOperator unitsTransform = transform.unitsAt(valueScale);
+    long maxAbsAdjustedUnits = 0;
+
+    for (int index = fromIndex; index < toIndex; index++) {
+      LongBuffer units = valueUnits[index >>> CHUNK_SHIFT];
+      long value = units.get(index & CHUNK_MASK);
+      long adjusted = value == FixedPointMoney.OVERFLOW || unitsTransform == null ? FixedPointMoney.OVERFLOW
+        : unitsTransform.applyAsLong(value);
+      if (adjusted != FixedPointMoney.OVERFLOW) {
+        units.put(index & CHUNK_MASK, adjusted);
+      } else {
+        adjusted = adjustValue(index, value, transform);
+      }
+      if (adjusted != FixedPointMoney.OVERFLOW) {
+        maxAbsAdjustedUnits = Math.max(maxAbsAdjustedUnits, Math.abs(adjusted));
+      }
+    }
+    return maxAbsAdjustedUnits;
+  }
+
+  private long adjustExactRange(int fromIndex, int toIndex, SaleValueTransform transform) {
+    //Values of a sequence mostly share their scale, so the transform at the last scale seen is kept
+    int lastScale = Integer.MIN_VALUE;
+    int adjustedScale = 0;
+    LongUnaryOperator unscaledTransform = null;
+    long maxAbsAdjustedUnits = 0;
+
+    for (int index = fromIndex; index < toIndex; index++) {
+      LongBuffer units = valueUnits[index >>> CHUNK_SHIFT];
+      IntBuffer scales = valueScales[index >>> CHUNK_SHIFT];
+      long value = units.get(index & CHUNK_MASK);
+      int scale = scales.get(index & CHUNK_MASK);
+      long adjusted = FixedPointMoney.OVERFLOW;
+      if (value != FixedPointMoney.OVERFLOW) {
+        if (scale != lastScale) {
+          lastScale = scale;
+          adjustedScale = transform.scaleAt(scale);
+          unscaledTransform = transform.unscaledAt(scale);
+        }
+        adjusted = unscaledTransform == null ? FixedPointMoney.OVERFLOW : unscaledTransform.applyAsLong(value);
+      }
+      if (adjusted != FixedPointMoney.OVERFLOW) {
+        units.put(index & CHUNK_MASK, adjusted);
+        scales.put(index & CHUNK_MASK, adjustedScale);
+      } else {
+        adjusted = adjustValue(index, value, transform);
+      }
+      if (adjusted != FixedPointMoney.OVERFLOW) {
+        maxAbsAdjustedUnits = Math.max(maxAbsAdjustedUnits, Math.abs(adjusted));
+      }
+    }
+    return maxAbsAdjustedUnits;
+  }
+
+  /**
+   * Adjusts a value through BigDecimal, for values or results whose unscaled value does not fit a long
+   *
+   * @return the adjusted unscaled value, or {@link FixedPointMoney#OVERFLOW}
+   */
+  private long adjustValue(int index, long units, SaleValueTransform transform) {
+    synchronized (overflowLock) {
+      BigDecimal adjusted = transform.apply(valueAt(index, units));
+      if (!isExact()) {
+        adjusted = FixedPointMoney.round(adjusted, valueScale);
+      }
+      long adjustedUnits = unscaledValue(adjusted);
+      store(index, adjustedUnits, adjusted);
+      return adjustedUnits;
+    }
+  }
+
+  /**
+   * Sums all values at {@code scale}, at least the scale of every value
+   *
+   * @param uniform whether every value is at {@code scale}
+   */
+  private BigDecimal totalValue(int scale, boolean uniform) {
+    BigDecimal total = BigDecimal.ZERO;
+    long totalUnits = 0;
+    boolean anyUnits = overflowCount < size;
+    boolean plainSums = uniform && overflowCount == 0 && maxAbsValueUnits <= PLAIN_SUM_BOUND;
+
+    for (int chunk = 0; chunk * CHUNK_SIZE < size; chunk++) {
+      LongBuffer units = valueUnits[chunk];
+      int length = Math.min(CHUNK_SIZE, size - chunk * CHUNK_SIZE);
+
+      if (plainSums) {
+        //No overflow checks, so the loop can be unrolled and vectorized
+        long chunkUnits = 0;
+        for (int i = 0; i < length; i++) {
+          chunkUnits += units.get(i);
+        }
+        long sum = FixedPointMoney.add(totalUnits, chunkUnits);
+        if (sum != FixedPointMoney.OVERFLOW) {
+          totalUnits = sum;
+        } else {
+          total = total.add(FixedPointMoney.toBigDecimal(chunkUnits, scale));
+        }
+        continue;
+      }
+
+      IntBuffer scales = uniform ? null : valueScales[chunk];
+      for (int i = 0; i < length; i++) {
+        long value = units.get(i);
+        long rescaled = uniform ? value : FixedPointMoney.rescale(value, scales.get(i), scale);
+        long sum = rescaled == FixedPointMoney.OVERFLOW ? FixedPointMoney.OVERFLOW : FixedPointMoney.add(totalUnits, rescaled);
+        if (sum != FixedPointMoney.OVERFLOW) {
+          totalUnits = sum;
+        } else {
+          total = total.add(valueAt(chunk * CHUNK_SIZE + i, value));
+        }
+      }
+    }
+    return anyUnits ? total.add(FixedPointMoney.toBigDecimal(totalUnits, scale)) : total;
+  }
+
+  private boolean isExact() {
+    return valueScale == -1;
+  }
+
+  private BigDecimal valueAt(int index, long units) {
+    if (units == FixedPointMoney.OVERFLOW) {
+      return overflowValueAt(index);
+    }
+    return isExact() ? BigDecimal.valueOf(units, valueScales[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK))
+      : FixedPointMoney.toBigDecimal(units, valueScale);
+  }
+
+  /**
+   * @param index
+   * @param units  unscaled value of {@code value}, or {@link FixedPointMoney#OVERFLOW}
+   * @param value  value at the scale of fixed-point sequences
+   */
+  private void store(int index, long units, BigDecimal value) {
+    valueUnits[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, units);
+    if (isExact()) {
+      valueScales[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, value.scale());
+    }
+    Map<Integer, BigDecimal> chunkOverflowValues = overflowValues[index >>> CHUNK_SHIFT];
+    if (units == FixedPointMoney.OVERFLOW) {
+      if (chunkOverflowValues == null) {
+        chunkOverflowValues = new HashMap<>();
+        overflowValues[index >>> CHUNK_SHIFT] = chunkOverflowValues;
+      } else if (sharedOverflowValues[index >>> CHUNK_SHIFT]) {
+        //Appended to a chunk whose values snapshots share
+        chunkOverflowValues = copyOverflowValues(index >>> CHUNK_SHIFT);
+      }
+      if (chunkOverflowValues.put(index, value) == null) {
+        overflowCount++;
+      }
+    } else if (chunkOverflowValues != null && chunkOverflowValues.remove(index) != null) {
+      overflowCount--;
+    }
+  }
+
+  private BigDecimal overflowValueAt(int index) {
+    return overflowValues[index >>> CHUNK_SHIFT].get(index);
+  }
+
+  private Map<Integer, BigDecimal> copyOverflowValues(int chunk) {
+    Map<Integer, BigDecimal> copy = new HashMap<>(overflowValues[chunk]);
+    overflowValues[chunk] = copy;
+    sharedOverflowValues[chunk] = false;
+    return copy;
+  }
+
+  /**
+   * Replaces the value chunks and overflow values of a chunk shared with snapshots with copies
+   */
+  private void copyChunk(int chunk) {
+    //Bulk puts move the position of the copy, which is cleared so that the copy can itself be copied
+    LongBuffer units = newLongChunk();
+    units.put(valueUnits[chunk].duplicate()).clear();
+    valueUnits[chunk] = units;
+    if (isExact()) {
+      IntBuffer scales = newIntChunk();
+      scales.put(valueScales[chunk].duplicate()).clear();
+      valueScales[chunk] = scales;
+    }
+    if (sharedOverflowValues[chunk] && overflowValues[chunk] != null) {
+      copyOverflowValues(chunk);
+    }
+    sharedOverflowValues[chunk] = false;
+    sharedChunks[chunk] = false;
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Sale snapshots are read only");
+    }
+  }
+
+  private void allocateChunk(int chunk) {
+    if (chunk == valueUnits.length) {
+      saleIds = Arrays.copyOf(saleIds, chunk * 2);
+      valueUnits = Arrays.copyOf(valueUnits, chunk * 2);
+      sharedChunks = Arrays.copyOf(sharedChunks, chunk * 2);
+      sharedOverflowValues = Arrays.copyOf(sharedOverflowValues, chunk * 2);
+      overflowValues = Arrays.copyOf(overflowValues, chunk * 2);
+      if (isExact()) {
+        valueScales = Arrays.copyOf(valueScales, chunk * 2);
+      }
+    }
+    saleIds[chunk] = newIntChunk();
+    valueUnits[chunk] = newLongChunk();
+    if (isExact()) {
+      valueScales[chunk] = newIntChunk();
+    }
+  }
+
+  private IntBuffer newIntChunk() {
+    return offHeap ? directBuffer(Integer.BYTES).asIntBuffer() : IntBuffer.allocate(CHUNK_SIZE);
+  }
+
+  private LongBuffer newLongChunk() {
+    return offHeap ? directBuffer(Long.BYTES).asLongBuffer() : LongBuffer.allocate(CHUNK_SIZE);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Integer, BigDecimal>[] newOverflowValues(int chunks) {
+    return (Map<Integer, BigDecimal>[]) new Map<?, ?>[chunks];
+  }
+
+  private static ByteBuffer directBuffer(int elementBytes) {
+    return ByteBuffer.allocateDirect(CHUNK_SIZE * elementBytes).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * @return the unscaled value of {@code value}, or {@link FixedPointMoney#OVERFLOW} when it does not fit
+   */
+  private static long unscaledValue(BigDecimal value) {
+    BigInteger unscaled = value.unscaledValue();
+    return unscaled.bitLength() < 64 ? unscaled.longValue() : FixedPointMoney.OVERFLOW;
+  }
+
+  /**
+   * Forward scan over the sales of the sequence reading the columns in place, so that nothing is allocated per sale
+   * other than the values of {@link #getValue()}
+   */
+  public final class Cursor {
+
+    private int index = -1;
+    private int saleId;
+    private long unscaledValue;
+    private int scale;
+    private BigDecimal overflowValue;
+
+    private Cursor() {
+    }
+
+    /**
+     * Moves to the next sale
+     *
+     * @return whether there was one
+     */
+    public boolean next() {
+      synchronized (ColumnarSaleSequence.this) {
+        if (index + 1 >= size) {
+          return false;
+        }
+        index++;
+        saleId = saleIds[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+        unscaledValue = valueUnits[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+        scale = isExact() ? valueScales[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK) : valueScale;
+        overflowValue = unscaledValue == FixedPointMoney.OVERFLOW ? overflowValueAt(index) : null;
+        return true;
+      }
+    }
+
+    public int getSaleId() {
+      return saleId;
+    }
+
+    /**
+     * @return the unscaled value of the sale at {@link #getValueScale()}, or {@link FixedPointMoney#OVERFLOW} when it
+     * does not fit a long
+     */
+    public long getUnscaledValue() {
+      return unscaledValue;
+    }
+
+    public int getValueScale() {
+      return overflowValue != null ? overflowValue.scale() : scale;
+    }
+
+    public BigDecimal getValue() {
+      return overflowValue != null ? overflowValue : BigDecimal.valueOf(unscaledValue, scale);
+    }
+  }
+
+  /**
+   * Read only view of a single sale in the columns
+   */
+  private static final class ColumnarSale extends Sale {
+
+    //Still false while the Sale constructor sets the initial value
+    private final boolean readOnly;
+
+    private ColumnarSale(String productType, BigDecimal value, int saleId) {
+      super(productType, value);
+      super.setSaleId(saleId);
+      readOnly = true;
+    }
+
+    private ColumnarSale(String productType, long valueUnits, int valueScale, int saleId) {
+      super(productType, valueUnits, valueScale);
+      super.setSaleId(saleId);
+      readOnly = true;
+    }
+
+    private ColumnarSale(String productType, BigDecimal value, int valueScale, int saleId) {
+      super(productType, value, valueScale);
+      super.setSaleId(saleId);
+      readOnly = true;
+    }
+
+    @Override
+    public void setSaleId(int saleId) {
+      throw new UnsupportedOperationException("Columnar sales are read only");
+    }
+
+    @Override
+    public void setValue(BigDecimal value) {
+      if (readOnly) {
+        throw new UnsupportedOperationException("Columnar sales are read only, adjust them through the sequence");
+      }
+      super.setValue(value);
+    }
+
+    @Override
+    public void setValueUnits(long valueUnits) {
+      if (readOnly) {
+        throw new UnsupportedOperationException("Columnar sales are read only, adjust them through the sequence");
+      }
+      super.setValueUnits(valueUnits);
+    }
+  }
+}
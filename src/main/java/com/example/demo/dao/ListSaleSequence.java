@@ -0,0 +1,177 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.FixedPointMoney;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleValueTransform;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * {@link SaleSequence} storing one {@link Sale} instance per sale
+ * <p>
+ * Elements are the stored sales themselves, so changes made on them are kept. Fixed-point sales are adjusted and
+ * totalled on their units, without going through BigDecimal. Totals and adjustments are serialised on the sequence.
+ * <p>
+ * Snapshots share the segments of the list and the sales in them. An adjustment copies the sales of the segments it
+ * changes if they are shared, so each segment is copied at most once per snapshot and sales out of the range adjusted
+ * stay shared.
+ */
+public class ListSaleSequence extends AppendOnlyList<Sale> implements SaleSequence {
+
+  private final boolean readOnly;
+  //Segments whose sales are shared with snapshots
+  private boolean[] sharedSegments = new boolean[0];
+
+  /**
+   * Initialises an empty {@link ListSaleSequence}
+   */
+  public ListSaleSequence() {
+    this.readOnly = false;
+  }
+
+  private ListSaleSequence(ListSaleSequence sales) {
+    super(sales);
+    this.readOnly = true;
+  }
+
+  /**
+   * Appends {@code count} sales of the given {@code value}
+   *
+   * @param productType
+   * @param value
+   * @param count
+   * @param saleIds generator for the id of each sale
+   */
+  public void append(String productType, BigDecimal value, int count, IntSupplier saleIds) {
+    append(productType, value, -1, count, saleIds);
+  }
+
+  /**
+   * Appends {@code count} sales of the given {@code value}, as fixed-point sales when {@code valueScale} is not negative
+   *
+   * @param productType
+   * @param value
+   * @param valueScale
+   * @param count
+   * @param saleIds     generator for the id of each sale
+   */
+  public synchronized void append(String productType, BigDecimal value, int valueScale, int count, IntSupplier saleIds) {
+    checkWritable();
+    long units = valueScale < 0 ? FixedPointMoney.OVERFLOW : FixedPointMoney.toUnits(value, valueScale);
+
+    ensureCapacity(size() + count);
+    for (int i = 0; i < count; i++) {
+      Sale sale = units != FixedPointMoney.OVERFLOW ? new Sale(productType, units, valueScale)
+        : valueScale < 0 ? new Sale(productType, value) : new Sale(productType, value, valueScale);
+      sale.setSaleId(saleIds.getAsInt());
+      add(sale);
+    }
+  }
+
+  @Override
+  public boolean add(Sale sale) {
+    checkWritable();
+    return super.add(sale);
+  }
+
+  @Override
+  public synchronized SaleSequence snapshot() {
+    if (readOnly) {
+      return this;
+    }
+    int segments = (size() + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT;
+    if (segments > sharedSegments.length) {
+      sharedSegments = Arrays.copyOf(sharedSegments, segments);
+    }
+    Arrays.fill(sharedSegments, 0, segments, true);
+    return new ListSaleSequence(this);
+  }
+
+  @Override
+  public synchronized BigDecimal totalValue() {
+    BigDecimal total = BigDecimal.ZERO;
+    long totalUnits = 0;
+    int unitsScale = -1;
+
+    for (Sale sale : this) {
+      long units = sale.getValueUnits();
+      if (units != FixedPointMoney.OVERFLOW && (unitsScale < 0 || unitsScale == sale.getValueScale())) {
+        long sum = FixedPointMoney.add(totalUnits, units);
+        if (sum != FixedPointMoney.OVERFLOW) {
+          totalUnits = sum;
+          unitsScale = sale.getValueScale();
+          continue;
+        }
+      }
+      total = total.add(sale.getValue());
+    }
+    return unitsScale < 0 ? total : total.add(FixedPointMoney.toBigDecimal(totalUnits, unitsScale));
+  }
+
+  @Override
+  public synchronized void adjust(int fromIndex, int toIndex, SaleValueTransform transform) {
+    adjust(fromIndex, toIndex, transform, 0);
+  }
+
+  @Override
+  public synchronized void adjust(int fromIndex, int toIndex, SaleValueTransform transform, int splitSize) {
+    checkWritable();
+    int lastSegment = fromIndex < toIndex ? Math.min((toIndex - 1) >>> SEGMENT_SHIFT, sharedSegments.length - 1) : -1;
+    for (int segment = fromIndex >>> SEGMENT_SHIFT; segment <= lastSegment; segment++) {
+      if (sharedSegments[segment]) {
+        copySegment(segment, ListSaleSequence::copyOf);
+        sharedSegments[segment] = false;
+      }
+    }
+    if (splitSize <= 0 || toIndex - fromIndex <= splitSize) {
+      adjustRange(fromIndex, toIndex, transform);
+      return;
+    }
+    SaleRangeTask.invoke(fromIndex, toIndex, splitSize, (from, to) -> {
+      adjustRange(from, to, transform);
+      return 0;
+    });
+  }
+
+  /**
+   * Adjusts sales without locking, so that disjoint ranges can be adjusted concurrently
+   */
+  private void adjustRange(int fromIndex, int toIndex, SaleValueTransform transform) {
+    int unitsScale = -1;
+    LongUnaryOperator unitsTransform = null;
+
+    for (int index = fromIndex; index < toIndex; index++) {
+      Sale sale = get(index);
+      if (sale.isFixedPoint()) {
+        if (sale.getValueScale() != unitsScale) {
+          unitsScale = sale.getValueScale();
+          unitsTransform = transform.unitsAt(unitsScale);
+        }
+        long units = unitsTransform == null ? FixedPointMoney.OVERFLOW : unitsTransform.applyAsLong(sale.getValueUnits());
+        if (units != FixedPointMoney.OVERFLOW) {
+          sale.setValueUnits(units);
+          continue;
+        }
+      }
+      sale.setValue(transform.apply(sale.getValue()));
+    }
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Sale snapshots are read only");
+    }
+  }
+
+  private static Sale copyOf(Sale sale) {
+    long units = sale.getValueUnits();
+    Sale copy = units != FixedPointMoney.OVERFLOW ? new Sale(sale.getProductType(), units, sale.getValueScale())
+      : sale.isFixedPoint() ? new Sale(sale.getProductType(), sale.getValue(), sale.getValueScale())
+      : new Sale(sale.getProductType(), sale.getValue());
+    copy.setSaleId(sale.getSaleId());
+    return copy;
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.dao;
+
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Dictionary of the product types seen, giving each a dense int id and a single canonical String instance
+ * <p>
+ * Ids are assigned in the order product types are first seen and never reused, so they can index arrays. They only
+ * hold within this process. The dictionary is thread safe, lookups of known product types are lock free.
+ */
+@Repository
+public class ProductTypeDictionary {
+
+  private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  private volatile String[] productTypes = new String[16];
+  private int size;
+
+  /**
+   * Fetches the id of the given {@code productType}, assigning the next id when it is new
+   *
+   * @param productType
+   * @return the id
+   */
+  public int idOf(String productType) {
+    Integer id = ids.get(productType);
+    return id != null ? id : register(productType);
+  }
+
+  /**
+   * Fetches the id of the given {@code productType} without assigning one
+   *
+   * @param productType
+   * @return the id, -1 when the product type was never seen
+   */
+  public int lookup(String productType) {
+    Integer id = ids.get(productType);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * @param id
+   * @return the canonical product type of the given {@code id}
+   */
+  public String productTypeOf(int id) {
+    String[] productTypes = this.productTypes;
+    if (id < 0 || id >= productTypes.length || productTypes[id] == null) {
+      throw new IllegalArgumentException("Unknown product type id " + id);
+    }
+    return productTypes[id];
+  }
+
+  /**
+   * Fetches the canonical instance of the given {@code productType}, registering it when it is new
+   *
+   * @param productType
+   * @return the canonical product type, null for null
+   */
+  public String intern(String productType) {
+    return productType == null ? null : productTypeOf(idOf(productType));
+  }
+
+  /**
+   * @return the number of product types, one more than the highest id
+   */
+  public int size() {
+    return ids.size();
+  }
+
+  private synchronized int register(String productType) {
+    Integer id = ids.get(productType);
+    if (id != null) {
+      return id;
+    }
+    if (size == productTypes.length) {
+      productTypes = Arrays.copyOf(productTypes, size * 2);
+    }
+    //The name is in place before its id can be found
+    productTypes[size] = productType;
+    ids.put(productType, size);
+    return size++;
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Values per product type held in an array, at the slot of the {@link ProductTypeDictionary} id of their product type
+ * <p>
+ * Reads are lock free, writes are serialised.
+ */
+class ProductTypeSlots<V> {
+
+  private final ProductTypeDictionary productTypeDictionary;
+
+  private volatile AtomicReferenceArray<V> slots = new AtomicReferenceArray<>(16);
+
+  ProductTypeSlots(ProductTypeDictionary productTypeDictionary) {
+    this.productTypeDictionary = productTypeDictionary;
+  }
+
+  /**
+   * @param productType
+   * @return the value of the given {@code productType}, null when there is none
+   */
+  V get(String productType) {
+    return get(productTypeDictionary.lookup(productType));
+  }
+
+  /**
+   * @param productTypeId
+   * @return the value of the product type with the given id, null when there is none
+   */
+  V get(int productTypeId) {
+    AtomicReferenceArray<V> slots = this.slots;
+    return productTypeId >= 0 && productTypeId < slots.length() ? slots.get(productTypeId) : null;
+  }
+
+  /**
+   * @param productType
+   * @param newValue    creates the value of a product type without one
+   * @return the value of the given {@code productType}
+   */
+  V computeIfAbsent(String productType, Function<String, V> newValue) {
+    return computeIfAbsent(productTypeDictionary.idOf(productType), newValue);
+  }
+
+  /**
+   * @param productTypeId
+   * @param newValue      creates the value of a product type without one
+   * @return the value of the product type with the given id
+   */
+  V computeIfAbsent(int productTypeId, Function<String, V> newValue) {
+    V value = get(productTypeId);
+    if (value != null) {
+      return value;
+    }
+
+    synchronized (this) {
+      AtomicReferenceArray<V> slots = ensureCapacity(productTypeId);
+      value = slots.get(productTypeId);
+      if (value == null) {
+        value = newValue.apply(productTypeDictionary.productTypeOf(productTypeId));
+        slots.set(productTypeId, value);
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Replaces the value of the given {@code productType}, if it has one
+   *
+   * @param productType
+   * @param newValue    creates the replacement from the product type
+   */
+  synchronized void replaceIfPresent(String productType, Function<String, V> newValue) {
+    int productTypeId = productTypeDictionary.lookup(productType);
+    if (get(productTypeId) != null) {
+      slots.set(productTypeId, newValue.apply(productTypeDictionary.productTypeOf(productTypeId)));
+    }
+  }
+
+  /**
+   * @return the values by product type
+   */
+  Map<String, V> toMap() {
+    return toMap(Function.identity());
+  }
+
+  /**
+   * @param view
+   * @return views of the values by product type
+   */
+  <W> Map<String, W> toMap(Function<? super V, ? extends W> view) {
+    AtomicReferenceArray<V> slots = this.slots;
+    Map<String, W> values = new HashMap<>();
+    for (int productTypeId = 0; productTypeId < slots.length(); productTypeId++) {
+      V value = slots.get(productTypeId);
+      if (value != null) {
+        values.put(productTypeDictionary.productTypeOf(productTypeId), view.apply(value));
+      }
+    }
+    return values;
+  }
+
+  private AtomicReferenceArray<V> ensureCapacity(int productTypeId) {
+    AtomicReferenceArray<V> slots = this.slots;
+    if (productTypeId >= slots.length()) {
+      AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(Math.max(slots.length() * 2, productTypeId + 1));
+      for (int i = 0; i < slots.length(); i++) {
+        grown.set(i, slots.get(i));
+      }
+      this.slots = slots = grown;
+    }
+    return slots;
+  }
+}
@@ -0,0 +1,204 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleValueTransform;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * {@link SaleSequence} storing one (value, count) run per recorded batch of identical sales
+ * <p>
+ * Sales of a run get consecutive ids starting from the id of the run. Elements are expanded lazily into read only
+ * {@link Sale} views. All access is synchronized on the sequence. Snapshots share the runs, which the first adjustment
+ * after a snapshot copies.
+ */
+public class RunLengthSaleSequence extends AbstractList<Sale> implements SaleSequence, RandomAccess {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final String productType;
+
+  private BigDecimal[] values = new BigDecimal[INITIAL_CAPACITY];
+  private int[] firstSaleIds = new int[INITIAL_CAPACITY];
+  private int[] ends = new int[INITIAL_CAPACITY]; //Exclusive end index of each run
+  private int runs = 0;
+
+  private final boolean readOnly;
+  private boolean shared;
+
+  /**
+   * Initialises an empty {@link RunLengthSaleSequence} for the given {@code productType}
+   *
+   * @param productType
+   */
+  public RunLengthSaleSequence(String productType) {
+    this.productType = productType;
+    this.readOnly = false;
+  }
+
+  private RunLengthSaleSequence(RunLengthSaleSequence sales) {
+    this.productType = sales.productType;
+    this.values = sales.values;
+    this.firstSaleIds = sales.firstSaleIds;
+    this.ends = sales.ends;
+    this.runs = sales.runs;
+    this.readOnly = true;
+  }
+
+  /**
+   * Appends a run of {@code count} sales of the given {@code value}
+   *
+   * @param firstSaleId
+   * @param value
+   * @param count
+   */
+  public synchronized void append(int firstSaleId, BigDecimal value, int count) {
+    checkWritable();
+    //Runs past those of the snapshots are not shared
+    insertRun(runs, firstSaleId, value, size() + count);
+  }
+
+  /**
+   * @return the number of runs stored
+   */
+  public synchronized int runCount() {
+    return runs;
+  }
+
+  @Override
+  public synchronized Sale get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    int run = runOf(index);
+    return new RunSale(productType, values[run], firstSaleIds[run] + index - start(run));
+  }
+
+  @Override
+  public synchronized SaleSequence snapshot() {
+    if (readOnly) {
+      return this;
+    }
+    shared = true;
+    return new RunLengthSaleSequence(this);
+  }
+
+  @Override
+  public synchronized int size() {
+    return runs == 0 ? 0 : ends[runs - 1];
+  }
+
+  @Override
+  public synchronized BigDecimal totalValue() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int run = 0; run < runs; run++) {
+      total = total.add(values[run].multiply(BigDecimal.valueOf(ends[run] - start(run))));
+    }
+    return total;
+  }
+
+  @Override
+  public synchronized void adjust(int fromIndex, int toIndex, SaleValueTransform transform) {
+    if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size());
+    }
+    checkWritable();
+    if (fromIndex == toIndex) {
+      return;
+    }
+    if (shared) {
+      values = values.clone();
+      firstSaleIds = firstSaleIds.clone();
+      ends = ends.clone();
+      shared = false;
+    }
+    int firstRun = splitAt(fromIndex);
+    int endRun = splitAt(toIndex);
+    for (int run = firstRun; run < endRun; run++) {
+      values[run] = transform.apply(values[run]);
+    }
+  }
+
+  /**
+   * Makes {@code index} the start of a run, splitting the run containing it if needed
+   *
+   * @return the run starting at {@code index}, or the run count when {@code index} is the size
+   */
+  private int splitAt(int index) {
+    if (index == size()) {
+      return runs;
+    }
+    int run = runOf(index);
+    int start = start(run);
+    if (start == index) {
+      return run;
+    }
+    insertRun(run, firstSaleIds[run], values[run], index);
+    firstSaleIds[run + 1] += index - start;
+    return run + 1;
+  }
+
+  private void insertRun(int run, int firstSaleId, BigDecimal value, int end) {
+    if (runs == values.length) {
+      int capacity = runs * 2;
+      values = Arrays.copyOf(values, capacity);
+      firstSaleIds = Arrays.copyOf(firstSaleIds, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+    }
+    System.arraycopy(values, run, values, run + 1, runs - run);
+    System.arraycopy(firstSaleIds, run, firstSaleIds, run + 1, runs - run);
+    System.arraycopy(ends, run, ends, run + 1, runs - run);
+    values[run] = value;
+    firstSaleIds[run] = firstSaleId;
+    ends[run] = end;
+    runs++;
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Sale snapshots are read only");
+    }
+  }
+
+  private int start(int run) {
+    return run == 0 ? 0 : ends[run - 1];
+  }
+
+  private int runOf(int index) {
+    int low = 0;
+    int high = runs - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (ends[mid] <= index) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Read only view of a single sale within a run
+   */
+  private static final class RunSale extends Sale {
+
+    private RunSale(String productType, BigDecimal value, int saleId) {
+      super(productType, value);
+      super.setSaleId(saleId);
+    }
+
+    @Override
+    public void setSaleId(int saleId) {
+      throw new UnsupportedOperationException("Sales of a run are read only");
+    }
+
+    @Override
+    public void setValue(BigDecimal value) {
+      throw new UnsupportedOperationException("Sales of a run are read only, adjust them through the sequence");
+    }
+  }
+}
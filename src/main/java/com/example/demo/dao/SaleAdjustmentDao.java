@@ -1,21 +1,44 @@
 package com.example.demo.dao;
 
 import com.example.demo.data.SaleAdjustment;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * DAO implementation for {@link SaleAdjustment} instances
  * <p>
- * Using a local Cache for the exercise
+ * Using a local Cache for the exercise. The cache is thread safe, adjustments of each product type are kept in an
+ * {@link AppendOnlyList}, held at the {@link ProductTypeDictionary} id of the product type. They are indexed by
+ * {@link SaleAdjustmentOperation} as well, in lists of their own, so that the adjustments of an operation are fetched
+ * without going through the others.
  */
 @Repository
 public class SaleAdjustmentDao {
 
-  private Map<String, List<SaleAdjustment>> saleAdjustmentCache = new HashMap<>();
+  private final ProductTypeSlots<AppendOnlyList<SaleAdjustment>> saleAdjustmentCache;
+  private final ProductTypeSlots<Map<SaleAdjustmentOperation, AppendOnlyList<SaleAdjustment>>> operationIndex;
 
-  private Random random = new Random(20000);
+  /**
+   * Initialises a new {@link SaleAdjustmentDao} with its own {@link ProductTypeDictionary}
+   */
+  public SaleAdjustmentDao() {
+    this(new ProductTypeDictionary());
+  }
+
+  /**
+   * Initialises a new {@link SaleAdjustmentDao} with the given parameters
+   *
+   * @param productTypeDictionary
+   */
+  @Autowired
+  public SaleAdjustmentDao(ProductTypeDictionary productTypeDictionary) {
+    this.saleAdjustmentCache = new ProductTypeSlots<>(productTypeDictionary);
+    this.operationIndex = new ProductTypeSlots<>(productTypeDictionary);
+  }
 
   /**
    * Clears SaleAdjustment for the given {@code productType}
@@ -23,7 +46,8 @@ public class SaleAdjustmentDao {
    * @param productType
    */
   public void clearSaleAdjustmentsForProductType(String productType) {
-    saleAdjustmentCache.computeIfPresent(productType, (k, v) -> new ArrayList<>());
+    saleAdjustmentCache.replaceIfPresent(productType, k -> new AppendOnlyList<>());
+    operationIndex.replaceIfPresent(productType, SaleAdjustmentDao::newOperationLists);
   }
 
   /**
@@ -32,7 +56,16 @@ public class SaleAdjustmentDao {
    * @return Map of all sales by product type
    */
   public Map<String, List<SaleAdjustment>> fetchAllSaleAdjustments() {
-    return new HashMap<>(saleAdjustmentCache);
+    return saleAdjustmentCache.toMap(saleAdjustments -> saleAdjustments);
+  }
+
+  /**
+   * Takes a point-in-time view of all SaleAdjustments, unaffected by later changes, without copying them
+   *
+   * @return Map of read only lists of all sale adjustments by product type
+   */
+  public Map<String, List<SaleAdjustment>> snapshotAllSaleAdjustments() {
+    return saleAdjustmentCache.toMap(AppendOnlyList::snapshot);
   }
 
   /**
@@ -42,7 +75,32 @@ public class SaleAdjustmentDao {
    * @return List of sales
    */
   public List<SaleAdjustment> fetchForProductType(String productType) {
-    return saleAdjustmentCache.getOrDefault(productType, new ArrayList<>());
+    List<SaleAdjustment> saleAdjustments = saleAdjustmentCache.get(productType);
+    return saleAdjustments != null ? saleAdjustments : new ArrayList<>();
+  }
+
+  /**
+   * Fetches SaleAdjustments of the given {@code saleAdjustmentOperation}
+   *
+   * @param saleAdjustmentOperation
+   * @return Map of the sale adjustments of the operation by product type, leaving out product types without any
+   */
+  public Map<String, List<SaleAdjustment>> fetchAllForOperation(SaleAdjustmentOperation saleAdjustmentOperation) {
+    Map<String, List<SaleAdjustment>> saleAdjustments = operationIndex.toMap(operationLists -> operationLists.get(saleAdjustmentOperation));
+    saleAdjustments.values().removeIf(List::isEmpty);
+    return saleAdjustments;
+  }
+
+  /**
+   * Fetches SaleAdjustments of the given {@code saleAdjustmentOperation} for the given {@code productType}
+   *
+   * @param productType
+   * @param saleAdjustmentOperation
+   * @return List of sale adjustments
+   */
+  public List<SaleAdjustment> fetchForProductTypeAndOperation(String productType, SaleAdjustmentOperation saleAdjustmentOperation) {
+    Map<SaleAdjustmentOperation, AppendOnlyList<SaleAdjustment>> operationLists = operationIndex.get(productType);
+    return operationLists != null ? operationLists.get(saleAdjustmentOperation) : new ArrayList<>();
   }
 
   /**
@@ -51,7 +109,20 @@ public class SaleAdjustmentDao {
    * @param saleAdjustment
    */
   public void save(SaleAdjustment saleAdjustment) {
-    saleAdjustment.setSaleAdjustmentId(random.nextInt()); //Ideally this would be done by Persistence store
-    saleAdjustmentCache.computeIfAbsent(saleAdjustment.getProductType(), s -> new ArrayList<>()).add(saleAdjustment);
+    saleAdjustment.setSaleAdjustmentId(ThreadLocalRandom.current().nextInt()); //Ideally this would be done by Persistence store
+    saleAdjustmentCache.computeIfAbsent(saleAdjustment.getProductType(), s -> new AppendOnlyList<>()).add(saleAdjustment);
+    operationIndex.computeIfAbsent(saleAdjustment.getProductType(), SaleAdjustmentDao::newOperationLists)
+      .get(saleAdjustment.getSaleAdjustmentOperation()).add(saleAdjustment);
+  }
+
+  /**
+   * @return a list for each operation, created up front so that the map is only read once published
+   */
+  private static Map<SaleAdjustmentOperation, AppendOnlyList<SaleAdjustment>> newOperationLists(String productType) {
+    Map<SaleAdjustmentOperation, AppendOnlyList<SaleAdjustment>> operationLists = new EnumMap<>(SaleAdjustmentOperation.class);
+    for (SaleAdjustmentOperation saleAdjustmentOperation : SaleAdjustmentOperation.values()) {
+      operationLists.put(saleAdjustmentOperation, new AppendOnlyList<>());
+    }
+    return operationLists;
   }
 }
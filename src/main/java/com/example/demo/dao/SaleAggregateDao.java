@@ -0,0 +1,115 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DAO implementation for {@link SaleAggregate} instances
+ * <p>
+ * Using a local Cache for the exercise. The cache is thread safe, each aggregate is updated and copied under its own
+ * lock.
+ */
+@Repository
+public class SaleAggregateDao {
+
+  private ConcurrentMap<String, SaleAggregate> saleAggregateCache = new ConcurrentHashMap<>();
+
+  /**
+   * Clears the SaleAggregate for the given {@code productType}
+   *
+   * @param productType
+   */
+  public void clearForProductType(String productType) {
+    saleAggregateCache.remove(productType);
+  }
+
+  /**
+   * Fetches copies of all SaleAggregates
+   *
+   * @return Map of all sale aggregates by product type
+   */
+  public Map<String, SaleAggregate> fetchAllSaleAggregates() {
+    Map<String, SaleAggregate> saleAggregates = new HashMap<>();
+    saleAggregateCache.forEach((productType, saleAggregate) -> saleAggregates.put(productType, copyOf(saleAggregate)));
+    return saleAggregates;
+  }
+
+  /**
+   * Fetches a copy of the SaleAggregate for the given {@code productType}
+   *
+   * @param productType
+   * @return the sale aggregate, empty when no sales were recorded
+   */
+  public SaleAggregate fetchForProductType(String productType) {
+    SaleAggregate saleAggregate = saleAggregateCache.get(productType);
+    return saleAggregate == null ? new SaleAggregate(productType) : copyOf(saleAggregate);
+  }
+
+  /**
+   * Adds {@code noOfOccurrences} Sales to the aggregate of the given {@code productType}
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    SaleAggregate saleAggregate = saleAggregateCache.computeIfAbsent(productType, SaleAggregate::new);
+    synchronized (saleAggregate) {
+      saleAggregate.record(saleValue, noOfOccurrences);
+    }
+  }
+
+  /**
+   * Adds the sales of the given {@link SaleAggregate} to the aggregate of its product type
+   *
+   * @param saleAggregate
+   */
+  public void recordSaleAggregate(SaleAggregate saleAggregate) {
+    SaleAggregate aggregate = saleAggregateCache.computeIfAbsent(saleAggregate.getProductType(), SaleAggregate::new);
+    synchronized (aggregate) {
+      aggregate.merge(saleAggregate);
+    }
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on the aggregate of its product type
+   *
+   * @param saleAdjustment
+   */
+  public void recordSaleAdjustment(SaleAdjustment saleAdjustment) {
+    SaleAggregate saleAggregate = saleAggregateCache.get(saleAdjustment.getProductType());
+    if (saleAggregate != null) {
+      synchronized (saleAggregate) {
+        saleAggregate.adjust(saleAdjustment);
+      }
+    }
+  }
+
+  /**
+   * Replaces the total value of the aggregate of the given {@code productType}
+   *
+   * @param productType
+   * @param totalValue
+   */
+  public void recordSaleTotal(String productType, BigDecimal totalValue) {
+    SaleAggregate saleAggregate = saleAggregateCache.get(productType);
+    if (saleAggregate != null) {
+      synchronized (saleAggregate) {
+        saleAggregate.revalue(totalValue);
+      }
+    }
+  }
+
+  private SaleAggregate copyOf(SaleAggregate saleAggregate) {
+    synchronized (saleAggregate) {
+      return new SaleAggregate(saleAggregate);
+    }
+  }
+}
@@ -1,22 +1,50 @@
 package com.example.demo.dao;
 
+import com.example.demo.data.FixedPointMoney;
 import com.example.demo.data.Sale;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * DAO implementation for {@link Sale} instances
  *
- * Using a local Cache for the exercise
+ * Using a local Cache for the exercise. The cache is thread safe: each product type has its own {@link SaleSequence},
+ * which serialises its writers only. Sequences are held at the {@link ProductTypeDictionary} id of their product type.
  */
 @Repository
 public class SaleDao {
 
-  private Map<String, List<Sale>> saleCache = new HashMap<>();
+  private final ProductTypeDictionary productTypeDictionary;
+  private final ProductTypeSlots<List<Sale>> saleCache;
 
-  private Random random = new Random(100);
+  @Value("${sale.store.type:LIST}")
+  private SaleStoreType saleStoreType = SaleStoreType.LIST;
+
+  @Value("${sale.value.fixedPointScale:-1}")
+  private int fixedPointScale = -1;
+
+  /**
+   * Initialises a new {@link SaleDao} with its own {@link ProductTypeDictionary}
+   */
+  public SaleDao() {
+    this(new ProductTypeDictionary());
+  }
+
+  /**
+   * Initialises a new {@link SaleDao} with the given parameters
+   *
+   * @param productTypeDictionary
+   */
+  @Autowired
+  public SaleDao(ProductTypeDictionary productTypeDictionary) {
+    this.productTypeDictionary = productTypeDictionary;
+    this.saleCache = new ProductTypeSlots<>(productTypeDictionary);
+  }
 
   /**
    * Clears Sales for the given {@code productType}
@@ -24,16 +52,28 @@ public class SaleDao {
    * @param productType
    */
   public void clearSalesForProductType(String productType) {
-    saleCache.computeIfPresent(productType, (k, v) -> new ArrayList<>());
+    saleCache.replaceIfPresent(productType, this::newSales);
   }
 
   /**
    * Fetches all sales
    *
-   * @return Map of all sales by product type
+   * @return Map of the live lists of all sales by product type
    */
   public Map<String, List<Sale>> fetchAllSales() {
-    return new HashMap<>(saleCache);
+    return saleCache.toMap();
+  }
+
+  /**
+   * Takes a point-in-time view of all sales, unaffected by later changes, without copying them
+   * <p>
+   * Each product type is snapshotted on its own, so changes made to several product types while the snapshot is taken
+   * may only be partly seen.
+   *
+   * @return Map of read only lists of all sales by product type
+   */
+  public Map<String, List<Sale>> snapshotAllSales() {
+    return saleCache.toMap(SaleSequences::snapshot);
   }
 
   /**
@@ -43,7 +83,19 @@ public class SaleDao {
    * @return List of sales
    */
   public List<Sale> fetchForProductType(String productType) {
-    return saleCache.getOrDefault(productType, new ArrayList<>());
+    List<Sale> sales = saleCache.get(productType);
+    return sales != null ? sales : new ArrayList<>();
+  }
+
+  /**
+   * Fetches sales for the product type with the given {@link ProductTypeDictionary} id
+   *
+   * @param productTypeId
+   * @return List of sales
+   */
+  public List<Sale> fetchForProductType(int productTypeId) {
+    List<Sale> sales = saleCache.get(productTypeId);
+    return sales != null ? sales : new ArrayList<>();
   }
 
   /**
@@ -53,9 +105,128 @@ public class SaleDao {
    * @param saleValue
    */
   public void recordSale(String productType, BigDecimal saleValue) {
-    Sale sale = new Sale(productType, saleValue);
-    sale.setSaleId(random.nextInt()); //Ideally this would be done by Persistence store
+    recordSales(productType, saleValue, 1);
+  }
+
+  /**
+   * Records {@code noOfOccurrences} identical Sales for the given {@code productType}
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    int productTypeId = productTypeDictionary.idOf(productType);
+    List<Sale> sales = saleCache.computeIfAbsent(productTypeId, this::newSales);
+
+    //Ideally ids would be generated by Persistence store
+    if (sales instanceof RunLengthSaleSequence) {
+      ((RunLengthSaleSequence) sales).append(ThreadLocalRandom.current().nextInt(), saleValue, noOfOccurrences);
+    } else if (sales instanceof ColumnarSaleSequence) {
+      ((ColumnarSaleSequence) sales).append(saleValue, noOfOccurrences, () -> ThreadLocalRandom.current().nextInt());
+    } else {
+      //Sales share the canonical product type rather than the instance given
+      ((ListSaleSequence) sales).append(productTypeDictionary.productTypeOf(productTypeId), saleValue,
+        isFixedPoint() ? fixedPointScale : -1, noOfOccurrences, () -> ThreadLocalRandom.current().nextInt());
+    }
+  }
+
+  /**
+   * Drops the {@code count} oldest Sales of the given {@code productType}, once they have been rolled up elsewhere
+   * <p>
+   * The sales kept are copied into a new sequence of the current store type, so no other change may be made to the
+   * product type until this returns. Snapshots taken before keep all sales.
+   *
+   * @param productType
+   * @param count
+   */
+  public void dropOldestSales(String productType, int count) {
+    List<Sale> sales = saleCache.get(productType);
+    if (sales != null && count > 0) {
+      saleCache.replaceIfPresent(productType, key -> copyOf(key, sales, Math.min(count, sales.size())));
+    }
+  }
+
+  private List<Sale> copyOf(String productType, List<Sale> sales, int fromIndex) {
+    List<Sale> copy = newSales(productType);
+    int size = sales.size();
+    if (copy instanceof RunLengthSaleSequence && fromIndex < size) {
+      //Sales are copied back into runs of equal values and consecutive ids
+      RunLengthSaleSequence runs = (RunLengthSaleSequence) copy;
+      int runStart = fromIndex;
+      Sale first = sales.get(runStart);
+      for (int index = fromIndex + 1; index <= size; index++) {
+        Sale sale = index == size ? null : sales.get(index);
+        if (sale == null || !sameRun(first, index - runStart, sale)) {
+          runs.append(first.getSaleId(), first.getValue(), index - runStart);
+          runStart = index;
+          first = sale;
+        }
+      }
+      return copy;
+    }
+    for (int index = fromIndex; index < size; index++) {
+      Sale sale = sales.get(index);
+      if (copy instanceof ColumnarSaleSequence) {
+        ((ColumnarSaleSequence) copy).append(sale.getValue(), 1, sale::getSaleId);
+      } else {
+        ((ListSaleSequence) copy).append(productType, sale.getValue(), isFixedPoint() ? fixedPointScale : -1, 1,
+          sale::getSaleId);
+      }
+    }
+    return copy;
+  }
+
+  private static boolean sameRun(Sale first, int offset, Sale sale) {
+    return sale.getSaleId() == first.getSaleId() + offset && sale.getValue().equals(first.getValue());
+  }
+
+  public SaleStoreType getSaleStoreType() {
+    return saleStoreType;
+  }
+
+  /**
+   * Sets the storage backend used for product types recorded from now on
+   *
+   * @param saleStoreType
+   */
+  public void setSaleStoreType(SaleStoreType saleStoreType) {
+    this.saleStoreType = saleStoreType;
+  }
+
+  /**
+   * @return whether sales are recorded as fixed-point sales, which all stores but RUN_LENGTH hold
+   */
+  public boolean isFixedPoint() {
+    return FixedPointMoney.isSupportedScale(fixedPointScale) && saleStoreType != SaleStoreType.RUN_LENGTH;
+  }
+
+  public int getFixedPointScale() {
+    return fixedPointScale;
+  }
+
+  /**
+   * Sets the scale of the fixed-point sales recorded from now on, -1 to record BigDecimal sales
+   *
+   * @param fixedPointScale
+   */
+  public void setFixedPointScale(int fixedPointScale) {
+    if (fixedPointScale != -1 && !FixedPointMoney.isSupportedScale(fixedPointScale)) {
+      throw new IllegalArgumentException("Unsupported fixed-point scale " + fixedPointScale);
+    }
+    this.fixedPointScale = fixedPointScale;
+  }
 
-    saleCache.computeIfAbsent(productType, s -> new ArrayList<>()).add(sale);
+  private List<Sale> newSales(String productType) {
+    switch (saleStoreType) {
+      case RUN_LENGTH:
+        return new RunLengthSaleSequence(productType);
+      case COLUMNAR:
+      case OFF_HEAP:
+        return new ColumnarSaleSequence(productType, isFixedPoint() ? fixedPointScale : -1,
+          saleStoreType == SaleStoreType.OFF_HEAP);
+      default:
+        return new ListSaleSequence();
+    }
   }
 }
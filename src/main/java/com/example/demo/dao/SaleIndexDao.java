@@ -0,0 +1,216 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.data.SaleValueIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DAO implementation of the secondary indexes over sales, a {@link SaleValueIndex} of each product type and a ranking
+ * of the product types by revenue
+ * <p>
+ * Using a local Cache for the exercise. Each product type is indexed under its own lock alone, so recording a sale costs
+ * O(log(values)) whatever the number of sales, and product types recorded in parallel never contend. The product types
+ * are ranked when the ranking is read instead, keeping the top ones in a heap bounded by the number fetched, which costs
+ * O(product types * log(count)) a read.
+ */
+@Repository
+public class SaleIndexDao {
+
+  private static final Comparator<SaleAggregate> BY_REVENUE = Comparator.comparing(SaleAggregate::getTotalValue)
+    .reversed().thenComparing(SaleAggregate::getProductType);
+
+  private final ConcurrentMap<String, ProductIndex> productIndexCache = new ConcurrentHashMap<>();
+
+  @Value("${sale.index.enabled:false}")
+  private boolean enabled;
+
+  /**
+   * Clears the indexes of the given {@code productType}
+   *
+   * @param productType
+   */
+  public void clearForProductType(String productType) {
+    productIndexCache.remove(productType);
+  }
+
+  /**
+   * Counts the stored Sales of the given {@code productType} valued from {@code minValue} to {@code maxValue}
+   *
+   * @param productType
+   * @param minValue    null for no lower bound
+   * @param maxValue    null for no upper bound
+   * @return the number of sales in the range
+   */
+  public long countForProductType(String productType, BigDecimal minValue, BigDecimal maxValue) {
+    ProductIndex productIndex = productIndexCache.get(productType);
+    if (productIndex == null) {
+      return 0;
+    }
+    synchronized (productIndex) {
+      return productIndex.saleValueIndex.count(minValue, maxValue);
+    }
+  }
+
+  /**
+   * Lists the lowest values of the stored Sales of the given {@code productType} valued from {@code minValue} to
+   * {@code maxValue}
+   *
+   * @param productType
+   * @param minValue    null for no lower bound
+   * @param maxValue    null for no upper bound
+   * @param limit       number of distinct values listed at most
+   * @return the number of sales by value, in value order
+   */
+  public NavigableMap<BigDecimal, Long> fetchValuesForProductType(String productType, BigDecimal minValue,
+                                                                 BigDecimal maxValue, int limit) {
+    ProductIndex productIndex = productIndexCache.get(productType);
+    if (productIndex == null) {
+      return new TreeMap<>();
+    }
+    synchronized (productIndex) {
+      return productIndex.saleValueIndex.values(minValue, maxValue, limit);
+    }
+  }
+
+  /**
+   * Fetches the aggregates of the product types with the highest revenue, counting the sales rolled up as well
+   *
+   * @param count number of product types fetched at most
+   * @return copies of the sale aggregates, highest total value first
+   */
+  public List<SaleAggregate> fetchTopByRevenue(int count) {
+    if (count <= 0) {
+      return new ArrayList<>();
+    }
+    //Lowest ranked first, so that it is the one dropped when a product type ranks above it
+    PriorityQueue<SaleAggregate> top = new PriorityQueue<>(BY_REVENUE.reversed());
+    for (ProductIndex productIndex : productIndexCache.values()) {
+      synchronized (productIndex) {
+        if (top.size() < count) {
+          top.add(new SaleAggregate(productIndex.revenue));
+        } else if (BY_REVENUE.compare(productIndex.revenue, top.peek()) < 0) {
+          top.poll();
+          top.add(new SaleAggregate(productIndex.revenue));
+        }
+      }
+    }
+    List<SaleAggregate> saleAggregates = new ArrayList<>(top);
+    saleAggregates.sort(BY_REVENUE);
+    return saleAggregates;
+  }
+
+  /**
+   * Indexes {@code noOfOccurrences} Sales of the given {@code productType}, when enabled
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    if (!enabled) {
+      return;
+    }
+    ProductIndex productIndex = productIndexCache.computeIfAbsent(productType, ProductIndex::new);
+    synchronized (productIndex) {
+      productIndex.saleValueIndex.record(saleValue, noOfOccurrences);
+      productIndex.revenue.record(saleValue, noOfOccurrences);
+    }
+  }
+
+  /**
+   * Adds the sales of the given {@link SaleAggregate}, which are not stored, to the revenue of its product type, when
+   * enabled
+   *
+   * @param saleAggregate
+   */
+  public void recordSaleAggregate(SaleAggregate saleAggregate) {
+    if (!enabled) {
+      return;
+    }
+    ProductIndex productIndex = productIndexCache.computeIfAbsent(saleAggregate.getProductType(), ProductIndex::new);
+    synchronized (productIndex) {
+      productIndex.revenue.merge(saleAggregate);
+    }
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on the indexes of its product type, when enabled
+   *
+   * @param saleAdjustment
+   */
+  public void recordSaleAdjustment(SaleAdjustment saleAdjustment) {
+    ProductIndex productIndex = productIndexCache.get(saleAdjustment.getProductType());
+    if (enabled && productIndex != null) {
+      synchronized (productIndex) {
+        productIndex.saleValueIndex.adjust(saleAdjustment);
+        productIndex.revenue.adjust(saleAdjustment);
+      }
+    }
+  }
+
+  /**
+   * Indexes the values of the given {@code sales} in place of those indexed for the given {@code productType}, when
+   * enabled, for sales adjusted or dropped without the index
+   *
+   * @param productType
+   * @param sales       all the sales stored for the product type
+   */
+  public void reindexSales(String productType, List<Sale> sales) {
+    ProductIndex productIndex = productIndexCache.get(productType);
+    if (enabled && productIndex != null) {
+      SaleValueIndex saleValueIndex = new SaleValueIndex();
+      for (Sale sale : sales) {
+        saleValueIndex.record(sale.getValue(), 1);
+      }
+      synchronized (productIndex) {
+        productIndex.saleValueIndex = saleValueIndex;
+      }
+    }
+  }
+
+  /**
+   * Replaces the revenue of the given {@code productType}, when enabled
+   *
+   * @param productType
+   * @param totalValue
+   */
+  public void recordSaleTotal(String productType, BigDecimal totalValue) {
+    ProductIndex productIndex = productIndexCache.get(productType);
+    if (enabled && productIndex != null) {
+      synchronized (productIndex) {
+        productIndex.revenue.revalue(totalValue);
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  private static final class ProductIndex {
+
+    private SaleValueIndex saleValueIndex = new SaleValueIndex();
+    private final SaleAggregate revenue;
+
+    private ProductIndex(String productType) {
+      this.revenue = new SaleAggregate(productType);
+    }
+  }
+}
@@ -0,0 +1,445 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleRollup;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable journal of the sales and sale adjustments recorded, disabled unless {@code sale.journal.enabled} is set
+ * <p>
+ * Operations are appended to a {@link SaleWriteAheadLog} and committed in groups, every {@code
+ * sale.journal.commitInterval} milliseconds or on every append when not positive. A snapshot of the sales and
+ * adjustments of every product type replaces the log once it holds {@code sale.journal.snapshotRecords} records, so
+ * recovery loads the last snapshot and replays the log written since.
+ * <p>
+ * Each snapshot starts a new log generation: a snapshot of generation {@code n} holds everything logged before log
+ * {@code n}. Snapshots are written to a temporary file and moved in place, so a crash leaves either the previous
+ * snapshot and its log or the new one.
+ */
+@Repository
+public class SaleJournal {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SaleJournal.class);
+
+  private static final int SNAPSHOT_MAGIC = 0x53414C53;
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final String SNAPSHOT_FILE = "sales.snapshot";
+  private static final String LOG_PREFIX = "sales-";
+  private static final String LOG_SUFFIX = ".wal";
+
+  private static final SaleAdjustmentOperation[] OPERATIONS = SaleAdjustmentOperation.values();
+
+  @Value("${sale.journal.enabled:false}")
+  private boolean enabled;
+
+  @Value("${sale.journal.directory:journal}")
+  private String directory = "journal";
+
+  @Value("${sale.journal.windowSize:16777216}")
+  private int windowSize = 16 * 1024 * 1024;
+
+  @Value("${sale.journal.commitInterval:10}")
+  private long commitInterval = 10;
+
+  @Value("${sale.journal.snapshotRecords:100000}")
+  private long snapshotRecords = 100000;
+
+  private volatile SaleWriteAheadLog log;
+  private long generation;
+  private ScheduledExecutorService committer;
+
+  /**
+   * Restores the last snapshot and replays the log written since, then opens the log for appending
+   *
+   * @param replayer
+   * @throws IOException
+   */
+  public synchronized void recover(SaleLogReplayer replayer) throws IOException {
+    if (log != null) {
+      throw new IllegalStateException("Sale journal already recovered");
+    }
+    Path journalDirectory = Paths.get(directory);
+    Files.createDirectories(journalDirectory);
+
+    Path snapshot = journalDirectory.resolve(SNAPSHOT_FILE);
+    generation = Files.exists(snapshot) ? readSnapshot(snapshot, replayer) : 0;
+
+    List<Long> logGenerations = new ArrayList<>(listLogGenerations(journalDirectory));
+    SaleWriteAheadLog recovered = null;
+    for (long logGeneration : logGenerations) {
+      Path logPath = logPath(logGeneration);
+      if (logGeneration < generation) {
+        Files.delete(logPath);
+        continue;
+      }
+      if (recovered != null) {
+        recovered.close();
+      }
+      recovered = SaleWriteAheadLog.open(logPath, windowSize, replayer);
+      generation = logGeneration;
+    }
+    log = recovered != null ? recovered : SaleWriteAheadLog.open(logPath(generation), windowSize, replayer);
+    LOGGER.info("Recovered sale journal generation {} with {} logged records", generation, log.getRecordCount());
+
+    if (commitInterval > 0 && committer == null) {
+      committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sale-journal-commit");
+        thread.setDaemon(true);
+        return thread;
+      });
+      committer.scheduleWithFixedDelay(this::commit, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Appends {@code noOfOccurrences} identical Sales for the given {@code productType}
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void appendSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    SaleWriteAheadLog log = openLog();
+    log.appendSales(productType, saleValue, noOfOccurrences);
+    commitIfSynchronous(log);
+  }
+
+  /**
+   * Appends the given {@link SaleAdjustment}
+   *
+   * @param saleAdjustment
+   */
+  public void appendSaleAdjustment(SaleAdjustment saleAdjustment) {
+    SaleWriteAheadLog log = openLog();
+    log.appendSaleAdjustment(saleAdjustment);
+    commitIfSynchronous(log);
+  }
+
+  /**
+   * Appends the clearing of the Sales of the given {@code productType}
+   *
+   * @param productType
+   */
+  public void appendClearSales(String productType) {
+    SaleWriteAheadLog log = openLog();
+    log.appendClearSales(productType);
+    commitIfSynchronous(log);
+  }
+
+  /**
+   * Appends the clearing of the SaleAdjustments of the given {@code productType}
+   *
+   * @param productType
+   */
+  public void appendClearSaleAdjustments(String productType) {
+    SaleWriteAheadLog log = openLog();
+    log.appendClearSaleAdjustments(productType);
+    commitIfSynchronous(log);
+  }
+
+  /**
+   * Makes every operation appended so far durable
+   */
+  public void commit() {
+    SaleWriteAheadLog log = this.log;
+    if (log != null) {
+      log.force();
+    }
+  }
+
+  /**
+   * @return whether the log holds enough records for {@link #snapshot(Map, Map, Map)} to be worth it
+   */
+  public boolean isSnapshotDue() {
+    SaleWriteAheadLog log = this.log;
+    return log != null && log.getRecordCount() >= snapshotRecords;
+  }
+
+  /**
+   * Replaces the log with a snapshot of the given state, which must include every operation appended so far and no
+   * operation may be appended until this returns
+   *
+   * @param sales       sales by product type
+   * @param rollups     rollups of the sales compacted by product type
+   * @param adjustments sale adjustments by product type
+   * @throws IOException
+   */
+  public synchronized void snapshot(Map<String, List<Sale>> sales, Map<String, SaleRollup> rollups,
+                                    Map<String, List<SaleAdjustment>> adjustments) throws IOException {
+    SaleWriteAheadLog previousLog = openLog();
+    long nextGeneration = generation + 1;
+
+    Path snapshot = Paths.get(directory, SNAPSHOT_FILE);
+    Path temporarySnapshot = Paths.get(directory, SNAPSHOT_FILE + ".tmp");
+    writeSnapshot(temporarySnapshot, nextGeneration, sales, rollups, adjustments);
+    Files.move(temporarySnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    Files.deleteIfExists(logPath(nextGeneration));
+    log = SaleWriteAheadLog.open(logPath(nextGeneration), windowSize, null);
+    generation = nextGeneration;
+    previousLog.close();
+    Files.delete(previousLog.getPath());
+    LOGGER.info("Wrote sale journal snapshot generation {} replacing {} logged records", generation, previousLog.getRecordCount());
+  }
+
+  /**
+   * Commits and closes the log, after which nothing can be appended
+   *
+   * @throws IOException
+   */
+  @PreDestroy
+  public synchronized void close() throws IOException {
+    if (committer != null) {
+      committer.shutdown();
+      committer = null;
+    }
+    if (log != null) {
+      log.close();
+      log = null;
+    }
+  }
+
+  private SaleWriteAheadLog openLog() {
+    SaleWriteAheadLog log = this.log;
+    if (log == null) {
+      throw new IllegalStateException("Sale journal not recovered");
+    }
+    return log;
+  }
+
+  private void commitIfSynchronous(SaleWriteAheadLog log) {
+    if (commitInterval <= 0) {
+      log.force();
+    }
+  }
+
+  private Path logPath(long logGeneration) {
+    return Paths.get(directory, LOG_PREFIX + logGeneration + LOG_SUFFIX);
+  }
+
+  private static Set<Long> listLogGenerations(Path journalDirectory) throws IOException {
+    Set<Long> logGenerations = new TreeSet<>();
+    try (DirectoryStream<Path> logs = Files.newDirectoryStream(journalDirectory, LOG_PREFIX + "*" + LOG_SUFFIX)) {
+      for (Path logPath : logs) {
+        String fileName = logPath.getFileName().toString();
+        try {
+          logGenerations.add(Long.parseLong(fileName.substring(LOG_PREFIX.length(), fileName.length() - LOG_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          LOGGER.warn("Ignoring unexpected file {} in the sale journal", logPath);
+        }
+      }
+    }
+    return logGenerations;
+  }
+
+  /**
+   * Writes the sales of each product type as runs of equal values, followed by the rollup of its compacted sales, its
+   * adjustments and a CRC32
+   */
+  private static void writeSnapshot(Path path, long generation, Map<String, List<Sale>> sales,
+                                    Map<String, SaleRollup> rollups, Map<String, List<SaleAdjustment>> adjustments)
+    throws IOException {
+    Set<String> productTypes = new TreeSet<>(sales.keySet());
+    productTypes.addAll(rollups.keySet());
+    productTypes.addAll(adjustments.keySet());
+
+    try (FileOutputStream file = new FileOutputStream(path.toFile())) {
+      CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+      DataOutputStream out = new DataOutputStream(checked);
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeLong(generation);
+      out.writeInt(productTypes.size());
+
+      for (String productType : productTypes) {
+        writeString(out, productType);
+
+        List<BigDecimal> runValues = new ArrayList<>();
+        List<Integer> runLengths = new ArrayList<>();
+        for (Sale sale : sales.getOrDefault(productType, Collections.emptyList())) {
+          BigDecimal value = sale.getValue();
+          int last = runValues.size() - 1;
+          if (last >= 0 && runValues.get(last).equals(value)) {
+            runLengths.set(last, runLengths.get(last) + 1);
+          } else {
+            runValues.add(value);
+            runLengths.add(1);
+          }
+        }
+        out.writeInt(runValues.size());
+        for (int i = 0; i < runValues.size(); i++) {
+          writeDecimal(out, runValues.get(i));
+          out.writeInt(runLengths.get(i));
+        }
+
+        SaleRollup rollup = rollups.get(productType);
+        long rolledUpSales = rollup == null ? 0 : rollup.getSaleCount();
+        out.writeLong(rolledUpSales);
+        if (rolledUpSales > 0) {
+          writeDecimal(out, rollup.getTotalValue());
+          writeDecimal(out, rollup.getMinValue());
+          writeDecimal(out, rollup.getMaxValue());
+        }
+
+        List<SaleAdjustment> productAdjustments = adjustments.getOrDefault(productType, Collections.emptyList());
+        out.writeInt(productAdjustments.size());
+        for (SaleAdjustment saleAdjustment : productAdjustments) {
+          out.writeByte(saleAdjustment.getSaleAdjustmentOperation().ordinal());
+          writeDecimal(out, saleAdjustment.getAdjustmentValue());
+        }
+      }
+
+      out.flush();
+      new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+      file.getFD().sync();
+    }
+  }
+
+  /**
+   * @return the generation of the snapshot
+   */
+  private static long readSnapshot(Path path, SaleLogReplayer replayer) throws IOException {
+    byte[] bytes = Files.readAllBytes(path);
+    if (bytes.length < 8) {
+      throw new IOException("Truncated sale journal snapshot " + path);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length - 8);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    in.skipBytes(bytes.length - 8);
+    if (in.readLong() != crc.getValue()) {
+      throw new IOException("Corrupt sale journal snapshot " + path);
+    }
+
+    in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+    if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+      throw new IOException("Not a sale journal snapshot " + path);
+    }
+    long generation = in.readLong();
+    int productTypes = in.readInt();
+    for (int p = 0; p < productTypes; p++) {
+      String productType = readString(in);
+
+      int runs = in.readInt();
+      for (int r = 0; r < runs; r++) {
+        BigDecimal value = readDecimal(in);
+        replayer.recordSales(productType, value, in.readInt());
+      }
+
+      long rolledUpSales = in.readLong();
+      if (rolledUpSales > 0) {
+        replayer.restoreSaleRollup(new SaleRollup(productType, rolledUpSales, readDecimal(in), readDecimal(in), readDecimal(in)));
+      }
+
+      int saleAdjustments = in.readInt();
+      for (int a = 0; a < saleAdjustments; a++) {
+        SaleAdjustmentOperation operation = OPERATIONS[in.readUnsignedByte()];
+        replayer.restoreSaleAdjustment(new SaleAdjustment(productType, operation, readDecimal(in)));
+      }
+    }
+    return generation;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+    byte[] unscaledValue = value.unscaledValue().toByteArray();
+    out.writeInt(value.scale());
+    out.writeInt(unscaledValue.length);
+    out.write(unscaledValue);
+  }
+
+  private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+    int scale = in.readInt();
+    byte[] unscaledValue = new byte[in.readInt()];
+    in.readFully(unscaledValue);
+    return new BigDecimal(new BigInteger(unscaledValue), scale);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public void setWindowSize(int windowSize) {
+    this.windowSize = windowSize;
+  }
+
+  public long getCommitInterval() {
+    return commitInterval;
+  }
+
+  /**
+   * Sets the interval between group commits in milliseconds, taking effect on {@link #recover(SaleLogReplayer)}
+   *
+   * @param commitInterval
+   */
+  public void setCommitInterval(long commitInterval) {
+    this.commitInterval = commitInterval;
+  }
+
+  public long getSnapshotRecords() {
+    return snapshotRecords;
+  }
+
+  public void setSnapshotRecords(long snapshotRecords) {
+    this.snapshotRecords = snapshotRecords;
+  }
+}
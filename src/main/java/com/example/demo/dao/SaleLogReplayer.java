@@ -0,0 +1,56 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleRollup;
+
+import java.math.BigDecimal;
+
+/**
+ * Receives the operations read back from a {@link SaleJournal}, in the order they were recorded
+ */
+public interface SaleLogReplayer {
+
+  /**
+   * Records {@code noOfOccurrences} identical Sales for the given {@code productType}
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences);
+
+  /**
+   * Applies the given {@link SaleAdjustment} on the sales recorded so far and saves it
+   *
+   * @param saleAdjustment
+   */
+  void recordSaleAdjustment(SaleAdjustment saleAdjustment);
+
+  /**
+   * Saves the given {@link SaleAdjustment} without applying it, its effect being part of the sales restored
+   *
+   * @param saleAdjustment
+   */
+  void restoreSaleAdjustment(SaleAdjustment saleAdjustment);
+
+  /**
+   * Restores the given {@link SaleRollup} of the sales compacted before the snapshot
+   *
+   * @param saleRollup
+   */
+  void restoreSaleRollup(SaleRollup saleRollup);
+
+  /**
+   * Clears Sales for the given {@code productType}
+   *
+   * @param productType
+   */
+  void clearSales(String productType);
+
+  /**
+   * Clears SaleAdjustments for the given {@code productType}
+   *
+   * @param productType
+   */
+  void clearSaleAdjustments(String productType);
+}
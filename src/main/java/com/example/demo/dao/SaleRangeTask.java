@@ -0,0 +1,62 @@
+package com.example.demo.dao;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join task applying a {@link RangeFunction} on an index range, split into ranges of at most {@code splitSize}
+ * indexes, and answering the largest of the results
+ */
+final class SaleRangeTask extends RecursiveTask<Long> {
+
+  private final int fromIndex;
+  private final int toIndex;
+  private final int splitSize;
+  private final RangeFunction rangeFunction;
+
+  private SaleRangeTask(int fromIndex, int toIndex, int splitSize, RangeFunction rangeFunction) {
+    this.fromIndex = fromIndex;
+    this.toIndex = toIndex;
+    this.splitSize = splitSize;
+    this.rangeFunction = rangeFunction;
+  }
+
+  /**
+   * Applies {@code rangeFunction} on the range in the common {@link ForkJoinPool}, returning once all of it is applied
+   *
+   * @param fromIndex
+   * @param toIndex
+   * @param splitSize     largest range applied by a single task, at least 1
+   * @param rangeFunction
+   * @return the largest result of {@code rangeFunction}
+   */
+  static long invoke(int fromIndex, int toIndex, int splitSize, RangeFunction rangeFunction) {
+    return ForkJoinPool.commonPool().invoke(new SaleRangeTask(fromIndex, toIndex, splitSize, rangeFunction));
+  }
+
+  @Override
+  protected Long compute() {
+    if (toIndex - fromIndex <= splitSize) {
+      return rangeFunction.apply(fromIndex, toIndex);
+    }
+    int middle = (fromIndex + toIndex) >>> 1;
+    SaleRangeTask head = new SaleRangeTask(fromIndex, middle, splitSize, rangeFunction);
+    head.fork();
+    long tail = new SaleRangeTask(middle, toIndex, splitSize, rangeFunction).compute();
+    return Math.max(head.join(), tail);
+  }
+
+  /**
+   * Function of an index range, safe to apply concurrently on disjoint ranges
+   */
+  @FunctionalInterface
+  interface RangeFunction {
+
+    /**
+     * @param fromIndex inclusive
+     * @param toIndex   exclusive
+     * @return a result to reduce
+     */
+    long apply(int fromIndex, int toIndex);
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleRollup;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DAO implementation for {@link SaleRollup} instances
+ * <p>
+ * Using a local Cache for the exercise. The cache is thread safe, each rollup is updated and copied under its own lock.
+ */
+@Repository
+public class SaleRollupDao {
+
+  private ConcurrentMap<String, SaleRollup> saleRollupCache = new ConcurrentHashMap<>();
+
+  /**
+   * Clears the SaleRollup for the given {@code productType}
+   *
+   * @param productType
+   */
+  public void clearForProductType(String productType) {
+    saleRollupCache.remove(productType);
+  }
+
+  /**
+   * Fetches copies of all SaleRollups
+   *
+   * @return Map of all sale rollups by product type
+   */
+  public Map<String, SaleRollup> fetchAllSaleRollups() {
+    Map<String, SaleRollup> saleRollups = new HashMap<>();
+    saleRollupCache.forEach((productType, saleRollup) -> saleRollups.put(productType, copyOf(saleRollup)));
+    return saleRollups;
+  }
+
+  /**
+   * Fetches a copy of the SaleRollup for the given {@code productType}
+   *
+   * @param productType
+   * @return the sale rollup, empty when no sales were rolled up
+   */
+  public SaleRollup fetchForProductType(String productType) {
+    SaleRollup saleRollup = saleRollupCache.get(productType);
+    return saleRollup == null ? new SaleRollup(productType) : copyOf(saleRollup);
+  }
+
+  /**
+   * Rolls up the given {@code sales} into the rollup of the given {@code productType}
+   *
+   * @param productType
+   * @param sales
+   */
+  public void recordSales(String productType, List<Sale> sales) {
+    SaleRollup saleRollup = saleRollupCache.computeIfAbsent(productType, SaleRollup::new);
+    synchronized (saleRollup) {
+      for (Sale sale : sales) {
+        saleRollup.record(sale.getValue(), 1);
+      }
+    }
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on the rollup of its product type
+   *
+   * @param saleAdjustment
+   */
+  public void recordSaleAdjustment(SaleAdjustment saleAdjustment) {
+    SaleRollup saleRollup = saleRollupCache.get(saleAdjustment.getProductType());
+    if (saleRollup != null) {
+      synchronized (saleRollup) {
+        saleRollup.adjust(saleAdjustment);
+      }
+    }
+  }
+
+  /**
+   * Replaces the rollup of its product type with the given {@link SaleRollup}, for restoring it
+   *
+   * @param saleRollup
+   */
+  public void save(SaleRollup saleRollup) {
+    saleRollupCache.put(saleRollup.getProductType(), new SaleRollup(saleRollup));
+  }
+
+  private SaleRollup copyOf(SaleRollup saleRollup) {
+    synchronized (saleRollup) {
+      return new SaleRollup(saleRollup);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleValueTransform;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Sales of a product type held by one of the {@link SaleDao} storage backends
+ * <p>
+ * Implementations are thread safe. Elements returned by a sequence may be views that do not write changes back, so
+ * values are changed and summed through the sequence itself. Use {@link SaleSequences} to work on any list of sales.
+ * <p>
+ * Snapshots share their storage with the sequence, which copies what it shares before changing it.
+ */
+public interface SaleSequence extends List<Sale> {
+
+  /**
+   * @return the sum of all sale values, as if reduced from {@link BigDecimal#ZERO}
+   */
+  BigDecimal totalValue();
+
+  /**
+   * Takes a point-in-time view of the sequence without copying its sales
+   *
+   * @return a read only sequence of the sales as they are now, unaffected by later appends and adjustments
+   */
+  SaleSequence snapshot();
+
+  /**
+   * Applies the given {@code transform} on the sales between {@code fromIndex} (inclusive) and {@code toIndex}
+   * (exclusive)
+   *
+   * @param fromIndex
+   * @param toIndex
+   * @param transform
+   */
+  void adjust(int fromIndex, int toIndex, SaleValueTransform transform);
+
+  /**
+   * Applies the given {@code transform} as {@link #adjust(int, int, SaleValueTransform)} does, splitting ranges of more
+   * than {@code splitSize} sales into fork-join tasks of at most that many
+   * <p>
+   * The range is adjusted as a whole: totals are not taken while it is partly adjusted, and the call returns once all
+   * of it is. Sequences which would not gain from the split adjust sequentially.
+   *
+   * @param fromIndex
+   * @param toIndex
+   * @param transform
+   * @param splitSize largest number of sales adjusted by a single task, 0 to adjust sequentially
+   */
+  default void adjust(int fromIndex, int toIndex, SaleValueTransform transform, int splitSize) {
+    adjust(fromIndex, toIndex, transform);
+  }
+}
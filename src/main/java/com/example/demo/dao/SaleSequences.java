@@ -0,0 +1,84 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleValueTransform;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Operations on lists of {@link Sale}s, delegating to {@link SaleSequence} backends where available
+ */
+public final class SaleSequences {
+
+  private SaleSequences() {
+  }
+
+  /**
+   * Applies the given {@code saleAdjustment} on all {@code sales}
+   *
+   * @param sales
+   * @param saleAdjustment
+   */
+  public static void adjust(List<Sale> sales, SaleAdjustment saleAdjustment) {
+    adjust(sales, saleAdjustment, 0);
+  }
+
+  /**
+   * Applies the given {@code saleAdjustment} on all {@code sales}, in fork-join tasks of at most {@code splitSize}
+   * sales when they are a {@link SaleSequence} holding more
+   *
+   * @param sales
+   * @param saleAdjustment
+   * @param splitSize      0 to adjust sequentially
+   */
+  public static void adjust(List<Sale> sales, SaleAdjustment saleAdjustment, int splitSize) {
+    if (sales instanceof SaleSequence) {
+      ((SaleSequence) sales).adjust(0, sales.size(), SaleValueTransform.of(saleAdjustment), splitSize);
+    } else {
+      sales.forEach(saleAdjustment::apply);
+    }
+  }
+
+  /**
+   * Applies the given {@code transform} on the {@code sales} between {@code fromIndex} (inclusive) and
+   * {@code toIndex} (exclusive)
+   *
+   * @param sales
+   * @param fromIndex
+   * @param toIndex
+   * @param transform
+   */
+  public static void adjust(List<Sale> sales, int fromIndex, int toIndex, SaleValueTransform transform) {
+    if (sales instanceof SaleSequence) {
+      ((SaleSequence) sales).adjust(fromIndex, toIndex, transform);
+    } else {
+      sales.subList(fromIndex, toIndex).forEach(sale -> sale.setValue(transform.apply(sale.getValue())));
+    }
+  }
+
+  /**
+   * @param sales
+   * @return a read only view of the {@code sales} as they are now, see {@link SaleSequence#snapshot()}
+   */
+  public static List<Sale> snapshot(List<Sale> sales) {
+    if (sales instanceof SaleSequence) {
+      return ((SaleSequence) sales).snapshot();
+    }
+    return Collections.unmodifiableList(new ArrayList<>(sales));
+  }
+
+  /**
+   * @param sales
+   * @return the sum of all sale values
+   */
+  public static BigDecimal totalValue(List<Sale> sales) {
+    if (sales instanceof SaleSequence) {
+      return ((SaleSequence) sales).totalValue();
+    }
+    return sales.stream().map(Sale::getValue).reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.dao;
+
+/**
+ * Storage backends for the sales of a product type held by {@link SaleDao}
+ */
+public enum SaleStoreType {
+
+  /**
+   * One {@link com.example.demo.data.Sale} instance per sale
+   */
+  LIST,
+
+  /**
+   * One (value, count) run per recorded batch of identical sales
+   */
+  RUN_LENGTH,
+
+  /**
+   * Sale ids and values in chunked primitive columns on the heap
+   */
+  COLUMNAR,
+
+  /**
+   * Sale ids and values in chunked primitive columns in direct buffers
+   */
+  OFF_HEAP
+}
@@ -0,0 +1,166 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.data.SaleWindow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DAO implementation for {@link SaleWindow} instances
+ * <p>
+ * Sales and adjustments are stamped with the time they are recorded at, so the windows only count what was recorded
+ * in the last {@code bucketSeconds * buckets} seconds. Using a local Cache for the exercise, each window is updated and
+ * summed under its own lock, and holds {@code buckets} aggregates at most whatever the number of sales.
+ */
+@Repository
+public class SaleWindowDao {
+
+  private final Clock clock;
+  private ConcurrentMap<String, SaleWindow> saleWindowCache = new ConcurrentHashMap<>();
+
+  @Value("${sale.window.enabled:false}")
+  private boolean enabled;
+
+  @Value("${sale.window.bucketSeconds:10}")
+  private int bucketSeconds = 10;
+
+  @Value("${sale.window.buckets:30}")
+  private int buckets = 30;
+
+  /**
+   * Initialises a new {@link SaleWindowDao} stamping with the system clock
+   */
+  public SaleWindowDao() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Initialises a new {@link SaleWindowDao} with the given parameters
+   *
+   * @param clock
+   */
+  public SaleWindowDao(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Clears the SaleWindow for the given {@code productType}
+   *
+   * @param productType
+   */
+  public void clearForProductType(String productType) {
+    saleWindowCache.remove(productType);
+  }
+
+  /**
+   * Sums the windows of all product types as they are now
+   *
+   * @return Map of the aggregates of the sales in the window by product type
+   */
+  public Map<String, SaleAggregate> fetchAllWindowAggregates() {
+    long now = clock.millis();
+    Map<String, SaleAggregate> saleAggregates = new HashMap<>();
+    saleWindowCache.forEach((productType, saleWindow) -> saleAggregates.put(productType, aggregate(saleWindow, now)));
+    return saleAggregates;
+  }
+
+  /**
+   * Sums the window of the given {@code productType} as it is now
+   *
+   * @param productType
+   * @return the aggregate of the sales in the window, empty when none were recorded
+   */
+  public SaleAggregate fetchForProductType(String productType) {
+    SaleWindow saleWindow = saleWindowCache.get(productType);
+    return saleWindow == null ? new SaleAggregate(productType) : aggregate(saleWindow, clock.millis());
+  }
+
+  /**
+   * Adds {@code noOfOccurrences} Sales to the window of the given {@code productType}, when enabled
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    if (!enabled) {
+      return;
+    }
+    SaleWindow saleWindow = saleWindowCache.computeIfAbsent(productType,
+      key -> new SaleWindow(key, bucketSeconds * 1000L, buckets));
+    long now = clock.millis();
+    synchronized (saleWindow) {
+      saleWindow.record(saleValue, noOfOccurrences, now);
+    }
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on the window of its product type, when enabled
+   *
+   * @param saleAdjustment
+   */
+  public void recordSaleAdjustment(SaleAdjustment saleAdjustment) {
+    SaleWindow saleWindow = saleWindowCache.get(saleAdjustment.getProductType());
+    if (enabled && saleWindow != null) {
+      long now = clock.millis();
+      synchronized (saleWindow) {
+        saleWindow.adjust(saleAdjustment, now);
+      }
+    }
+  }
+
+  private SaleAggregate aggregate(SaleWindow saleWindow, long now) {
+    synchronized (saleWindow) {
+      return saleWindow.aggregate(now);
+    }
+  }
+
+  /**
+   * @return the time covered by the windows, in seconds
+   */
+  public long getWindowSeconds() {
+    return (long) bucketSeconds * buckets;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getBucketSeconds() {
+    return bucketSeconds;
+  }
+
+  /**
+   * Sets the time covered by a bucket, taking effect for the windows of product types recorded next
+   *
+   * @param bucketSeconds
+   */
+  public void setBucketSeconds(int bucketSeconds) {
+    this.bucketSeconds = bucketSeconds;
+  }
+
+  public int getBuckets() {
+    return buckets;
+  }
+
+  /**
+   * Sets the number of buckets in a window, taking effect for the windows of product types recorded next
+   *
+   * @param buckets
+   */
+  public void setBuckets(int buckets) {
+    this.buckets = buckets;
+  }
+}
@@ -0,0 +1,381 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of sale operations, written through memory-mapped windows of a single file
+ * <p>
+ * The file starts with a header holding the window size. Each record is its payload length, the CRC32 of its payload
+ * and the payload, and never spans two windows: a record that does not fit is written at the start of the next
+ * window, the rest of the current one being skipped. A zero length, a short or a corrupt record ends the log, so a
+ * record torn by a crash is dropped on {@link #open(Path, int, SaleLogReplayer)} along with anything after it.
+ * <p>
+ * Appends reach the page cache straight away and are only durable once {@link #force()}d, which lets a caller commit
+ * every record appended since the previous force at once. Appends and forces are thread safe.
+ */
+public class SaleWriteAheadLog implements Closeable {
+
+  private static final int MAGIC = 0x53414C57;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final int SKIP_TO_NEXT_WINDOW = -1;
+
+  private static final byte SALES = 1;
+  private static final byte SALE_ADJUSTMENT = 2;
+  private static final byte CLEAR_SALES = 3;
+  private static final byte CLEAR_SALE_ADJUSTMENTS = 4;
+
+  private static final SaleAdjustmentOperation[] OPERATIONS = SaleAdjustmentOperation.values();
+
+  private final Path path;
+  private final FileChannel channel;
+  private final int windowSize;
+  private final CRC32 crc = new CRC32();
+
+  private ByteBuffer payload = ByteBuffer.allocate(256);
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long recordCount;
+  private boolean dirty;
+  private boolean closed;
+
+  private SaleWriteAheadLog(Path path, FileChannel channel, int windowSize) {
+    this.path = path;
+    this.channel = channel;
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Opens the log at the given {@code path}, creating it when missing, after replaying the records it holds
+   *
+   * @param path
+   * @param windowSize size of the mapped windows of a new log, an existing log keeps its own
+   * @param replayer   receives the records of an existing log
+   * @return the log, positioned after its last complete record
+   * @throws IOException
+   */
+  public static SaleWriteAheadLog open(Path path, int windowSize, SaleLogReplayer replayer) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() < HEADER_SIZE) {
+        if (windowSize < HEADER_SIZE + RECORD_HEADER_SIZE) {
+          throw new IllegalArgumentException("Window size too small " + windowSize);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(windowSize);
+        header.rewind();
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.force(true);
+
+        SaleWriteAheadLog log = new SaleWriteAheadLog(path, channel, windowSize);
+        log.mapWindow(0, HEADER_SIZE);
+        return log;
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not a sale log " + path);
+      }
+      SaleWriteAheadLog log = new SaleWriteAheadLog(path, channel, header.getInt());
+      log.replay(replayer);
+      return log;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Replays the complete records, then drops anything after them and maps the window to append to
+   */
+  private void replay(SaleLogReplayer replayer) throws IOException {
+    long size = channel.size();
+    long start = 0;
+    int offset = HEADER_SIZE;
+
+    while (start < size) {
+      ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+      if (!replayWindow(records, offset, replayer)) {
+        offset = records.position();
+        break;
+      }
+      start += windowSize;
+      offset = 0;
+    }
+
+    channel.truncate(start + offset);
+    mapWindow(start, offset);
+  }
+
+  /**
+   * @return whether the records go on in the next window, the position of {@code records} being left at the end of
+   * the log otherwise
+   */
+  private boolean replayWindow(ByteBuffer records, int offset, SaleLogReplayer replayer) throws IOException {
+    records.position(offset);
+    while (true) {
+      if (windowSize - records.position() < RECORD_HEADER_SIZE) {
+        return records.limit() == windowSize;
+      }
+      if (records.remaining() < RECORD_HEADER_SIZE) {
+        return false;
+      }
+
+      int recordStart = records.position();
+      int length = records.getInt();
+      if (length == SKIP_TO_NEXT_WINDOW) {
+        return records.limit() == windowSize;
+      }
+      int checksum = records.getInt();
+      if (length <= 0 || length > records.remaining()) {
+        records.position(recordStart);
+        return false;
+      }
+
+      ByteBuffer record = records.slice();
+      record.limit(length);
+      crc.reset();
+      crc.update(record);
+      if ((int) crc.getValue() != checksum) {
+        records.position(recordStart);
+        return false;
+      }
+
+      record.rewind();
+      try {
+        replayRecord(record, replayer);
+      } catch (BufferUnderflowException | IllegalArgumentException e) {
+        throw new IOException("Corrupt sale log record at " + recordStart + " of " + path, e);
+      }
+      records.position(records.position() + length);
+      recordCount++;
+    }
+  }
+
+  private static void replayRecord(ByteBuffer record, SaleLogReplayer replayer) {
+    byte type = record.get();
+    String productType = getString(record);
+    switch (type) {
+      case SALES:
+        BigDecimal saleValue = getDecimal(record);
+        replayer.recordSales(productType, saleValue, record.getInt());
+        break;
+      case SALE_ADJUSTMENT:
+        int ordinal = record.get();
+        if (ordinal < 0 || ordinal >= OPERATIONS.length) {
+          throw new IllegalArgumentException("Unknown adjustment operation " + ordinal);
+        }
+        replayer.recordSaleAdjustment(new SaleAdjustment(productType, OPERATIONS[ordinal], getDecimal(record)));
+        break;
+      case CLEAR_SALES:
+        replayer.clearSales(productType);
+        break;
+      case CLEAR_SALE_ADJUSTMENTS:
+        replayer.clearSaleAdjustments(productType);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown record type " + type);
+    }
+  }
+
+  /**
+   * Appends {@code noOfOccurrences} identical Sales for the given {@code productType}
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public synchronized void appendSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    startRecord(SALES, productType);
+    putDecimal(saleValue);
+    ensurePayloadCapacity(4);
+    payload.putInt(noOfOccurrences);
+    endRecord();
+  }
+
+  /**
+   * Appends the given {@link SaleAdjustment}
+   *
+   * @param saleAdjustment
+   */
+  public synchronized void appendSaleAdjustment(SaleAdjustment saleAdjustment) {
+    startRecord(SALE_ADJUSTMENT, saleAdjustment.getProductType());
+    ensurePayloadCapacity(1);
+    payload.put((byte) saleAdjustment.getSaleAdjustmentOperation().ordinal());
+    putDecimal(saleAdjustment.getAdjustmentValue());
+    endRecord();
+  }
+
+  /**
+   * Appends the clearing of the Sales of the given {@code productType}
+   *
+   * @param productType
+   */
+  public synchronized void appendClearSales(String productType) {
+    startRecord(CLEAR_SALES, productType);
+    endRecord();
+  }
+
+  /**
+   * Appends the clearing of the SaleAdjustments of the given {@code productType}
+   *
+   * @param productType
+   */
+  public synchronized void appendClearSaleAdjustments(String productType) {
+    startRecord(CLEAR_SALE_ADJUSTMENTS, productType);
+    endRecord();
+  }
+
+  /**
+   * Makes every record appended so far durable, in a single write back of the current window
+   */
+  public void force() {
+    MappedByteBuffer window;
+    synchronized (this) {
+      if (!dirty || closed) {
+        return;
+      }
+      dirty = false;
+      window = this.window;
+    }
+    window.force();
+  }
+
+  /**
+   * @return the number of records in the log, replayed or appended
+   */
+  public synchronized long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * @return the size of the log in bytes
+   */
+  public synchronized long getSize() {
+    return windowStart + window.position();
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * Forces the records appended so far and trims the file to them
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      window.force();
+      closed = true;
+      channel.truncate(windowStart + window.position());
+      channel.close();
+    }
+  }
+
+  private void startRecord(byte type, String productType) {
+    if (closed) {
+      throw new IllegalStateException("Sale log closed " + path);
+    }
+    payload.clear();
+    payload.put(type);
+    putString(productType);
+  }
+
+  private void endRecord() {
+    payload.flip();
+    int length = payload.remaining();
+    if (RECORD_HEADER_SIZE + length > windowSize) {
+      throw new IllegalArgumentException("Sale log record of " + length + " bytes exceeds the window size");
+    }
+
+    if (window.remaining() < RECORD_HEADER_SIZE + length) {
+      if (window.remaining() >= 4) {
+        window.putInt(SKIP_TO_NEXT_WINDOW);
+      }
+      window.force();
+      try {
+        mapWindow(windowStart + windowSize, 0);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not extend sale log " + path, e);
+      }
+    }
+
+    crc.reset();
+    crc.update(payload);
+    payload.rewind();
+    window.putInt(length);
+    window.putInt((int) crc.getValue());
+    window.put(payload);
+    recordCount++;
+    dirty = true;
+  }
+
+  private void mapWindow(long start, int position) throws IOException {
+    window = channel.map(FileChannel.MapMode.READ_WRITE, start, windowSize);
+    window.position(position);
+    windowStart = start;
+  }
+
+  private void ensurePayloadCapacity(int extra) {
+    if (payload.remaining() < extra) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(payload.capacity() * 2, payload.position() + extra));
+      payload.flip();
+      grown.put(payload);
+      payload = grown;
+    }
+  }
+
+  private void putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    ensurePayloadCapacity(4 + bytes.length);
+    payload.putInt(bytes.length);
+    payload.put(bytes);
+  }
+
+  private void putDecimal(BigDecimal value) {
+    byte[] unscaledValue = value.unscaledValue().toByteArray();
+    ensurePayloadCapacity(8 + unscaledValue.length);
+    payload.putInt(value.scale());
+    payload.putInt(unscaledValue.length);
+    payload.put(unscaledValue);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[checkedLength(buffer)];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer buffer) {
+    int scale = buffer.getInt();
+    byte[] unscaledValue = new byte[checkedLength(buffer)];
+    buffer.get(unscaledValue);
+    return new BigDecimal(new BigInteger(unscaledValue), scale);
+  }
+
+  private static int checkedLength(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid length " + length);
+    }
+    return length;
+  }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic on money amounts held as {@code long} units of {@code 10^-scale}
+ * <p>
+ * Results that do not fit in a {@code long} are reported as {@link #OVERFLOW}, the caller then falls back to
+ * BigDecimal. Values are kept at their scale: anything finer, such as the result of a MULTIPLY, is rounded with
+ * {@link #ROUNDING}, exactly once per operation.
+ */
+public final class FixedPointMoney {
+
+  /**
+   * Marks a result that does not fit, never a valid amount
+   */
+  public static final long OVERFLOW = Long.MIN_VALUE;
+
+  /**
+   * Rounding applied when a value is finer than the scale it is kept at
+   */
+  public static final RoundingMode ROUNDING = RoundingMode.HALF_EVEN;
+
+  /**
+   * Largest supported scale, so that {@code 10^scale} fits in a {@code long}
+   */
+  public static final int MAX_SCALE = 18;
+
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i <= MAX_SCALE; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private FixedPointMoney() {
+  }
+
+  /**
+   * @param value
+   * @param scale
+   * @return the units of {@code value} rounded to {@code scale}, or {@link #OVERFLOW}
+   */
+  public static long toUnits(BigDecimal value, int scale) {
+    return unitsOf(value.setScale(scale, ROUNDING));
+  }
+
+  /**
+   * @param value
+   * @param scale
+   * @return the units of {@code value} at {@code scale}, or {@link #OVERFLOW} when it does not fit or is finer than
+   * {@code scale}
+   */
+  public static long toUnitsExact(BigDecimal value, int scale) {
+    try {
+      return unitsOf(value.setScale(scale, RoundingMode.UNNECESSARY));
+    } catch (ArithmeticException e) {
+      return OVERFLOW;
+    }
+  }
+
+  /**
+   * @param units
+   * @param scale
+   * @return the BigDecimal amount of {@code units} at {@code scale}
+   */
+  public static BigDecimal toBigDecimal(long units, int scale) {
+    return BigDecimal.valueOf(units, scale);
+  }
+
+  /**
+   * @param value
+   * @param scale
+   * @return {@code value} rounded to {@code scale}
+   */
+  public static BigDecimal round(BigDecimal value, int scale) {
+    return value.setScale(scale, ROUNDING);
+  }
+
+  /**
+   * @param units
+   * @param otherUnits
+   * @return the sum, or {@link #OVERFLOW}
+   */
+  public static long add(long units, long otherUnits) {
+    long sum = units + otherUnits;
+    return ((units ^ sum) & (otherUnits ^ sum)) < 0 ? OVERFLOW : sum;
+  }
+
+  /**
+   * @param units
+   * @param otherUnits
+   * @return the difference, or {@link #OVERFLOW}
+   */
+  public static long subtract(long units, long otherUnits) {
+    long difference = units - otherUnits;
+    return ((units ^ otherUnits) & (units ^ difference)) < 0 ? OVERFLOW : difference;
+  }
+
+  /**
+   * @param units
+   * @param factorUnits
+   * @param scale       scale of both amounts and of the result
+   * @return the product rounded to {@code scale}, or {@link #OVERFLOW}
+   */
+  public static long multiply(long units, long factorUnits, int scale) {
+    return multiplyAdd(units, factorUnits, 0, scale);
+  }
+
+  /**
+   * Computes {@code units * factorUnits + offsetUnits} exactly and rounds it once
+   *
+   * @param units
+   * @param factorUnits
+   * @param offsetUnits
+   * @param scale       scale of all amounts and of the result
+   * @return the result rounded to {@code scale}, or {@link #OVERFLOW}
+   */
+  public static long multiplyAdd(long units, long factorUnits, long offsetUnits, int scale) {
+    if (units == OVERFLOW || factorUnits == OVERFLOW || offsetUnits == OVERFLOW) {
+      return OVERFLOW;
+    }
+
+    //The product is at twice the scale, the offset is brought to it before rounding
+    long power = POWERS_OF_TEN[scale];
+    long product = units * factorUnits;
+    if (units != 0 && (product / units != factorUnits || product == OVERFLOW)) {
+      return OVERFLOW;
+    }
+    long offset = offsetUnits * power;
+    if (offsetUnits != 0 && (offset / power != offsetUnits || offset == OVERFLOW)) {
+      return OVERFLOW;
+    }
+    long exact = add(product, offset);
+    if (exact == OVERFLOW) {
+      return OVERFLOW;
+    }
+
+    long quotient = exact / power;
+    long remainder = Math.abs(exact % power);
+    if (remainder != 0) {
+      //2 * remainder < 2 * 10^18 still fits
+      int half = Long.compare(remainder * 2, power);
+      if (half > 0 || (half == 0 && (quotient & 1) != 0)) {
+        quotient += exact < 0 ? -1 : 1;
+      }
+    }
+    return quotient;
+  }
+
+  /**
+   * @param units
+   * @param scale   scale of {@code units}
+   * @param toScale scale of the result, at least {@code scale}
+   * @return {@code units} brought to {@code toScale}, or {@link #OVERFLOW}
+   */
+  public static long rescale(long units, int scale, int toScale) {
+    int shift = toScale - scale;
+    if (units == OVERFLOW || shift < 0 || shift > MAX_SCALE) {
+      return OVERFLOW;
+    }
+    long power = POWERS_OF_TEN[shift];
+    long rescaled = units * power;
+    return units != 0 && (rescaled / power != units || rescaled == OVERFLOW) ? OVERFLOW : rescaled;
+  }
+
+  /**
+   * @param scale
+   * @return whether amounts can be held at {@code scale}
+   */
+  public static boolean isSupportedScale(int scale) {
+    return scale >= 0 && scale <= MAX_SCALE;
+  }
+
+  private static long unitsOf(BigDecimal scaled) {
+    if (scaled.precision() - scaled.scale() > MAX_SCALE + 1) {
+      return OVERFLOW;
+    }
+    try {
+      return scaled.unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      return OVERFLOW;
+    }
+  }
+}
@@ -13,7 +13,11 @@ public class Sale {
 
   private int saleId;
   private final String productType;
-  private BigDecimal value;
+
+  //A fixed-point sale holds its value as units while they fit and as a BigDecimal at the same scale otherwise
+  private final int valueScale;
+  private volatile long valueUnits = FixedPointMoney.OVERFLOW;
+  private volatile BigDecimal value;
 
   /**
    * Initialises {@link Sale} for the given parameters
@@ -23,9 +27,36 @@ public class Sale {
    */
   public Sale(String productType, BigDecimal value) {
     this.productType = productType;
+    this.valueScale = -1;
     this.value = value;
   }
 
+  /**
+   * Initialises a fixed-point {@link Sale} for the given parameters, keeping its value rounded to {@code valueScale}
+   *
+   * @param productType
+   * @param value
+   * @param valueScale
+   */
+  public Sale(String productType, BigDecimal value, int valueScale) {
+    this.productType = productType;
+    this.valueScale = valueScale;
+    setValue(value);
+  }
+
+  /**
+   * Initialises a fixed-point {@link Sale} for the given parameters
+   *
+   * @param productType
+   * @param valueUnits units of {@code 10^-valueScale}
+   * @param valueScale
+   */
+  public Sale(String productType, long valueUnits, int valueScale) {
+    this.productType = productType;
+    this.valueScale = valueScale;
+    setValueUnits(valueUnits);
+  }
+
   public int getSaleId() {
     return saleId;
   }
@@ -39,11 +70,64 @@ public class Sale {
   }
 
   public BigDecimal getValue() {
-    return value;
+    BigDecimal value = this.value;
+    return value != null || valueScale < 0 ? value : FixedPointMoney.toBigDecimal(valueUnits, valueScale);
   }
 
+  /**
+   * Sets the value of this sale, rounded to its scale for a fixed-point sale
+   *
+   * @param value
+   */
   public void setValue(BigDecimal value) {
-    this.value = value;
+    if (valueScale < 0) {
+      this.value = value;
+      return;
+    }
+
+    long units = FixedPointMoney.toUnits(value, valueScale);
+    if (units == FixedPointMoney.OVERFLOW) {
+      //The previous units are left in place for readers that already found no BigDecimal value
+      this.value = FixedPointMoney.round(value, valueScale);
+    } else {
+      setValueUnits(units);
+    }
+  }
+
+  /**
+   * @return whether the value of this sale is currently held as units
+   */
+  public boolean isFixedPoint() {
+    return valueScale >= 0 && value == null;
+  }
+
+  /**
+   * @return the scale of a fixed-point sale, -1 otherwise
+   */
+  public int getValueScale() {
+    return valueScale;
+  }
+
+  /**
+   * @return the value of this sale in units of {@code 10^-valueScale}, or {@link FixedPointMoney#OVERFLOW} when it is
+   * held as a BigDecimal
+   */
+  public long getValueUnits() {
+    return isFixedPoint() ? valueUnits : FixedPointMoney.OVERFLOW;
+  }
+
+  /**
+   * Sets the value of a fixed-point sale in units of {@code 10^-valueScale}
+   *
+   * @param valueUnits
+   */
+  public void setValueUnits(long valueUnits) {
+    if (valueScale < 0 || valueUnits == FixedPointMoney.OVERFLOW) {
+      throw new IllegalArgumentException("Sale value units require a fixed-point sale and a value that fits");
+    }
+    //Readers check the BigDecimal value first, the units must be in place before it is cleared
+    this.valueUnits = valueUnits;
+    this.value = null;
   }
 
   @Override
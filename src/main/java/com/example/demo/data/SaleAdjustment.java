@@ -64,6 +64,15 @@ public class SaleAdjustment {
     return adjustmentValue;
   }
 
+  /**
+   * @param scale
+   * @return the adjustment value in units of {@code 10^-scale}, or {@link FixedPointMoney#OVERFLOW} when it does not
+   * fit or is finer than {@code scale}
+   */
+  public long getAdjustmentUnits(int scale) {
+    return FixedPointMoney.toUnitsExact(adjustmentValue, scale);
+  }
+
   /**
    * Applies the sale adjustment on the given {@link Sale}
    *
@@ -0,0 +1,141 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Running count and total value of the Sales of a product type
+ * <p>
+ * The total is kept exactly as summing the adjusted sales one by one would give it, so a report produced from the
+ * aggregate is identical to one recomputed from the stored sales.
+ */
+public class SaleAggregate {
+
+  private final String productType;
+  private long saleCount;
+  private BigDecimal saleTotal; //null while there are no sales, so it does not widen the scale of the total
+
+  /**
+   * Initialises an empty {@link SaleAggregate} for the given {@code productType}
+   *
+   * @param productType
+   */
+  public SaleAggregate(String productType) {
+    this.productType = productType;
+  }
+
+  /**
+   * Initialises a copy of the given {@link SaleAggregate}
+   *
+   * @param saleAggregate
+   */
+  public SaleAggregate(SaleAggregate saleAggregate) {
+    this.productType = saleAggregate.productType;
+    this.saleCount = saleAggregate.saleCount;
+    this.saleTotal = saleAggregate.saleTotal;
+  }
+
+  /**
+   * Initialises a {@link SaleAggregate} of {@code saleCount} sales totalling {@code saleTotal}, for restoring one
+   *
+   * @param productType
+   * @param saleCount
+   * @param saleTotal   null when there are no sales
+   */
+  protected SaleAggregate(String productType, long saleCount, BigDecimal saleTotal) {
+    this.productType = productType;
+    this.saleCount = saleCount;
+    this.saleTotal = saleTotal;
+  }
+
+  public String getProductType() {
+    return productType;
+  }
+
+  public long getSaleCount() {
+    return saleCount;
+  }
+
+  /**
+   * @return the total value of the sales, as if reduced from {@link BigDecimal#ZERO}
+   */
+  public BigDecimal getTotalValue() {
+    return saleTotal == null ? BigDecimal.ZERO : BigDecimal.ZERO.add(saleTotal);
+  }
+
+  /**
+   * Adds {@code noOfOccurrences} sales of the given {@code saleValue}
+   *
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void record(BigDecimal saleValue, int noOfOccurrences) {
+    BigDecimal value = noOfOccurrences == 1 ? saleValue : saleValue.multiply(BigDecimal.valueOf(noOfOccurrences));
+    saleTotal = saleTotal == null ? value : saleTotal.add(value);
+    saleCount += noOfOccurrences;
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on all sales aggregated so far
+   *
+   * @param saleAdjustment
+   */
+  public void adjust(SaleAdjustment saleAdjustment) {
+    if (saleTotal == null) {
+      return;
+    }
+
+    BigDecimal adjustmentValue = saleAdjustment.getAdjustmentValue();
+    switch (saleAdjustment.getSaleAdjustmentOperation()) {
+      case ADD:
+        saleTotal = saleTotal.add(adjustmentValue.multiply(BigDecimal.valueOf(saleCount)));
+        break;
+      case SUBTRACT:
+        saleTotal = saleTotal.subtract(adjustmentValue.multiply(BigDecimal.valueOf(saleCount)));
+        break;
+      case MULTIPLY:
+        saleTotal = saleTotal.multiply(adjustmentValue);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported adjustment operation " + saleAdjustment.getSaleAdjustmentOperation());
+    }
+  }
+
+  /**
+   * Adds the sales of the given {@link SaleAggregate}, of the same product type
+   *
+   * @param saleAggregate
+   */
+  public void merge(SaleAggregate saleAggregate) {
+    if (saleAggregate.saleTotal != null) {
+      saleTotal = saleTotal == null ? saleAggregate.saleTotal : saleTotal.add(saleAggregate.saleTotal);
+      saleCount += saleAggregate.saleCount;
+    }
+  }
+
+  /**
+   * Replaces the total value of the sales aggregated so far, for adjustments that cannot be applied on the total
+   *
+   * @param totalValue the total recomputed from the adjusted sales
+   */
+  public void revalue(BigDecimal totalValue) {
+    if (saleTotal != null) {
+      saleTotal = totalValue;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SaleAggregate that = (SaleAggregate) o;
+    return getSaleCount() == that.getSaleCount() &&
+      Objects.equals(getProductType(), that.getProductType()) &&
+      Objects.equals(getTotalValue(), that.getTotalValue());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getProductType(), getSaleCount(), getTotalValue());
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+
+/**
+ * One notification's worth of sales and adjustment for a product type, recorded as part of a batch
+ * <p>
+ * Either part may be missing, an entry without a sale value only carries its adjustment and the other way round.
+ */
+public class SaleBatchEntry {
+
+  private final BigDecimal saleValue;
+  private final int noOfOccurrences;
+  private final SaleAdjustment saleAdjustment;
+
+  /**
+   * Initialises {@link SaleBatchEntry} for the given parameters
+   *
+   * @param saleValue
+   * @param noOfOccurrences
+   * @param saleAdjustment
+   */
+  public SaleBatchEntry(BigDecimal saleValue, int noOfOccurrences, SaleAdjustment saleAdjustment) {
+    this.saleValue = saleValue;
+    this.noOfOccurrences = noOfOccurrences;
+    this.saleAdjustment = saleAdjustment;
+  }
+
+  public BigDecimal getSaleValue() {
+    return saleValue;
+  }
+
+  public int getNoOfOccurrences() {
+    return noOfOccurrences;
+  }
+
+  public SaleAdjustment getSaleAdjustment() {
+    return saleAdjustment;
+  }
+}
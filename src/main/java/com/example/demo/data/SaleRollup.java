@@ -0,0 +1,154 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Count, total, minimum and maximum value of the Sales of a product type compacted out of the sale store
+ * <p>
+ * Adjustments are applied on the rollup as they would be on each of its sales: the count and total by the
+ * {@link SaleAggregate} it keeps, the minimum and maximum by the same operation, swapped when multiplying by a negative
+ * value. Rolled up sales are not rounded one by one, so fixed-point totals may differ from those of the same sales
+ * adjusted in the store by the rounding of each sale.
+ */
+public class SaleRollup {
+
+  private final SaleAggregate saleAggregate;
+  private BigDecimal minValue;
+  private BigDecimal maxValue;
+
+  /**
+   * Initialises an empty {@link SaleRollup} for the given {@code productType}
+   *
+   * @param productType
+   */
+  public SaleRollup(String productType) {
+    this.saleAggregate = new SaleAggregate(productType);
+  }
+
+  /**
+   * Initialises a copy of the given {@link SaleRollup}
+   *
+   * @param saleRollup
+   */
+  public SaleRollup(SaleRollup saleRollup) {
+    this.saleAggregate = new SaleAggregate(saleRollup.saleAggregate);
+    this.minValue = saleRollup.minValue;
+    this.maxValue = saleRollup.maxValue;
+  }
+
+  /**
+   * Initialises a {@link SaleRollup} with the given values, for restoring one
+   *
+   * @param productType
+   * @param saleCount
+   * @param totalValue
+   * @param minValue
+   * @param maxValue
+   */
+  public SaleRollup(String productType, long saleCount, BigDecimal totalValue, BigDecimal minValue, BigDecimal maxValue) {
+    this.saleAggregate = new SaleAggregate(productType, saleCount, saleCount == 0 ? null : totalValue);
+    this.minValue = minValue;
+    this.maxValue = maxValue;
+  }
+
+  public String getProductType() {
+    return saleAggregate.getProductType();
+  }
+
+  public long getSaleCount() {
+    return saleAggregate.getSaleCount();
+  }
+
+  /**
+   * @return the total value of the sales, as if reduced from {@link BigDecimal#ZERO}
+   */
+  public BigDecimal getTotalValue() {
+    return saleAggregate.getTotalValue();
+  }
+
+  /**
+   * @return the smallest value of the sales, null when there are none
+   */
+  public BigDecimal getMinValue() {
+    return minValue;
+  }
+
+  /**
+   * @return the largest value of the sales, null when there are none
+   */
+  public BigDecimal getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * @return a copy of the count and total value of the sales, for adding them to an aggregate of the product type
+   */
+  public SaleAggregate toSaleAggregate() {
+    return new SaleAggregate(saleAggregate);
+  }
+
+  /**
+   * Adds {@code noOfOccurrences} sales of the given {@code saleValue}
+   *
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void record(BigDecimal saleValue, int noOfOccurrences) {
+    saleAggregate.record(saleValue, noOfOccurrences);
+    if (minValue == null || saleValue.compareTo(minValue) < 0) {
+      minValue = saleValue;
+    }
+    if (maxValue == null || saleValue.compareTo(maxValue) > 0) {
+      maxValue = saleValue;
+    }
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on all sales rolled up so far
+   *
+   * @param saleAdjustment
+   */
+  public void adjust(SaleAdjustment saleAdjustment) {
+    if (getSaleCount() == 0) {
+      return;
+    }
+    saleAggregate.adjust(saleAdjustment);
+
+    BigDecimal adjustmentValue = saleAdjustment.getAdjustmentValue();
+    switch (saleAdjustment.getSaleAdjustmentOperation()) {
+      case ADD:
+        minValue = minValue.add(adjustmentValue);
+        maxValue = maxValue.add(adjustmentValue);
+        break;
+      case SUBTRACT:
+        minValue = minValue.subtract(adjustmentValue);
+        maxValue = maxValue.subtract(adjustmentValue);
+        break;
+      case MULTIPLY:
+        BigDecimal min = minValue.multiply(adjustmentValue);
+        BigDecimal max = maxValue.multiply(adjustmentValue);
+        boolean negative = adjustmentValue.signum() < 0;
+        minValue = negative ? max : min;
+        maxValue = negative ? min : max;
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported adjustment operation " + saleAdjustment.getSaleAdjustmentOperation());
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SaleRollup that = (SaleRollup) o;
+    return saleAggregate.equals(that.saleAggregate) &&
+      Objects.equals(getMinValue(), that.getMinValue()) &&
+      Objects.equals(getMaxValue(), that.getMaxValue());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(saleAggregate, getMinValue(), getMaxValue());
+  }
+}
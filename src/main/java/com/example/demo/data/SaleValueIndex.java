@@ -0,0 +1,275 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Values of the Sales of a product type in value order, telling how many sales fall in a range of values
+ * <p>
+ * Values recorded since the last adjustment are counted in a sorted map. An adjustment freezes them into a run of
+ * sorted values, then composes onto the {@link SaleValueTransform} of every run instead of revisiting their values: an
+ * adjustment keeps the order of the values it applies on, or reverses it for a negative multiplier, so runs can still
+ * be bisected. A run is merged with the one before it unless that one holds more than twice its values, which keeps
+ * O(log(values)) runs to adjust and search, each value being merged O(log(values)) times over. Values comparing equal
+ * are counted together.
+ */
+public class SaleValueIndex {
+
+  private final TreeMap<BigDecimal, long[]> recentValues = new TreeMap<>();
+  private final List<Run> runs = new ArrayList<>();
+  private long saleCount;
+
+  public long getSaleCount() {
+    return saleCount;
+  }
+
+  /**
+   * @return the number of runs of values frozen by adjustments
+   */
+  public int getRunCount() {
+    return runs.size();
+  }
+
+  /**
+   * Adds {@code noOfOccurrences} sales of the given {@code saleValue}, in O(log(values))
+   *
+   * @param saleValue
+   * @param noOfOccurrences
+   */
+  public void record(BigDecimal saleValue, int noOfOccurrences) {
+    recentValues.computeIfAbsent(saleValue, value -> new long[1])[0] += noOfOccurrences;
+    saleCount += noOfOccurrences;
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on all sales indexed so far, in O(log(values)) amortised
+   *
+   * @param saleAdjustment
+   */
+  public void adjust(SaleAdjustment saleAdjustment) {
+    if (!recentValues.isEmpty()) {
+      runs.add(Run.of(recentValues));
+      recentValues.clear();
+    }
+    for (int i = 0; i < runs.size(); i++) {
+      runs.set(i, runs.get(i).followedBy(saleAdjustment));
+    }
+
+    while (runs.size() > 1 && runs.get(runs.size() - 2).size() <= 2 * runs.get(runs.size() - 1).size()) {
+      Run newer = runs.remove(runs.size() - 1);
+      Run older = runs.remove(runs.size() - 1);
+      runs.add(Run.merge(older, newer));
+    }
+  }
+
+  /**
+   * Counts the sales valued from {@code minValue} to {@code maxValue}
+   *
+   * @param minValue lowest value counted, null for no lower bound
+   * @param maxValue highest value counted, null for no upper bound
+   * @return the number of sales in the range
+   */
+  public long count(BigDecimal minValue, BigDecimal maxValue) {
+    long count = 0;
+    for (long[] valueCount : range(recentValues, minValue, maxValue).values()) {
+      count += valueCount[0];
+    }
+    for (Run run : runs) {
+      count += run.count(minValue, maxValue);
+    }
+    return count;
+  }
+
+  /**
+   * Lists the lowest values of the sales valued from {@code minValue} to {@code maxValue}
+   *
+   * @param minValue lowest value listed, null for no lower bound
+   * @param maxValue highest value listed, null for no upper bound
+   * @param limit    number of distinct values listed at most
+   * @return the number of sales by value, in value order
+   */
+  public NavigableMap<BigDecimal, Long> values(BigDecimal minValue, BigDecimal maxValue, int limit) {
+    NavigableMap<BigDecimal, Long> values = new TreeMap<>();
+    if (limit < 1) {
+      return values;
+    }
+
+    int listed = 0;
+    for (Map.Entry<BigDecimal, long[]> entry : range(recentValues, minValue, maxValue).entrySet()) {
+      if (listed++ == limit) {
+        break;
+      }
+      values.merge(entry.getKey(), entry.getValue()[0], Long::sum);
+    }
+    for (Run run : runs) {
+      run.addValues(values, minValue, maxValue, limit);
+    }
+    while (values.size() > limit) {
+      values.pollLastEntry();
+    }
+    return values;
+  }
+
+  private static <V> NavigableMap<BigDecimal, V> range(NavigableMap<BigDecimal, V> map, BigDecimal minValue,
+                                                      BigDecimal maxValue) {
+    if (minValue == null) {
+      return maxValue == null ? map : map.headMap(maxValue, true);
+    }
+    if (maxValue == null) {
+      return map.tailMap(minValue, true);
+    }
+    return minValue.compareTo(maxValue) > 0 ? new TreeMap<>() : map.subMap(minValue, true, maxValue, true);
+  }
+
+  /**
+   * Values frozen in their order as of the adjustment that froze them, adjusted since by their transform
+   */
+  private static final class Run {
+
+    private final BigDecimal[] values;
+    private final long[] cumulativeCounts; //cumulativeCounts[i] sales are valued values[0] to values[i - 1]
+    private final SaleValueTransform transform;
+
+    private Run(BigDecimal[] values, long[] cumulativeCounts, SaleValueTransform transform) {
+      this.values = values;
+      this.cumulativeCounts = cumulativeCounts;
+      this.transform = transform;
+    }
+
+    private static Run of(NavigableMap<BigDecimal, long[]> valueCounts) {
+      BigDecimal[] values = new BigDecimal[valueCounts.size()];
+      long[] cumulativeCounts = new long[values.length + 1];
+      int i = 0;
+      for (Map.Entry<BigDecimal, long[]> entry : valueCounts.entrySet()) {
+        values[i] = entry.getKey();
+        cumulativeCounts[i + 1] = cumulativeCounts[i] + entry.getValue()[0];
+        i++;
+      }
+      return new Run(values, cumulativeCounts, SaleValueTransform.identity());
+    }
+
+    /**
+     * Merges the values of both runs, adjusted, into a run of their own
+     */
+    private static Run merge(Run older, Run newer) {
+      int size = older.size() + newer.size();
+      BigDecimal[] values = new BigDecimal[size];
+      long[] cumulativeCounts = new long[size + 1];
+      BigDecimal[] olderValues = older.ascendingValues();
+      BigDecimal[] newerValues = newer.ascendingValues();
+
+      int merged = 0;
+      for (int i = 0, j = 0; i < olderValues.length || j < newerValues.length; ) {
+        BigDecimal value;
+        long count;
+        if (j == newerValues.length || i < olderValues.length && olderValues[i].compareTo(newerValues[j]) <= 0) {
+          value = olderValues[i];
+          count = older.countAt(older.indexOfRank(i++));
+        } else {
+          value = newerValues[j];
+          count = newer.countAt(newer.indexOfRank(j++));
+        }
+
+        if (merged > 0 && values[merged - 1].compareTo(value) == 0) {
+          cumulativeCounts[merged] += count;
+        } else {
+          values[merged] = value;
+          cumulativeCounts[merged + 1] = cumulativeCounts[merged] + count;
+          merged++;
+        }
+      }
+      return new Run(Arrays.copyOf(values, merged), Arrays.copyOf(cumulativeCounts, merged + 1),
+        SaleValueTransform.identity());
+    }
+
+    private int size() {
+      return values.length;
+    }
+
+    private Run followedBy(SaleAdjustment saleAdjustment) {
+      return new Run(values, cumulativeCounts, transform.followedBy(saleAdjustment));
+    }
+
+    private long count(BigDecimal minValue, BigDecimal maxValue) {
+      int from = from(minValue, maxValue);
+      int to = to(minValue, maxValue);
+      return from < to ? cumulativeCounts[to] - cumulativeCounts[from] : 0;
+    }
+
+    private void addValues(NavigableMap<BigDecimal, Long> valueCounts, BigDecimal minValue, BigDecimal maxValue,
+                           int limit) {
+      int from = from(minValue, maxValue);
+      int to = to(minValue, maxValue);
+      if (transform.signum() == 0) {
+        //Adjusted by a zero multiplier, all values are now the same
+        if (from < to) {
+          valueCounts.merge(transform.apply(values[from]), cumulativeCounts[to] - cumulativeCounts[from], Long::sum);
+        }
+        return;
+      }
+
+      boolean descending = transform.signum() < 0;
+      for (int listed = 0; listed < limit && from + listed < to; listed++) {
+        int index = descending ? to - 1 - listed : from + listed;
+        valueCounts.merge(transform.apply(values[index]), countAt(index), Long::sum);
+      }
+    }
+
+    /**
+     * @return the first index in range, values being in descending order once adjusted by a negative multiplier
+     */
+    private int from(BigDecimal minValue, BigDecimal maxValue) {
+      return transform.signum() < 0
+        ? firstIndex(value -> maxValue == null || value.compareTo(maxValue) <= 0)
+        : firstIndex(value -> minValue == null || value.compareTo(minValue) >= 0);
+    }
+
+    /**
+     * @return the index past the last one in range
+     */
+    private int to(BigDecimal minValue, BigDecimal maxValue) {
+      return transform.signum() < 0
+        ? firstIndex(value -> minValue != null && value.compareTo(minValue) < 0)
+        : firstIndex(value -> maxValue != null && value.compareTo(maxValue) > 0);
+    }
+
+    /**
+     * Bisects the adjusted values for the first one passing {@code test}, which the values before it all fail
+     */
+    private int firstIndex(Predicate<BigDecimal> test) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (test.test(transform.apply(values[middle]))) {
+          high = middle;
+        } else {
+          low = middle + 1;
+        }
+      }
+      return low;
+    }
+
+    private BigDecimal[] ascendingValues() {
+      BigDecimal[] ascendingValues = new BigDecimal[values.length];
+      for (int rank = 0; rank < values.length; rank++) {
+        ascendingValues[rank] = transform.apply(values[indexOfRank(rank)]);
+      }
+      return ascendingValues;
+    }
+
+    private int indexOfRank(int rank) {
+      return transform.signum() < 0 ? values.length - 1 - rank : rank;
+    }
+
+    private long countAt(int index) {
+      return cumulativeCounts[index + 1] - cumulativeCounts[index];
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Affine transform {@code value * scale + offset} composed from a chain of {@link SaleAdjustment}s
+ * <p>
+ * BigDecimal add, subtract and multiply are exact, so applying a composed transform yields the same value and scale as
+ * applying each adjustment of the chain in turn.
+ */
+public final class SaleValueTransform {
+
+  private static final SaleValueTransform IDENTITY = new SaleValueTransform(null, null);
+
+  //Both are null until a MULTIPLY (resp. ADD/SUBTRACT) is composed, so a single adjustment applies exactly like the operation
+  private final BigDecimal scale;
+  private final BigDecimal offset;
+
+  private SaleValueTransform(BigDecimal scale, BigDecimal offset) {
+    this.scale = scale;
+    this.offset = offset;
+  }
+
+  /**
+   * @return a transform leaving values unchanged
+   */
+  public static SaleValueTransform identity() {
+    return IDENTITY;
+  }
+
+  /**
+   * @param saleAdjustment
+   * @return a transform applying the given {@code saleAdjustment}
+   */
+  public static SaleValueTransform of(SaleAdjustment saleAdjustment) {
+    return IDENTITY.precededBy(saleAdjustment);
+  }
+
+  /**
+   * Composes the given {@link SaleAdjustment} in front of this transform
+   *
+   * @param saleAdjustment
+   * @return a transform applying {@code saleAdjustment} first and then this transform
+   */
+  public SaleValueTransform precededBy(SaleAdjustment saleAdjustment) {
+    BigDecimal adjustmentValue = saleAdjustment.getAdjustmentValue();
+
+    switch (saleAdjustment.getSaleAdjustmentOperation()) {
+      case ADD:
+        return new SaleValueTransform(scale, plusOffset(scaled(adjustmentValue)));
+      case SUBTRACT:
+        return new SaleValueTransform(scale, plusOffset(scaled(adjustmentValue).negate()));
+      case MULTIPLY:
+        return new SaleValueTransform(scaled(adjustmentValue), offset);
+      default:
+        throw new IllegalArgumentException("Unsupported adjustment operation " + saleAdjustment.getSaleAdjustmentOperation());
+    }
+  }
+
+  /**
+   * Composes the given {@link SaleAdjustment} after this transform
+   *
+   * @param saleAdjustment
+   * @return a transform applying this transform first and then {@code saleAdjustment}
+   */
+  public SaleValueTransform followedBy(SaleAdjustment saleAdjustment) {
+    BigDecimal adjustmentValue = saleAdjustment.getAdjustmentValue();
+
+    switch (saleAdjustment.getSaleAdjustmentOperation()) {
+      case ADD:
+        return new SaleValueTransform(scale, plusOffset(adjustmentValue));
+      case SUBTRACT:
+        return new SaleValueTransform(scale, plusOffset(adjustmentValue.negate()));
+      case MULTIPLY:
+        return new SaleValueTransform(scaled(adjustmentValue), offset == null ? null : offset.multiply(adjustmentValue));
+      default:
+        throw new IllegalArgumentException("Unsupported adjustment operation " + saleAdjustment.getSaleAdjustmentOperation());
+    }
+  }
+
+  /**
+   * @return the signum of the scale, telling whether this transform keeps (1), reverses (-1) or collapses (0) the order
+   * of the values it is applied on
+   */
+  public int signum() {
+    return scale == null ? 1 : scale.signum();
+  }
+
+  /**
+   * Applies this transform on the given {@code value}
+   *
+   * @param value
+   * @return the transformed value
+   */
+  public BigDecimal apply(BigDecimal value) {
+    BigDecimal scaled = scaled(value);
+    return offset == null ? scaled : scaled.add(offset);
+  }
+
+  /**
+   * Fixed-point counterpart of {@link #apply(BigDecimal)} for values held at {@code valueScale}, computing the result
+   * exactly and rounding it once, as setting the BigDecimal result on a fixed-point {@link Sale} does
+   *
+   * @param valueScale
+   * @return the transform on units, answering {@link FixedPointMoney#OVERFLOW} for results that do not fit, or null
+   * when the transform itself cannot be held at {@code valueScale}
+   */
+  public LongUnaryOperator unitsAt(int valueScale) {
+    long offsetUnits = offset == null ? 0 : FixedPointMoney.toUnitsExact(offset, valueScale);
+    if (offsetUnits == FixedPointMoney.OVERFLOW) {
+      return null;
+    }
+    if (scale == null) {
+      return units -> units == FixedPointMoney.OVERFLOW ? units : FixedPointMoney.add(units, offsetUnits);
+    }
+
+    long scaleUnits = FixedPointMoney.toUnitsExact(scale, valueScale);
+    if (scaleUnits == FixedPointMoney.OVERFLOW) {
+      return null;
+    }
+    return units -> FixedPointMoney.multiplyAdd(units, scaleUnits, offsetUnits, valueScale);
+  }
+
+  /**
+   * @param valueScale
+   * @return the scale of {@link #apply(BigDecimal)} results for values of scale {@code valueScale}
+   */
+  public int scaleAt(int valueScale) {
+    int scaledScale = scale == null ? valueScale : valueScale + scale.scale();
+    return offset == null ? scaledScale : Math.max(scaledScale, offset.scale());
+  }
+
+  /**
+   * Exact counterpart of {@link #apply(BigDecimal)} on the unscaled values of values of scale {@code valueScale}, the
+   * results being unscaled values at {@link #scaleAt(int)}
+   *
+   * @param valueScale
+   * @return the transform on unscaled values, answering {@link FixedPointMoney#OVERFLOW} for results that do not fit a
+   * long, or null when the transform itself does not
+   */
+  public LongUnaryOperator unscaledAt(int valueScale) {
+    int resultScale = scaleAt(valueScale);
+    int scaledScale = scale == null ? valueScale : valueScale + scale.scale();
+
+    long factor = scale == null ? 1 : unscaledValue(scale, 0);
+    long factorShift = unscaledValue(BigDecimal.ONE, resultScale - scaledScale);
+    long offsetUnscaled = offset == null ? 0 : unscaledValue(offset, resultScale - offset.scale());
+    if (factor == FixedPointMoney.OVERFLOW || factorShift == FixedPointMoney.OVERFLOW || offsetUnscaled == FixedPointMoney.OVERFLOW) {
+      return null;
+    }
+
+    return unscaled -> {
+      try {
+        return Math.addExact(Math.multiplyExact(Math.multiplyExact(unscaled, factor), factorShift), offsetUnscaled);
+      } catch (ArithmeticException e) {
+        return FixedPointMoney.OVERFLOW;
+      }
+    };
+  }
+
+  /**
+   * @return the unscaled value of {@code value * 10^shift}, or {@link FixedPointMoney#OVERFLOW} when it does not fit
+   */
+  private static long unscaledValue(BigDecimal value, int shift) {
+    if (shift < 0 || shift > FixedPointMoney.MAX_SCALE) {
+      return FixedPointMoney.OVERFLOW;
+    }
+    BigInteger unscaled = value.unscaledValue().multiply(BigInteger.TEN.pow(shift));
+    return unscaled.bitLength() < 64 ? unscaled.longValue() : FixedPointMoney.OVERFLOW;
+  }
+
+  private BigDecimal scaled(BigDecimal value) {
+    return scale == null ? value : value.multiply(scale);
+  }
+
+  private BigDecimal plusOffset(BigDecimal value) {
+    return offset == null ? value : value.add(offset);
+  }
+}
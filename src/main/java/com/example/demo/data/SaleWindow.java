@@ -0,0 +1,124 @@
+package com.example.demo.data;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Count and total value of the Sales of a product type recorded over a sliding window of time
+ * <p>
+ * The window is a ring of {@link SaleAggregate} buckets, each covering {@code bucketMillis} of ingestion time, the
+ * current bucket and the ones before it making up the window. A bucket is only reset when the ring comes back round to
+ * it, so expired sales are evicted without being looked at again. Adjustments are applied on the buckets still in the
+ * window, and totals are summed over them, both in O(buckets).
+ */
+public class SaleWindow {
+
+  private final String productType;
+  private final long bucketMillis;
+  private final long[] bucketIds;
+  private final SaleAggregate[] buckets;
+  private long newestBucketId = Long.MIN_VALUE;
+
+  /**
+   * Initialises an empty {@link SaleWindow} for the given parameters
+   *
+   * @param productType
+   * @param bucketMillis time covered by a bucket
+   * @param buckets      number of buckets in the window
+   */
+  public SaleWindow(String productType, long bucketMillis, int buckets) {
+    if (bucketMillis < 1 || buckets < 1) {
+      throw new IllegalArgumentException("Invalid window of " + buckets + " buckets of " + bucketMillis + "ms");
+    }
+    this.productType = productType;
+    this.bucketMillis = bucketMillis;
+    this.bucketIds = new long[buckets];
+    this.buckets = new SaleAggregate[buckets];
+    Arrays.fill(bucketIds, Long.MIN_VALUE);
+  }
+
+  /**
+   * Initialises a copy of the given {@link SaleWindow}
+   *
+   * @param saleWindow
+   */
+  public SaleWindow(SaleWindow saleWindow) {
+    this.productType = saleWindow.productType;
+    this.bucketMillis = saleWindow.bucketMillis;
+    this.bucketIds = saleWindow.bucketIds.clone();
+    this.buckets = new SaleAggregate[saleWindow.buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      if (saleWindow.buckets[i] != null) {
+        buckets[i] = new SaleAggregate(saleWindow.buckets[i]);
+      }
+    }
+    this.newestBucketId = saleWindow.newestBucketId;
+  }
+
+  public String getProductType() {
+    return productType;
+  }
+
+  /**
+   * @return the time covered by the window, in milliseconds
+   */
+  public long getWindowMillis() {
+    return bucketMillis * buckets.length;
+  }
+
+  /**
+   * Adds {@code noOfOccurrences} sales of the given {@code saleValue}, recorded at {@code timeMillis}
+   *
+   * @param saleValue
+   * @param noOfOccurrences
+   * @param timeMillis
+   */
+  public void record(BigDecimal saleValue, int noOfOccurrences, long timeMillis) {
+    //Sales stamped before the newest bucket, by threads racing to record them, are counted in it
+    long bucketId = Math.max(timeMillis / bucketMillis, newestBucketId);
+    int slot = (int) Math.floorMod(bucketId, (long) buckets.length);
+    if (bucketIds[slot] != bucketId) {
+      bucketIds[slot] = bucketId;
+      buckets[slot] = new SaleAggregate(productType);
+    }
+    buckets[slot].record(saleValue, noOfOccurrences);
+    newestBucketId = bucketId;
+  }
+
+  /**
+   * Applies the given {@link SaleAdjustment} on the sales in the window at {@code timeMillis}
+   *
+   * @param saleAdjustment
+   * @param timeMillis
+   */
+  public void adjust(SaleAdjustment saleAdjustment, long timeMillis) {
+    long bucketId = timeMillis / bucketMillis;
+    for (int slot = 0; slot < buckets.length; slot++) {
+      if (isLive(slot, bucketId)) {
+        buckets[slot].adjust(saleAdjustment);
+      }
+    }
+  }
+
+  /**
+   * Sums the buckets in the window at {@code timeMillis}
+   *
+   * @param timeMillis
+   * @return the aggregate of the sales in the window
+   */
+  public SaleAggregate aggregate(long timeMillis) {
+    long bucketId = timeMillis / bucketMillis;
+    SaleAggregate saleAggregate = new SaleAggregate(productType);
+    for (int slot = 0; slot < buckets.length; slot++) {
+      if (isLive(slot, bucketId)) {
+        saleAggregate.merge(buckets[slot]);
+      }
+    }
+    return saleAggregate;
+  }
+
+  private boolean isLive(int slot, long currentBucketId) {
+    long bucketId = bucketIds[slot];
+    return bucketId != Long.MIN_VALUE && bucketId > currentBucketId - buckets.length;
+  }
+}
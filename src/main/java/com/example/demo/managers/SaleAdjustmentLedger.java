@@ -0,0 +1,90 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleSequences;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleValueTransform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ledger of {@link SaleAdjustment}s not yet applied to the stored {@link Sale}s of a product type
+ * <p>
+ * Each adjustment is recorded with the number of sales stored when it arrived (its epoch), so recording is O(1).
+ * Sales are brought up to date lazily by {@link #materialize(String, List)}, which composes the pending chain into one
+ * {@link SaleValueTransform} per epoch and applies it once to every sale of that epoch. Each product type is recorded
+ * and materialized under its own lock.
+ */
+public class SaleAdjustmentLedger {
+
+  private final ConcurrentMap<String, List<PendingAdjustment>> pendingAdjustments = new ConcurrentHashMap<>();
+
+  /**
+   * Records the given {@code saleAdjustment} for the sales stored so far
+   *
+   * @param saleAdjustment
+   * @param sales all sales stored for the product type
+   */
+  public void record(SaleAdjustment saleAdjustment, List<Sale> sales) {
+    List<PendingAdjustment> pending = pendingAdjustments.computeIfAbsent(saleAdjustment.getProductType(), s -> new ArrayList<>());
+    synchronized (pending) {
+      pending.add(new PendingAdjustment(saleAdjustment, sales.size()));
+    }
+  }
+
+  /**
+   * Applies the pending adjustments for the given {@code productType} on its stored {@code sales}
+   *
+   * @param productType
+   * @param sales all sales stored for the product type, in the order they were recorded
+   */
+  public void materialize(String productType, List<Sale> sales) {
+    List<PendingAdjustment> pending = pendingAdjustments.get(productType);
+    if (pending == null) {
+      return;
+    }
+
+    synchronized (pending) {
+      //Walk the chain backwards so the sales of each epoch get the suffix of adjustments recorded after them
+      SaleValueTransform transform = SaleValueTransform.identity();
+      for (int i = pending.size() - 1; i >= 0; i--) {
+        transform = transform.precededBy(pending.get(i).saleAdjustment);
+
+        int fromIndex = i == 0 ? 0 : pending.get(i - 1).salesRecorded;
+        SaleSequences.adjust(sales, fromIndex, pending.get(i).salesRecorded, transform);
+      }
+      pending.clear();
+    }
+  }
+
+  /**
+   * Drops the pending adjustments for the given {@code productType}
+   * <p>
+   * The list is emptied under its lock rather than removed, so an adjustment being recorded meanwhile is not added to
+   * a list no longer in the ledger.
+   *
+   * @param productType
+   */
+  public void clear(String productType) {
+    List<PendingAdjustment> pending = pendingAdjustments.get(productType);
+    if (pending != null) {
+      synchronized (pending) {
+        pending.clear();
+      }
+    }
+  }
+
+  private static final class PendingAdjustment {
+
+    private final SaleAdjustment saleAdjustment;
+    private final int salesRecorded;
+
+    private PendingAdjustment(SaleAdjustment saleAdjustment, int salesRecorded) {
+      this.saleAdjustment = saleAdjustment;
+      this.salesRecorded = salesRecorded;
+    }
+  }
+}
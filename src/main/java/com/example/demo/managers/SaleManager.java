@@ -1,22 +1,52 @@
 package com.example.demo.managers;
 
 import com.example.demo.dao.SaleAdjustmentDao;
+import com.example.demo.dao.SaleAggregateDao;
 import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleIndexDao;
+import com.example.demo.dao.SaleJournal;
+import com.example.demo.dao.SaleLogReplayer;
+import com.example.demo.dao.SaleRollupDao;
+import com.example.demo.dao.SaleSequences;
+import com.example.demo.dao.SaleWindowDao;
+import com.example.demo.data.FixedPointMoney;
 import com.example.demo.data.Sale;
 import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.data.SaleBatchEntry;
+import com.example.demo.data.SaleRollup;
 import com.example.demo.exceptions.SaleProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * Manager for {@link Sale} instances.
+ * <p>
+ * With the {@link SaleJournal} enabled every valid change is journaled before it is applied, and replayed through the
+ * same code on {@link #recoverSales()}.
+ * <p>
+ * With the {@link SaleWindowDao} enabled the sales recorded in its window are aggregated on their own as well, and
+ * reported in a section of their own. Recovered sales are left out of the window, as their time is not journaled.
+ * <p>
+ * With sale retention enabled, {@link #compactSales()} rolls the sales older than {@code sale.retention.maxAgeSeconds}
+ * or beyond the latest {@code sale.retention.maxSalesPerProduct} of a product type up into a {@link SaleRollup}, which
+ * later adjustments are applied on and reports add to the sales still stored.
+ * <p>
+ * With the {@link SaleIndexDao} enabled every change is indexed as it is applied, for {@link SaleQueryManager}.
+ * Fixed-point adjustments and compactions, which revisit the sales anyway, reindex the values of the product type.
  */
 @Service
 public class SaleManager {
@@ -25,17 +55,147 @@ public class SaleManager {
 
   private final SaleDao saleDao;
   private final SaleAdjustmentDao saleAdjustmentDao;
+  private final SaleAggregateDao saleAggregateDao;
+  private final SaleJournal saleJournal;
+  private final SaleMetrics saleMetrics;
+  private final SaleWindowDao saleWindowDao;
+  private final SaleRollupDao saleRollupDao;
+  private final SaleIndexDao saleIndexDao;
+  private final SaleAdjustmentLedger saleAdjustmentLedger = new SaleAdjustmentLedger();
+  private final SaleRetention saleRetention = new SaleRetention();
+
+  //When journaling or compacting, changes are journaled and applied under the read lock, while snapshots are taken and
+  //sales compacted under the write lock
+  private final ReadWriteLock changeLock = new ReentrantReadWriteLock();
+
+  //Set while the journal is replayed, so that recovered sales are not counted as recorded now
+  private volatile boolean recovering;
+
+  @Value("${sale.adjustment.ledger.enabled:false}")
+  private boolean adjustmentLedgerEnabled;
+
+  @Value("${report.incremental.enabled:false}")
+  private boolean incrementalReportEnabled;
+
+  @Value("${sale.adjustment.parallelThreshold:0}")
+  private int parallelAdjustmentThreshold;
+
+  @Value("${sale.retention.enabled:false}")
+  private boolean retentionEnabled;
+
+  @Value("${sale.retention.maxSalesPerProduct:0}")
+  private int retentionMaxSales;
+
+  @Value("${sale.retention.maxAgeSeconds:0}")
+  private long retentionMaxAgeSeconds;
 
   /**
    * Initialises a new {@link SaleManager} with the given parameters
    *
    * @param saleDao
    * @param saleAdjustmentDao
+   * @param saleAggregateDao
+   * @param saleJournal       journal of the changes made, may be {@code null}
+   * @param saleMetrics
+   * @param saleWindowDao
+   * @param saleRollupDao
+   * @param saleIndexDao
    */
   @Autowired
-  public SaleManager(SaleDao saleDao, SaleAdjustmentDao saleAdjustmentDao) {
+  public SaleManager(SaleDao saleDao, SaleAdjustmentDao saleAdjustmentDao, SaleAggregateDao saleAggregateDao,
+                     SaleJournal saleJournal, SaleMetrics saleMetrics, SaleWindowDao saleWindowDao,
+                     SaleRollupDao saleRollupDao, SaleIndexDao saleIndexDao) {
     this.saleDao = saleDao;
     this.saleAdjustmentDao = saleAdjustmentDao;
+    this.saleAggregateDao = saleAggregateDao;
+    this.saleJournal = saleJournal;
+    this.saleMetrics = saleMetrics;
+    this.saleWindowDao = saleWindowDao;
+    this.saleRollupDao = saleRollupDao;
+    this.saleIndexDao = saleIndexDao;
+  }
+
+  /**
+   * Restores the sales and adjustments journaled before, when the journal is enabled
+   *
+   * @throws IOException
+   */
+  @PostConstruct
+  public void recoverSales() throws IOException {
+    if (isJournaling()) {
+      recovering = true;
+      try {
+        saleJournal.recover(new JournalReplayer());
+      } finally {
+        recovering = false;
+      }
+    }
+  }
+
+  /**
+   * Replaces the journaled changes with a snapshot of the current sales and adjustments, when the journal is due one
+   * <p>
+   * Changes are held off while the snapshot is written, so this is best called between reports.
+   */
+  public void checkpoint() {
+    if (!isJournaling() || !saleJournal.isSnapshotDue()) {
+      return;
+    }
+
+    changeLock.writeLock().lock();
+    try {
+      Map<String, List<Sale>> allSales = saleDao.fetchAllSales();
+      if (adjustmentLedgerEnabled) {
+        allSales.forEach(saleAdjustmentLedger::materialize);
+      }
+      saleJournal.snapshot(allSales, saleRollupDao.fetchAllSaleRollups(), saleAdjustmentDao.fetchAllSaleAdjustments());
+    } catch (IOException e) {
+      LOGGER.error("Failed to snapshot sales, changes are still journaled. {}", e.getMessage());
+    } finally {
+      changeLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Rolls the expired sales of every product type up, when sale retention is enabled
+   * <p>
+   * The sales kept are copied, and changes are held off meanwhile, so this is best called between reports. Sales are
+   * aged from the first call made after they were recorded.
+   */
+  public void compactSales() {
+    compactSales(System.currentTimeMillis());
+  }
+
+  /**
+   * Rolls the sales of every product type expired at {@code timeMillis} up, when sale retention is enabled
+   *
+   * @param timeMillis
+   */
+  void compactSales(long timeMillis) {
+    if (!retentionEnabled) {
+      return;
+    }
+
+    changeLock.writeLock().lock();
+    try {
+      saleDao.fetchAllSales().forEach((productType, sales) -> {
+        int expiredSales = saleRetention.expiredSales(productType, sales.size(), timeMillis, retentionMaxSales,
+          retentionMaxAgeSeconds * 1000);
+        if (expiredSales > 0) {
+          //Pending adjustments are counted from the first sale stored, so they are applied before any is dropped
+          if (adjustmentLedgerEnabled) {
+            saleAdjustmentLedger.materialize(productType, sales);
+          }
+          saleRollupDao.recordSales(productType, sales.subList(0, expiredSales));
+          saleIndexDao.reindexSales(productType, sales.subList(expiredSales, sales.size()));
+          saleDao.dropOldestSales(productType, expiredSales);
+          saleRetention.dropped(productType, expiredSales);
+          LOGGER.debug("Rolled up {} sales of <{}>", expiredSales, productType);
+        }
+      });
+    } finally {
+      changeLock.writeLock().unlock();
+    }
   }
 
   /**
@@ -44,6 +204,20 @@ public class SaleManager {
    * @param productType
    */
   public void clearSalesForProductType(String productType) {
+    if (isGuarded()) {
+      journaled(() -> saleJournal.appendClearSales(productType), () -> clearSales(productType));
+    } else {
+      clearSales(productType);
+    }
+  }
+
+  private void clearSales(String productType) {
+    saleAdjustmentLedger.clear(productType);
+    saleRetention.clear(productType);
+    saleRollupDao.clearForProductType(productType);
+    saleAggregateDao.clearForProductType(productType);
+    saleWindowDao.clearForProductType(productType);
+    saleIndexDao.clearForProductType(productType);
     saleDao.clearSalesForProductType(productType);
   }
 
@@ -53,7 +227,12 @@ public class SaleManager {
    * @param productType
    */
   public void clearSalesAdjustmentsForProductType(String productType) {
-    saleAdjustmentDao.clearSaleAdjustmentsForProductType(productType);
+    if (isGuarded()) {
+      journaled(() -> saleJournal.appendClearSaleAdjustments(productType),
+        () -> saleAdjustmentDao.clearSaleAdjustmentsForProductType(productType));
+    } else {
+      saleAdjustmentDao.clearSaleAdjustmentsForProductType(productType);
+    }
   }
 
   /**
@@ -67,25 +246,38 @@ public class SaleManager {
   }
 
   /**
-   * Fetches Sales for the given {@code productType}
+   * Fetches Sales for the given {@code productType}, leaving out those rolled up by {@link #compactSales()}
    *
    * @param productType
    * @return list of Sales
    */
   public List<Sale> fetchSalesForProductType(String productType) {
-    return saleDao.fetchForProductType(productType);
+    List<Sale> sales = saleDao.fetchForProductType(productType);
+    if (adjustmentLedgerEnabled) {
+      saleAdjustmentLedger.materialize(productType, sales);
+    }
+    return sales;
   }
 
   /**
    * Records Sale adjustments
+   * <p>
+   * With the adjustment ledger enabled the adjustment is only recorded against the sales stored so far, and applied
+   * when they are next fetched or reported. Fixed-point sales are always adjusted straight away.
+   * <p>
+   * Above the parallel adjustment threshold, the sales of the product are adjusted by fork-join tasks of at most that
+   * many sales each. The adjustment is still applied as a whole before this returns.
    *
    * @param saleAdjustment
    * @throws SaleProcessingException
    */
   public void recordSaleAdjustment(SaleAdjustment saleAdjustment) throws SaleProcessingException {
     if (isNotBlank(saleAdjustment.getProductType())) {
-      fetchSalesForProductType(saleAdjustment.getProductType()).forEach(saleAdjustment::apply);
-      saleAdjustmentDao.save(saleAdjustment);
+      if (isGuarded()) {
+        journaled(() -> saleJournal.appendSaleAdjustment(saleAdjustment), () -> applySaleAdjustment(saleAdjustment));
+      } else {
+        applySaleAdjustment(saleAdjustment);
+      }
     } else {
       LOGGER.warn("Unable to Record Sale. Invalid ProductType");
       throw new SaleProcessingException("Invalid ProductType");
@@ -101,27 +293,266 @@ public class SaleManager {
    */
   public void recordSale(String productType, BigDecimal saleValue) throws SaleProcessingException {
     if (isNotBlank(productType) && saleValue != null) {
-      saleDao.recordSale(productType, saleValue);
+      if (isGuarded()) {
+        journaled(() -> saleJournal.appendSales(productType, saleValue, 1), () -> storeSales(productType, saleValue, 1));
+      } else {
+        storeSales(productType, saleValue, 1);
+      }
     } else {
       LOGGER.warn("Unable to Record Sale. Invalid Product/Value -> {}:{}", productType, saleValue);
       throw new SaleProcessingException("Invalid ProductType");
     }
   }
 
+  /**
+   * Records {@code noOfOccurrences} identical Sales for the given {@code productType}
+   *
+   * @param productType
+   * @param saleValue
+   * @param noOfOccurrences
+   * @throws SaleProcessingException
+   */
+  public void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences) throws SaleProcessingException {
+    if (isNotBlank(productType) && saleValue != null && noOfOccurrences >= 1) {
+      if (isGuarded()) {
+        journaled(() -> saleJournal.appendSales(productType, saleValue, noOfOccurrences),
+          () -> storeSales(productType, saleValue, noOfOccurrences));
+      } else {
+        storeSales(productType, saleValue, noOfOccurrences);
+      }
+    } else {
+      LOGGER.warn("Unable to Record Sales. Invalid Product/Value/Occurrences -> {}:{}:{}", productType, saleValue, noOfOccurrences);
+      throw new SaleProcessingException("Invalid ProductType");
+    }
+  }
+
+  /**
+   * Records a batch of Sales and Sale adjustments for the given {@code productType}, in the order given
+   * <p>
+   * The batch is validated as a whole before anything is recorded, so an invalid entry leaves the product untouched.
+   *
+   * @param productType
+   * @param saleBatchEntries
+   * @throws SaleProcessingException
+   */
+  public void recordSaleBatch(String productType, List<SaleBatchEntry> saleBatchEntries) throws SaleProcessingException {
+    if (!isNotBlank(productType) || !saleBatchEntries.stream().allMatch(entry -> isValid(productType, entry))) {
+      LOGGER.warn("Unable to Record Sale Batch. Invalid Product/Entries -> {}", productType);
+      throw new SaleProcessingException("Invalid ProductType");
+    }
+
+    if (isGuarded()) {
+      journaled(() -> saleBatchEntries.forEach(saleBatchEntry -> {
+        if (saleBatchEntry.getSaleValue() != null) {
+          saleJournal.appendSales(productType, saleBatchEntry.getSaleValue(), saleBatchEntry.getNoOfOccurrences());
+        }
+        if (saleBatchEntry.getSaleAdjustment() != null) {
+          saleJournal.appendSaleAdjustment(saleBatchEntry.getSaleAdjustment());
+        }
+      }), () -> storeSaleBatch(productType, saleBatchEntries));
+    } else {
+      storeSaleBatch(productType, saleBatchEntries);
+    }
+  }
+
+  private void storeSaleBatch(String productType, List<SaleBatchEntry> saleBatchEntries) {
+    for (SaleBatchEntry saleBatchEntry : saleBatchEntries) {
+      if (saleBatchEntry.getSaleValue() != null) {
+        storeSales(productType, saleBatchEntry.getSaleValue(), saleBatchEntry.getNoOfOccurrences());
+      }
+      if (saleBatchEntry.getSaleAdjustment() != null) {
+        applySaleAdjustment(saleBatchEntry.getSaleAdjustment());
+      }
+    }
+  }
+
+  private void storeSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+    long start = saleMetrics.start();
+    saleDao.recordSales(productType, saleValue, noOfOccurrences);
+    BigDecimal recordedValue = recordedValue(saleValue);
+    saleAggregateDao.recordSales(productType, recordedValue, noOfOccurrences);
+    if (!recovering) {
+      saleWindowDao.recordSales(productType, recordedValue, noOfOccurrences);
+    }
+    saleIndexDao.recordSales(productType, recordedValue, noOfOccurrences);
+    saleMetrics.recordStage(SaleMetrics.Stage.SALES, start);
+    saleMetrics.salesRecorded(productType, noOfOccurrences);
+  }
+
+  private boolean isJournaling() {
+    return saleJournal != null && saleJournal.isEnabled();
+  }
+
+  /**
+   * @return whether changes are made under the change lock
+   */
+  private boolean isGuarded() {
+    return retentionEnabled || isJournaling();
+  }
+
+  /**
+   * Journals a change when journaling, then applies it, holding off snapshots and compactions in between
+   */
+  private void journaled(Runnable journal, Runnable apply) {
+    changeLock.readLock().lock();
+    try {
+      if (isJournaling()) {
+        journal.run();
+      }
+      apply.run();
+    } finally {
+      changeLock.readLock().unlock();
+    }
+  }
+
+  private boolean isValid(String productType, SaleBatchEntry saleBatchEntry) {
+    SaleAdjustment saleAdjustment = saleBatchEntry.getSaleAdjustment();
+    return (saleBatchEntry.getSaleValue() == null || saleBatchEntry.getNoOfOccurrences() >= 1)
+      && (saleAdjustment == null || productType.equals(saleAdjustment.getProductType()));
+  }
+
+  private void applySaleAdjustment(SaleAdjustment saleAdjustment) {
+    long start = saleMetrics.start();
+    String productType = saleAdjustment.getProductType();
+    int salesAdjusted;
+    if (saleDao.isFixedPoint()) {
+      //Fixed-point sales round every adjustment on its own, so they are adjusted eagerly and the aggregate re-totalled
+      List<Sale> sales = fetchSalesForProductType(productType);
+      SaleSequences.adjust(sales, saleAdjustment, parallelAdjustmentThreshold);
+      saleRollupDao.recordSaleAdjustment(saleAdjustment);
+      BigDecimal totalValue = totalValue(saleRollupDao.fetchForProductType(productType), sales);
+      saleAggregateDao.recordSaleTotal(productType, totalValue);
+      saleIndexDao.reindexSales(productType, sales);
+      saleIndexDao.recordSaleTotal(productType, totalValue);
+      salesAdjusted = sales.size();
+    } else {
+      if (adjustmentLedgerEnabled) {
+        //Counted when recorded, as the ledger applies it to the same sales later
+        List<Sale> sales = saleDao.fetchForProductType(productType);
+        saleAdjustmentLedger.record(saleAdjustment, sales);
+        salesAdjusted = sales.size();
+      } else {
+        List<Sale> sales = fetchSalesForProductType(productType);
+        SaleSequences.adjust(sales, saleAdjustment, parallelAdjustmentThreshold);
+        salesAdjusted = sales.size();
+      }
+      saleRollupDao.recordSaleAdjustment(saleAdjustment);
+      saleAggregateDao.recordSaleAdjustment(saleAdjustment);
+      saleIndexDao.recordSaleAdjustment(saleAdjustment);
+    }
+    if (!recovering) {
+      saleWindowDao.recordSaleAdjustment(saleAdjustment);
+    }
+    saleAdjustmentDao.save(saleAdjustment);
+    saleMetrics.recordStage(SaleMetrics.Stage.ADJUSTMENT, start);
+    saleMetrics.recordAdjustmentFanOut(salesAdjusted);
+  }
+
+  /**
+   * @param saleValue
+   * @return the value as the sale dao records it
+   */
+  private BigDecimal recordedValue(BigDecimal saleValue) {
+    return saleDao.isFixedPoint() ? FixedPointMoney.round(saleValue, saleDao.getFixedPointScale()) : saleValue;
+  }
+
+  /**
+   * Fetches the SaleRollup of the sales compacted for the given {@code productType}
+   *
+   * @param productType
+   * @return the sale rollup, empty when no sales were compacted
+   */
+  public SaleRollup fetchSaleRollupForProductType(String productType) {
+    return saleRollupDao.fetchForProductType(productType);
+  }
+
+  /**
+   * Fetches the running SaleAggregate for the given {@code productType}
+   *
+   * @param productType
+   * @return the sale aggregate
+   */
+  public SaleAggregate fetchSaleAggregateForProductType(String productType) {
+    return saleAggregateDao.fetchForProductType(productType);
+  }
+
   /**
    * Logs a report for the Sales already recorded
+   * <p>
+   * With incremental reports enabled the report is produced from the running aggregates, in O(number of products).
    */
   public void logSaleReport() {
 
     //Logging on console for the exercise.
 
     LOGGER.info("Logging Sale Report");
-    System.out.println("=============================================");
-    System.out.println("Product Type\tSale Count\tTotal Sale Vale");
-    System.out.println("=============================================");
-    saleDao.fetchAllSales().forEach((productType, sales) -> {
-      System.out.println(productType + "\t\t:\t\t" + sales.size() + "\t\t:\t\t" + sales.stream().map(Sale::getValue).reduce(BigDecimal.ZERO, BigDecimal::add));
-    });
+    printReport(saleReport(false));
+  }
+
+  /**
+   * Takes a snapshot of the report {@link #logSaleReport()} logs, to be written later
+   * <p>
+   * Without incremental reports the totals are left to whoever writes the report, on snapshots of the sales.
+   *
+   * @return the sale report
+   */
+  public SaleReport snapshotSaleReport() {
+    return saleReport(true);
+  }
+
+  private SaleReport saleReport(boolean deferTotals) {
+    SaleReport saleReport = new SaleReport("Product Type\tSale Count\tTotal Sale Vale");
+    if (incrementalReportEnabled) {
+      saleAggregateDao.fetchAllSaleAggregates().forEach((productType, saleAggregate) -> {
+        saleReport.addRow(productType, saleAggregate.getSaleCount(), saleAggregate.getTotalValue());
+      });
+    } else {
+      addSaleRows(saleReport, deferTotals);
+    }
+    if (saleWindowDao.isEnabled()) {
+      saleReport.addSection("Product Type\tSale Count\tTotal Sale Vale (last " + saleWindowDao.getWindowSeconds() + "s)");
+      saleWindowDao.fetchAllWindowAggregates().forEach((productType, saleAggregate) -> {
+        saleReport.addRow(productType, saleAggregate.getSaleCount(), saleAggregate.getTotalValue());
+      });
+    }
+    return saleReport;
+  }
+
+  private void addSaleRows(SaleReport saleReport, boolean deferTotals) {
+    //Sales and rollups are read together, as compacting moves sales from one to the other
+    changeLock.readLock().lock();
+    try {
+      Map<String, List<Sale>> allSales = saleDao.fetchAllSales();
+      if (adjustmentLedgerEnabled) {
+        allSales.forEach(saleAdjustmentLedger::materialize);
+      }
+      Map<String, SaleRollup> saleRollups = saleRollupDao.fetchAllSaleRollups();
+      if (deferTotals) {
+        saleDao.snapshotAllSales().forEach((productType, sales) -> {
+          SaleRollup saleRollup = saleRollups.get(productType);
+          saleReport.addRow(productType, saleCount(saleRollup, sales), () -> totalValue(saleRollup, sales));
+        });
+      } else {
+        allSales.forEach((productType, sales) -> {
+          SaleRollup saleRollup = saleRollups.get(productType);
+          saleReport.addRow(productType, saleCount(saleRollup, sales), totalValue(saleRollup, sales));
+        });
+      }
+    } finally {
+      changeLock.readLock().unlock();
+    }
+  }
+
+  private static long saleCount(SaleRollup saleRollup, List<Sale> sales) {
+    return saleRollup == null ? sales.size() : saleRollup.getSaleCount() + sales.size();
+  }
+
+  /**
+   * @return the total value of the rolled up and stored sales, as if all were stored
+   */
+  private static BigDecimal totalValue(SaleRollup saleRollup, List<Sale> sales) {
+    BigDecimal totalValue = SaleSequences.totalValue(sales);
+    return saleRollup == null || saleRollup.getSaleCount() == 0 ? totalValue : saleRollup.getTotalValue().add(totalValue);
   }
 
   /**
@@ -132,13 +563,132 @@ public class SaleManager {
     //Logging on console for the exercise.
 
     LOGGER.info("Logging Sale Adjustment Report");
-    System.out.println("=============================================");
-    System.out.println("Product Type\tAdjustment Operator\tAdjustment Vale");
-    System.out.println("=============================================");
-    saleAdjustmentDao.fetchAllSaleAdjustments().forEach((productType, saleAdjustments) -> {
+    printReport(snapshotSaleAdjustmentReport());
+  }
+
+  /**
+   * Takes a snapshot of the report {@link #logSaleAdjustmentReport()} logs, to be written later
+   *
+   * @return the sale adjustment report
+   */
+  public SaleReport snapshotSaleAdjustmentReport() {
+    SaleReport saleAdjustmentReport = new SaleReport("Product Type\tAdjustment Operator\tAdjustment Vale");
+    saleAdjustmentDao.snapshotAllSaleAdjustments().forEach((productType, saleAdjustments) -> {
       saleAdjustments.forEach(saleAdjustment -> {
-        System.out.println(productType + "\t\t:\t\t" + saleAdjustment.getSaleAdjustmentOperation().name() + "\t\t:\t\t" + saleAdjustment.getAdjustmentValue());
+        saleAdjustmentReport.addRow(productType, saleAdjustment.getSaleAdjustmentOperation().name(), saleAdjustment.getAdjustmentValue());
       });
     });
+    return saleAdjustmentReport;
+  }
+
+  private void printReport(SaleReport saleReport) {
+    try {
+      saleReport.print();
+    } catch (IOException e) {
+      LOGGER.error("Failed to write report. {}", e.getMessage());
+    }
+  }
+
+  public boolean isAdjustmentLedgerEnabled() {
+    return adjustmentLedgerEnabled;
+  }
+
+  public void setAdjustmentLedgerEnabled(boolean adjustmentLedgerEnabled) {
+    this.adjustmentLedgerEnabled = adjustmentLedgerEnabled;
+  }
+
+  public boolean isIncrementalReportEnabled() {
+    return incrementalReportEnabled;
+  }
+
+  public void setIncrementalReportEnabled(boolean incrementalReportEnabled) {
+    this.incrementalReportEnabled = incrementalReportEnabled;
+  }
+
+  public int getParallelAdjustmentThreshold() {
+    return parallelAdjustmentThreshold;
+  }
+
+  /**
+   * Sets the number of sales of a product above which adjustments are applied in parallel, 0 to always apply them
+   * sequentially
+   *
+   * @param parallelAdjustmentThreshold
+   */
+  public void setParallelAdjustmentThreshold(int parallelAdjustmentThreshold) {
+    this.parallelAdjustmentThreshold = parallelAdjustmentThreshold;
+  }
+
+  public boolean isRetentionEnabled() {
+    return retentionEnabled;
+  }
+
+  public void setRetentionEnabled(boolean retentionEnabled) {
+    this.retentionEnabled = retentionEnabled;
+  }
+
+  public int getRetentionMaxSales() {
+    return retentionMaxSales;
+  }
+
+  /**
+   * Sets the number of the latest sales of a product kept by {@link #compactSales()}, 0 for no limit
+   *
+   * @param retentionMaxSales
+   */
+  public void setRetentionMaxSales(int retentionMaxSales) {
+    this.retentionMaxSales = retentionMaxSales;
+  }
+
+  public long getRetentionMaxAgeSeconds() {
+    return retentionMaxAgeSeconds;
+  }
+
+  /**
+   * Sets the age of the sales rolled up by {@link #compactSales()}, 0 for no limit
+   *
+   * @param retentionMaxAgeSeconds
+   */
+  public void setRetentionMaxAgeSeconds(long retentionMaxAgeSeconds) {
+    this.retentionMaxAgeSeconds = retentionMaxAgeSeconds;
+  }
+
+  /**
+   * Applies the changes read back from the {@link SaleJournal}, without journaling them again
+   */
+  private final class JournalReplayer implements SaleLogReplayer {
+
+    @Override
+    public void recordSales(String productType, BigDecimal saleValue, int noOfOccurrences) {
+      storeSales(productType, saleValue, noOfOccurrences);
+    }
+
+    @Override
+    public void recordSaleAdjustment(SaleAdjustment saleAdjustment) {
+      applySaleAdjustment(saleAdjustment);
+    }
+
+    @Override
+    public void restoreSaleAdjustment(SaleAdjustment saleAdjustment) {
+      saleAdjustmentDao.save(saleAdjustment);
+    }
+
+    @Override
+    public void restoreSaleRollup(SaleRollup saleRollup) {
+      saleRollupDao.save(saleRollup);
+      SaleAggregate saleAggregate = saleRollup.toSaleAggregate();
+      saleAggregateDao.recordSaleAggregate(saleAggregate);
+      saleIndexDao.recordSaleAggregate(saleAggregate);
+    }
+
+    @Override
+    public void clearSales(String productType) {
+      SaleManager.this.clearSales(productType);
+    }
+
+    @Override
+    public void clearSaleAdjustments(String productType) {
+      saleAdjustmentDao.clearSaleAdjustmentsForProductType(productType);
+    }
   }
 }
@@ -0,0 +1,214 @@
+package com.example.demo.managers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micrometer meters of the sale notification pipeline, published through the actuator {@code metrics} endpoint
+ * <p>
+ * Meters are only registered with {@code metrics.enabled} set, otherwise every method returns straight away. Stages
+ * are timed from {@link #start()} with {@link System#nanoTime()} rather than timer samples, and the meters of a product
+ * type are created once, so recording allocates nothing once every product type has been seen.
+ */
+@Component
+public class SaleMetrics {
+
+  private final MeterRegistry meterRegistry;
+
+  @Value("${metrics.enabled:false}")
+  private boolean enabled;
+
+  //Null until registered, so that disabled metrics cost a single read
+  private volatile Meters meters;
+
+  /**
+   * Initialises a new {@link SaleMetrics} registering its meters in a registry of its own
+   */
+  public SaleMetrics() {
+    this(new SimpleMeterRegistry());
+  }
+
+  /**
+   * Initialises a new {@link SaleMetrics} with the given parameters
+   *
+   * @param meterRegistry
+   */
+  @Autowired
+  public SaleMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Registers the meters when {@code metrics.enabled} is set
+   */
+  @PostConstruct
+  public synchronized void register() {
+    if (enabled && meters == null) {
+      meters = new Meters(meterRegistry);
+    }
+  }
+
+  /**
+   * @return the start time of a stage, 0 when disabled
+   */
+  public long start() {
+    return meters == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records the time taken by a stage
+   *
+   * @param stage
+   * @param start the value {@link #start()} returned when the stage started
+   */
+  public void recordStage(Stage stage, long start) {
+    Meters meters = this.meters;
+    if (meters != null) {
+      meters.stages[stage.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public void notificationReceived() {
+    Meters meters = this.meters;
+    if (meters != null) {
+      meters.received.increment();
+    }
+  }
+
+  /**
+   * Counts a redelivered notification that was skipped
+   */
+  public void notificationDuplicate() {
+    Meters meters = this.meters;
+    if (meters != null) {
+      meters.duplicate.increment();
+    }
+  }
+
+  /**
+   * @param count number of notifications recorded
+   */
+  public void notificationsProcessed(int count) {
+    Meters meters = this.meters;
+    if (meters != null) {
+      meters.processed.increment(count);
+    }
+  }
+
+  /**
+   * @param count number of notifications that could not be converted, parsed or recorded
+   */
+  public void notificationsFailed(int count) {
+    Meters meters = this.meters;
+    if (meters != null) {
+      meters.failed.increment(count);
+    }
+  }
+
+  /**
+   * Records the time a message spent between being sent and being converted
+   *
+   * @param sentTimestamp JMS timestamp of the message, 0 when the producer disabled timestamps
+   */
+  public void recordListenerLag(long sentTimestamp) {
+    Meters meters = this.meters;
+    if (meters != null && sentTimestamp > 0) {
+      meters.listenerLag.record(Math.max(0, System.currentTimeMillis() - sentTimestamp), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @param salesAdjusted number of sales an adjustment was applied to
+   */
+  public void recordAdjustmentFanOut(int salesAdjusted) {
+    Meters meters = this.meters;
+    if (meters != null) {
+      meters.adjustmentFanOut.record(salesAdjusted);
+    }
+  }
+
+  /**
+   * @param productType
+   * @param count       number of sales recorded
+   */
+  public void salesRecorded(String productType, int count) {
+    Meters meters = this.meters;
+    if (meters != null) {
+      Counter counter = meters.productSales.get(productType);
+      if (counter == null) {
+        counter = meters.productSales.computeIfAbsent(productType, meters.productSalesCounter);
+      }
+      counter.increment(count);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Sets whether meters are registered, taking effect on {@link #register()}
+   *
+   * @param enabled
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Stages of the pipeline, timed by the {@code sale.notifications.stage} timer tagged with their lower case name
+   */
+  public enum Stage {
+    DESERIALIZE, SALES, ADJUSTMENT, REPORT
+  }
+
+  /**
+   * The registered meters
+   */
+  private static final class Meters {
+
+    private final Counter received;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter duplicate;
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final Timer listenerLag;
+    private final DistributionSummary adjustmentFanOut;
+    private final Map<String, Counter> productSales = new ConcurrentHashMap<>();
+    private final Function<String, Counter> productSalesCounter;
+
+    private Meters(MeterRegistry meterRegistry) {
+      received = meterRegistry.counter("sale.notifications.received");
+      processed = meterRegistry.counter("sale.notifications.processed");
+      failed = meterRegistry.counter("sale.notifications.failed");
+      duplicate = meterRegistry.counter("sale.notifications.duplicate");
+      for (Stage stage : Stage.values()) {
+        stages[stage.ordinal()] = Timer.builder("sale.notifications.stage")
+          .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry);
+      }
+      listenerLag = Timer.builder("sale.notifications.lag")
+        .description("Time from a notification being sent to it being converted")
+        .register(meterRegistry);
+      adjustmentFanOut = DistributionSummary.builder("sale.adjustments.fanout")
+        .description("Sales an adjustment is applied to")
+        .baseUnit("sales")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+      productSalesCounter = productType -> meterRegistry.counter("sale.sales.recorded", "productType", productType);
+    }
+  }
+}
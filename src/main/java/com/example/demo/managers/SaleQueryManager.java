@@ -0,0 +1,106 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleAdjustmentDao;
+import com.example.demo.dao.SaleIndexDao;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Read only queries over the Sales and SaleAdjustments recorded by {@link SaleManager}, answered from indexes kept up
+ * to date as changes are applied instead of scanning the sales
+ * <p>
+ * Sale queries need the {@link SaleIndexDao} enabled, and cover the sales still stored, leaving out those rolled up by
+ * {@link SaleManager#compactSales()} but for revenues. Adjustments are always indexed by operation.
+ */
+@Service
+public class SaleQueryManager {
+
+  private final SaleIndexDao saleIndexDao;
+  private final SaleAdjustmentDao saleAdjustmentDao;
+
+  /**
+   * Initialises a new {@link SaleQueryManager} with the given parameters
+   *
+   * @param saleIndexDao
+   * @param saleAdjustmentDao
+   */
+  @Autowired
+  public SaleQueryManager(SaleIndexDao saleIndexDao, SaleAdjustmentDao saleAdjustmentDao) {
+    this.saleIndexDao = saleIndexDao;
+    this.saleAdjustmentDao = saleAdjustmentDao;
+  }
+
+  /**
+   * @return whether sales are indexed, without which sale queries find none
+   */
+  public boolean isSaleIndexEnabled() {
+    return saleIndexDao.isEnabled();
+  }
+
+  /**
+   * Counts the Sales of the given {@code productType} valued from {@code minValue} to {@code maxValue}
+   *
+   * @param productType
+   * @param minValue    null for no lower bound
+   * @param maxValue    null for no upper bound
+   * @return the number of sales in the range
+   */
+  public long countSalesInRange(String productType, BigDecimal minValue, BigDecimal maxValue) {
+    return saleIndexDao.countForProductType(productType, minValue, maxValue);
+  }
+
+  /**
+   * Lists the lowest values of the Sales of the given {@code productType} valued from {@code minValue} to
+   * {@code maxValue}
+   *
+   * @param productType
+   * @param minValue    null for no lower bound
+   * @param maxValue    null for no upper bound
+   * @param limit       number of distinct values listed at most
+   * @return the number of sales by value, in value order
+   */
+  public NavigableMap<BigDecimal, Long> fetchSaleValuesInRange(String productType, BigDecimal minValue,
+                                                              BigDecimal maxValue, int limit) {
+    return saleIndexDao.fetchValuesForProductType(productType, minValue, maxValue, limit);
+  }
+
+  /**
+   * Fetches the SaleAggregates of the {@code count} product types with the highest total sale value
+   *
+   * @param count
+   * @return the sale aggregates, highest total value first
+   */
+  public List<SaleAggregate> fetchTopProductTypesByRevenue(int count) {
+    return saleIndexDao.fetchTopByRevenue(count);
+  }
+
+  /**
+   * Fetches the SaleAdjustments of the given {@code saleAdjustmentOperation}
+   *
+   * @param saleAdjustmentOperation
+   * @return Map of the sale adjustments by product type
+   */
+  public Map<String, List<SaleAdjustment>> fetchSaleAdjustmentsForOperation(SaleAdjustmentOperation saleAdjustmentOperation) {
+    return saleAdjustmentDao.fetchAllForOperation(saleAdjustmentOperation);
+  }
+
+  /**
+   * Fetches the SaleAdjustments of the given {@code saleAdjustmentOperation} for the given {@code productType}
+   *
+   * @param productType
+   * @param saleAdjustmentOperation
+   * @return List of sale adjustments
+   */
+  public List<SaleAdjustment> fetchSaleAdjustmentsForOperation(String productType,
+                                                               SaleAdjustmentOperation saleAdjustmentOperation) {
+    return saleAdjustmentDao.fetchForProductTypeAndOperation(productType, saleAdjustmentOperation);
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.managers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot of the rows of a report on recorded sales, rendered when it is written
+ * <p>
+ * Rows only hold immutable values, or suppliers computing them from snapshots, so a report can be written by another
+ * thread while sales keep being recorded.
+ */
+public final class SaleReport {
+
+  private static final String RULE = "=============================================";
+  private static final String SEPARATOR = "\t\t:\t\t";
+
+  private final String columnHeadings;
+  private final List<Object[]> rows = new ArrayList<>(); //rows of a single value head further sections
+  private int sections;
+
+  /**
+   * Initialises an empty {@link SaleReport} for the given parameters
+   *
+   * @param columnHeadings
+   */
+  SaleReport(String columnHeadings) {
+    this.columnHeadings = columnHeadings;
+  }
+
+  /**
+   * Adds a row for the given {@code productType}
+   *
+   * @param productType
+   * @param first
+   * @param second
+   */
+  void addRow(String productType, Object first, Object second) {
+    rows.add(new Object[]{productType, first, second});
+  }
+
+  /**
+   * Adds a row for the given {@code productType}, whose second value is computed when the report is written
+   *
+   * @param productType
+   * @param first
+   * @param second
+   */
+  void addRow(String productType, Object first, Supplier<?> second) {
+    rows.add(new Object[]{productType, first, second});
+  }
+
+  /**
+   * Starts a further section, under the given {@code columnHeadings}, that the rows added next belong to
+   *
+   * @param columnHeadings
+   */
+  void addSection(String columnHeadings) {
+    rows.add(new Object[]{columnHeadings});
+    sections++;
+  }
+
+  /**
+   * @return the number of rows, over all sections
+   */
+  public int size() {
+    return rows.size() - sections;
+  }
+
+  /**
+   * Writes the report to {@link System#out} through a buffer, flushed once at the end
+   *
+   * @throws IOException
+   */
+  public void print() throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+    writeTo(writer);
+    writer.flush();
+  }
+
+  /**
+   * Writes the report to the given {@code writer}, without flushing it
+   *
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(Writer writer) throws IOException {
+    writeLine(writer, RULE);
+    writeLine(writer, columnHeadings);
+    writeLine(writer, RULE);
+    for (Object[] row : rows) {
+      if (row.length == 1) {
+        writeLine(writer, RULE);
+        writeLine(writer, (String) row[0]);
+        writeLine(writer, RULE);
+        continue;
+      }
+      Object second = row[2] instanceof Supplier ? ((Supplier<?>) row[2]).get() : row[2];
+      writeLine(writer, row[0] + SEPARATOR + row[1] + SEPARATOR + second);
+    }
+  }
+
+  private static void writeLine(Writer writer, String line) throws IOException {
+    writer.write(line);
+    writer.write(System.lineSeparator());
+  }
+}
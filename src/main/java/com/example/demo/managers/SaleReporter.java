@@ -0,0 +1,168 @@
+package com.example.demo.managers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the reports of a {@link SaleManager}
+ * <p>
+ * Reports are logged by the calling thread, or with {@code report.async.enabled} set, by a dedicated reporter thread.
+ * Asynchronous reports are still snapshotted by the calling thread, so they show exactly what was recorded before the
+ * call; only rendering and writing them is left to the reporter. Callers block once
+ * {@code report.async.queueCapacity} reports are waiting to be written rather than let them pile up.
+ */
+@Service
+public class SaleReporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SaleReporter.class);
+
+  private final SaleManager saleManager;
+
+  @Value("${report.async.enabled:false}")
+  private boolean asyncEnabled;
+
+  @Value("${report.async.queueCapacity:4}")
+  private int queueCapacity = 4;
+
+  private ExecutorService reportExecutor;
+
+  /**
+   * Initialises a new {@link SaleReporter} with the given parameters
+   *
+   * @param saleManager
+   */
+  @Autowired
+  public SaleReporter(SaleManager saleManager) {
+    this.saleManager = saleManager;
+  }
+
+  /**
+   * Starts the reporter thread when {@code report.async.enabled} is set
+   */
+  @PostConstruct
+  public synchronized void start() {
+    if (asyncEnabled && reportExecutor == null) {
+      //Block the caller when reports fall behind rather than drop them
+      reportExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+        Thread thread = new Thread(runnable, "sale-reporter");
+        thread.setDaemon(true);
+        return thread;
+      }, (runnable, executor) -> {
+        //Queued once stopped, the report would never be written
+        if (executor.isShutdown()) {
+          throw new RejectedExecutionException("The sale reporter is stopped");
+        }
+        try {
+          executor.getQueue().put(runnable);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RejectedExecutionException("Interrupted while waiting for the sale reporter", e);
+        }
+        if (executor.isShutdown() && executor.getQueue().remove(runnable)) {
+          throw new RejectedExecutionException("The sale reporter is stopped");
+        }
+      });
+    }
+  }
+
+  /**
+   * Stops the reporter thread once the reports already handed to it are written
+   */
+  @PreDestroy
+  public synchronized void stop() throws InterruptedException {
+    if (reportExecutor != null) {
+      reportExecutor.shutdown();
+      reportExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      reportExecutor = null;
+    }
+  }
+
+  /**
+   * Logs a report for the Sales already recorded, see {@link SaleManager#logSaleReport()}
+   */
+  public void logSaleReport() {
+    ExecutorService reportExecutor = this.reportExecutor;
+    if (reportExecutor == null) {
+      saleManager.logSaleReport();
+    } else {
+      SaleReport saleReport = saleManager.snapshotSaleReport();
+      reportExecutor.execute(() -> print("Sale Report", saleReport));
+    }
+  }
+
+  /**
+   * Logs a report for the adjustments made to stored sales, see {@link SaleManager#logSaleAdjustmentReport()}
+   */
+  public void logSaleAdjustmentReport() {
+    ExecutorService reportExecutor = this.reportExecutor;
+    if (reportExecutor == null) {
+      saleManager.logSaleAdjustmentReport();
+    } else {
+      SaleReport saleAdjustmentReport = saleManager.snapshotSaleAdjustmentReport();
+      reportExecutor.execute(() -> print("Sale Adjustment Report", saleAdjustmentReport));
+    }
+  }
+
+  /**
+   * Waits until every report handed to the reporter thread so far is written
+   */
+  public void awaitReports() throws InterruptedException, ExecutionException {
+    ExecutorService reportExecutor = this.reportExecutor;
+    if (reportExecutor != null) {
+      reportExecutor.submit(() -> {
+      }).get();
+    }
+  }
+
+  private static void print(String reportName, SaleReport saleReport) {
+
+    //Logging on console for the exercise.
+
+    LOGGER.info("Logging {}", reportName);
+    try {
+      saleReport.print();
+    } catch (IOException e) {
+      LOGGER.error("Failed to write {}. {}", reportName, e.getMessage());
+    }
+  }
+
+  public boolean isAsyncEnabled() {
+    return asyncEnabled;
+  }
+
+  /**
+   * Sets whether reports are logged by a reporter thread, taking effect on {@link #start()}
+   *
+   * @param asyncEnabled
+   */
+  public void setAsyncEnabled(boolean asyncEnabled) {
+    this.asyncEnabled = asyncEnabled;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * Sets the number of reports left waiting to be written before callers block, taking effect on {@link #start()}
+   *
+   * @param queueCapacity
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.managers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks how old the stored {@link com.example.demo.data.Sale}s of each product type are, to tell how many of the
+ * oldest ones a retention policy expires
+ * <p>
+ * Sales are not stamped one by one. Instead every check marks the number of sales stored so far with the time of the
+ * check, as {@link SaleAdjustmentLedger} does with adjustments, so a sale is known to be as old as the first mark
+ * covering it and ages are as precise as the interval between checks. Marks are counted from the first sale ever
+ * stored, so they stay valid as the oldest sales are dropped, and are dropped with them. Product types are checked
+ * under an external lock.
+ */
+public class SaleRetention {
+
+  private final ConcurrentMap<String, ProductRetention> productRetentions = new ConcurrentHashMap<>();
+
+  /**
+   * Marks the sales stored for the given {@code productType} at {@code timeMillis}, then counts those expired
+   *
+   * @param productType
+   * @param salesStored  number of sales stored for the product type, not counting those dropped
+   * @param timeMillis
+   * @param maxSales     number of sales kept at most, 0 for no limit
+   * @param maxAgeMillis age at which sales expire, 0 for no limit
+   * @return the number of the oldest sales stored which are expired
+   */
+  public int expiredSales(String productType, int salesStored, long timeMillis, int maxSales, long maxAgeMillis) {
+    ProductRetention productRetention = productRetentions.computeIfAbsent(productType, key -> new ProductRetention());
+    int expiredSales = 0;
+
+    if (maxAgeMillis > 0) {
+      long salesRecorded = productRetention.salesDropped + salesStored;
+      Mark last = productRetention.marks.peekLast();
+      if (last == null || last.salesRecorded < salesRecorded) {
+        productRetention.marks.addLast(new Mark(timeMillis, salesRecorded));
+      }
+
+      long salesExpired = productRetention.salesDropped;
+      Deque<Mark> marks = productRetention.marks;
+      while (!marks.isEmpty() && marks.peekFirst().timeMillis <= timeMillis - maxAgeMillis) {
+        salesExpired = marks.pollFirst().salesRecorded;
+      }
+      expiredSales = (int) Math.max(0, salesExpired - productRetention.salesDropped);
+    }
+
+    if (maxSales > 0) {
+      expiredSales = Math.max(expiredSales, salesStored - maxSales);
+    }
+    return expiredSales;
+  }
+
+  /**
+   * Records that the {@code count} oldest sales of the given {@code productType} were dropped
+   *
+   * @param productType
+   * @param count
+   */
+  public void dropped(String productType, int count) {
+    ProductRetention productRetention = productRetentions.get(productType);
+    if (productRetention != null) {
+      productRetention.salesDropped += count;
+    }
+  }
+
+  /**
+   * Forgets the sales of the given {@code productType}, once they are cleared
+   *
+   * @param productType
+   */
+  public void clear(String productType) {
+    productRetentions.remove(productType);
+  }
+
+  private static final class ProductRetention {
+
+    private final Deque<Mark> marks = new ArrayDeque<>();
+    private long salesDropped;
+  }
+
+  private static final class Mark {
+
+    private final long timeMillis;
+    private final long salesRecorded;
+
+    private Mark(long timeMillis, long salesRecorded) {
+      this.timeMillis = timeMillis;
+      this.salesRecorded = salesRecorded;
+    }
+  }
+}
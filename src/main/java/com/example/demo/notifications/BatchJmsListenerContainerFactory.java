@@ -0,0 +1,40 @@
+package com.example.demo.notifications;
+
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+/**
+ * {@link DefaultJmsListenerContainerFactory} creating {@link BatchMessageListenerContainer}s for the given listener
+ */
+public class BatchJmsListenerContainerFactory extends DefaultJmsListenerContainerFactory {
+
+  private final BatchMessageListener batchMessageListener;
+  private int batchSize = 1;
+  private long batchTimeout = 100;
+
+  /**
+   * Initialises a new {@link BatchJmsListenerContainerFactory} with the given parameters
+   *
+   * @param batchMessageListener
+   */
+  public BatchJmsListenerContainerFactory(BatchMessageListener batchMessageListener) {
+    this.batchMessageListener = batchMessageListener;
+  }
+
+  @Override
+  protected DefaultMessageListenerContainer createContainerInstance() {
+    BatchMessageListenerContainer container = new BatchMessageListenerContainer();
+    container.setBatchMessageListener(batchMessageListener);
+    container.setBatchSize(batchSize);
+    container.setBatchTimeout(batchTimeout);
+    return container;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public void setBatchTimeout(long batchTimeout) {
+    this.batchTimeout = batchTimeout;
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.notifications;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.util.List;
+
+/**
+ * Listener for the batches of messages received by a {@link BatchMessageListenerContainer}
+ */
+@FunctionalInterface
+public interface BatchMessageListener {
+
+  /**
+   * Handles a batch of messages, in the order they were received
+   *
+   * @param messages
+   * @throws JMSException
+   */
+  void onMessages(List<Message> messages) throws JMSException;
+}
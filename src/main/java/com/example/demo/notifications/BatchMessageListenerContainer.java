@@ -0,0 +1,110 @@
+package com.example.demo.notifications;
+
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DefaultMessageListenerContainer} that hands messages to a {@link BatchMessageListener} in batches
+ * <p>
+ * After the first message of a batch is received, up to {@code batchSize - 1} more are received until
+ * {@code batchTimeout} milliseconds have passed. The whole batch is then handed to the listener and committed or
+ * acknowledged once, so with a transacted or client acknowledged session a failed batch is redelivered as a whole.
+ * <p>
+ * Batching needs the session and consumer to be cached, which is the default without an external transaction
+ * manager. Otherwise, or without a batch listener, messages are handed to the message listener one by one.
+ */
+public class BatchMessageListenerContainer extends DefaultMessageListenerContainer {
+
+  private BatchMessageListener batchMessageListener;
+  private int batchSize = 1;
+  private long batchTimeout = 100;
+
+  @Override
+  protected boolean doReceiveAndExecute(Object invoker, Session session, MessageConsumer consumer,
+                                        TransactionStatus status) throws JMSException {
+    if (batchMessageListener == null || session == null || consumer == null) {
+      return super.doReceiveAndExecute(invoker, session, consumer, status);
+    }
+
+    Message message = receiveMessage(consumer);
+    if (message == null) {
+      noMessageReceived(invoker, session);
+      if (shouldCommitAfterNoMessageReceived(session)) {
+        commitIfNecessary(session, null);
+      }
+      return false;
+    }
+    messageReceived(invoker, session);
+
+    List<Message> messages = receiveBatch(message, consumer);
+    if (!isAcceptMessagesWhileStopping() && !isRunning()) {
+      logger.debug("Rejecting received messages because of the listener container having been stopped in the meantime");
+      rollbackIfNecessary(session);
+      return true;
+    }
+
+    try {
+      batchMessageListener.onMessages(messages);
+    } catch (Throwable ex) {
+      if (status != null) {
+        status.setRollbackOnly();
+      }
+      rollbackOnExceptionIfNecessary(session, ex);
+      handleListenerException(ex);
+      if (ex instanceof JMSException) {
+        throw (JMSException) ex;
+      }
+      return true;
+    }
+    //Acknowledging the last message acknowledges every message received before it on the session
+    commitIfNecessary(session, messages.get(messages.size() - 1));
+    return true;
+  }
+
+  private List<Message> receiveBatch(Message first, MessageConsumer consumer) throws JMSException {
+    List<Message> messages = new ArrayList<>(batchSize);
+    messages.add(first);
+
+    long deadline = System.currentTimeMillis() + batchTimeout;
+    while (messages.size() < batchSize) {
+      long remaining = deadline - System.currentTimeMillis();
+      Message message = remaining > 0 ? consumer.receive(remaining) : null;
+      if (message == null) {
+        break;
+      }
+      messages.add(message);
+    }
+    return messages;
+  }
+
+  public BatchMessageListener getBatchMessageListener() {
+    return batchMessageListener;
+  }
+
+  public void setBatchMessageListener(BatchMessageListener batchMessageListener) {
+    this.batchMessageListener = batchMessageListener;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public long getBatchTimeout() {
+    return batchTimeout;
+  }
+
+  public void setBatchTimeout(long batchTimeout) {
+    this.batchTimeout = batchTimeout;
+  }
+}
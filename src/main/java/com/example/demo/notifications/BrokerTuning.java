@@ -0,0 +1,124 @@
+package com.example.demo.notifications;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jms.activemq.ActiveMQConnectionFactoryCustomizer;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consumption settings of the ActiveMQ connection factory and of the notification listener containers
+ * <p>
+ * The defaults leave ActiveMQ and Spring Boot as they are: a queue prefetch of 1000, acknowledgements sent one by one,
+ * messages dispatched to the session on a thread of its own, and listener sessions transacted, Boot making them so
+ * without a transaction manager. The acknowledgement mode of {@code spring.jms.listener.acknowledge-mode} only applies
+ * once {@code notifications.broker.sessionTransacted} is off, and the delivery mode of sends is set with
+ * {@code spring.jms.template.delivery-mode} and {@code spring.jms.template.qos-enabled}. Each trade-off:
+ * <ul>
+ * <li>transacted: a failed batch is rolled back and redelivered, at the cost of a commit per batch</li>
+ * <li>CLIENT: the last message of a batch acknowledges the batch, a failed batch is recovered and redelivered</li>
+ * <li>AUTO and DUPS_OK: messages are acknowledged as received, so a failed batch is lost. DUPS_OK, and AUTO with
+ * {@code optimizeAcknowledge}, may acknowledge lazily, so the messages received since the last acknowledgement can be
+ * redelivered when the connection fails, and are only recorded once with {@code notifications.dedup.enabled}</li>
+ * <li>non-persistent sends are not waited for by the producer, and are lost with the broker</li>
+ * </ul>
+ */
+@Component
+public class BrokerTuning implements ActiveMQConnectionFactoryCustomizer {
+
+  @Value("${notifications.broker.prefetch:0}")
+  private int prefetch;
+
+  @Value("${notifications.broker.optimizeAcknowledge:false}")
+  private boolean optimizeAcknowledge;
+
+  @Value("${notifications.broker.optimizeAcknowledgeTimeout:300}")
+  private long optimizeAcknowledgeTimeout = 300;
+
+  @Value("${notifications.broker.dispatchAsync:true}")
+  private boolean dispatchAsync = true;
+
+  @Value("${notifications.broker.sessionTransacted:true}")
+  private boolean sessionTransacted = true;
+
+  @Override
+  public void customize(ActiveMQConnectionFactory factory) {
+    if (prefetch > 0) {
+      factory.getPrefetchPolicy().setQueuePrefetch(prefetch);
+    }
+    factory.setOptimizeAcknowledge(optimizeAcknowledge);
+    factory.setOptimizeAcknowledgeTimeOut(optimizeAcknowledgeTimeout);
+    //Otherwise pending acknowledgements only go out with the next message, which stalls a producer the broker blocks
+    //until its messages are acknowledged
+    factory.setOptimizedAckScheduledAckInterval(optimizeAcknowledge ? optimizeAcknowledgeTimeout : 0);
+    factory.setDispatchAsync(dispatchAsync);
+    factory.setAlwaysSessionAsync(dispatchAsync);
+  }
+
+  /**
+   * Applies the listener settings on the given {@code factory}, once Spring Boot configured it
+   *
+   * @param factory
+   */
+  public void configure(DefaultJmsListenerContainerFactory factory) {
+    factory.setSessionTransacted(sessionTransacted);
+  }
+
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  /**
+   * Sets the number of messages the broker pushes to a consumer ahead of their acknowledgement, 0 for ActiveMQ's
+   * default
+   *
+   * @param prefetch
+   */
+  public void setPrefetch(int prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  public boolean isOptimizeAcknowledge() {
+    return optimizeAcknowledge;
+  }
+
+  /**
+   * Sets whether AUTO acknowledgements are sent in batches, once 65% of the prefetch is consumed or every
+   * {@code optimizeAcknowledgeTimeout} milliseconds
+   *
+   * @param optimizeAcknowledge
+   */
+  public void setOptimizeAcknowledge(boolean optimizeAcknowledge) {
+    this.optimizeAcknowledge = optimizeAcknowledge;
+  }
+
+  public long getOptimizeAcknowledgeTimeout() {
+    return optimizeAcknowledgeTimeout;
+  }
+
+  public void setOptimizeAcknowledgeTimeout(long optimizeAcknowledgeTimeout) {
+    this.optimizeAcknowledgeTimeout = optimizeAcknowledgeTimeout;
+  }
+
+  public boolean isDispatchAsync() {
+    return dispatchAsync;
+  }
+
+  /**
+   * Sets whether the broker and the session hand messages over on threads of their own, rather than on the sending
+   * thread
+   *
+   * @param dispatchAsync
+   */
+  public void setDispatchAsync(boolean dispatchAsync) {
+    this.dispatchAsync = dispatchAsync;
+  }
+
+  public boolean isSessionTransacted() {
+    return sessionTransacted;
+  }
+
+  public void setSessionTransacted(boolean sessionTransacted) {
+    this.sessionTransacted = sessionTransacted;
+  }
+}
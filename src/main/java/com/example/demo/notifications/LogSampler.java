@@ -0,0 +1,60 @@
+package com.example.demo.notifications;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limit for a log statement, letting through up to a number of entries per second and counting the rest
+ * <p>
+ * Lock free and allocation free. The limit is approximate when threads race over the start of a second.
+ */
+final class LogSampler {
+
+  private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final LongSupplier nanoTime;
+  private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+  private final AtomicInteger sampled = new AtomicInteger();
+  private final AtomicInteger suppressed = new AtomicInteger();
+
+  /**
+   * Initialises a new {@link LogSampler} timed with {@link System#nanoTime()}
+   */
+  LogSampler() {
+    this(System::nanoTime);
+  }
+
+  /**
+   * Initialises a new {@link LogSampler} with the given parameters
+   *
+   * @param nanoTime source of the time in nanoseconds, as {@link System#nanoTime()}
+   */
+  LogSampler(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Samples an entry
+   *
+   * @param maxPerSecond entries let through per second, 0 or less to let every entry through
+   * @return -1 if the entry is not to be logged, otherwise the number of entries not logged since the last one that was
+   */
+  int sample(int maxPerSecond) {
+    if (maxPerSecond <= 0) {
+      return 0;
+    }
+
+    long now = nanoTime.getAsLong() / SECOND_NANOS;
+    long current = second.get();
+    if (now != current && second.compareAndSet(current, now)) {
+      sampled.set(0);
+    }
+    if (sampled.incrementAndGet() <= maxPerSecond) {
+      return suppressed.getAndSet(0);
+    }
+    suppressed.incrementAndGet();
+    return -1;
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.notifications;
+
+import java.util.Arrays;
+
+/**
+ * Bounded set of the notification ids seen most recently, for skipping redelivered notifications
+ * <p>
+ * Ids are held as 64 bit fingerprints in two open addressing tables, each of {@code capacity} ids. Once the current
+ * table is full the older one is cleared and takes its place, so an id is remembered for at least {@code capacity}
+ * further ids, and memory stays at 32 to 64 bytes per id of capacity whatever the number of ids. Lookups probe both
+ * tables, in O(1). An id can be removed again, for a notification which failed before it was recorded.
+ * <p>
+ * A fresh id is only mistaken for a duplicate when its fingerprint matches one of the ids held, with a chance of about
+ * {@code 2 * capacity / 2^64} per id: about one in 10^14 with the default capacity of 100000.
+ */
+public final class NotificationDeduplicator {
+
+  private static final long EMPTY = 0;
+
+  private final int capacity;
+  private final int mask;
+  private long[] current;
+  private long[] previous;
+  private int currentSize;
+
+  /**
+   * Initialises a new {@link NotificationDeduplicator} with the given parameters
+   *
+   * @param capacity number of ids remembered at least
+   */
+  public NotificationDeduplicator(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity " + capacity);
+    }
+    this.capacity = capacity;
+    //Tables at most half full, so probes stay short
+    int tableSize = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+    this.mask = tableSize - 1;
+    this.current = new long[tableSize];
+    this.previous = new long[tableSize];
+  }
+
+  /**
+   * Remembers a notification id unless it is remembered already
+   *
+   * @param notificationId
+   * @return whether the id was not seen before
+   */
+  public synchronized boolean add(String notificationId) {
+    long fingerprint = fingerprint(notificationId);
+    if (contains(current, fingerprint) || contains(previous, fingerprint)) {
+      return false;
+    }
+
+    if (currentSize == capacity) {
+      long[] cleared = previous;
+      Arrays.fill(cleared, EMPTY);
+      previous = current;
+      current = cleared;
+      currentSize = 0;
+    }
+    int index = (int) fingerprint & mask;
+    while (current[index] != EMPTY) {
+      index = (index + 1) & mask;
+    }
+    current[index] = fingerprint;
+    currentSize++;
+    return true;
+  }
+
+  /**
+   * Forgets a notification id, so that it is no longer taken for a duplicate
+   *
+   * @param notificationId
+   */
+  public synchronized void remove(String notificationId) {
+    long fingerprint = fingerprint(notificationId);
+    if (remove(current, fingerprint)) {
+      currentSize--;
+    } else {
+      remove(previous, fingerprint);
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private boolean contains(long[] table, long fingerprint) {
+    for (int index = (int) fingerprint & mask; table[index] != EMPTY; index = (index + 1) & mask) {
+      if (table[index] == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes a fingerprint, moving the later ones of its probe sequence back so that lookups still reach them
+   *
+   * @return whether the fingerprint was held
+   */
+  private boolean remove(long[] table, long fingerprint) {
+    int hole = (int) fingerprint & mask;
+    while (table[hole] != fingerprint) {
+      if (table[hole] == EMPTY) {
+        return false;
+      }
+      hole = (hole + 1) & mask;
+    }
+    for (int index = (hole + 1) & mask; table[index] != EMPTY; index = (index + 1) & mask) {
+      //Only fingerprints whose home slot is not between the hole and their slot may fill the hole
+      int home = (int) table[index] & mask;
+      if (((index - home) & mask) >= ((index - hole) & mask)) {
+        table[hole] = table[index];
+        hole = index;
+      }
+    }
+    table[hole] = EMPTY;
+    return true;
+  }
+
+  /**
+   * FNV-1a over the chars of the id, mixed with the MurmurHash3 finalizer so that the low bits used for the index
+   * depend on every char
+   */
+  private static long fingerprint(String notificationId) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < notificationId.length(); i++) {
+      hash ^= notificationId.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash == EMPTY ? 1 : hash;
+  }
+}
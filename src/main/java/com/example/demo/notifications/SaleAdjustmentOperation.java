@@ -1,5 +1,6 @@
 package com.example.demo.notifications;
 
+import com.example.demo.data.FixedPointMoney;
 import com.example.demo.data.Sale;
 import com.example.demo.data.SaleAdjustment;
 
@@ -12,20 +13,35 @@ public enum SaleAdjustmentOperation {
 
   ADD {
     @Override
-    public void adjust(Sale sale, BigDecimal adjustmentValue) {
-      sale.setValue(sale.getValue().add(adjustmentValue));
+    public BigDecimal apply(BigDecimal value, BigDecimal adjustmentValue) {
+      return value.add(adjustmentValue);
+    }
+
+    @Override
+    public long apply(long units, long adjustmentUnits, int scale) {
+      return FixedPointMoney.add(units, adjustmentUnits);
     }
   },
   SUBTRACT {
     @Override
-    public void adjust(Sale sale, BigDecimal adjustmentValue) {
-      sale.setValue(sale.getValue().subtract(adjustmentValue));
+    public BigDecimal apply(BigDecimal value, BigDecimal adjustmentValue) {
+      return value.subtract(adjustmentValue);
+    }
+
+    @Override
+    public long apply(long units, long adjustmentUnits, int scale) {
+      return FixedPointMoney.subtract(units, adjustmentUnits);
     }
   },
   MULTIPLY {
     @Override
-    public void adjust(Sale sale, BigDecimal adjustmentValue) {
-      sale.setValue(sale.getValue().multiply(adjustmentValue));
+    public BigDecimal apply(BigDecimal value, BigDecimal adjustmentValue) {
+      return value.multiply(adjustmentValue);
+    }
+
+    @Override
+    public long apply(long units, long adjustmentUnits, int scale) {
+      return FixedPointMoney.multiply(units, adjustmentUnits, scale);
     }
   };
 
@@ -35,5 +51,35 @@ public enum SaleAdjustmentOperation {
    * @param sale
    * @param adjustmentValue
    */
-  public abstract void adjust(Sale sale, BigDecimal adjustmentValue);
+  public void adjust(Sale sale, BigDecimal adjustmentValue) {
+    if (sale.isFixedPoint()) {
+      long adjustmentUnits = FixedPointMoney.toUnitsExact(adjustmentValue, sale.getValueScale());
+      long units = adjustmentUnits == FixedPointMoney.OVERFLOW ? FixedPointMoney.OVERFLOW
+        : apply(sale.getValueUnits(), adjustmentUnits, sale.getValueScale());
+      if (units != FixedPointMoney.OVERFLOW) {
+        sale.setValueUnits(units);
+        return;
+      }
+    }
+    sale.setValue(apply(sale.getValue(), adjustmentValue));
+  }
+
+  /**
+   * Applies the sale adjustment operator on the given {@code value}
+   *
+   * @param value
+   * @param adjustmentValue
+   * @return the adjusted value
+   */
+  public abstract BigDecimal apply(BigDecimal value, BigDecimal adjustmentValue);
+
+  /**
+   * Applies the sale adjustment operator on fixed-point amounts, rounding as {@link FixedPointMoney} does
+   *
+   * @param units
+   * @param adjustmentUnits
+   * @param scale           scale of both amounts and of the result
+   * @return the adjusted units, or {@link FixedPointMoney#OVERFLOW}
+   */
+  public abstract long apply(long units, long adjustmentUnits, int scale);
 }
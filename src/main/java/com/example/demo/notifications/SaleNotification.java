@@ -1,7 +1,5 @@
 package com.example.demo.notifications;
 
-import org.apache.commons.lang3.builder.ToStringBuilder;
-
 /**
  * External Message Container for a Sale Notification
  *
@@ -88,14 +86,24 @@ public final class SaleNotification {
     this.adjustmentValue = adjustmentValue;
   }
 
+  /**
+   * Appends the fields of the notification as {@code key=value} pairs, without creating anything but what the
+   * {@code builder} needs to grow, so that a reused builder formats notifications without garbage
+   *
+   * @param builder
+   * @return the builder
+   */
+  public StringBuilder formatTo(StringBuilder builder) {
+    return builder.append("SaleNotification[productType=").append(productType)
+      .append(",saleValue=").append(saleValue)
+      .append(",noOfOccurrences=").append(noOfOccurrences)
+      .append(",adjustmentOperation=").append(adjustmentOperation)
+      .append(",adjustmentValue=").append(adjustmentValue)
+      .append(']');
+  }
+
   @Override
   public String toString() {
-    return new ToStringBuilder(this)
-      .append("productType", productType)
-      .append("saleValue", saleValue)
-      .append("noOfOccurrences", noOfOccurrences)
-      .append("adjustmentOperation", adjustmentOperation)
-      .append("adjustmentValue", adjustmentValue)
-      .toString();
+    return formatTo(new StringBuilder(128)).toString();
   }
 }
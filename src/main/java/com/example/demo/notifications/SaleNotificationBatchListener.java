@@ -0,0 +1,77 @@
+package com.example.demo.notifications;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link BatchMessageListener} converting batches of messages to {@link SaleNotification}s for the
+ * {@link SaleNotificationProcessor}
+ * <p>
+ * Each notification is handed over with its id, the {@link SaleNotificationProcessor#NOTIFICATION_ID_PROPERTY} of
+ * its message or otherwise the JMS message id. The end to end latency of the notifications is recorded by the
+ * {@link SaleNotificationLatency} once the whole batch is processed.
+ */
+@Component
+public class SaleNotificationBatchListener implements BatchMessageListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SaleNotificationBatchListener.class);
+
+  private final SaleNotificationProcessor saleNotificationProcessor;
+  private final MessageConverter messageConverter;
+  private final SaleNotificationLatency saleNotificationLatency;
+
+  /**
+   * Initialises a new {@link SaleNotificationBatchListener} with the given parameters
+   *
+   * @param saleNotificationProcessor
+   * @param messageConverter
+   */
+  public SaleNotificationBatchListener(SaleNotificationProcessor saleNotificationProcessor, MessageConverter messageConverter) {
+    this(saleNotificationProcessor, messageConverter, new SaleNotificationLatency());
+  }
+
+  /**
+   * Initialises a new {@link SaleNotificationBatchListener} with the given parameters
+   *
+   * @param saleNotificationProcessor
+   * @param messageConverter
+   * @param saleNotificationLatency
+   */
+  @Autowired
+  public SaleNotificationBatchListener(SaleNotificationProcessor saleNotificationProcessor, MessageConverter messageConverter,
+                                       SaleNotificationLatency saleNotificationLatency) {
+    this.saleNotificationProcessor = saleNotificationProcessor;
+    this.messageConverter = messageConverter;
+    this.saleNotificationLatency = saleNotificationLatency;
+  }
+
+  @Override
+  public void onMessages(List<Message> messages) throws JMSException {
+    List<SaleNotification> saleNotifications = new ArrayList<>(messages.size());
+    List<String> notificationIds = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      try {
+        saleNotifications.add((SaleNotification) messageConverter.fromMessage(message));
+        String notificationId = message.getStringProperty(SaleNotificationProcessor.NOTIFICATION_ID_PROPERTY);
+        notificationIds.add(notificationId != null ? notificationId : message.getJMSMessageID());
+      } catch (MessageConversionException | ClassCastException e) {
+        LOGGER.error("Failed to convert message <{}>. {}", message.getJMSMessageID(), e.getMessage());
+      }
+    }
+    saleNotificationProcessor.receiveSaleNotifications(saleNotifications, notificationIds);
+    for (Message message : messages) {
+      if (message.propertyExists(SaleNotificationLatency.SENT_NANOS_PROPERTY)) {
+        saleNotificationLatency.recordProcessed(message.getLongProperty(SaleNotificationLatency.SENT_NANOS_PROPERTY));
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package com.example.demo.notifications;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link SaleNotification}s
+ * <p>
+ * Layout: a version byte, a byte holding a 2 bit kind per optional field (null, compact or text), then the product
+ * type, sale value, number of occurrences, adjustment operation and adjustment value. In their compact form product
+ * types are ids in the product type dictionary shared by producers and consumers, decimals are a zigzag varint scale
+ * followed by a zigzag varint unscaled value, and operations are {@link SaleAdjustmentOperation} ordinals. Values
+ * without a compact form, such as unknown product types or malformed decimals, are carried as UTF-8 text so they
+ * reach the processor unchanged.
+ * <p>
+ * Decimals decode to the canonical {@link BigDecimal#toString()} of their value, e.g. {@code ".20"} to {@code "0.20"}.
+ */
+public class SaleNotificationCodec {
+
+  static final byte VERSION = 1;
+
+  private static final int NULL = 0;
+  private static final int COMPACT = 1;
+  private static final int TEXT = 2;
+
+  private static final SaleAdjustmentOperation[] OPERATIONS = SaleAdjustmentOperation.values();
+
+  private final String[] productTypes;
+  private final Map<String, Integer> productTypeIds = new HashMap<>();
+
+  /**
+   * Initialises a new {@link SaleNotificationCodec} with the given parameters
+   *
+   * @param productTypes the product type dictionary, in the same order for every producer and consumer
+   */
+  public SaleNotificationCodec(List<String> productTypes) {
+    this.productTypes = productTypes.toArray(new String[0]);
+    for (int id = 0; id < this.productTypes.length; id++) {
+      productTypeIds.putIfAbsent(this.productTypes[id], id);
+    }
+  }
+
+  /**
+   * @param saleNotification
+   * @return the encoded notification
+   */
+  public byte[] encode(SaleNotification saleNotification) {
+    Integer productTypeId = saleNotification.getProductType() == null ? null : productTypeIds.get(saleNotification.getProductType());
+    BigDecimal saleValue = compactDecimal(saleNotification.getSaleValue());
+    SaleAdjustmentOperation operation = compactOperation(saleNotification.getAdjustmentOperation());
+    BigDecimal adjustmentValue = compactDecimal(saleNotification.getAdjustmentValue());
+
+    int productTypeKind = kind(saleNotification.getProductType(), productTypeId);
+    int saleValueKind = kind(saleNotification.getSaleValue(), saleValue);
+    int operationKind = kind(saleNotification.getAdjustmentOperation(), operation);
+    int adjustmentValueKind = kind(saleNotification.getAdjustmentValue(), adjustmentValue);
+
+    Writer writer = new Writer();
+    writer.writeByte(VERSION);
+    writer.writeByte(productTypeKind | saleValueKind << 2 | operationKind << 4 | adjustmentValueKind << 6);
+
+    if (productTypeKind == COMPACT) {
+      writer.writeVarint(productTypeId);
+    } else if (productTypeKind == TEXT) {
+      writer.writeText(saleNotification.getProductType());
+    }
+    writeDecimal(writer, saleValueKind, saleValue, saleNotification.getSaleValue());
+    writer.writeVarint(zigzag(saleNotification.getNoOfOccurrences()));
+    if (operationKind == COMPACT) {
+      writer.writeByte(operation.ordinal());
+    } else if (operationKind == TEXT) {
+      writer.writeText(saleNotification.getAdjustmentOperation());
+    }
+    writeDecimal(writer, adjustmentValueKind, adjustmentValue, saleNotification.getAdjustmentValue());
+
+    return writer.toByteArray();
+  }
+
+  /**
+   * @param bytes
+   * @param offset
+   * @param length
+   * @return the decoded notification
+   * @throws IllegalArgumentException when the bytes are not a notification this codec encoded
+   */
+  public SaleNotification decode(byte[] bytes, int offset, int length) {
+    Reader reader = new Reader(bytes, offset, offset + length);
+    try {
+      int version = reader.readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported SaleNotification encoding version " + version);
+      }
+      int kinds = reader.readByte();
+
+      SaleNotification saleNotification = new SaleNotification();
+      switch (kinds & 3) {
+        case COMPACT:
+          int productTypeId = (int) reader.readVarint();
+          if (productTypeId < 0 || productTypeId >= productTypes.length) {
+            throw new IllegalArgumentException("Unknown product type id " + productTypeId);
+          }
+          saleNotification.setProductType(productTypes[productTypeId]);
+          break;
+        case TEXT:
+          saleNotification.setProductType(reader.readText());
+          break;
+        default:
+      }
+      saleNotification.setSaleValue(readDecimal(reader, kinds >> 2 & 3));
+      saleNotification.setNoOfOccurrences((int) unzigzag(reader.readVarint()));
+      switch (kinds >> 4 & 3) {
+        case COMPACT:
+          int ordinal = reader.readByte();
+          if (ordinal >= OPERATIONS.length) {
+            throw new IllegalArgumentException("Unknown adjustment operation " + ordinal);
+          }
+          saleNotification.setAdjustmentOperation(OPERATIONS[ordinal].name());
+          break;
+        case TEXT:
+          saleNotification.setAdjustmentOperation(reader.readText());
+          break;
+        default:
+      }
+      saleNotification.setAdjustmentValue(readDecimal(reader, kinds >> 6 & 3));
+
+      if (reader.position != reader.limit) {
+        throw new IllegalArgumentException("Trailing bytes after SaleNotification");
+      }
+      return saleNotification;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated SaleNotification", e);
+    }
+  }
+
+  private static int kind(String value, Object compactValue) {
+    return value == null ? NULL : compactValue != null ? COMPACT : TEXT;
+  }
+
+  private static BigDecimal compactDecimal(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      BigDecimal decimal = new BigDecimal(value);
+      return decimal.unscaledValue().bitLength() < 64 ? decimal : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static SaleAdjustmentOperation compactOperation(String value) {
+    for (SaleAdjustmentOperation operation : OPERATIONS) {
+      if (operation.name().equals(value)) {
+        return operation;
+      }
+    }
+    return null;
+  }
+
+  private static void writeDecimal(Writer writer, int kind, BigDecimal decimal, String text) {
+    if (kind == COMPACT) {
+      writer.writeVarint(zigzag(decimal.scale()));
+      writer.writeVarint(zigzag(decimal.unscaledValue().longValue()));
+    } else if (kind == TEXT) {
+      writer.writeText(text);
+    }
+  }
+
+  private static String readDecimal(Reader reader, int kind) {
+    switch (kind) {
+      case COMPACT:
+        int scale = (int) unzigzag(reader.readVarint());
+        return BigDecimal.valueOf(unzigzag(reader.readVarint()), scale).toString();
+      case TEXT:
+        return reader.readText();
+      default:
+        return null;
+    }
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static final class Writer {
+
+    private byte[] bytes = new byte[32];
+    private int position;
+
+    private void ensureCapacity(int extra) {
+      if (position + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+      }
+    }
+
+    private void writeByte(int value) {
+      ensureCapacity(1);
+      bytes[position++] = (byte) value;
+    }
+
+    private void writeVarint(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[position++] = (byte) value;
+    }
+
+    private void writeText(String text) {
+      byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+      writeVarint(utf8.length);
+      ensureCapacity(utf8.length);
+      System.arraycopy(utf8, 0, bytes, position, utf8.length);
+      position += utf8.length;
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(bytes, position);
+    }
+  }
+
+  private static final class Reader {
+
+    private final byte[] bytes;
+    private final int limit;
+    private int position;
+
+    private Reader(byte[] bytes, int position, int limit) {
+      this.bytes = bytes;
+      this.position = position;
+      this.limit = limit;
+    }
+
+    private int readByte() {
+      if (position >= limit) {
+        throw new ArrayIndexOutOfBoundsException(position);
+      }
+      return bytes[position++] & 0xFF;
+    }
+
+    private long readVarint() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private String readText() {
+      long length = readVarint();
+      if (length < 0 || length > limit - position) {
+        throw new ArrayIndexOutOfBoundsException(position);
+      }
+      String text = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+      position += (int) length;
+      return text;
+    }
+  }
+}
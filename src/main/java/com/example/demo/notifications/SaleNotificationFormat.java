@@ -0,0 +1,17 @@
+package com.example.demo.notifications;
+
+/**
+ * Wire formats of {@link SaleNotification} messages
+ */
+public enum SaleNotificationFormat {
+
+  /**
+   * JSON text, in a {@code TextMessage} or UTF-8 {@code BytesMessage}
+   */
+  JSON,
+
+  /**
+   * {@link SaleNotificationCodec} encoding, in a {@code BytesMessage}
+   */
+  BINARY
+}
@@ -0,0 +1,55 @@
+package com.example.demo.notifications;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End to end latency of the notifications carrying a {@link #SENT_NANOS_PROPERTY}, from being sent to being processed
+ * <p>
+ * The property holds the {@link System#nanoTime()} the notification was sent at, so latencies are only meaningful for
+ * producers running in the same JVM, as the {@link SaleNotificationLoadGenerator} does against the embedded broker.
+ * Latencies are recorded in microseconds into an HdrHistogram {@link Recorder}, without locking or allocating, and read
+ * as the histogram of the interval since the previous read. With {@code notifications.partitions} set, notifications
+ * are processed once handed over to their partition.
+ */
+@Component
+public class SaleNotificationLatency {
+
+  /**
+   * Message property with the {@link System#nanoTime()} a notification was sent at
+   */
+  public static final String SENT_NANOS_PROPERTY = "saleNotificationSentNanos";
+
+  private final Recorder recorder = new Recorder(3);
+  private final LongAdder processed = new LongAdder();
+
+  /**
+   * Records a processed notification
+   *
+   * @param sentNanos the {@link #SENT_NANOS_PROPERTY} of its message, ignored when {@code null}
+   */
+  public void recordProcessed(Long sentNanos) {
+    if (sentNanos != null) {
+      recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentNanos)));
+      processed.increment();
+    }
+  }
+
+  /**
+   * @return the number of notifications carrying a {@link #SENT_NANOS_PROPERTY} processed so far
+   */
+  public long getProcessed() {
+    return processed.sum();
+  }
+
+  /**
+   * @return the latencies in microseconds recorded since the previous call
+   */
+  public Histogram getIntervalHistogram() {
+    return recorder.getIntervalHistogram();
+  }
+}
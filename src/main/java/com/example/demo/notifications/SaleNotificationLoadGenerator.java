@@ -0,0 +1,447 @@
+package com.example.demo.notifications;
+
+import org.HdrHistogram.Histogram;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates sale notifications for sizing the application against its broker, in place of the sample notifications
+ * the application sends, with {@code notifications.load.enabled} set
+ * <p>
+ * {@code notifications.load.producers} threads send for {@code notifications.load.durationSeconds}, each on a
+ * connection, session and producer of its own, asynchronously with {@code notifications.load.asyncSend}. With
+ * {@code notifications.load.rate} set they share that many notifications a second between them, each on a fixed
+ * schedule whatever the time its sends take; otherwise they send as fast as they can. Every notification carries the
+ * time it was due to be sent at as its {@link SaleNotificationLatency#SENT_NANOS_PROPERTY}, so that the latency of a
+ * notification includes the time it waited behind a producer falling behind its schedule.
+ * <p>
+ * Notifications are spread over {@code notifications.load.productTypes} product types, {@code Product0} the most
+ * frequent, following a Zipf distribution of exponent {@code notifications.load.skew}, 0 for a uniform one. A share
+ * {@code notifications.load.adjustmentRatio} of them carry an adjustment, and their number of occurrences follows a
+ * geometric distribution of mean {@code notifications.load.meanOccurrences}.
+ * <p>
+ * The produced and processed rates and the latency percentiles are logged every {@code notifications.load.reportSeconds},
+ * then for the whole run once the notifications sent are processed, or after {@code notifications.load.drainSeconds}.
+ * Notifications past the {@code message.threshold} are not processed, so it is to be raised above the number sent.
+ */
+@Component
+public class SaleNotificationLoadGenerator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SaleNotificationLoadGenerator.class);
+
+  private static final String DESTINATION = "saleNotifications";
+  private static final String PRODUCT_TYPE_PREFIX = "Product";
+  //Bounds the asynchronous sends awaiting the broker, which otherwise cannot slow the producers down
+  private static final int PRODUCER_WINDOW_BYTES = 1 << 20;
+
+  private final MessageConverter messageConverter;
+  private final BrokerTuning brokerTuning;
+  private final SaleNotificationLatency saleNotificationLatency;
+  private final LongAdder produced = new LongAdder();
+
+  @Value("${spring.activemq.broker-url:vm://localhost?broker.persistent=false}")
+  private String brokerUrl = "vm://localhost?broker.persistent=false";
+
+  @Value("${notifications.load.enabled:false}")
+  private boolean enabled;
+
+  @Value("${notifications.load.producers:1}")
+  private int producers = 1;
+
+  @Value("${notifications.load.rate:0}")
+  private long rate;
+
+  @Value("${notifications.load.durationSeconds:10}")
+  private int durationSeconds = 10;
+
+  @Value("${notifications.load.productTypes:100}")
+  private int productTypes = 100;
+
+  @Value("${notifications.load.skew:1.0}")
+  private double skew = 1.0;
+
+  @Value("${notifications.load.adjustmentRatio:0.1}")
+  private double adjustmentRatio = 0.1;
+
+  @Value("${notifications.load.meanOccurrences:1.0}")
+  private double meanOccurrences = 1.0;
+
+  @Value("${notifications.load.asyncSend:true}")
+  private boolean asyncSend = true;
+
+  @Value("${notifications.load.persistent:true}")
+  private boolean persistent = true;
+
+  @Value("${notifications.load.reportSeconds:1}")
+  private int reportSeconds = 1;
+
+  @Value("${notifications.load.drainSeconds:30}")
+  private int drainSeconds = 30;
+
+  @Value("${notifications.load.seed:1}")
+  private long seed = 1;
+
+  /**
+   * Initialises a new {@link SaleNotificationLoadGenerator} with the given parameters
+   *
+   * @param messageConverter
+   * @param brokerTuning
+   * @param saleNotificationLatency
+   */
+  @Autowired
+  public SaleNotificationLoadGenerator(MessageConverter messageConverter, BrokerTuning brokerTuning,
+                                       SaleNotificationLatency saleNotificationLatency) {
+    this.messageConverter = messageConverter;
+    this.brokerTuning = brokerTuning;
+    this.saleNotificationLatency = saleNotificationLatency;
+  }
+
+  /**
+   * Sends notifications for {@code notifications.load.durationSeconds}, then waits for them to be processed, logging
+   * the rates and latencies as it goes
+   *
+   * @return the latencies in microseconds of the notifications processed during the run
+   */
+  public Histogram run() throws InterruptedException {
+    if (producers < 1 || durationSeconds < 1 || reportSeconds < 1) {
+      throw new IllegalArgumentException("Invalid load of " + producers + " producers for " + durationSeconds
+        + "s reported every " + reportSeconds + "s");
+    }
+    ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(brokerUrl);
+    brokerTuning.customize(connectionFactory);
+    connectionFactory.setUseAsyncSend(asyncSend);
+    if (asyncSend) {
+      connectionFactory.setProducerWindowSize(PRODUCER_WINDOW_BYTES);
+    }
+    NotificationMix notificationMix = newNotificationMix();
+    LOGGER.info("Generating load for {}s: {} producers at {}, {} product types of skew {}, adjustment ratio {}, "
+        + "mean occurrences {}", durationSeconds, producers, rate > 0 ? rate + " notifications/s" : "full speed",
+      productTypes, skew, adjustmentRatio, meanOccurrences);
+
+    //Forgets what was processed before the run
+    saleNotificationLatency.getIntervalHistogram();
+    long producedBefore = produced.sum();
+    long processedBefore = saleNotificationLatency.getProcessed();
+    Histogram latencies = new Histogram(3);
+
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+    Thread[] threads = new Thread[producers];
+    for (int i = 0; i < producers; i++) {
+      int producer = i;
+      threads[i] = new Thread(() -> produce(connectionFactory, notificationMix, producer, start, deadline),
+        "sale-load-" + i);
+      threads[i].start();
+    }
+
+    long drainDeadline = deadline + TimeUnit.SECONDS.toNanos(drainSeconds);
+    long reportStart = start;
+    long reportProduced = 0;
+    long reportProcessed = 0;
+    long producingEnd = 0;
+    long totalProduced;
+    long totalProcessed;
+    do {
+      Thread.sleep(TimeUnit.SECONDS.toMillis(reportSeconds));
+      boolean producing = isAlive(threads);
+      long now = System.nanoTime();
+      if (!producing && producingEnd == 0) {
+        producingEnd = now;
+      }
+      totalProduced = produced.sum() - producedBefore;
+      totalProcessed = saleNotificationLatency.getProcessed() - processedBefore;
+      Histogram interval = saleNotificationLatency.getIntervalHistogram();
+      latencies.add(interval);
+      log("Load", now - reportStart, totalProduced - reportProduced, now - reportStart,
+        totalProcessed - reportProcessed, interval);
+      reportStart = now;
+      reportProduced = totalProduced;
+      reportProcessed = totalProcessed;
+    } while (producingEnd == 0 || (totalProcessed < totalProduced && System.nanoTime() < drainDeadline));
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    //Rates over the time spent producing, and the time until the last report
+    log("Load total", producingEnd - start, totalProduced, reportStart - start, totalProcessed, latencies);
+    if (totalProcessed < totalProduced) {
+      LOGGER.warn("{} notifications sent were not processed within {}s", totalProduced - totalProcessed, drainSeconds);
+    }
+    return latencies;
+  }
+
+  /**
+   * Sends notifications until the {@code deadline}, on a schedule shifted by a share of the interval between sends, so
+   * that the producers take turns
+   */
+  private void produce(ActiveMQConnectionFactory connectionFactory, NotificationMix notificationMix, int producer,
+                       long start, long deadline) {
+    SplittableRandom random = new SplittableRandom(seed + producer);
+    long offset = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * producer / rate : 0;
+    try {
+      Connection connection = connectionFactory.createConnection();
+      try {
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageProducer messageProducer = session.createProducer(session.createQueue(DESTINATION));
+        messageProducer.setDeliveryMode(persistent ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+        for (long sent = 0; ; sent++) {
+          long due = rate > 0 ? start + offset + TimeUnit.SECONDS.toNanos(sent) * producers / rate : System.nanoTime();
+          if (due - deadline >= 0) {
+            break;
+          }
+          for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+          }
+          Message message = messageConverter.toMessage(notificationMix.next(random), session);
+          message.setLongProperty(SaleNotificationLatency.SENT_NANOS_PROPERTY, due);
+          messageProducer.send(message);
+          produced.increment();
+        }
+      } finally {
+        connection.close();
+      }
+    } catch (JMSException e) {
+      LOGGER.error("Failed to generate load on producer {}. {}", producer, e.getMessage());
+    }
+  }
+
+  private static boolean isAlive(Thread[] threads) {
+    for (Thread thread : threads) {
+      if (thread.isAlive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void log(String label, long producedNanos, long produced, long processedNanos, long processed,
+                          Histogram latencies) {
+    LOGGER.info("{}: produced {} ({}/s), processed {} ({}/s), latency us p50 {} p99 {} p99.9 {} max {}", label,
+      produced, perSecond(produced, producedNanos), processed, perSecond(processed, processedNanos),
+      latencies.getValueAtPercentile(50), latencies.getValueAtPercentile(99), latencies.getValueAtPercentile(99.9),
+      latencies.getMaxValue());
+  }
+
+  private static long perSecond(long count, long nanos) {
+    return Math.round(count * 1e9 / Math.max(nanos, 1));
+  }
+
+  /**
+   * @return the distributions of the notifications to send
+   */
+  NotificationMix newNotificationMix() {
+    if (productTypes < 1 || skew < 0 || adjustmentRatio < 0 || adjustmentRatio > 1 || meanOccurrences < 1) {
+      throw new IllegalArgumentException("Invalid notification mix of " + productTypes + " product types of skew "
+        + skew + ", adjustment ratio " + adjustmentRatio + " and mean occurrences " + meanOccurrences);
+    }
+    return new NotificationMix(productTypes, skew, adjustmentRatio, meanOccurrences);
+  }
+
+  public long getProduced() {
+    return produced.sum();
+  }
+
+  public String getBrokerUrl() {
+    return brokerUrl;
+  }
+
+  public void setBrokerUrl(String brokerUrl) {
+    this.brokerUrl = brokerUrl;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Sets whether the application generates load rather than sending its sample notifications
+   *
+   * @param enabled
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getProducers() {
+    return producers;
+  }
+
+  public void setProducers(int producers) {
+    this.producers = producers;
+  }
+
+  public long getRate() {
+    return rate;
+  }
+
+  /**
+   * Sets the notifications sent a second by all producers together, 0 to send as fast as they can
+   *
+   * @param rate
+   */
+  public void setRate(long rate) {
+    this.rate = rate;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public void setDurationSeconds(int durationSeconds) {
+    this.durationSeconds = durationSeconds;
+  }
+
+  public int getProductTypes() {
+    return productTypes;
+  }
+
+  public void setProductTypes(int productTypes) {
+    this.productTypes = productTypes;
+  }
+
+  public double getSkew() {
+    return skew;
+  }
+
+  /**
+   * Sets the exponent of the Zipf distribution of product types, 0 for a uniform distribution
+   *
+   * @param skew
+   */
+  public void setSkew(double skew) {
+    this.skew = skew;
+  }
+
+  public double getAdjustmentRatio() {
+    return adjustmentRatio;
+  }
+
+  public void setAdjustmentRatio(double adjustmentRatio) {
+    this.adjustmentRatio = adjustmentRatio;
+  }
+
+  public double getMeanOccurrences() {
+    return meanOccurrences;
+  }
+
+  public void setMeanOccurrences(double meanOccurrences) {
+    this.meanOccurrences = meanOccurrences;
+  }
+
+  public boolean isAsyncSend() {
+    return asyncSend;
+  }
+
+  public void setAsyncSend(boolean asyncSend) {
+    this.asyncSend = asyncSend;
+  }
+
+  public boolean isPersistent() {
+    return persistent;
+  }
+
+  public void setPersistent(boolean persistent) {
+    this.persistent = persistent;
+  }
+
+  public int getReportSeconds() {
+    return reportSeconds;
+  }
+
+  public void setReportSeconds(int reportSeconds) {
+    this.reportSeconds = reportSeconds;
+  }
+
+  public int getDrainSeconds() {
+    return drainSeconds;
+  }
+
+  public void setDrainSeconds(int drainSeconds) {
+    this.drainSeconds = drainSeconds;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Draws notifications from the distributions of a load, safe to share between producers each with its own random
+   */
+  static final class NotificationMix {
+
+    //Multiplying by -1 keeps the scale and magnitude of sale values whatever the number of adjustments
+    private static final String[] ADJUSTMENTS = {SaleAdjustmentOperation.ADD.name(),
+      SaleAdjustmentOperation.SUBTRACT.name(), SaleAdjustmentOperation.MULTIPLY.name()};
+    private static final String NEGATE = "-1";
+
+    private final String[] productTypes;
+    private final double[] cumulativeWeights;
+    private final double adjustmentRatio;
+    private final double logFailure;
+
+    private NotificationMix(int productTypes, double skew, double adjustmentRatio, double meanOccurrences) {
+      this.productTypes = new String[productTypes];
+      this.cumulativeWeights = new double[productTypes];
+      double total = 0;
+      for (int i = 0; i < productTypes; i++) {
+        this.productTypes[i] = PRODUCT_TYPE_PREFIX + i;
+        total += 1 / Math.pow(i + 1, skew);
+        cumulativeWeights[i] = total;
+      }
+      this.adjustmentRatio = adjustmentRatio;
+      //Occurrences of 1 + failures before a success of chance 1 / mean, 0 when always 1
+      this.logFailure = meanOccurrences > 1 ? Math.log(1 - 1 / meanOccurrences) : 0;
+    }
+
+    SaleNotification next(SplittableRandom random) {
+      String productType = productTypes[productTypeIndex(random)];
+      String saleValue = cents(random, 1000);
+      int noOfOccurrences = occurrences(random);
+      if (random.nextDouble() >= adjustmentRatio) {
+        return new SaleNotification(productType, saleValue, noOfOccurrences);
+      }
+      String adjustmentOperation = ADJUSTMENTS[random.nextInt(ADJUSTMENTS.length)];
+      String adjustmentValue = SaleAdjustmentOperation.MULTIPLY.name().equals(adjustmentOperation) ? NEGATE
+        : cents(random, 100);
+      return new SaleNotification(productType, saleValue, noOfOccurrences, adjustmentOperation, adjustmentValue);
+    }
+
+    private int productTypeIndex(SplittableRandom random) {
+      int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1]);
+      return Math.min(index >= 0 ? index : -index - 1, cumulativeWeights.length - 1);
+    }
+
+    private int occurrences(SplittableRandom random) {
+      if (logFailure == 0) {
+        return 1;
+      }
+      return 1 + (int) Math.min(Integer.MAX_VALUE - 1, Math.floor(Math.log(1 - random.nextDouble()) / logFailure));
+    }
+
+    private static String cents(SplittableRandom random, int max) {
+      return BigDecimal.valueOf(1 + random.nextInt(max), 2).toPlainString();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.notifications;
+
+import com.example.demo.managers.SaleMetrics;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+
+/**
+ * {@link MessageConverter} reading and writing {@link SaleNotification}s with Jackson's streaming API
+ * <p>
+ * Notifications are written as the {@code TextMessage}s the {@code delegate} writes, with the same type id property.
+ * They are read from {@code TextMessage}s and from UTF-8 {@code BytesMessage}s, the latter straight from their bytes.
+ * Messages carrying another type id, and any other payload, are handed to the {@code delegate}.
+ * <p>
+ * With the {@link SaleNotificationFormat#BINARY} format notifications are written as {@code BytesMessage}s encoded by
+ * the {@link SaleNotificationCodec}, flagged by the {@link #FORMAT_PROPERTY}. Flagged messages are always decoded
+ * with the codec, whatever the format written, so JSON and binary producers can share a destination.
+ * <p>
+ * Reading a notification is timed by the {@link SaleMetrics}, which also record its listener lag from the JMS
+ * timestamp, and count it as failed when it cannot be read.
+ */
+public class SaleNotificationMessageConverter implements MessageConverter {
+
+  /**
+   * Message property naming the {@link SaleNotificationFormat} of the body, JSON when absent
+   */
+  public static final String FORMAT_PROPERTY = "saleNotificationFormat";
+
+  private static final String SALE_NOTIFICATION_TYPE_ID = SaleNotification.class.getName();
+
+  //Reused per listener thread, BytesMessage bodies are copied in before parsing
+  private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[512]);
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final MessageConverter delegate;
+  private final String typeIdPropertyName;
+  private final SaleNotificationCodec codec;
+  private final SaleNotificationFormat format;
+  private final SaleMetrics saleMetrics;
+
+  /**
+   * Initialises a new {@link SaleNotificationMessageConverter} with the given parameters
+   *
+   * @param delegate           converter for other payloads
+   * @param typeIdPropertyName message property holding the class name of the payload
+   */
+  public SaleNotificationMessageConverter(MessageConverter delegate, String typeIdPropertyName) {
+    this(delegate, typeIdPropertyName, new SaleNotificationCodec(Collections.emptyList()), SaleNotificationFormat.JSON);
+  }
+
+  /**
+   * Initialises a new {@link SaleNotificationMessageConverter} with the given parameters
+   *
+   * @param delegate           converter for other payloads
+   * @param typeIdPropertyName message property holding the class name of the payload
+   * @param codec              binary encoding of notifications
+   * @param format             format notifications are written in
+   */
+  public SaleNotificationMessageConverter(MessageConverter delegate, String typeIdPropertyName, SaleNotificationCodec codec,
+                                          SaleNotificationFormat format) {
+    this(delegate, typeIdPropertyName, codec, format, new SaleMetrics());
+  }
+
+  /**
+   * Initialises a new {@link SaleNotificationMessageConverter} with the given parameters
+   *
+   * @param delegate           converter for other payloads
+   * @param typeIdPropertyName message property holding the class name of the payload
+   * @param codec              binary encoding of notifications
+   * @param format             format notifications are written in
+   * @param saleMetrics
+   */
+  public SaleNotificationMessageConverter(MessageConverter delegate, String typeIdPropertyName, SaleNotificationCodec codec,
+                                          SaleNotificationFormat format, SaleMetrics saleMetrics) {
+    this.delegate = delegate;
+    this.typeIdPropertyName = typeIdPropertyName;
+    this.codec = codec;
+    this.format = format;
+    this.saleMetrics = saleMetrics;
+  }
+
+  @Override
+  public Message toMessage(Object object, Session session) throws JMSException {
+    if (!(object instanceof SaleNotification)) {
+      return delegate.toMessage(object, session);
+    }
+
+    SaleNotification saleNotification = (SaleNotification) object;
+    if (format == SaleNotificationFormat.BINARY) {
+      BytesMessage message = session.createBytesMessage();
+      message.writeBytes(codec.encode(saleNotification));
+      message.setStringProperty(typeIdPropertyName, SALE_NOTIFICATION_TYPE_ID);
+      message.setStringProperty(FORMAT_PROPERTY, SaleNotificationFormat.BINARY.name());
+      return message;
+    }
+
+    StringWriter json = new StringWriter(128);
+    try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+      generator.writeStartObject();
+      generator.writeStringField("productType", saleNotification.getProductType());
+      generator.writeStringField("saleValue", saleNotification.getSaleValue());
+      generator.writeNumberField("noOfOccurrences", saleNotification.getNoOfOccurrences());
+      generator.writeStringField("adjustmentOperation", saleNotification.getAdjustmentOperation());
+      generator.writeStringField("adjustmentValue", saleNotification.getAdjustmentValue());
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new MessageConversionException("Could not write JSON: " + e.getMessage(), e);
+    }
+
+    TextMessage message = session.createTextMessage(json.toString());
+    message.setStringProperty(typeIdPropertyName, SALE_NOTIFICATION_TYPE_ID);
+    return message;
+  }
+
+  @Override
+  public Object fromMessage(Message message) throws JMSException {
+    String typeId = message.getStringProperty(typeIdPropertyName);
+    if (typeId != null && !typeId.equals(SALE_NOTIFICATION_TYPE_ID)) {
+      return delegate.fromMessage(message);
+    }
+
+    saleMetrics.recordListenerLag(message.getJMSTimestamp());
+    long start = saleMetrics.start();
+    try {
+      Object saleNotification = readSaleNotification(message);
+      saleMetrics.recordStage(SaleMetrics.Stage.DESERIALIZE, start);
+      return saleNotification;
+    } catch (MessageConversionException e) {
+      saleMetrics.notificationsFailed(1);
+      throw e;
+    }
+  }
+
+  private Object readSaleNotification(Message message) throws JMSException {
+    if (message instanceof BytesMessage && SaleNotificationFormat.BINARY.name().equals(message.getStringProperty(FORMAT_PROPERTY))) {
+      BytesMessage bytesMessage = (BytesMessage) message;
+      int length = (int) bytesMessage.getBodyLength();
+      byte[] buffer = readBody(bytesMessage, length);
+      try {
+        return codec.decode(buffer, 0, length);
+      } catch (IllegalArgumentException e) {
+        throw new MessageConversionException("Could not read SaleNotification: " + e.getMessage(), e);
+      }
+    }
+
+    try {
+      if (message instanceof TextMessage) {
+        try (JsonParser parser = jsonFactory.createParser(((TextMessage) message).getText())) {
+          return read(parser);
+        }
+      }
+      if (message instanceof BytesMessage) {
+        BytesMessage bytesMessage = (BytesMessage) message;
+        int length = (int) bytesMessage.getBodyLength();
+        byte[] buffer = readBody(bytesMessage, length);
+        try (JsonParser parser = jsonFactory.createParser(buffer, 0, length)) {
+          return read(parser);
+        }
+      }
+    } catch (IOException e) {
+      throw new MessageConversionException("Could not read JSON: " + e.getMessage(), e);
+    }
+    return delegate.fromMessage(message);
+  }
+
+  private static byte[] readBody(BytesMessage bytesMessage, int length) throws JMSException {
+    byte[] buffer = BUFFERS.get();
+    if (buffer.length < length) {
+      buffer = new byte[Math.max(length, buffer.length * 2)];
+      BUFFERS.set(buffer);
+    }
+    bytesMessage.readBytes(buffer, length);
+    return buffer;
+  }
+
+  /**
+   * Reads a {@link SaleNotification} the way Jackson databinding would: unknown properties are skipped, missing ones
+   * keep their defaults and scalars are coerced to the property types
+   */
+  private SaleNotification read(JsonParser parser) throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new MessageConversionException("Could not read JSON: expected a SaleNotification object");
+    }
+
+    SaleNotification saleNotification = new SaleNotification();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+
+      switch (fieldName) {
+        case "productType":
+          saleNotification.setProductType(text(parser, token));
+          break;
+        case "saleValue":
+          saleNotification.setSaleValue(text(parser, token));
+          break;
+        case "noOfOccurrences":
+          saleNotification.setNoOfOccurrences(intValue(parser, token));
+          break;
+        case "adjustmentOperation":
+          saleNotification.setAdjustmentOperation(text(parser, token));
+          break;
+        case "adjustmentValue":
+          saleNotification.setAdjustmentValue(text(parser, token));
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+
+    if (parser.currentToken() != JsonToken.END_OBJECT) {
+      throw new MessageConversionException("Could not read JSON: unterminated SaleNotification object");
+    }
+    return saleNotification;
+  }
+
+  private static String text(JsonParser parser, JsonToken token) throws IOException {
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (!token.isScalarValue()) {
+      throw new MessageConversionException("Could not read JSON: unexpected " + token + " for " + parser.getCurrentName());
+    }
+    return parser.getText();
+  }
+
+  private static int intValue(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return parser.getValueAsInt();
+      case VALUE_NULL:
+        return 0;
+      case VALUE_STRING:
+        String text = parser.getText().trim();
+        try {
+          return text.isEmpty() ? 0 : Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+          throw new MessageConversionException("Could not read JSON: invalid noOfOccurrences " + text, e);
+        }
+      default:
+        throw new MessageConversionException("Could not read JSON: unexpected " + token + " for noOfOccurrences");
+    }
+  }
+}
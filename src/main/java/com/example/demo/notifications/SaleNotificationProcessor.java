@@ -1,29 +1,94 @@
 package com.example.demo.notifications;
 
+import com.example.demo.dao.ProductTypeDictionary;
 import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleBatchEntry;
+import com.example.demo.exceptions.SaleProcessingException;
 import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleMetrics;
+import com.example.demo.managers.SaleReporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * Processor class for the {@link SaleNotification} messages
+ * <p>
+ * Notifications are validated on the listener thread, which decides whether they count towards the message threshold.
+ * They are then recorded on the listener thread, or with {@code notifications.partitions} set, on one of a fixed set of
+ * single threaded workers chosen by product type. Workers keep the order of the notifications of a product type while
+ * different product types are recorded in parallel; all of them are drained before a report is logged.
+ * <p>
+ * Product types are swapped for their canonical instance from the {@link ProductTypeDictionary} as notifications are
+ * parsed, so the sales and adjustments recorded share one String per product type.
+ * <p>
+ * Reports are logged through the {@link SaleReporter}, which may write them off the listener thread.
+ * <p>
+ * Notifications received, processed and failed are counted by the {@link SaleMetrics}, which also time the reports.
+ * A notification only partly valid counts as failed, even once its valid part is recorded.
+ * <p>
+ * With {@code notifications.log.maxPerSecond} set, the notifications received are logged up to that many times a
+ * second, each entry counting the notifications left out before it. Failures are always logged. The entries let
+ * through are formatted with {@link SaleNotification#formatTo(StringBuilder)} into a builder each thread reuses, and
+ * only then handed to the logger, as a message without arguments. Each entry logged still takes a String of the
+ * builder, so it is the sampling that bounds what logging allocates.
+ * <p>
+ * With {@code notifications.dedup.enabled} set, notifications carrying an id seen recently are skipped before anything
+ * else, so that redelivered notifications are recorded once. The id is the {@link #NOTIFICATION_ID_PROPERTY} of the
+ * message when the producer sets it, otherwise the JMS message id, which redeliveries keep. The ids of the last
+ * {@code notifications.dedup.capacity} notifications at least are remembered, see {@link NotificationDeduplicator}.
+ * An id is forgotten again when its notification fails before it is recorded or handed over to its partition, so that
+ * the redelivery the failure leads to is recorded.
+ * <p>
+ * Valid notifications count towards {@code message.threshold} as they are recorded, or handed over to their partition,
+ * whether or not recording them succeeds: a partition only learns the outcome after the next notification is counted.
+ * Only a notification that could not be handed over gives its count back, to take it again when redelivered.
  */
 @Component
 public class SaleNotificationProcessor {
 
+  /**
+   * Message property with the id a producer gives a notification, resent notifications keeping their id
+   */
+  public static final String NOTIFICATION_ID_PROPERTY = "saleNotificationId";
+
   private static final Logger LOGGER = LoggerFactory.getLogger(SaleNotificationProcessor.class);
 
+  //Dropped rather than kept once grown past this by an oversized notification
+  private static final int MAX_LOG_BUILDER_CAPACITY = 1024;
+  private static final ThreadLocal<StringBuilder> LOG_BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
   private final SaleManager saleManager;
   private final JmsListenerEndpointRegistry jmsListenerEndpointRegistry;
+  private final ProductTypeDictionary productTypeDictionary;
+  private final SaleReporter saleReporter;
+  private final SaleMetrics saleMetrics;
+  private final SaleNotificationLatency saleNotificationLatency;
 
   @Value("${report.frequency:10}")
   private int reportFrequency;
@@ -31,68 +96,490 @@ public class SaleNotificationProcessor {
   @Value("${message.threshold:50}")
   private int messageThreshold;
 
-  private int messageCount = 0;
+  @Value("${notifications.partitions:0}")
+  private int partitions;
+
+  @Value("${notifications.partitions.queueCapacity:1000}")
+  private int partitionQueueCapacity = 1000;
+
+  @Value("${notifications.log.maxPerSecond:0}")
+  private int maxReceivedLogsPerSecond;
+
+  private LogSampler receivedLogSampler = new LogSampler();
+
+  @Value("${notifications.dedup.enabled:false}")
+  private boolean deduplicationEnabled;
+
+  @Value("${notifications.dedup.capacity:100000}")
+  private int deduplicationCapacity = 100000;
+
+  private volatile NotificationDeduplicator notificationDeduplicator;
+
+  private final AtomicInteger messageCount = new AtomicInteger();
+
+  private ExecutorService[] partitionExecutors;
 
   /**
    * Initialises a new {@link SaleNotificationProcessor} with the given parameters
    *
    * @param saleManager
    * @param jmsListenerEndpointRegistry
+   * @param productTypeDictionary
+   * @param saleReporter
+   * @param saleMetrics
+   * @param saleNotificationLatency
    */
   @Autowired
-  public SaleNotificationProcessor(SaleManager saleManager, JmsListenerEndpointRegistry jmsListenerEndpointRegistry) {
+  public SaleNotificationProcessor(SaleManager saleManager, JmsListenerEndpointRegistry jmsListenerEndpointRegistry,
+                                   ProductTypeDictionary productTypeDictionary, SaleReporter saleReporter,
+                                   SaleMetrics saleMetrics, SaleNotificationLatency saleNotificationLatency) {
     this.saleManager = saleManager;
     this.jmsListenerEndpointRegistry = jmsListenerEndpointRegistry;
+    this.productTypeDictionary = productTypeDictionary;
+    this.saleReporter = saleReporter;
+    this.saleMetrics = saleMetrics;
+    this.saleNotificationLatency = saleNotificationLatency;
+  }
+
+  /**
+   * Starts the partition workers when {@code notifications.partitions} is set
+   */
+  @PostConstruct
+  public synchronized void startPartitions() {
+    if (partitions > 0 && partitionExecutors == null) {
+      partitionExecutors = new ExecutorService[partitions];
+      for (int i = 0; i < partitions; i++) {
+        String threadName = "sale-partition-" + i;
+        //Block the listener when a partition falls behind rather than reorder or drop its notifications
+        partitionExecutors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(partitionQueueCapacity), runnable -> new Thread(runnable, threadName),
+          (runnable, executor) -> {
+            //Queued once stopped, the notification would never be recorded and reports would wait on it forever
+            if (executor.isShutdown()) {
+              throw new RejectedExecutionException("Partition " + threadName + " is stopped");
+            }
+            try {
+              executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new RejectedExecutionException("Interrupted while waiting for partition " + threadName, e);
+            }
+            if (executor.isShutdown() && executor.getQueue().remove(runnable)) {
+              throw new RejectedExecutionException("Partition " + threadName + " is stopped");
+            }
+          });
+      }
+    }
+  }
+
+  /**
+   * Starts remembering notification ids when {@code notifications.dedup.enabled} is set
+   */
+  @PostConstruct
+  public synchronized void startDeduplication() {
+    if (deduplicationEnabled && notificationDeduplicator == null) {
+      notificationDeduplicator = new NotificationDeduplicator(deduplicationCapacity);
+    }
+  }
+
+  /**
+   * Stops the partition workers once the notifications already handed to them are recorded
+   */
+  @PreDestroy
+  public synchronized void stopPartitions() throws InterruptedException {
+    if (partitionExecutors != null) {
+      for (ExecutorService partitionExecutor : partitionExecutors) {
+        partitionExecutor.shutdown();
+      }
+      for (ExecutorService partitionExecutor : partitionExecutors) {
+        partitionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      }
+      partitionExecutors = null;
+    }
   }
 
   /**
    * An implementation of async JMS Listener for {@link SaleNotification} messages
    *
    * @param saleNotification
+   * @param messageId        JMS message id
+   * @param notificationId   id the producer gave the notification, may be {@code null}
+   * @param sentNanos        time the notification was sent at, see {@link SaleNotificationLatency}, may be {@code null}
+   * @see #receiveSaleNotification(SaleNotification, String)
    */
   @JmsListener(destination = "saleNotifications", containerFactory = "myFactory")
+  public void receiveSaleNotification(@Payload SaleNotification saleNotification, @Header(JmsHeaders.MESSAGE_ID) String messageId,
+                                      @Header(name = NOTIFICATION_ID_PROPERTY, required = false) String notificationId,
+                                      @Header(name = SaleNotificationLatency.SENT_NANOS_PROPERTY, required = false) Long sentNanos) {
+    receiveSaleNotification(saleNotification, notificationId != null ? notificationId : messageId);
+    saleNotificationLatency.recordProcessed(sentNanos);
+  }
+
+  /**
+   * Processes a {@link SaleNotification} without an id, which is never skipped as a duplicate
+   *
+   * @param saleNotification
+   */
   public void receiveSaleNotification(SaleNotification saleNotification) {
-    LOGGER.info("Received SaleNotification <{}>", saleNotification);
+    receiveSaleNotification(saleNotification, null);
+  }
 
-    if (messageCount < messageThreshold) {
+  /**
+   * Processes a {@link SaleNotification} unless its id was seen recently
+   * <p>
+   * Safe to call from several listener threads, the threshold is never exceeded. Notifications of a product type are
+   * only recorded in order when a single listener thread is used.
+   *
+   * @param saleNotification
+   * @param notificationId   may be {@code null}
+   */
+  public void receiveSaleNotification(SaleNotification saleNotification, String notificationId) {
+    logReceived(saleNotification);
+    saleMetrics.notificationReceived();
+    if (isDuplicate(saleNotification, notificationId)) {
+      return;
+    }
 
-      try {
+    if (messageCount.get() < messageThreshold) {
 
-        //Record sales
-        if (saleNotification.getNoOfOccurrences() >= 1 && isNotBlank(saleNotification.getProductType())) {
-          for (int i = 0; i < saleNotification.getNoOfOccurrences(); i++) {
-            saleManager.recordSale(saleNotification.getProductType(), new BigDecimal(saleNotification.getSaleValue()));
-          }
-        } else {
-          LOGGER.warn("Failed to process SaleNotification <{}>. Invalid details provided", saleNotification);
+      ParsedSaleNotification parsedSaleNotification = parse(saleNotification);
+      parsedSaleNotification.notificationId = notificationId;
+      if (parsedSaleNotification.failure != null) {
+        //Still record what was valid, as the sales of a notification are recorded ahead of its adjustment
+        LOGGER.error("Failed to process SaleNotification <{}>. {}", saleNotification, parsedSaleNotification.failure.getMessage());
+        record(parsedSaleNotification);
+        return;
+      }
+
+      int count = reserveMessage();
+      if (count > 0) {
+        try {
+          record(parsedSaleNotification);
+        } catch (RuntimeException e) {
+          //Counted again, and its reports logged, when redelivered
+          releaseMessages(1);
+          throw e;
         }
+        logReports(count, saleNotification);
+      }
+    }
+  }
+
+  /**
+   * Processes a batch of {@link SaleNotification}s without ids, see {@link #receiveSaleNotifications(List, List)}
+   *
+   * @param saleNotifications
+   */
+  public void receiveSaleNotifications(List<SaleNotification> saleNotifications) {
+    receiveSaleNotifications(saleNotifications, null);
+  }
 
-        //Record sale adjustments
-        if (isNotBlank(saleNotification.getAdjustmentOperation())) {
-          SaleAdjustment saleAdjustment = SaleAdjustment.from(saleNotification.getProductType(),
-            saleNotification.getAdjustmentOperation(), saleNotification.getAdjustmentValue());
+  /**
+   * Batch counterpart of {@link #receiveSaleNotification(SaleNotification, String)} for a batch received in one
+   * delivery
+   * <p>
+   * The threshold and report frequency are applied per notification, in the order given. Notifications up to each
+   * report are recorded grouped by product type, one {@link SaleManager#recordSaleBatch(String, List)} call per
+   * product type, and notifications after the threshold are dropped.
+   *
+   * @param saleNotifications
+   * @param notificationIds   ids of the notifications in the same order, may be {@code null}
+   */
+  public void receiveSaleNotifications(List<SaleNotification> saleNotifications, List<String> notificationIds) {
+    List<ParsedSaleNotification> pending = new ArrayList<>(saleNotifications.size());
 
-          saleManager.recordSaleAdjustment(saleAdjustment);
+    for (int i = 0; i < saleNotifications.size(); i++) {
+      SaleNotification saleNotification = saleNotifications.get(i);
+      String notificationId = notificationIds == null ? null : notificationIds.get(i);
+      logReceived(saleNotification);
+      saleMetrics.notificationReceived();
+      if (isDuplicate(saleNotification, notificationId)) {
+        continue;
+      }
+
+      if (messageCount.get() < messageThreshold) {
+
+        ParsedSaleNotification parsedSaleNotification = parse(saleNotification);
+        parsedSaleNotification.notificationId = notificationId;
+        if (parsedSaleNotification.failure != null) {
+          LOGGER.error("Failed to process SaleNotification <{}>. {}", saleNotification, parsedSaleNotification.failure.getMessage());
+          pending.add(parsedSaleNotification);
+          continue;
         }
 
-        LOGGER.debug("Consumed SaleNotification <{}>", saleNotification);
-        messageCount++;
+        int count = reserveMessage();
+        if (count > 0) {
+          pending.add(parsedSaleNotification);
 
-        //Log Sale report for messages processed.
-        if (messageCount % reportFrequency == 0) {
-          saleManager.logSaleReport();
+          //Reports must see exactly the notifications counted before them
+          if (count % reportFrequency == 0 || count == messageThreshold) {
+            recordBatch(pending);
+            pending.clear();
+            logReports(count, saleNotification);
+          }
         }
+      }
+    }
+    recordBatch(pending);
+  }
 
-        //Stop message processing and log sale adjustment report
-        if (messageCount >= messageThreshold) {
-          LOGGER.info("Message Threshold Reached. Pausing Message Processing");
-          saleManager.logSaleAdjustmentReport();
-          jmsListenerEndpointRegistry.stop();
+  /**
+   * Remembers the id of a notification, until it is forgotten by {@link #forget(ParsedSaleNotification)}
+   *
+   * @return whether the id was seen before, in which case the notification is to be skipped
+   */
+  private boolean isDuplicate(SaleNotification saleNotification, String notificationId) {
+    NotificationDeduplicator notificationDeduplicator = this.notificationDeduplicator;
+    if (notificationDeduplicator == null || notificationId == null || notificationDeduplicator.add(notificationId)) {
+      return false;
+    }
+    LOGGER.info("Skipped duplicate SaleNotification <{}> with id {}", saleNotification, notificationId);
+    saleMetrics.notificationDuplicate();
+    return true;
+  }
+
+  /**
+   * Forgets the id of a notification which failed before it was recorded, so that it is recorded when redelivered
+   */
+  private void forget(ParsedSaleNotification parsedSaleNotification) {
+    NotificationDeduplicator notificationDeduplicator = this.notificationDeduplicator;
+    if (notificationDeduplicator != null && parsedSaleNotification.notificationId != null) {
+      notificationDeduplicator.remove(parsedSaleNotification.notificationId);
+    }
+  }
+
+  private void logReceived(SaleNotification saleNotification) {
+    if (LOGGER.isInfoEnabled()) {
+      int notLogged = receivedLogSampler.sample(maxReceivedLogsPerSecond);
+      if (notLogged < 0) {
+        return;
+      }
+      StringBuilder builder = LOG_BUILDER.get();
+      builder.setLength(0);
+      saleNotification.formatTo(builder.append("Received SaleNotification <")).append('>');
+      if (notLogged > 0) {
+        builder.append(", ").append(notLogged).append(" more received since the last one logged");
+      }
+      LOGGER.info(builder.toString());
+      if (builder.capacity() > MAX_LOG_BUILDER_CAPACITY) {
+        LOG_BUILDER.remove();
+      }
+    }
+  }
+
+  /**
+   * Logs the reports due once {@code count} messages have been counted
+   *
+   * @param count
+   * @param saleNotification the notification that was counted last
+   */
+  private void logReports(int count, SaleNotification saleNotification) {
+    if (count % reportFrequency != 0 && count != messageThreshold) {
+      return;
+    }
+
+    long start = saleMetrics.start();
+    try {
+
+      //Log Sale report for messages processed.
+      if (count % reportFrequency == 0) {
+        awaitPartitions();
+        saleReporter.logSaleReport();
+        saleManager.compactSales();
+        saleManager.checkpoint();
+      }
+
+      //Stop message processing and log sale adjustment report
+      if (count == messageThreshold) {
+        LOGGER.info("Message Threshold Reached. Pausing Message Processing");
+        awaitPartitions();
+        saleReporter.logSaleAdjustmentReport();
+        jmsListenerEndpointRegistry.stop();
+      }
+
+    } catch (Exception e) {
+      LOGGER.error("Failed to process SaleNotification <{}>. {}", saleNotification, e.getMessage());
+    }
+    saleMetrics.recordStage(SaleMetrics.Stage.REPORT, start);
+  }
+
+  /**
+   * Counts a message unless the threshold has been reached
+   *
+   * @return the number of messages counted including this one, or 0 when the threshold has been reached
+   */
+  private int reserveMessage() {
+    int count;
+    do {
+      count = messageCount.get();
+      if (count >= messageThreshold) {
+        return 0;
+      }
+    } while (!messageCount.compareAndSet(count, count + 1));
+    return count + 1;
+  }
+
+  /**
+   * Gives back the counts of messages which failed before they were recorded or handed over to their partition
+   * <p>
+   * With a single listener thread the next message counted takes the count given back. With several, a message counted
+   * meanwhile keeps its own, so the report due on a count given back may be logged late or twice.
+   *
+   * @param messages
+   */
+  private void releaseMessages(int messages) {
+    if (messages > 0) {
+      messageCount.addAndGet(-messages);
+    }
+  }
+
+  private ParsedSaleNotification parse(SaleNotification saleNotification) {
+    ParsedSaleNotification parsedSaleNotification = new ParsedSaleNotification(saleNotification);
+    if (isNotBlank(saleNotification.getProductType())) {
+      saleNotification.setProductType(productTypeDictionary.intern(saleNotification.getProductType()));
+    }
+
+    try {
+
+      if (saleNotification.getNoOfOccurrences() >= 1 && isNotBlank(saleNotification.getProductType())) {
+        parsedSaleNotification.saleValue = new BigDecimal(saleNotification.getSaleValue());
+      } else {
+        LOGGER.warn("Failed to process SaleNotification <{}>. Invalid details provided", saleNotification);
+      }
+
+      if (isNotBlank(saleNotification.getAdjustmentOperation())) {
+        SaleAdjustment saleAdjustment = SaleAdjustment.from(saleNotification.getProductType(),
+          saleNotification.getAdjustmentOperation(), saleNotification.getAdjustmentValue());
+        if (!isNotBlank(saleAdjustment.getProductType())) {
+          throw new SaleProcessingException("Invalid ProductType");
+        }
+        parsedSaleNotification.saleAdjustment = saleAdjustment;
+      }
+
+    } catch (Exception e) {
+      parsedSaleNotification.failure = e;
+      saleMetrics.notificationsFailed(1);
+    }
+    return parsedSaleNotification;
+  }
+
+  private void record(ParsedSaleNotification parsedSaleNotification) {
+    ExecutorService[] partitionExecutors = this.partitionExecutors;
+    if (partitionExecutors == null) {
+      recordSaleNotification(parsedSaleNotification);
+    } else {
+      String productType = parsedSaleNotification.saleNotification.getProductType();
+      try {
+        partitionExecutors[partitionOf(productType, partitionExecutors.length)].execute(() -> recordSaleNotification(parsedSaleNotification));
+      } catch (RuntimeException e) {
+        forget(parsedSaleNotification);
+        throw e;
+      }
+    }
+  }
+
+  private void recordBatch(List<ParsedSaleNotification> parsedSaleNotifications) {
+    Map<String, SaleBatch> saleBatches = new LinkedHashMap<>();
+    for (ParsedSaleNotification parsedSaleNotification : parsedSaleNotifications) {
+      if (parsedSaleNotification.saleValue != null || parsedSaleNotification.saleAdjustment != null) {
+        SaleBatch saleBatch = saleBatches.computeIfAbsent(parsedSaleNotification.saleNotification.getProductType(),
+          productType -> new SaleBatch());
+        saleBatch.saleBatchEntries.add(new SaleBatchEntry(parsedSaleNotification.saleValue,
+          parsedSaleNotification.saleNotification.getNoOfOccurrences(), parsedSaleNotification.saleAdjustment));
+        saleBatch.parsedSaleNotifications.add(parsedSaleNotification);
+        if (parsedSaleNotification.failure == null) {
+          saleBatch.validNotifications++;
         }
+      } else if (parsedSaleNotification.failure == null) {
+        //Nothing to record, as when received on its own
+        saleMetrics.notificationsProcessed(1);
+      }
+    }
+
+    ExecutorService[] partitionExecutors = this.partitionExecutors;
+    if (partitionExecutors == null) {
+      saleBatches.forEach(this::recordSaleBatch);
+      return;
+    }
 
-      } catch (Exception e) {
-        LOGGER.error("Failed to process SaleNotification <{}>. {}", saleNotification, e.getMessage());
+    int handedOver = 0;
+    try {
+      for (Map.Entry<String, SaleBatch> saleBatch : saleBatches.entrySet()) {
+        partitionExecutors[partitionOf(saleBatch.getKey(), partitionExecutors.length)]
+          .execute(() -> recordSaleBatch(saleBatch.getKey(), saleBatch.getValue()));
+        handedOver++;
       }
+    } catch (RuntimeException e) {
+      //Neither this batch nor the later ones were handed over, so their notifications are counted and recorded when
+      //redelivered
+      saleBatches.values().stream().skip(handedOver).forEach(saleBatch -> {
+        saleBatch.parsedSaleNotifications.forEach(this::forget);
+        releaseMessages(saleBatch.validNotifications);
+      });
+      throw e;
+    }
+  }
+
+  private void recordSaleBatch(String productType, SaleBatch saleBatch) {
+    try {
+      saleManager.recordSaleBatch(productType, saleBatch.saleBatchEntries);
+      saleMetrics.notificationsProcessed(saleBatch.validNotifications);
+      LOGGER.debug("Consumed {} SaleNotifications for <{}>", saleBatch.saleBatchEntries.size(), productType);
+    } catch (Exception e) {
+      saleMetrics.notificationsFailed(saleBatch.validNotifications);
+      LOGGER.error("Failed to process SaleNotifications for <{}>. {}", productType, e.getMessage());
+    }
+  }
+
+  private static int partitionOf(String productType, int partitions) {
+    return productType == null ? 0 : Math.floorMod(productType.hashCode(), partitions);
+  }
+
+  private void recordSaleNotification(ParsedSaleNotification parsedSaleNotification) {
+    SaleNotification saleNotification = parsedSaleNotification.saleNotification;
+
+    try {
+
+      //Record sales
+      if (parsedSaleNotification.saleValue != null) {
+        saleManager.recordSales(saleNotification.getProductType(), parsedSaleNotification.saleValue,
+          saleNotification.getNoOfOccurrences());
+      }
+
+      //Record sale adjustments
+      if (parsedSaleNotification.saleAdjustment != null) {
+        saleManager.recordSaleAdjustment(parsedSaleNotification.saleAdjustment);
+      }
+
+      if (parsedSaleNotification.failure == null) {
+        saleMetrics.notificationsProcessed(1);
+      }
+      LOGGER.debug("Consumed SaleNotification <{}>", saleNotification);
+
+    } catch (Exception e) {
+      if (parsedSaleNotification.failure == null) {
+        saleMetrics.notificationsFailed(1);
+      }
+      LOGGER.error("Failed to process SaleNotification <{}>. {}", saleNotification, e.getMessage());
+    }
+  }
+
+  /**
+   * Waits until the partition workers have recorded every notification handed to them so far
+   */
+  private void awaitPartitions() throws InterruptedException, ExecutionException {
+    ExecutorService[] partitionExecutors = this.partitionExecutors;
+    if (partitionExecutors == null) {
+      return;
+    }
+
+    Future<?>[] drained = new Future<?>[partitionExecutors.length];
+    for (int i = 0; i < partitionExecutors.length; i++) {
+      drained[i] = partitionExecutors[i].submit(() -> {
+      });
+    }
+    for (Future<?> future : drained) {
+      future.get();
     }
   }
 
@@ -111,4 +598,105 @@ public class SaleNotificationProcessor {
   public void setMessageThreshold(int messageThreshold) {
     this.messageThreshold = messageThreshold;
   }
+
+  public int getMaxReceivedLogsPerSecond() {
+    return maxReceivedLogsPerSecond;
+  }
+
+  /**
+   * Sets the number of notifications received logged per second, 0 to log every one
+   *
+   * @param maxReceivedLogsPerSecond
+   */
+  public void setMaxReceivedLogsPerSecond(int maxReceivedLogsPerSecond) {
+    this.maxReceivedLogsPerSecond = maxReceivedLogsPerSecond;
+  }
+
+  /**
+   * Sets the sampler limiting the notifications received logged per second
+   *
+   * @param receivedLogSampler
+   */
+  void setReceivedLogSampler(LogSampler receivedLogSampler) {
+    this.receivedLogSampler = receivedLogSampler;
+  }
+
+  public boolean isDeduplicationEnabled() {
+    return deduplicationEnabled;
+  }
+
+  /**
+   * Sets whether notifications seen recently are skipped, taking effect on {@link #startDeduplication()}
+   *
+   * @param deduplicationEnabled
+   */
+  public void setDeduplicationEnabled(boolean deduplicationEnabled) {
+    this.deduplicationEnabled = deduplicationEnabled;
+  }
+
+  public int getDeduplicationCapacity() {
+    return deduplicationCapacity;
+  }
+
+  /**
+   * Sets the number of notification ids remembered at least, taking effect on {@link #startDeduplication()}
+   *
+   * @param deduplicationCapacity
+   */
+  public void setDeduplicationCapacity(int deduplicationCapacity) {
+    this.deduplicationCapacity = deduplicationCapacity;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * Sets the number of partition workers, taking effect on {@link #startPartitions()}
+   *
+   * @param partitions
+   */
+  public void setPartitions(int partitions) {
+    this.partitions = partitions;
+  }
+
+  public int getPartitionQueueCapacity() {
+    return partitionQueueCapacity;
+  }
+
+  /**
+   * Sets the number of notifications left waiting for each partition before the listener blocks, taking effect on
+   * {@link #startPartitions()}
+   *
+   * @param partitionQueueCapacity
+   */
+  public void setPartitionQueueCapacity(int partitionQueueCapacity) {
+    this.partitionQueueCapacity = partitionQueueCapacity;
+  }
+
+  /**
+   * A {@link SaleNotification} with its values parsed, ready to be recorded
+   */
+  private static final class ParsedSaleNotification {
+
+    private final SaleNotification saleNotification;
+    private String notificationId;
+    private BigDecimal saleValue;
+    private SaleAdjustment saleAdjustment;
+    private Exception failure;
+
+    private ParsedSaleNotification(SaleNotification saleNotification) {
+      this.saleNotification = saleNotification;
+    }
+  }
+
+  /**
+   * The entries of a batch for one product type, with the number of valid notifications they came from
+   */
+  private static final class SaleBatch {
+
+    private final List<SaleBatchEntry> saleBatchEntries = new ArrayList<>();
+    private final List<ParsedSaleNotification> parsedSaleNotifications = new ArrayList<>();
+    private int validNotifications;
+  }
 }
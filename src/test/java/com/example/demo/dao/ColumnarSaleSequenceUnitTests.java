@@ -0,0 +1,183 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.FixedPointMoney;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleValueTransform;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ColumnarSaleSequence}, against the sales of a {@link ListSaleSequence}: fixed-point sales for an
+ * off-heap sequence, exact sales for an on-heap one
+ */
+@RunWith(JUnit4.class)
+public class ColumnarSaleSequenceUnitTests {
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final int SCALE = 4;
+
+  private ColumnarSaleSequence sales = new ColumnarSaleSequence(TEST_PRODUCT_TYPE_APPLE, SCALE, true);
+  private ListSaleSequence expectedSales = new ListSaleSequence();
+  private final AtomicInteger saleIds = new AtomicInteger();
+
+  @Test
+  public void testSpansChunks() {
+    append(".20", 3);
+    append("1.5", ColumnarSaleSequence.CHUNK_SIZE * 2);
+    append("-2.00005", 7);
+
+    assertEquals(ColumnarSaleSequence.CHUNK_SIZE * 2 + 10, sales.size());
+    assertEquals(new BigDecimal("0.2000"), sales.get(2).getValue());
+    assertEquals(new BigDecimal("-2.0000"), sales.get(sales.size() - 1).getValue());
+    assertEquals(sales.size() - 1, sales.get(sales.size() - 1).getSaleId());
+    assertEquals(TEST_PRODUCT_TYPE_APPLE, sales.get(sales.size() - 1).getProductType());
+    assertSameSales();
+  }
+
+  @Test
+  public void testAdjustsRanges() {
+    append(".20", 3);
+    append("1.5", 7);
+    append("-2", 2);
+
+    adjust(2, 5, SaleAdjustmentOperation.MULTIPLY, "1.1");
+    adjust(0, 12, SaleAdjustmentOperation.ADD, "0.00015");
+    adjust(4, 12, SaleAdjustmentOperation.SUBTRACT, "3");
+
+    assertSameSales();
+  }
+
+  @Test
+  public void testKeepsValuesOverflowingUnits() {
+    append("1.5", 3);
+    append("1E+16", 2);
+
+    adjust(0, 5, SaleAdjustmentOperation.MULTIPLY, "1000");
+    assertSameSales();
+
+    adjust(0, 5, SaleAdjustmentOperation.MULTIPLY, "0.000001");
+    assertSameSales();
+  }
+
+  @Test
+  public void testTotalValueOfEmptySequence() {
+    assertEquals(expectedSales.totalValue(), sales.totalValue());
+
+    useExactSales();
+    assertEquals(expectedSales.totalValue(), sales.totalValue());
+  }
+
+  @Test
+  public void testKeepsExactValues() {
+    useExactSales();
+    append(".20", 3);
+    append("1.5", ColumnarSaleSequence.CHUNK_SIZE + 1);
+    append("-2.00005", 2);
+
+    assertEquals(new BigDecimal("0.20"), sales.get(0).getValue());
+    assertEquals(new BigDecimal("-2.00005"), sales.get(sales.size() - 1).getValue());
+    assertSameSales();
+  }
+
+  @Test
+  public void testAdjustsExactValues() {
+    useExactSales();
+    append(".20", 3);
+    append("1.5", 7);
+    append("-2", 2);
+
+    adjust(2, 5, SaleAdjustmentOperation.MULTIPLY, "1.1");
+    assertSameSales();
+    adjust(0, 12, SaleAdjustmentOperation.ADD, "0.00015");
+    assertSameSales();
+    adjust(4, 12, SaleAdjustmentOperation.SUBTRACT, "3");
+    assertSameSales();
+    adjust(0, 12, SaleAdjustmentOperation.MULTIPLY, "1E+1");
+    assertSameSales();
+  }
+
+  @Test
+  public void testKeepsExactValuesOverflowingUnscaledValues() {
+    useExactSales();
+    append("1.5", 3);
+    append("922337203685477580.80", 2);
+
+    adjust(0, 5, SaleAdjustmentOperation.MULTIPLY, "1000");
+    assertSameSales();
+
+    adjust(0, 5, SaleAdjustmentOperation.MULTIPLY, "0.000000000000000000001");
+    assertSameSales();
+  }
+
+  @Test
+  public void testCursorReadsSales() {
+    useExactSales();
+    append(".20", 2);
+    append("922337203685477580.80", 1);
+
+    ColumnarSaleSequence.Cursor cursor = sales.cursor();
+    for (Sale expectedSale : expectedSales) {
+      assertTrue(cursor.next());
+      assertEquals(expectedSale.getSaleId(), cursor.getSaleId());
+      assertEquals(expectedSale.getValue(), cursor.getValue());
+    }
+    assertFalse(cursor.next());
+    assertEquals(FixedPointMoney.OVERFLOW, cursor.getUnscaledValue());
+
+    cursor = sales.cursor();
+    assertTrue(cursor.next());
+    assertEquals(20, cursor.getUnscaledValue());
+    assertEquals(2, cursor.getValueScale());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSalesAreReadOnly() {
+    append(".20", 3);
+
+    sales.get(1).setValue(BigDecimal.ONE);
+  }
+
+  private void useExactSales() {
+    sales = new ColumnarSaleSequence(TEST_PRODUCT_TYPE_APPLE, -1, false);
+    expectedSales = new ListSaleSequence();
+  }
+
+  private void append(String value, int count) {
+    int firstSaleId = saleIds.get();
+    sales.append(new BigDecimal(value), count, saleIds::getAndIncrement);
+    AtomicInteger expectedSaleIds = new AtomicInteger(firstSaleId);
+    expectedSales.append(TEST_PRODUCT_TYPE_APPLE, new BigDecimal(value), sales.getValueScale(), count, expectedSaleIds::getAndIncrement);
+  }
+
+  private void adjust(int fromIndex, int toIndex, SaleAdjustmentOperation operation, String value) {
+    SaleValueTransform transform = SaleValueTransform.of(new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, operation, new BigDecimal(value)));
+    sales.adjust(fromIndex, toIndex, transform);
+    expectedSales.adjust(fromIndex, toIndex, transform);
+  }
+
+  private void assertSameSales() {
+    assertEquals(values(expectedSales), values(sales));
+    assertEquals(ids(expectedSales), ids(sales));
+    assertEquals(expectedSales.totalValue(), sales.totalValue());
+  }
+
+  private List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+
+  private List<Integer> ids(List<Sale> sales) {
+    return sales.stream().map(Sale::getSaleId).collect(Collectors.toList());
+  }
+}
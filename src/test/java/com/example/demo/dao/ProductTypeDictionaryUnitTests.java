@@ -0,0 +1,99 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ProductTypeDictionary} and the DAOs indexed by it
+ */
+@RunWith(JUnit4.class)
+public class ProductTypeDictionaryUnitTests {
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_PRODUCT_TYPE_BANANA = "Banana";
+
+  private final ProductTypeDictionary productTypeDictionary = new ProductTypeDictionary();
+
+  @Test
+  public void testAssignsDenseIds() {
+    assertEquals(-1, productTypeDictionary.lookup(TEST_PRODUCT_TYPE_APPLE));
+    assertEquals(0, productTypeDictionary.idOf(TEST_PRODUCT_TYPE_APPLE));
+    assertEquals(1, productTypeDictionary.idOf(TEST_PRODUCT_TYPE_BANANA));
+    assertEquals(0, productTypeDictionary.idOf(new String(TEST_PRODUCT_TYPE_APPLE)));
+    assertEquals(1, productTypeDictionary.lookup(TEST_PRODUCT_TYPE_BANANA));
+    assertEquals(TEST_PRODUCT_TYPE_BANANA, productTypeDictionary.productTypeOf(1));
+    assertEquals(2, productTypeDictionary.size());
+  }
+
+  @Test
+  public void testInternsProductTypes() {
+    String productType = new String(TEST_PRODUCT_TYPE_APPLE);
+
+    assertSame(productType, productTypeDictionary.intern(productType));
+    assertSame(productType, productTypeDictionary.intern(new String(TEST_PRODUCT_TYPE_APPLE)));
+  }
+
+  @Test
+  public void testAssignsUniqueIdsConcurrently() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> registrations = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        registrations.add(executorService.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            assertEquals("Product" + i, productTypeDictionary.intern("Product" + i));
+          }
+        }));
+      }
+      for (Future<?> registration : registrations) {
+        registration.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    Set<Integer> ids = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      int id = productTypeDictionary.lookup("Product" + i);
+      assertEquals("Product" + i, productTypeDictionary.productTypeOf(id));
+      ids.add(id);
+    }
+    assertEquals(1000, ids.size());
+    assertTrue(ids.stream().allMatch(id -> id >= 0 && id < 1000));
+  }
+
+  @Test
+  public void testSaleDaoSharesCanonicalProductTypes() {
+    SaleDao saleDao = new SaleDao(productTypeDictionary);
+    String productType = new String(TEST_PRODUCT_TYPE_APPLE);
+
+    saleDao.recordSale(productType, BigDecimal.ONE);
+    saleDao.recordSales(new String(TEST_PRODUCT_TYPE_APPLE), BigDecimal.TEN, 2);
+
+    List<Sale> sales = saleDao.fetchForProductType(productTypeDictionary.lookup(TEST_PRODUCT_TYPE_APPLE));
+    assertEquals(3, sales.size());
+    for (Sale sale : sales) {
+      assertSame(productType, sale.getProductType());
+    }
+    assertEquals(sales, saleDao.fetchAllSales().get(TEST_PRODUCT_TYPE_APPLE));
+    assertTrue(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_BANANA).isEmpty());
+
+    saleDao.clearSalesForProductType(TEST_PRODUCT_TYPE_APPLE);
+    assertTrue(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE).isEmpty());
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleValueTransform;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link RunLengthSaleSequence}
+ */
+@RunWith(JUnit4.class)
+public class RunLengthSaleSequenceUnitTests {
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+
+  private final RunLengthSaleSequence sales = new RunLengthSaleSequence(TEST_PRODUCT_TYPE_APPLE);
+  private final List<Sale> expectedSales = new ArrayList<>();
+
+  @Test
+  public void testExpandsRuns() {
+    sales.append(10, new BigDecimal(".20"), 3);
+    sales.append(20, new BigDecimal("1.5"), 1_000_000);
+
+    assertEquals(2, sales.runCount());
+    assertEquals(1_000_003, sales.size());
+    assertEquals(new BigDecimal(".20"), sales.get(2).getValue());
+    assertEquals(new BigDecimal("1.5"), sales.get(3).getValue());
+    assertEquals(12, sales.get(2).getSaleId());
+    assertEquals(20 + 999_999, sales.get(1_000_002).getSaleId());
+    assertEquals(TEST_PRODUCT_TYPE_APPLE, sales.get(1_000_002).getProductType());
+  }
+
+  @Test
+  public void testTotalValue() {
+    append(10, ".20", 3);
+    append(20, "1.5", 7);
+    append(30, "-2", 2);
+
+    assertEquals(SaleSequences.totalValue(expectedSales), sales.totalValue());
+  }
+
+  @Test
+  public void testAdjustSplitsRuns() {
+    append(10, ".20", 3);
+    append(20, "1.5", 7);
+    append(30, "-2", 2);
+
+    SaleValueTransform transform = SaleValueTransform.of(new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.MULTIPLY, new BigDecimal("1.1")));
+    sales.adjust(2, 5, transform);
+    SaleSequences.adjust(expectedSales, 2, 5, transform);
+
+    assertEquals(5, sales.runCount());
+    assertEquals(values(expectedSales), values(sales));
+    assertEquals(ids(expectedSales), ids(sales));
+    assertEquals(SaleSequences.totalValue(expectedSales), sales.totalValue());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSalesAreReadOnly() {
+    append(10, ".20", 3);
+
+    sales.get(1).setValue(BigDecimal.ONE);
+  }
+
+  private void append(int firstSaleId, String value, int count) {
+    sales.append(firstSaleId, new BigDecimal(value), count);
+    for (int i = 0; i < count; i++) {
+      Sale sale = new Sale(TEST_PRODUCT_TYPE_APPLE, new BigDecimal(value));
+      sale.setSaleId(firstSaleId + i);
+      expectedSales.add(sale);
+    }
+  }
+
+  private List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+
+  private List<Integer> ids(List<Sale> sales) {
+    return sales.stream().map(Sale::getSaleId).collect(Collectors.toList());
+  }
+}
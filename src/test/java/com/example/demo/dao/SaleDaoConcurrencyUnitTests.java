@@ -0,0 +1,151 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Stress tests for concurrent access to {@link SaleDao} and {@link SaleAdjustmentDao}
+ */
+@RunWith(JUnit4.class)
+public class SaleDaoConcurrencyUnitTests {
+
+  private final int WRITER_THREADS = 8;
+  private final int WRITES_PER_THREAD = 20_000;
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips", "Cola"};
+  private final BigDecimal TEST_SALE_VALUE = new BigDecimal(".20");
+
+  private final ExecutorService executorService = Executors.newFixedThreadPool(WRITER_THREADS + 1);
+  private final AtomicBoolean writing = new AtomicBoolean(true);
+
+  @After
+  public void tearDown() throws Exception {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentRecordSaleWithListStore() throws Exception {
+    assertNoLostSales(SaleStoreType.LIST);
+  }
+
+  @Test
+  public void testConcurrentRecordSaleWithRunLengthStore() throws Exception {
+    assertNoLostSales(SaleStoreType.RUN_LENGTH);
+  }
+
+  @Test
+  public void testConcurrentRecordSaleWithColumnarStore() throws Exception {
+    assertNoLostSales(SaleStoreType.COLUMNAR);
+  }
+
+  @Test
+  public void testConcurrentRecordSaleWithOffHeapStore() throws Exception {
+    assertNoLostSales(SaleStoreType.OFF_HEAP);
+  }
+
+  @Test
+  public void testConcurrentSave() throws Exception {
+    SaleAdjustmentDao saleAdjustmentDao = new SaleAdjustmentDao();
+
+    runConcurrently(thread -> {
+      for (int i = 0; i < WRITES_PER_THREAD; i++) {
+        saleAdjustmentDao.save(new SaleAdjustment(TEST_PRODUCT_TYPES[i % TEST_PRODUCT_TYPES.length], SaleAdjustmentOperation.ADD, TEST_SALE_VALUE));
+      }
+    }, () -> {
+      long adjustments = 0;
+      for (List<SaleAdjustment> saleAdjustments : saleAdjustmentDao.fetchAllSaleAdjustments().values()) {
+        for (SaleAdjustment saleAdjustment : saleAdjustments) {
+          adjustments += saleAdjustment.getAdjustmentValue().signum();
+        }
+      }
+      return adjustments;
+    });
+
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertEquals(WRITER_THREADS * WRITES_PER_THREAD / TEST_PRODUCT_TYPES.length, saleAdjustmentDao.fetchForProductType(productType).size());
+    }
+  }
+
+  private void assertNoLostSales(SaleStoreType saleStoreType) throws Exception {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(saleStoreType);
+    saleDao.setFixedPointScale(TEST_SALE_VALUE.scale());
+
+    runConcurrently(thread -> {
+      for (int i = 0; i < WRITES_PER_THREAD; i++) {
+        String productType = TEST_PRODUCT_TYPES[i % TEST_PRODUCT_TYPES.length];
+        if (i / TEST_PRODUCT_TYPES.length % 2 == 0) {
+          saleDao.recordSale(productType, TEST_SALE_VALUE);
+        } else {
+          saleDao.recordSales(productType, TEST_SALE_VALUE, 3);
+        }
+      }
+    }, () -> {
+      long sales = 0;
+      for (Map.Entry<String, List<Sale>> entry : saleDao.fetchAllSales().entrySet()) {
+        for (Sale sale : entry.getValue()) {
+          assertEquals(entry.getKey(), sale.getProductType());
+          sales++;
+        }
+      }
+      return sales;
+    });
+
+    int salesPerProductType = WRITER_THREADS * WRITES_PER_THREAD / TEST_PRODUCT_TYPES.length * 2;
+    for (String productType : TEST_PRODUCT_TYPES) {
+      List<Sale> sales = saleDao.fetchForProductType(productType);
+      assertEquals(salesPerProductType, sales.size());
+      assertEquals(TEST_SALE_VALUE.multiply(BigDecimal.valueOf(salesPerProductType)), SaleSequences.totalValue(sales));
+    }
+  }
+
+  private void runConcurrently(WriterTask writerTask, Callable<Long> readerTask) throws Exception {
+    CountDownLatch startGate = new CountDownLatch(1);
+    List<Future<?>> writers = new ArrayList<>();
+
+    for (int thread = 0; thread < WRITER_THREADS; thread++) {
+      int writerThread = thread;
+      writers.add(executorService.submit(() -> {
+        startGate.await();
+        writerTask.run(writerThread);
+        return null;
+      }));
+    }
+    Future<?> reader = executorService.submit(() -> {
+      startGate.await();
+      while (writing.get()) {
+        readerTask.call();
+      }
+      return null;
+    });
+
+    startGate.countDown();
+    for (Future<?> writer : writers) {
+      writer.get(1, TimeUnit.MINUTES);
+    }
+    writing.set(false);
+    reader.get(1, TimeUnit.MINUTES);
+  }
+
+  private interface WriterTask {
+    void run(int thread) throws Exception;
+  }
+}
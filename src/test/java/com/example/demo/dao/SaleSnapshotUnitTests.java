@@ -0,0 +1,181 @@
+package com.example.demo.dao;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleValueTransform;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the snapshots of {@link SaleDao} and {@link SaleAdjustmentDao}
+ */
+@RunWith(JUnit4.class)
+public class SaleSnapshotUnitTests {
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_PRODUCT_TYPE_BANANA = "Banana";
+
+  @Test
+  public void testListSnapshotIsPointInTime() throws Exception {
+    assertSnapshotIsPointInTime(SaleStoreType.LIST, -1);
+    assertSnapshotIsPointInTime(SaleStoreType.LIST, 2);
+  }
+
+  @Test
+  public void testRunLengthSnapshotIsPointInTime() throws Exception {
+    assertSnapshotIsPointInTime(SaleStoreType.RUN_LENGTH, -1);
+  }
+
+  @Test
+  public void testColumnarSnapshotIsPointInTime() throws Exception {
+    assertSnapshotIsPointInTime(SaleStoreType.COLUMNAR, -1);
+    assertSnapshotIsPointInTime(SaleStoreType.OFF_HEAP, 2);
+  }
+
+  /**
+   * Adjusting the last segment copies it alone, the sales of earlier segments being shared with the snapshot
+   */
+  @Test
+  public void testListAdjustmentCopiesOnlyAdjustedSegments() {
+    SaleDao saleDao = new SaleDao();
+    saleDao.recordSales(TEST_PRODUCT_TYPE_APPLE, BigDecimal.ONE, 2 * AppendOnlyList.SEGMENT_SIZE);
+    List<Sale> sales = saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE);
+
+    List<Sale> snapshot = saleDao.snapshotAllSales().get(TEST_PRODUCT_TYPE_APPLE);
+    SaleSequences.adjust(sales, AppendOnlyList.SEGMENT_SIZE, sales.size(), SaleValueTransform.of(
+      new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.ADD, BigDecimal.ONE)));
+
+    assertSame(snapshot.get(0), sales.get(0));
+    assertSame(snapshot.get(AppendOnlyList.SEGMENT_SIZE - 1), sales.get(AppendOnlyList.SEGMENT_SIZE - 1));
+    assertNotSame(snapshot.get(AppendOnlyList.SEGMENT_SIZE), sales.get(AppendOnlyList.SEGMENT_SIZE));
+    assertEquals(BigDecimal.ONE, snapshot.get(AppendOnlyList.SEGMENT_SIZE).getValue());
+    assertEquals(new BigDecimal("2"), sales.get(AppendOnlyList.SEGMENT_SIZE).getValue());
+  }
+
+  /**
+   * Values too large for the value chunks are shared per chunk, and copied along with the chunk they are in
+   */
+  @Test
+  public void testColumnarSnapshotKeepsLargeValues() {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(SaleStoreType.COLUMNAR);
+    BigDecimal largeValue = new BigDecimal("1e30");
+    saleDao.recordSales(TEST_PRODUCT_TYPE_APPLE, largeValue, ColumnarSaleSequence.CHUNK_SIZE + 1);
+    List<Sale> sales = saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE);
+
+    List<Sale> snapshot = saleDao.snapshotAllSales().get(TEST_PRODUCT_TYPE_APPLE);
+    saleDao.recordSales(TEST_PRODUCT_TYPE_APPLE, largeValue.add(BigDecimal.ONE), 3);
+    SaleSequences.adjust(sales, ColumnarSaleSequence.CHUNK_SIZE, sales.size(), SaleValueTransform.of(
+      new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.MULTIPLY, BigDecimal.TEN)));
+    SaleSequences.adjust(sales, 0, 1, SaleValueTransform.of(
+      new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.SUBTRACT, largeValue)));
+
+    assertEquals(ColumnarSaleSequence.CHUNK_SIZE + 1, snapshot.size());
+    assertTrue(values(snapshot).stream().allMatch(value -> value.compareTo(largeValue) == 0));
+    assertEquals(0, largeValue.multiply(BigDecimal.valueOf(ColumnarSaleSequence.CHUNK_SIZE + 1))
+      .compareTo(SaleSequences.totalValue(snapshot)));
+    assertEquals(0, sales.get(0).getValue().signum());
+    assertEquals(0, largeValue.compareTo(sales.get(1).getValue()));
+    assertEquals(0, largeValue.multiply(BigDecimal.TEN).compareTo(sales.get(ColumnarSaleSequence.CHUNK_SIZE).getValue()));
+    assertEquals(0, largeValue.add(BigDecimal.ONE).multiply(BigDecimal.TEN)
+      .compareTo(sales.get(sales.size() - 1).getValue()));
+  }
+
+  @Test
+  public void testSaleAdjustmentSnapshotIsPointInTime() {
+    SaleAdjustmentDao saleAdjustmentDao = new SaleAdjustmentDao();
+    SaleAdjustment saleAdjustment = new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.ADD, BigDecimal.ONE);
+    saleAdjustmentDao.save(saleAdjustment);
+
+    Map<String, List<SaleAdjustment>> snapshot = saleAdjustmentDao.snapshotAllSaleAdjustments();
+    for (int i = 0; i < 20; i++) {
+      saleAdjustmentDao.save(new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.MULTIPLY, BigDecimal.TEN));
+    }
+    saleAdjustmentDao.clearSaleAdjustmentsForProductType(TEST_PRODUCT_TYPE_APPLE);
+
+    assertEquals(1, snapshot.size());
+    assertEquals(1, snapshot.get(TEST_PRODUCT_TYPE_APPLE).size());
+    assertEquals(saleAdjustment, snapshot.get(TEST_PRODUCT_TYPE_APPLE).get(0));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSnapshotsAreReadOnly() {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(SaleStoreType.COLUMNAR);
+    saleDao.recordSale(TEST_PRODUCT_TYPE_APPLE, BigDecimal.ONE);
+
+    SaleSequences.adjust(saleDao.snapshotAllSales().get(TEST_PRODUCT_TYPE_APPLE),
+      new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.ADD, BigDecimal.ONE));
+  }
+
+  /**
+   * Adjustments applied while snapshots are taken are seen by a snapshot for all of its sales or none of them
+   */
+  @Test
+  public void testConcurrentSnapshotsNeverSeePartialAdjustments() throws Exception {
+    for (SaleStoreType saleStoreType : SaleStoreType.values()) {
+      SaleDao saleDao = new SaleDao();
+      saleDao.setSaleStoreType(saleStoreType);
+      saleDao.recordSales(TEST_PRODUCT_TYPE_APPLE, BigDecimal.ONE, 3 * ColumnarSaleSequence.CHUNK_SIZE);
+      SaleAdjustment add = new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.ADD, BigDecimal.ONE);
+
+      CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+        for (int i = 0; i < 50; i++) {
+          SaleSequences.adjust(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE), add, 1000);
+        }
+      });
+      while (!writer.isDone()) {
+        List<Sale> sales = saleDao.snapshotAllSales().get(TEST_PRODUCT_TYPE_APPLE);
+        BigDecimal value = sales.get(0).getValue();
+        assertEquals(saleStoreType.name(), value.multiply(BigDecimal.valueOf(sales.size())), SaleSequences.totalValue(sales));
+      }
+      writer.get(1, TimeUnit.MINUTES);
+    }
+  }
+
+  private void assertSnapshotIsPointInTime(SaleStoreType saleStoreType, int fixedPointScale) throws Exception {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(saleStoreType);
+    saleDao.setFixedPointScale(fixedPointScale);
+    saleDao.recordSales(TEST_PRODUCT_TYPE_APPLE, new BigDecimal("1.25"), ColumnarSaleSequence.CHUNK_SIZE + 5);
+    saleDao.recordSale(TEST_PRODUCT_TYPE_BANANA, new BigDecimal("0.20"));
+    List<BigDecimal> expectedValues = values(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE));
+    BigDecimal expectedTotal = SaleSequences.totalValue(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE));
+
+    Map<String, List<Sale>> snapshot = saleDao.snapshotAllSales();
+    saleDao.recordSales(TEST_PRODUCT_TYPE_APPLE, new BigDecimal("3"), 7);
+    SaleSequences.adjust(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE),
+      new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.MULTIPLY, new BigDecimal("2")));
+    Map<String, List<Sale>> laterSnapshot = saleDao.snapshotAllSales();
+    SaleSequences.adjust(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE),
+      new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.ADD, new BigDecimal("1")));
+    saleDao.clearSalesForProductType(TEST_PRODUCT_TYPE_BANANA);
+
+    String store = saleStoreType + "/" + fixedPointScale;
+    assertEquals(store, expectedValues, values(snapshot.get(TEST_PRODUCT_TYPE_APPLE)));
+    assertEquals(store, expectedTotal, SaleSequences.totalValue(snapshot.get(TEST_PRODUCT_TYPE_APPLE)));
+    assertEquals(store, 1, snapshot.get(TEST_PRODUCT_TYPE_BANANA).size());
+    assertTrue(store, values(laterSnapshot.get(TEST_PRODUCT_TYPE_APPLE)).stream()
+      .allMatch(value -> value.compareTo(new BigDecimal("2.5")) == 0 || value.compareTo(new BigDecimal("6")) == 0));
+    assertTrue(store, values(saleDao.fetchForProductType(TEST_PRODUCT_TYPE_APPLE)).stream()
+      .allMatch(value -> value.compareTo(new BigDecimal("3.5")) == 0 || value.compareTo(new BigDecimal("7")) == 0));
+  }
+
+  private List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.data;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link FixedPointMoney}
+ */
+@RunWith(JUnit4.class)
+public class FixedPointMoneyUnitTests {
+
+  private final int SCALE = 2;
+
+  @Test
+  public void testToUnitsRoundsHalfEven() {
+    assertEquals(12, FixedPointMoney.toUnits(new BigDecimal("0.125"), SCALE));
+    assertEquals(14, FixedPointMoney.toUnits(new BigDecimal("0.135"), SCALE));
+    assertEquals(-12, FixedPointMoney.toUnits(new BigDecimal("-0.125"), SCALE));
+    assertEquals(2000, FixedPointMoney.toUnits(new BigDecimal("2E+1"), SCALE));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.toUnits(new BigDecimal("1E+17"), SCALE));
+  }
+
+  @Test
+  public void testToUnitsExact() {
+    assertEquals(20, FixedPointMoney.toUnitsExact(new BigDecimal("0.2000"), SCALE));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.toUnitsExact(new BigDecimal("0.125"), SCALE));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.toUnitsExact(new BigDecimal("1E+17"), SCALE));
+  }
+
+  @Test
+  public void testAddAndSubtractOverflow() {
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.add(Long.MAX_VALUE, 1));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.subtract(Long.MIN_VALUE + 1, 2));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.subtract(Long.MIN_VALUE + 1, 1));
+    assertEquals(Long.MAX_VALUE, FixedPointMoney.add(Long.MAX_VALUE - 1, 1));
+  }
+
+  @Test
+  public void testMultiplyRoundsHalfEven() {
+    assertEquals(2, FixedPointMoney.multiply(5, 50, SCALE));
+    assertEquals(8, FixedPointMoney.multiply(15, 50, SCALE));
+    assertEquals(-2, FixedPointMoney.multiply(-5, 50, SCALE));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.multiply(Long.MAX_VALUE / 2, 300, SCALE));
+  }
+
+  @Test
+  public void testMultiplyAddMatchesBigDecimal() {
+    Random random = new Random(3);
+
+    for (int i = 0; i < 100000; i++) {
+      int scale = random.nextInt(7);
+      long units = random.nextInt() >> random.nextInt(32);
+      long factorUnits = random.nextInt() >> random.nextInt(32);
+      long offsetUnits = random.nextInt() >> random.nextInt(32);
+
+      BigDecimal expected = FixedPointMoney.round(FixedPointMoney.toBigDecimal(units, scale)
+        .multiply(FixedPointMoney.toBigDecimal(factorUnits, scale))
+        .add(FixedPointMoney.toBigDecimal(offsetUnits, scale)), scale);
+
+      //int sized amounts never overflow
+      assertEquals(expected, FixedPointMoney.toBigDecimal(FixedPointMoney.multiplyAdd(units, factorUnits, offsetUnits, scale), scale));
+    }
+  }
+
+  @Test
+  public void testRescale() {
+    assertEquals(2000, FixedPointMoney.rescale(20, 2, 4));
+    assertEquals(-20, FixedPointMoney.rescale(-20, 2, 2));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.rescale(20, 4, 2));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.rescale(Long.MAX_VALUE / 5, 0, 1));
+    assertEquals(FixedPointMoney.OVERFLOW, FixedPointMoney.rescale(FixedPointMoney.OVERFLOW, 0, 0));
+  }
+}
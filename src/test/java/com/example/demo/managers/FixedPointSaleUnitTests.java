@@ -0,0 +1,148 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.data.FixedPointMoney;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Equivalence tests for fixed-point {@link Sale}s against BigDecimal arithmetic
+ */
+@RunWith(JUnit4.class)
+public class FixedPointSaleUnitTests {
+
+  private final int SCALE = 4;
+
+  private final SaleDao fixedPointSaleDao = new SaleDao();
+  private final SaleManager fixedPointSaleManager = new SaleManagerBuilder().saleDao(fixedPointSaleDao).build();
+  private final SaleManager saleManager = new SaleManagerBuilder().build();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips"};
+
+  //Model of the fixed-point sales: BigDecimal arithmetic, rounded after every operation
+  private final Map<String, List<BigDecimal>> expectedValues = new HashMap<>();
+
+  @Before
+  public void setUp() throws Exception {
+    fixedPointSaleDao.setFixedPointScale(SCALE);
+  }
+
+  @Test
+  public void testMatchesRoundedBigDecimal() throws SaleProcessingException {
+    Random random = new Random(13);
+    String[] values = {".20", "1.5", "3", "0.125", "-2.10", "7.000", "0.00005", "0.33333", "1E+1", "12345.6789"};
+
+    for (int i = 0; i < 3000; i++) {
+      String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+      BigDecimal value = new BigDecimal(values[random.nextInt(values.length)]);
+
+      if (random.nextInt(4) == 0) {
+        SaleAdjustmentOperation operation = SaleAdjustmentOperation.values()[random.nextInt(3)];
+        fixedPointSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, value));
+        expectedValues.computeIfAbsent(productType, k -> new ArrayList<>())
+          .replaceAll(expected -> FixedPointMoney.round(operation.apply(expected, value), SCALE));
+      } else {
+        recordExpected(productType, value, 1 + random.nextInt(3));
+      }
+    }
+
+    assertMatchesExpected();
+  }
+
+  @Test
+  public void testMatchesBigDecimalWhenExact() throws SaleProcessingException {
+    Random random = new Random(17);
+    String[] values = {".20", "1.5", "3", "-2.10", "7.000", "1E+1"};
+    String[] multipliers = {"2", "-1", "3", "1.0"};
+
+    for (int i = 0; i < 300; i++) {
+      String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+
+      int choice = random.nextInt(10);
+      if (choice == 0) {
+        SaleAdjustment saleAdjustment = new SaleAdjustment(productType, SaleAdjustmentOperation.MULTIPLY,
+          new BigDecimal(multipliers[random.nextInt(multipliers.length)]));
+        fixedPointSaleManager.recordSaleAdjustment(saleAdjustment);
+        saleManager.recordSaleAdjustment(saleAdjustment);
+      } else if (choice < 3) {
+        SaleAdjustment saleAdjustment = new SaleAdjustment(productType, SaleAdjustmentOperation.values()[random.nextInt(2)],
+          new BigDecimal(values[random.nextInt(values.length)]));
+        fixedPointSaleManager.recordSaleAdjustment(saleAdjustment);
+        saleManager.recordSaleAdjustment(saleAdjustment);
+      } else {
+        BigDecimal value = new BigDecimal(values[random.nextInt(values.length)]);
+        int noOfOccurrences = 1 + random.nextInt(3);
+        fixedPointSaleManager.recordSales(productType, value, noOfOccurrences);
+        saleManager.recordSales(productType, value, noOfOccurrences);
+      }
+    }
+
+    //Nothing needs rounding at the scale, so only the scales of the values differ
+    for (String productType : TEST_PRODUCT_TYPES) {
+      List<BigDecimal> fixedPointValues = values(fixedPointSaleManager, productType);
+      List<BigDecimal> bigDecimalValues = values(saleManager, productType);
+
+      assertEquals(bigDecimalValues.size(), fixedPointValues.size());
+      for (int i = 0; i < bigDecimalValues.size(); i++) {
+        assertEquals(0, bigDecimalValues.get(i).compareTo(fixedPointValues.get(i)));
+      }
+    }
+    assertTrue(fixedPointSaleManager.fetchSalesForProductType("Apple").stream().allMatch(Sale::isFixedPoint));
+  }
+
+  @Test
+  public void testOverflowFallsBackToBigDecimal() throws SaleProcessingException {
+    String productType = TEST_PRODUCT_TYPES[0];
+    BigDecimal multiplier = new BigDecimal("100000.5");
+
+    recordExpected(productType, new BigDecimal("123456789.12345"), 2);
+    for (int i = 0; i < 4; i++) {
+      fixedPointSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, SaleAdjustmentOperation.MULTIPLY, multiplier));
+      expectedValues.get(productType).replaceAll(expected -> FixedPointMoney.round(expected.multiply(multiplier), SCALE));
+    }
+    assertTrue(fixedPointSaleManager.fetchSalesForProductType(productType).stream().noneMatch(Sale::isFixedPoint));
+
+    //Back into range
+    fixedPointSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, SaleAdjustmentOperation.MULTIPLY, BigDecimal.ZERO));
+    expectedValues.get(productType).replaceAll(expected -> FixedPointMoney.round(BigDecimal.ZERO, SCALE));
+    assertTrue(fixedPointSaleManager.fetchSalesForProductType(productType).stream().allMatch(Sale::isFixedPoint));
+
+    assertMatchesExpected();
+  }
+
+  private void recordExpected(String productType, BigDecimal value, int noOfOccurrences) throws SaleProcessingException {
+    fixedPointSaleManager.recordSales(productType, value, noOfOccurrences);
+    List<BigDecimal> expected = expectedValues.computeIfAbsent(productType, k -> new ArrayList<>());
+    for (int i = 0; i < noOfOccurrences; i++) {
+      expected.add(FixedPointMoney.round(value, SCALE));
+    }
+  }
+
+  private void assertMatchesExpected() {
+    for (String productType : expectedValues.keySet()) {
+      assertEquals(productType, expectedValues.get(productType), values(fixedPointSaleManager, productType));
+    }
+    SaleAggregateConsistencyChecker.assertConsistent(fixedPointSaleManager, TEST_PRODUCT_TYPES);
+  }
+
+  private List<BigDecimal> values(SaleManager saleManager, String productType) {
+    return saleManager.fetchSalesForProductType(productType).stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the parallel adjustments of {@link SaleManager}, checked against the sequential adjustments
+ */
+@RunWith(JUnit4.class)
+public class ParallelSaleAdjustmentUnitTests {
+
+  private final int PARALLEL_ADJUSTMENT_THRESHOLD = 1000;
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "0", "-2.10", "7.000"};
+
+  @Test
+  public void testListStoreMatchesSequentialAdjustments() throws SaleProcessingException {
+    assertSameAdjustments(SaleStoreType.LIST, -1);
+    assertSameAdjustments(SaleStoreType.LIST, 2);
+  }
+
+  @Test
+  public void testColumnarStoreMatchesSequentialAdjustments() throws SaleProcessingException {
+    assertSameAdjustments(SaleStoreType.COLUMNAR, -1);
+    assertSameAdjustments(SaleStoreType.COLUMNAR, 2);
+  }
+
+  @Test
+  public void testOffHeapStoreMatchesSequentialAdjustments() throws SaleProcessingException {
+    assertSameAdjustments(SaleStoreType.OFF_HEAP, 2);
+  }
+
+  private void assertSameAdjustments(SaleStoreType saleStoreType, int fixedPointScale) throws SaleProcessingException {
+    SaleManager sequentialSaleManager = newSaleManager(saleStoreType, fixedPointScale);
+    SaleManager parallelSaleManager = newSaleManager(saleStoreType, fixedPointScale);
+    parallelSaleManager.setParallelAdjustmentThreshold(PARALLEL_ADJUSTMENT_THRESHOLD);
+    Random random = new Random(7);
+
+    for (String productType : TEST_PRODUCT_TYPES) {
+      //Spans several chunks of the columnar stores
+      sequentialSaleManager.recordSales(productType, new BigDecimal("12.35"), 20_000);
+      parallelSaleManager.recordSales(productType, new BigDecimal("12.35"), 20_000);
+    }
+    for (int i = 0; i < 300; i++) {
+      String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+      BigDecimal value = new BigDecimal(TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+
+      if (random.nextInt(4) == 0) {
+        //Multiplications are kept to values keeping the exact scale bounded
+        SaleAdjustmentOperation operation = SaleAdjustmentOperation.values()[random.nextInt(SaleAdjustmentOperation.values().length)];
+        BigDecimal adjustmentValue = operation == SaleAdjustmentOperation.MULTIPLY ? new BigDecimal("1.5") : value;
+        sequentialSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, adjustmentValue));
+        parallelSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, adjustmentValue));
+      } else {
+        int noOfOccurrences = 1 + random.nextInt(3);
+        sequentialSaleManager.recordSales(productType, value, noOfOccurrences);
+        parallelSaleManager.recordSales(productType, value, noOfOccurrences);
+      }
+    }
+
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertEquals(values(sequentialSaleManager.fetchSalesForProductType(productType)),
+        values(parallelSaleManager.fetchSalesForProductType(productType)));
+      assertEquals(sequentialSaleManager.fetchSaleAggregateForProductType(productType).getTotalValue(),
+        parallelSaleManager.fetchSaleAggregateForProductType(productType).getTotalValue());
+    }
+  }
+
+  private SaleManager newSaleManager(SaleStoreType saleStoreType, int fixedPointScale) {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(saleStoreType);
+    saleDao.setFixedPointScale(fixedPointScale);
+    return new SaleManagerBuilder().saleDao(saleDao).build();
+  }
+
+  private List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+}
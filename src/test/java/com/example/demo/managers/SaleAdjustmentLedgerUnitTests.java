@@ -0,0 +1,131 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link SaleAdjustmentLedger} mode of {@link SaleManager}, checked against the eager adjustments
+ */
+@RunWith(JUnit4.class)
+public class SaleAdjustmentLedgerUnitTests {
+
+  private final SaleManager eagerSaleManager = new SaleManagerBuilder().build();
+  private final SaleManager ledgerSaleManager = new SaleManagerBuilder().build();
+  private final SaleDao runLengthSaleDao = new SaleDao();
+  private final SaleManager runLengthSaleManager = new SaleManagerBuilder().saleDao(runLengthSaleDao).build();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "0", "-2.10", "1E+1", "7.000"};
+
+  @Before
+  public void setUp() throws Exception {
+    ledgerSaleManager.setAdjustmentLedgerEnabled(true);
+    runLengthSaleDao.setSaleStoreType(SaleStoreType.RUN_LENGTH);
+    runLengthSaleManager.setAdjustmentLedgerEnabled(true);
+  }
+
+  @Test
+  public void testLedgerMatchesEagerAdjustments() throws SaleProcessingException {
+    Random random = new Random(42);
+
+    for (int i = 0; i < 2000; i++) {
+      String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+      BigDecimal value = new BigDecimal(TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+
+      if (random.nextInt(4) == 0) {
+        SaleAdjustmentOperation operation = SaleAdjustmentOperation.values()[random.nextInt(SaleAdjustmentOperation.values().length)];
+        eagerSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, value));
+        ledgerSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, value));
+        runLengthSaleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, value));
+      } else {
+        int noOfOccurrences = 1 + random.nextInt(3);
+        eagerSaleManager.recordSales(productType, value, noOfOccurrences);
+        ledgerSaleManager.recordSales(productType, value, noOfOccurrences);
+        runLengthSaleManager.recordSales(productType, value, noOfOccurrences);
+      }
+
+      //Materialize part way through so later adjustments compose on top of already applied ones
+      if (random.nextInt(100) == 0) {
+        assertSameValues(productType);
+      }
+    }
+
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertSameValues(productType);
+    }
+  }
+
+  @Test
+  public void testAdjustmentNotAppliedToLaterSales() throws SaleProcessingException {
+    ledgerSaleManager.recordSale("Apple", new BigDecimal(".20"));
+    ledgerSaleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("3")));
+    ledgerSaleManager.recordSale("Apple", new BigDecimal(".20"));
+    ledgerSaleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, new BigDecimal(".05")));
+
+    List<Sale> sales = ledgerSaleManager.fetchSalesForProductType("Apple");
+
+    assertEquals(new BigDecimal(".65"), sales.get(0).getValue());
+    assertEquals(new BigDecimal(".25"), sales.get(1).getValue());
+  }
+
+  @Test
+  public void testClearDropsPendingAdjustments() throws SaleProcessingException {
+    ledgerSaleManager.recordSale("Apple", new BigDecimal(".20"));
+    ledgerSaleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, new BigDecimal(".10")));
+
+    ledgerSaleManager.clearSalesForProductType("Apple");
+    ledgerSaleManager.recordSale("Apple", new BigDecimal(".20"));
+
+    assertEquals(new BigDecimal(".20"), ledgerSaleManager.fetchSalesForProductType("Apple").get(0).getValue());
+  }
+
+  @Test
+  public void testAdjustmentRecordedWhileClearingIsKept() {
+    SaleAdjustmentLedger saleAdjustmentLedger = new SaleAdjustmentLedger();
+    saleAdjustmentLedger.record(new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, new BigDecimal(".10")),
+      new ArrayList<>());
+    List<Sale> sales = new ArrayList<>();
+    sales.add(new Sale("Apple", new BigDecimal(".20")));
+
+    //Clears the product type once the adjustment has found its pending list
+    List<Sale> clearingSales = new ArrayList<Sale>(sales) {
+      @Override
+      public int size() {
+        saleAdjustmentLedger.clear("Apple");
+        return super.size();
+      }
+    };
+    saleAdjustmentLedger.record(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("3")),
+      clearingSales);
+    saleAdjustmentLedger.materialize("Apple", sales);
+
+    assertEquals(new BigDecimal(".60"), sales.get(0).getValue());
+  }
+
+  private void assertSameValues(String productType) {
+    List<BigDecimal> expectedValues = values(eagerSaleManager.fetchSalesForProductType(productType));
+
+    assertEquals(expectedValues, values(ledgerSaleManager.fetchSalesForProductType(productType)));
+    assertEquals(expectedValues, values(runLengthSaleManager.fetchSalesForProductType(productType)));
+  }
+
+  private List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+}
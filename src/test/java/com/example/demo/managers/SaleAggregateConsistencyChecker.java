@@ -0,0 +1,31 @@
+package com.example.demo.managers;
+
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.data.SaleRollup;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Recomputes {@link SaleAggregate}s from the stored and rolled up sales and checks them against the running aggregates
+ */
+final class SaleAggregateConsistencyChecker {
+
+  private SaleAggregateConsistencyChecker() {
+  }
+
+  static void assertConsistent(SaleManager saleManager, String... productTypes) {
+    for (String productType : productTypes) {
+      List<Sale> sales = saleManager.fetchSalesForProductType(productType);
+      SaleRollup saleRollup = saleManager.fetchSaleRollupForProductType(productType);
+      SaleAggregate saleAggregate = saleManager.fetchSaleAggregateForProductType(productType);
+
+      assertEquals("Sale count of " + productType, saleRollup.getSaleCount() + sales.size(), saleAggregate.getSaleCount());
+      assertEquals("Total value of " + productType,
+        sales.stream().map(Sale::getValue).reduce(saleRollup.getTotalValue(), BigDecimal::add), saleAggregate.getTotalValue());
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the running {@link com.example.demo.data.SaleAggregate}s maintained by {@link SaleManager}
+ */
+@RunWith(JUnit4.class)
+public class SaleAggregateUnitTests {
+
+  private final SaleManager eagerSaleManager = new SaleManagerBuilder().build();
+  private final SaleManager ledgerSaleManager = new SaleManagerBuilder().build();
+  private final SaleDao runLengthSaleDao = new SaleDao();
+  private final SaleManager runLengthSaleManager = new SaleManagerBuilder().saleDao(runLengthSaleDao).build();
+  private final List<SaleManager> saleManagers = Arrays.asList(eagerSaleManager, ledgerSaleManager, runLengthSaleManager);
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "0", "-2.10", "1E+1", "7.000"};
+
+  private final PrintStream systemOut = System.out;
+
+  @Before
+  public void setUp() throws Exception {
+    ledgerSaleManager.setAdjustmentLedgerEnabled(true);
+    runLengthSaleDao.setSaleStoreType(SaleStoreType.RUN_LENGTH);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    System.setOut(systemOut);
+  }
+
+  @Test
+  public void testAggregatesMatchStoredSales() throws SaleProcessingException {
+    Random random = new Random(7);
+
+    for (int i = 0; i < 2000; i++) {
+      recordRandom(random);
+
+      if (random.nextInt(50) == 0) {
+        for (SaleManager saleManager : saleManagers) {
+          SaleAggregateConsistencyChecker.assertConsistent(saleManager, TEST_PRODUCT_TYPES);
+        }
+      }
+    }
+
+    for (SaleManager saleManager : saleManagers) {
+      SaleAggregateConsistencyChecker.assertConsistent(saleManager, TEST_PRODUCT_TYPES);
+    }
+  }
+
+  @Test
+  public void testAggregatesAreClearedWithSales() throws SaleProcessingException {
+    eagerSaleManager.recordSales("Apple", new BigDecimal(".20"), 3);
+    eagerSaleManager.clearSalesForProductType("Apple");
+    eagerSaleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("0.10")));
+
+    SaleAggregateConsistencyChecker.assertConsistent(eagerSaleManager, "Apple");
+  }
+
+  @Test
+  public void testIncrementalReportMatchesFullReport() throws SaleProcessingException {
+    Random random = new Random(11);
+    for (int i = 0; i < 500; i++) {
+      recordRandom(random);
+    }
+
+    String fullReport = captureSaleReport();
+    eagerSaleManager.setIncrementalReportEnabled(true);
+
+    assertEquals(fullReport, captureSaleReport());
+  }
+
+  private void recordRandom(Random random) throws SaleProcessingException {
+    String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+    BigDecimal value = new BigDecimal(TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+
+    if (random.nextInt(4) == 0) {
+      SaleAdjustmentOperation operation = SaleAdjustmentOperation.values()[random.nextInt(SaleAdjustmentOperation.values().length)];
+      for (SaleManager saleManager : saleManagers) {
+        saleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, value));
+      }
+    } else {
+      int noOfOccurrences = 1 + random.nextInt(3);
+      for (SaleManager saleManager : saleManagers) {
+        saleManager.recordSales(productType, value, noOfOccurrences);
+      }
+    }
+  }
+
+  private String captureSaleReport() {
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(report));
+    try {
+      eagerSaleManager.logSaleReport();
+    } finally {
+      System.setOut(systemOut);
+    }
+    //Drop the log line, console logging may share System.out
+    return Arrays.stream(report.toString().split(System.lineSeparator()))
+      .filter(line -> !line.contains("Logging Sale Report"))
+      .collect(Collectors.joining(System.lineSeparator()));
+  }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleJournal;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Recovery tests for {@link SaleManager}s journaling to a {@link SaleJournal}
+ */
+@RunWith(JUnit4.class)
+public class SaleJournalUnitTests {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips"};
+
+  @Test
+  public void testRecoversFromLog() throws Exception {
+    SaleJournal saleJournal = newSaleJournal(100000);
+    SaleManager saleManager = newSaleManager(saleJournal);
+    SaleManager expectedSaleManager = newSaleManager(null);
+
+    for (Operation operation : operations(new Random(3), 500)) {
+      operation.apply(saleManager);
+      operation.apply(expectedSaleManager);
+    }
+    saleJournal.close();
+
+    assertRecovered(expectedSaleManager, newSaleManager(newSaleJournal(100000)));
+  }
+
+  @Test
+  public void testRecoversFromSnapshotAndLogTail() throws Exception {
+    SaleJournal saleJournal = newSaleJournal(50);
+    SaleManager saleManager = newSaleManager(saleJournal);
+    SaleManager expectedSaleManager = newSaleManager(null);
+
+    int applied = 0;
+    for (Operation operation : operations(new Random(5), 500)) {
+      operation.apply(saleManager);
+      operation.apply(expectedSaleManager);
+      if (++applied % 20 == 0) {
+        saleManager.checkpoint();
+      }
+    }
+    saleJournal.close();
+
+    File[] logs = temporaryFolder.getRoot().listFiles((directory, name) -> name.endsWith(".wal"));
+    assertEquals(1, logs.length);
+    assertTrue(new File(temporaryFolder.getRoot(), "sales.snapshot").exists());
+    assertRecovered(expectedSaleManager, newSaleManager(newSaleJournal(50)));
+  }
+
+  @Test
+  public void testDropsRecordTornByCrash() throws Exception {
+    List<Operation> operations = operations(new Random(7), 200);
+    SaleJournal saleJournal = newSaleJournal(100000);
+    SaleManager saleManager = newSaleManager(saleJournal);
+    SaleManager expectedSaleManager = newSaleManager(null);
+
+    for (int i = 0; i < operations.size(); i++) {
+      operations.get(i).apply(saleManager);
+      if (i < operations.size() - 1) {
+        operations.get(i).apply(expectedSaleManager);
+      }
+    }
+    saleJournal.close();
+
+    //Cut the last record short
+    try (RandomAccessFile log = new RandomAccessFile(new File(temporaryFolder.getRoot(), "sales-0.wal"), "rw")) {
+      log.setLength(log.length() - 3);
+    }
+
+    saleJournal = newSaleJournal(100000);
+    saleManager = newSaleManager(saleJournal);
+    assertRecovered(expectedSaleManager, saleManager);
+
+    //The log goes on from the last complete record
+    for (Operation operation : operations(new Random(11), 100)) {
+      operation.apply(saleManager);
+      operation.apply(expectedSaleManager);
+    }
+    saleJournal.close();
+    assertRecovered(expectedSaleManager, newSaleManager(newSaleJournal(100000)));
+  }
+
+  @Test
+  public void testRecoversCommittedRecordsWithoutClose() throws Exception {
+    SaleJournal saleJournal = newSaleJournal(100000);
+    SaleManager saleManager = newSaleManager(saleJournal);
+    SaleManager expectedSaleManager = newSaleManager(null);
+
+    for (Operation operation : operations(new Random(13), 300)) {
+      operation.apply(saleManager);
+      operation.apply(expectedSaleManager);
+    }
+    saleJournal.commit();
+
+    //The log is left at its mapped size, the unused part being zeroes
+    assertRecovered(expectedSaleManager, newSaleManager(newSaleJournal(100000)));
+  }
+
+  private SaleJournal newSaleJournal(long snapshotRecords) {
+    SaleJournal saleJournal = new SaleJournal();
+    saleJournal.setEnabled(true);
+    saleJournal.setDirectory(temporaryFolder.getRoot().getPath());
+    //Small windows so the log spans several of them
+    saleJournal.setWindowSize(512);
+    saleJournal.setCommitInterval(0);
+    saleJournal.setSnapshotRecords(snapshotRecords);
+    return saleJournal;
+  }
+
+  private static SaleManager newSaleManager(SaleJournal saleJournal) throws IOException {
+    SaleManager saleManager = new SaleManagerBuilder().saleJournal(saleJournal).build();
+    saleManager.recoverSales();
+    return saleManager;
+  }
+
+  private List<Operation> operations(Random random, int count) {
+    String[] values = {".20", "1.5", "3", "0.125", "-2.10", "7.000", "1E+1"};
+    List<Operation> operations = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+      BigDecimal value = new BigDecimal(values[random.nextInt(values.length)]);
+      int kind = random.nextInt(20);
+
+      if (kind < 5) {
+        SaleAdjustmentOperation adjustmentOperation = SaleAdjustmentOperation.values()[random.nextInt(3)];
+        operations.add(saleManager -> saleManager.recordSaleAdjustment(new SaleAdjustment(productType, adjustmentOperation, value)));
+      } else if (kind == 5) {
+        operations.add(saleManager -> saleManager.clearSalesForProductType(productType));
+      } else if (kind == 6) {
+        operations.add(saleManager -> saleManager.clearSalesAdjustmentsForProductType(productType));
+      } else {
+        int noOfOccurrences = 1 + random.nextInt(3);
+        operations.add(saleManager -> saleManager.recordSales(productType, value, noOfOccurrences));
+      }
+    }
+    return operations;
+  }
+
+  private void assertRecovered(SaleManager expectedSaleManager, SaleManager saleManager) {
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertEquals("Sales of " + productType, values(expectedSaleManager.fetchSalesForProductType(productType)),
+        values(saleManager.fetchSalesForProductType(productType)));
+      assertEquals("Adjustments of " + productType, adjustments(expectedSaleManager.fetchSaleAdjustmentForProductType(productType)),
+        adjustments(saleManager.fetchSaleAdjustmentForProductType(productType)));
+    }
+    SaleAggregateConsistencyChecker.assertConsistent(saleManager, TEST_PRODUCT_TYPES);
+  }
+
+  private static List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+
+  private static List<String> adjustments(List<SaleAdjustment> saleAdjustments) {
+    return saleAdjustments.stream()
+      .map(saleAdjustment -> saleAdjustment.getSaleAdjustmentOperation() + " " + saleAdjustment.getAdjustmentValue())
+      .collect(Collectors.toList());
+  }
+
+  private interface Operation {
+
+    void apply(SaleManager saleManager) throws SaleProcessingException;
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleAdjustmentDao;
+import com.example.demo.dao.SaleAggregateDao;
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleIndexDao;
+import com.example.demo.dao.SaleJournal;
+import com.example.demo.dao.SaleRollupDao;
+import com.example.demo.dao.SaleWindowDao;
+
+/**
+ * Builds {@link SaleManager}s for tests and benchmarks, with new DAOs and metrics for whatever is not given and no
+ * journal unless one is
+ */
+public final class SaleManagerBuilder {
+
+  private SaleDao saleDao = new SaleDao();
+  private SaleAdjustmentDao saleAdjustmentDao = new SaleAdjustmentDao();
+  private SaleAggregateDao saleAggregateDao = new SaleAggregateDao();
+  private SaleJournal saleJournal;
+  private SaleMetrics saleMetrics = new SaleMetrics();
+  private SaleWindowDao saleWindowDao = new SaleWindowDao();
+  private SaleRollupDao saleRollupDao = new SaleRollupDao();
+  private SaleIndexDao saleIndexDao = new SaleIndexDao();
+
+  public SaleManagerBuilder saleDao(SaleDao saleDao) {
+    this.saleDao = saleDao;
+    return this;
+  }
+
+  public SaleManagerBuilder saleAdjustmentDao(SaleAdjustmentDao saleAdjustmentDao) {
+    this.saleAdjustmentDao = saleAdjustmentDao;
+    return this;
+  }
+
+  public SaleManagerBuilder saleAggregateDao(SaleAggregateDao saleAggregateDao) {
+    this.saleAggregateDao = saleAggregateDao;
+    return this;
+  }
+
+  public SaleManagerBuilder saleJournal(SaleJournal saleJournal) {
+    this.saleJournal = saleJournal;
+    return this;
+  }
+
+  public SaleManagerBuilder saleMetrics(SaleMetrics saleMetrics) {
+    this.saleMetrics = saleMetrics;
+    return this;
+  }
+
+  public SaleManagerBuilder saleWindowDao(SaleWindowDao saleWindowDao) {
+    this.saleWindowDao = saleWindowDao;
+    return this;
+  }
+
+  public SaleManagerBuilder saleRollupDao(SaleRollupDao saleRollupDao) {
+    this.saleRollupDao = saleRollupDao;
+    return this;
+  }
+
+  public SaleManagerBuilder saleIndexDao(SaleIndexDao saleIndexDao) {
+    this.saleIndexDao = saleIndexDao;
+    return this;
+  }
+
+  public SaleManager build() {
+    return new SaleManager(saleDao, saleAdjustmentDao, saleAggregateDao, saleJournal, saleMetrics, saleWindowDao,
+      saleRollupDao, saleIndexDao);
+  }
+}
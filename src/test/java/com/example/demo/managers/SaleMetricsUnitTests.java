@@ -0,0 +1,87 @@
+package com.example.demo.managers;
+
+import com.example.demo.notifications.SaleNotification;
+import com.example.demo.notifications.SaleNotificationProcessor;
+import com.example.demo.notifications.SaleNotificationProcessorBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link SaleMetrics} of the notification pipeline
+ */
+@RunWith(JUnit4.class)
+public class SaleMetricsUnitTests {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SaleMetrics saleMetrics = new SaleMetrics(meterRegistry);
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_PRODUCT_TYPE_BANANA = "Banana";
+
+  @Test
+  public void testCountsAndTimesNotifications() {
+    saleMetrics.setEnabled(true);
+    saleMetrics.register();
+    SaleNotificationProcessor saleNotificationProcessor = newSaleNotificationProcessor();
+
+    saleNotificationProcessor.receiveSaleNotification(new SaleNotification(TEST_PRODUCT_TYPE_APPLE, ".20", 3));
+    saleNotificationProcessor.receiveSaleNotification(new SaleNotification(TEST_PRODUCT_TYPE_BANANA, "1", 2, "ADD", ".10"));
+    saleNotificationProcessor.receiveSaleNotification(new SaleNotification(TEST_PRODUCT_TYPE_APPLE, ".20", 1, "MULTIPLY", "2"));
+    saleNotificationProcessor.receiveSaleNotification(new SaleNotification(TEST_PRODUCT_TYPE_APPLE, "not a value", 1));
+
+    assertEquals(4, meterRegistry.get("sale.notifications.received").counter().count(), 0);
+    assertEquals(3, meterRegistry.get("sale.notifications.processed").counter().count(), 0);
+    assertEquals(1, meterRegistry.get("sale.notifications.failed").counter().count(), 0);
+    assertEquals(3, meterRegistry.get("sale.notifications.stage").tag("stage", "sales").timer().count());
+    assertEquals(2, meterRegistry.get("sale.notifications.stage").tag("stage", "adjustment").timer().count());
+    assertEquals(1, meterRegistry.get("sale.notifications.stage").tag("stage", "report").timer().count());
+    assertEquals(4, meterRegistry.get("sale.sales.recorded").tag("productType", TEST_PRODUCT_TYPE_APPLE).counter().count(), 0);
+    assertEquals(2, meterRegistry.get("sale.sales.recorded").tag("productType", TEST_PRODUCT_TYPE_BANANA).counter().count(), 0);
+    assertEquals(2, meterRegistry.get("sale.adjustments.fanout").summary().count());
+    assertEquals(6, meterRegistry.get("sale.adjustments.fanout").summary().totalAmount(), 0);
+  }
+
+  @Test
+  public void testCountsBatchedNotifications() {
+    saleMetrics.setEnabled(true);
+    saleMetrics.register();
+    SaleNotificationProcessor saleNotificationProcessor = newSaleNotificationProcessor();
+
+    saleNotificationProcessor.receiveSaleNotifications(Arrays.asList(
+      new SaleNotification(TEST_PRODUCT_TYPE_APPLE, ".20", 3),
+      new SaleNotification(TEST_PRODUCT_TYPE_BANANA, "1", 2, "ADD", ".10"),
+      new SaleNotification(TEST_PRODUCT_TYPE_APPLE, ".20", 1, "NOT AN OPERATION", "2")));
+
+    assertEquals(3, meterRegistry.get("sale.notifications.received").counter().count(), 0);
+    assertEquals(2, meterRegistry.get("sale.notifications.processed").counter().count(), 0);
+    assertEquals(1, meterRegistry.get("sale.notifications.failed").counter().count(), 0);
+  }
+
+  @Test
+  public void testDisabledMetricsRegisterNothing() {
+    saleMetrics.register();
+    SaleNotificationProcessor saleNotificationProcessor = newSaleNotificationProcessor();
+
+    saleNotificationProcessor.receiveSaleNotification(new SaleNotification(TEST_PRODUCT_TYPE_APPLE, ".20", 1, "ADD", ".10"));
+
+    assertEquals(0, saleMetrics.start());
+    assertTrue(meterRegistry.getMeters().isEmpty());
+  }
+
+  private SaleNotificationProcessor newSaleNotificationProcessor() {
+    SaleManager saleManager = new SaleManagerBuilder().saleMetrics(saleMetrics).build();
+    SaleNotificationProcessor saleNotificationProcessor = new SaleNotificationProcessorBuilder(saleManager)
+      .saleMetrics(saleMetrics).build();
+    saleNotificationProcessor.setReportFrequency(2);
+    saleNotificationProcessor.setMessageThreshold(50);
+    return saleNotificationProcessor;
+  }
+}
@@ -0,0 +1,318 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleAdjustmentDao;
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleIndexDao;
+import com.example.demo.dao.SaleJournal;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.data.SaleValueIndex;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the queries of {@link SaleQueryManager} over the indexes kept by {@link SaleManager}
+ */
+@RunWith(JUnit4.class)
+public class SaleQueryUnitTests {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "0", "-2.10", "1E+1", "7.000", "3.00"};
+  private final String[] TEST_MULTIPLIERS = {"-1", "2", "0.5", "-0.25", "0", "1"};
+
+  @Test
+  public void testRangeQueriesMatchStoredSales() throws SaleProcessingException {
+    List<IndexedSaleManager> indexedSaleManagers = new ArrayList<>();
+    for (SaleStoreType saleStoreType : Arrays.asList(SaleStoreType.LIST, SaleStoreType.RUN_LENGTH, SaleStoreType.COLUMNAR)) {
+      indexedSaleManagers.add(new IndexedSaleManager(saleStoreType, false, -1, false));
+      indexedSaleManagers.add(new IndexedSaleManager(saleStoreType, true, -1, false));
+      indexedSaleManagers.add(new IndexedSaleManager(saleStoreType, false, -1, true));
+    }
+    indexedSaleManagers.add(new IndexedSaleManager(SaleStoreType.LIST, false, 2, false));
+    indexedSaleManagers.add(new IndexedSaleManager(SaleStoreType.COLUMNAR, false, 3, true));
+
+    Random random = new Random(17);
+    for (int i = 1; i <= 2000; i++) {
+      Operation operation = randomOperation(random);
+      for (IndexedSaleManager indexedSaleManager : indexedSaleManagers) {
+        operation.apply(indexedSaleManager.saleManager);
+        if (i % 100 == 0) {
+          indexedSaleManager.saleManager.compactSales();
+        }
+      }
+      if (i % 50 == 0) {
+        for (IndexedSaleManager indexedSaleManager : indexedSaleManagers) {
+          assertRangesMatch(indexedSaleManager, random);
+          assertRevenueRanking(indexedSaleManager);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testValueIndexKeepsLogarithmicRuns() {
+    SaleValueIndex saleValueIndex = new SaleValueIndex();
+    SaleAdjustment add = new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, new BigDecimal("0.01"));
+    for (int i = 1; i <= 1 << 14; i++) {
+      saleValueIndex.record(BigDecimal.valueOf(i), 1);
+      saleValueIndex.adjust(add);
+      assertTrue("Runs: " + saleValueIndex.getRunCount(), saleValueIndex.getRunCount() <= 2 * (32 - Integer.numberOfLeadingZeros(i)));
+    }
+    assertEquals(1 << 14, saleValueIndex.count(null, null));
+    //Sale i was recorded before 2^14 - i + 1 of the adjustments
+    BigDecimal minValue = new BigDecimal("100").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf((1 << 14) - 99)));
+    BigDecimal maxValue = new BigDecimal("110").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf((1 << 14) - 109)));
+    assertEquals(11, saleValueIndex.count(minValue, maxValue));
+  }
+
+  @Test
+  public void testRangeBoundsAreInclusive() {
+    SaleValueIndex saleValueIndex = new SaleValueIndex();
+    saleValueIndex.record(new BigDecimal("1.0"), 2);
+    saleValueIndex.record(new BigDecimal("3"), 1);
+    saleValueIndex.adjust(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("-1")));
+    saleValueIndex.record(new BigDecimal("-1.00"), 4);
+
+    assertEquals(7, saleValueIndex.count(new BigDecimal("-3"), new BigDecimal("-1")));
+    assertEquals(6, saleValueIndex.count(new BigDecimal("-1"), null));
+    assertEquals(1, saleValueIndex.count(null, new BigDecimal("-1.5")));
+    assertEquals(0, saleValueIndex.count(new BigDecimal("-1"), new BigDecimal("-3")));
+
+    NavigableMap<BigDecimal, Long> values = saleValueIndex.values(null, null, 1);
+    assertEquals(1, values.size());
+    assertEquals(0, new BigDecimal("-3").compareTo(values.firstKey()));
+    assertEquals(Long.valueOf(6), saleValueIndex.values(new BigDecimal("-1"), null, 10).get(BigDecimal.ONE.negate()));
+  }
+
+  @Test
+  public void testAdjustmentsAreIndexedByOperation() throws SaleProcessingException {
+    SaleAdjustmentDao saleAdjustmentDao = new SaleAdjustmentDao();
+    SaleManager saleManager = new SaleManagerBuilder().saleAdjustmentDao(saleAdjustmentDao).build();
+    SaleQueryManager saleQueryManager = new SaleQueryManager(new SaleIndexDao(), saleAdjustmentDao);
+    SaleAdjustment addApple = new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, BigDecimal.ONE);
+    SaleAdjustment multiplyApple = new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, BigDecimal.TEN);
+    SaleAdjustment addBanana = new SaleAdjustment("Banana", SaleAdjustmentOperation.ADD, BigDecimal.TEN);
+    for (SaleAdjustment saleAdjustment : Arrays.asList(addApple, multiplyApple, addBanana)) {
+      saleManager.recordSaleAdjustment(saleAdjustment);
+    }
+
+    assertEquals(Arrays.asList(addApple), saleQueryManager.fetchSaleAdjustmentsForOperation("Apple", SaleAdjustmentOperation.ADD));
+    assertEquals(2, saleQueryManager.fetchSaleAdjustmentsForOperation(SaleAdjustmentOperation.ADD).size());
+    assertEquals(Arrays.asList(multiplyApple), saleQueryManager.fetchSaleAdjustmentsForOperation(SaleAdjustmentOperation.MULTIPLY).get("Apple"));
+    assertTrue(saleQueryManager.fetchSaleAdjustmentsForOperation(SaleAdjustmentOperation.SUBTRACT).isEmpty());
+
+    saleManager.clearSalesAdjustmentsForProductType("Apple");
+    assertTrue(saleQueryManager.fetchSaleAdjustmentsForOperation("Apple", SaleAdjustmentOperation.ADD).isEmpty());
+    assertEquals(Arrays.asList(addBanana), saleQueryManager.fetchSaleAdjustmentsForOperation("Banana", SaleAdjustmentOperation.ADD));
+  }
+
+  @Test
+  public void testIndexesAreRecoveredFromJournal() throws Exception {
+    SaleJournal saleJournal = newSaleJournal();
+    IndexedSaleManager indexedSaleManager = new IndexedSaleManager(saleJournal);
+    Random random = new Random(19);
+    for (int i = 0; i < 400; i++) {
+      randomOperation(random).apply(indexedSaleManager.saleManager);
+    }
+    indexedSaleManager.saleManager.compactSales();
+    indexedSaleManager.saleManager.checkpoint();
+    for (int i = 0; i < 40; i++) {
+      randomOperation(random).apply(indexedSaleManager.saleManager);
+    }
+    saleJournal.close();
+
+    IndexedSaleManager recoveredSaleManager = new IndexedSaleManager(newSaleJournal());
+    assertRangesMatch(recoveredSaleManager, random);
+    assertEquals(indexedSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(3),
+      recoveredSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(3));
+    assertRevenueRanking(recoveredSaleManager);
+  }
+
+  @Test
+  public void testClearedProductTypeIsUnindexed() throws SaleProcessingException {
+    IndexedSaleManager indexedSaleManager = new IndexedSaleManager(SaleStoreType.LIST, false, -1, false);
+    indexedSaleManager.saleManager.recordSales("Apple", BigDecimal.TEN, 3);
+    indexedSaleManager.saleManager.recordSales("Banana", BigDecimal.ONE, 3);
+    indexedSaleManager.saleManager.clearSalesForProductType("Apple");
+
+    assertEquals(0, indexedSaleManager.saleQueryManager.countSalesInRange("Apple", null, null));
+    assertEquals(Arrays.asList("Banana"), indexedSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(10).stream()
+      .map(SaleAggregate::getProductType).collect(Collectors.toList()));
+  }
+
+  /**
+   * Product types recorded concurrently, as partitions record them, are ranked by the revenue they end up with
+   */
+  @Test
+  public void testTopProductTypesAmongManyRecordedConcurrently() {
+    IndexedSaleManager indexedSaleManager = new IndexedSaleManager(SaleStoreType.LIST, false, -1, false);
+    List<String> productTypes = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      productTypes.add("Product" + i);
+    }
+    productTypes.parallelStream().forEach(productType -> {
+      Random random = new Random(productType.hashCode());
+      try {
+        for (int i = 0; i < 100; i++) {
+          indexedSaleManager.saleManager.recordSales(productType, BigDecimal.valueOf(random.nextInt(1000), 2),
+            1 + random.nextInt(3));
+        }
+      } catch (SaleProcessingException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    List<SaleAggregate> expectedRanking = productTypes.stream()
+      .map(indexedSaleManager.saleManager::fetchSaleAggregateForProductType)
+      .sorted(Comparator.comparing(SaleAggregate::getTotalValue).reversed().thenComparing(SaleAggregate::getProductType))
+      .collect(Collectors.toList());
+    assertEquals(expectedRanking.subList(0, 5), indexedSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(5));
+    assertEquals(expectedRanking, indexedSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(100));
+    assertTrue(indexedSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(0).isEmpty());
+  }
+
+  private void assertRangesMatch(IndexedSaleManager indexedSaleManager, Random random) {
+    for (String productType : TEST_PRODUCT_TYPES) {
+      List<BigDecimal> values = indexedSaleManager.saleManager.fetchSalesForProductType(productType).stream()
+        .map(Sale::getValue).collect(Collectors.toList());
+      for (int i = 0; i < 5; i++) {
+        BigDecimal minValue = i == 0 ? null : randomBound(values, random);
+        BigDecimal maxValue = i == 1 ? null : randomBound(values, random);
+        NavigableMap<BigDecimal, Long> expectedValues = new TreeMap<>();
+        values.stream()
+          .filter(value -> (minValue == null || value.compareTo(minValue) >= 0) && (maxValue == null || value.compareTo(maxValue) <= 0))
+          .forEach(value -> expectedValues.merge(value, 1L, Long::sum));
+
+        String range = productType + " [" + minValue + ", " + maxValue + "] of " + indexedSaleManager;
+        assertEquals(range, expectedValues.values().stream().mapToLong(Long::longValue).sum(),
+          indexedSaleManager.saleQueryManager.countSalesInRange(productType, minValue, maxValue));
+        assertEquals(range, expectedValues, indexedSaleManager.saleQueryManager.fetchSaleValuesInRange(productType,
+          minValue, maxValue, Integer.MAX_VALUE));
+        NavigableMap<BigDecimal, Long> limitedValues = indexedSaleManager.saleQueryManager.fetchSaleValuesInRange(
+          productType, minValue, maxValue, 3);
+        assertEquals(range, Math.min(3, expectedValues.size()), limitedValues.size());
+        if (!limitedValues.isEmpty()) {
+          assertEquals(range, expectedValues.headMap(limitedValues.lastKey(), true), limitedValues);
+        }
+      }
+    }
+  }
+
+  private void assertRevenueRanking(IndexedSaleManager indexedSaleManager) {
+    List<SaleAggregate> expectedRanking = Arrays.stream(TEST_PRODUCT_TYPES)
+      .map(indexedSaleManager.saleManager::fetchSaleAggregateForProductType)
+      .filter(saleAggregate -> saleAggregate.getSaleCount() > 0)
+      .sorted(Comparator.comparing(SaleAggregate::getTotalValue).reversed().thenComparing(SaleAggregate::getProductType))
+      .collect(Collectors.toList());
+    assertEquals(indexedSaleManager.toString(), expectedRanking.subList(0, Math.min(2, expectedRanking.size())),
+      indexedSaleManager.saleQueryManager.fetchTopProductTypesByRevenue(2));
+  }
+
+  private static BigDecimal randomBound(List<BigDecimal> values, Random random) {
+    if (values.isEmpty() || random.nextInt(4) == 0) {
+      return BigDecimal.valueOf(random.nextInt(41) - 20, 1);
+    }
+    return values.get(random.nextInt(values.size()));
+  }
+
+  private SaleJournal newSaleJournal() {
+    SaleJournal saleJournal = new SaleJournal();
+    saleJournal.setEnabled(true);
+    saleJournal.setDirectory(temporaryFolder.getRoot().getPath());
+    saleJournal.setCommitInterval(0);
+    saleJournal.setSnapshotRecords(1);
+    return saleJournal;
+  }
+
+  private Operation randomOperation(Random random) {
+    String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+    BigDecimal value = new BigDecimal(TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+    if (random.nextInt(6) == 0) {
+      SaleAdjustmentOperation operation = SaleAdjustmentOperation.values()[random.nextInt(3)];
+      BigDecimal adjustmentValue = operation == SaleAdjustmentOperation.MULTIPLY
+        ? new BigDecimal(TEST_MULTIPLIERS[random.nextInt(TEST_MULTIPLIERS.length)]) : value;
+      return saleManager -> saleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, adjustmentValue));
+    }
+    int noOfOccurrences = 1 + random.nextInt(3);
+    return saleManager -> saleManager.recordSales(productType, value, noOfOccurrences);
+  }
+
+  private interface Operation {
+
+    void apply(SaleManager saleManager) throws SaleProcessingException;
+  }
+
+  /**
+   * A {@link SaleManager} indexing its sales, and the {@link SaleQueryManager} querying them
+   */
+  private static final class IndexedSaleManager {
+
+    private final String description;
+    private final SaleManager saleManager;
+    private final SaleQueryManager saleQueryManager;
+
+    private IndexedSaleManager(SaleStoreType saleStoreType, boolean adjustmentLedgerEnabled, int fixedPointScale,
+                               boolean retentionEnabled) {
+      SaleDao saleDao = new SaleDao();
+      saleDao.setSaleStoreType(saleStoreType);
+      saleDao.setFixedPointScale(fixedPointScale);
+      SaleAdjustmentDao saleAdjustmentDao = new SaleAdjustmentDao();
+      SaleIndexDao saleIndexDao = newSaleIndexDao();
+      this.description = saleStoreType + (adjustmentLedgerEnabled ? " ledger" : "") + " scale " + fixedPointScale
+        + (retentionEnabled ? " retained" : "");
+      this.saleManager = new SaleManagerBuilder()
+        .saleDao(saleDao).saleAdjustmentDao(saleAdjustmentDao).saleIndexDao(saleIndexDao).build();
+      this.saleManager.setAdjustmentLedgerEnabled(adjustmentLedgerEnabled);
+      this.saleManager.setRetentionEnabled(retentionEnabled);
+      this.saleManager.setRetentionMaxSales(20);
+      this.saleQueryManager = new SaleQueryManager(saleIndexDao, saleAdjustmentDao);
+    }
+
+    private IndexedSaleManager(SaleJournal saleJournal) throws IOException {
+      SaleAdjustmentDao saleAdjustmentDao = new SaleAdjustmentDao();
+      SaleIndexDao saleIndexDao = newSaleIndexDao();
+      this.description = "journaled";
+      this.saleManager = new SaleManagerBuilder()
+        .saleAdjustmentDao(saleAdjustmentDao).saleJournal(saleJournal).saleIndexDao(saleIndexDao).build();
+      this.saleManager.setRetentionEnabled(true);
+      this.saleManager.setRetentionMaxSales(20);
+      this.saleManager.recoverSales();
+      this.saleQueryManager = new SaleQueryManager(saleIndexDao, saleAdjustmentDao);
+    }
+
+    private static SaleIndexDao newSaleIndexDao() {
+      SaleIndexDao saleIndexDao = new SaleIndexDao();
+      saleIndexDao.setEnabled(true);
+      return saleIndexDao;
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+}
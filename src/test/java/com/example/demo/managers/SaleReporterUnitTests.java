@@ -0,0 +1,90 @@
+package com.example.demo.managers;
+
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the asynchronous reports of {@link SaleReporter}
+ */
+@RunWith(JUnit4.class)
+public class SaleReporterUnitTests {
+
+  private final SaleManager saleManager = new SaleManagerBuilder().build();
+  private final SaleReporter saleReporter = new SaleReporter(saleManager);
+  private final ByteArrayOutputStream report = new ByteArrayOutputStream();
+  private final PrintStream systemOut = System.out;
+
+  private final String TEST_PRODUCT_TYPE_APPLE = "Apple";
+  private final String TEST_PRODUCT_TYPE_BANANA = "Banana";
+
+  @Before
+  public void setUp() throws Exception {
+    saleReporter.setAsyncEnabled(true);
+    saleReporter.setQueueCapacity(1);
+    saleReporter.start();
+    System.setOut(new PrintStream(report));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    saleReporter.stop();
+    System.setOut(systemOut);
+  }
+
+  @Test
+  public void testReportsShowSalesRecordedBeforeThem() throws Exception {
+    saleManager.recordSales(TEST_PRODUCT_TYPE_APPLE, new BigDecimal(".20"), 3);
+    saleManager.recordSaleAdjustment(new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.ADD, new BigDecimal("1.5")));
+    String expectedReport = write(saleManager.snapshotSaleReport()) + write(saleManager.snapshotSaleAdjustmentReport());
+
+    saleReporter.logSaleReport();
+    saleReporter.logSaleAdjustmentReport();
+    saleManager.recordSales(TEST_PRODUCT_TYPE_BANANA, new BigDecimal("3"), 1);
+    saleManager.recordSaleAdjustment(new SaleAdjustment(TEST_PRODUCT_TYPE_APPLE, SaleAdjustmentOperation.MULTIPLY, new BigDecimal("2")));
+    saleReporter.awaitReports();
+
+    assertEquals(expectedReport, capturedReport());
+  }
+
+  @Test
+  public void testReportsAreAllWrittenInOrder() throws Exception {
+    StringBuilder expectedReport = new StringBuilder();
+    for (int i = 1; i <= 50; i++) {
+      saleManager.recordSales(TEST_PRODUCT_TYPE_APPLE, BigDecimal.valueOf(i), 1);
+      expectedReport.append(write(saleManager.snapshotSaleReport()));
+      //Blocks whenever a report is already waiting
+      saleReporter.logSaleReport();
+    }
+    saleReporter.awaitReports();
+
+    assertEquals(expectedReport.toString(), capturedReport());
+  }
+
+  private String write(SaleReport saleReport) throws Exception {
+    StringWriter writer = new StringWriter();
+    saleReport.writeTo(writer);
+    return writer.toString();
+  }
+
+  private String capturedReport() {
+    //Drop the log lines, console logging may share System.out
+    return Arrays.stream(report.toString().split(System.lineSeparator()))
+      .filter(line -> !line.contains("Logging"))
+      .map(line -> line + System.lineSeparator())
+      .collect(Collectors.joining());
+  }
+}
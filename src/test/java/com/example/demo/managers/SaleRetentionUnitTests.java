@@ -0,0 +1,216 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleDao;
+import com.example.demo.dao.SaleJournal;
+import com.example.demo.dao.SaleStoreType;
+import com.example.demo.data.Sale;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleRollup;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the compaction of old sales into {@link SaleRollup}s by {@link SaleManager}
+ */
+@RunWith(JUnit4.class)
+public class SaleRetentionUnitTests {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "0", "-2.10", "1E+1", "7.000"};
+
+  @Test
+  public void testCompactedSalesAreReportedAsIfStored() throws Exception {
+    SaleManager expectedSaleManager = new SaleManagerBuilder().build();
+    List<SaleManager> saleManagers = new ArrayList<>();
+    for (SaleStoreType saleStoreType : Arrays.asList(SaleStoreType.LIST, SaleStoreType.RUN_LENGTH, SaleStoreType.COLUMNAR)) {
+      saleManagers.add(newRetainingSaleManager(saleStoreType, false));
+      saleManagers.add(newRetainingSaleManager(saleStoreType, true));
+    }
+
+    Random random = new Random(11);
+    for (int i = 1; i <= 3000; i++) {
+      Operation operation = randomOperation(random);
+      operation.apply(expectedSaleManager);
+      for (SaleManager saleManager : saleManagers) {
+        operation.apply(saleManager);
+        if (i % 50 == 0) {
+          saleManager.compactSales();
+        }
+      }
+    }
+
+    String expectedReport = write(expectedSaleManager.snapshotSaleReport());
+    for (SaleManager saleManager : saleManagers) {
+      assertEquals(expectedReport, write(saleManager.snapshotSaleReport()));
+      SaleAggregateConsistencyChecker.assertConsistent(saleManager, TEST_PRODUCT_TYPES);
+      saleManager.compactSales();
+      for (String productType : TEST_PRODUCT_TYPES) {
+        assertTrue(saleManager.fetchSalesForProductType(productType).size() <= 20);
+      }
+    }
+  }
+
+  @Test
+  public void testRollupAppliesLaterAdjustments() throws SaleProcessingException {
+    SaleManager saleManager = newRetainingSaleManager(SaleStoreType.LIST, false);
+    for (int value = 1; value <= 25; value++) {
+      saleManager.recordSale("Apple", BigDecimal.valueOf(value));
+    }
+    List<Integer> saleIds = saleManager.fetchSalesForProductType("Apple").stream()
+      .map(Sale::getSaleId).collect(Collectors.toList());
+    saleManager.compactSales();
+
+    assertRollup(saleManager.fetchSaleRollupForProductType("Apple"), 5, "15", "1", "5");
+    assertEquals(saleIds.subList(5, 25), saleManager.fetchSalesForProductType("Apple").stream()
+      .map(Sale::getSaleId).collect(Collectors.toList()));
+
+    saleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("-2")));
+    assertRollup(saleManager.fetchSaleRollupForProductType("Apple"), 5, "-30", "-10", "-2");
+    saleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, new BigDecimal("0.5")));
+    assertRollup(saleManager.fetchSaleRollupForProductType("Apple"), 5, "-27.5", "-9.5", "-1.5");
+    assertEquals(new BigDecimal("-11.5"), saleManager.fetchSalesForProductType("Apple").get(0).getValue());
+    SaleAggregateConsistencyChecker.assertConsistent(saleManager, "Apple");
+  }
+
+  @Test
+  public void testCompactsSalesOlderThanMaxAge() throws SaleProcessingException {
+    SaleManager saleManager = new SaleManagerBuilder().build();
+    saleManager.setRetentionEnabled(true);
+    saleManager.setRetentionMaxAgeSeconds(60);
+
+    saleManager.recordSales("Apple", BigDecimal.ONE, 3);
+    saleManager.compactSales(0);
+    saleManager.recordSales("Apple", BigDecimal.TEN, 2);
+    saleManager.compactSales(30_000);
+    assertEquals(5, saleManager.fetchSalesForProductType("Apple").size());
+
+    saleManager.compactSales(60_000);
+    assertEquals(2, saleManager.fetchSalesForProductType("Apple").size());
+    assertRollup(saleManager.fetchSaleRollupForProductType("Apple"), 3, "3", "1", "1");
+
+    saleManager.recordSale("Apple", BigDecimal.ONE);
+    saleManager.compactSales(90_000);
+    assertEquals(1, saleManager.fetchSalesForProductType("Apple").size());
+    assertRollup(saleManager.fetchSaleRollupForProductType("Apple"), 5, "23", "1", "10");
+  }
+
+  @Test
+  public void testRollupIsClearedWithSales() throws SaleProcessingException {
+    SaleManager saleManager = newRetainingSaleManager(SaleStoreType.COLUMNAR, false);
+    saleManager.recordSales("Apple", new BigDecimal("1.5"), 30);
+    saleManager.compactSales();
+    saleManager.clearSalesForProductType("Apple");
+
+    assertEquals(0, saleManager.fetchSaleRollupForProductType("Apple").getSaleCount());
+    assertEquals(0, saleManager.fetchSaleAggregateForProductType("Apple").getSaleCount());
+  }
+
+  @Test
+  public void testRollupIsRecoveredFromSnapshot() throws Exception {
+    SaleJournal saleJournal = newSaleJournal();
+    SaleManager saleManager = newJournalingSaleManager(saleJournal);
+    Random random = new Random(13);
+    for (int i = 0; i < 500; i++) {
+      randomOperation(random).apply(saleManager);
+    }
+    saleManager.compactSales();
+    saleManager.checkpoint();
+    for (int i = 0; i < 50; i++) {
+      randomOperation(random).apply(saleManager);
+    }
+    saleJournal.close();
+
+    SaleManager recoveredSaleManager = newJournalingSaleManager(newSaleJournal());
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertEquals(saleManager.fetchSaleRollupForProductType(productType),
+        recoveredSaleManager.fetchSaleRollupForProductType(productType));
+      assertEquals(values(saleManager.fetchSalesForProductType(productType)),
+        values(recoveredSaleManager.fetchSalesForProductType(productType)));
+      assertEquals(saleManager.fetchSaleAggregateForProductType(productType),
+        recoveredSaleManager.fetchSaleAggregateForProductType(productType));
+    }
+    SaleAggregateConsistencyChecker.assertConsistent(recoveredSaleManager, TEST_PRODUCT_TYPES);
+  }
+
+  private static SaleManager newRetainingSaleManager(SaleStoreType saleStoreType, boolean adjustmentLedgerEnabled) {
+    SaleDao saleDao = new SaleDao();
+    saleDao.setSaleStoreType(saleStoreType);
+    SaleManager saleManager = new SaleManagerBuilder().saleDao(saleDao).build();
+    saleManager.setAdjustmentLedgerEnabled(adjustmentLedgerEnabled);
+    saleManager.setRetentionEnabled(true);
+    saleManager.setRetentionMaxSales(20);
+    return saleManager;
+  }
+
+  private SaleJournal newSaleJournal() {
+    SaleJournal saleJournal = new SaleJournal();
+    saleJournal.setEnabled(true);
+    saleJournal.setDirectory(temporaryFolder.getRoot().getPath());
+    saleJournal.setCommitInterval(0);
+    saleJournal.setSnapshotRecords(1);
+    return saleJournal;
+  }
+
+  private static SaleManager newJournalingSaleManager(SaleJournal saleJournal) throws IOException {
+    SaleManager saleManager = new SaleManagerBuilder().saleJournal(saleJournal).build();
+    saleManager.setRetentionEnabled(true);
+    saleManager.setRetentionMaxSales(20);
+    saleManager.recoverSales();
+    return saleManager;
+  }
+
+  private Operation randomOperation(Random random) {
+    String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+    BigDecimal value = new BigDecimal(TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+    if (random.nextInt(8) == 0) {
+      SaleAdjustmentOperation operation = SaleAdjustmentOperation.values()[random.nextInt(3)];
+      //Small multipliers, so that totals keep a reasonable scale
+      BigDecimal adjustmentValue = operation == SaleAdjustmentOperation.MULTIPLY ? new BigDecimal(random.nextBoolean() ? "-1" : "2") : value;
+      return saleManager -> saleManager.recordSaleAdjustment(new SaleAdjustment(productType, operation, adjustmentValue));
+    }
+    int noOfOccurrences = 1 + random.nextInt(3);
+    return saleManager -> saleManager.recordSales(productType, value, noOfOccurrences);
+  }
+
+  private static void assertRollup(SaleRollup saleRollup, long saleCount, String totalValue, String minValue, String maxValue) {
+    assertEquals(saleCount, saleRollup.getSaleCount());
+    assertEquals(0, new BigDecimal(totalValue).compareTo(saleRollup.getTotalValue()));
+    assertEquals(0, new BigDecimal(minValue).compareTo(saleRollup.getMinValue()));
+    assertEquals(0, new BigDecimal(maxValue).compareTo(saleRollup.getMaxValue()));
+  }
+
+  private static List<BigDecimal> values(List<Sale> sales) {
+    return sales.stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+
+  private static String write(SaleReport saleReport) throws IOException {
+    StringWriter writer = new StringWriter();
+    saleReport.writeTo(writer);
+    return writer.toString();
+  }
+
+  private interface Operation {
+
+    void apply(SaleManager saleManager) throws SaleProcessingException;
+  }
+}
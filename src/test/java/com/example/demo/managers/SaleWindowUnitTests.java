@@ -0,0 +1,167 @@
+package com.example.demo.managers;
+
+import com.example.demo.dao.SaleWindowDao;
+import com.example.demo.data.SaleAdjustment;
+import com.example.demo.data.SaleAggregate;
+import com.example.demo.exceptions.SaleProcessingException;
+import com.example.demo.notifications.SaleAdjustmentOperation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the sliding window aggregates maintained by {@link SaleManager}
+ */
+@RunWith(JUnit4.class)
+public class SaleWindowUnitTests {
+
+  private final ManualClock clock = new ManualClock();
+  private final SaleWindowDao saleWindowDao = new SaleWindowDao(clock);
+  private final SaleManager saleManager = new SaleManagerBuilder().saleWindowDao(saleWindowDao).build();
+
+  @Before
+  public void setUp() throws Exception {
+    saleWindowDao.setEnabled(true);
+    saleWindowDao.setBucketSeconds(10);
+    saleWindowDao.setBuckets(3);
+  }
+
+  @Test
+  public void testWindowOnlyCountsRecentSales() throws SaleProcessingException {
+    saleManager.recordSales("Apple", new BigDecimal("1.5"), 2);
+    clock.advanceSeconds(10);
+    saleManager.recordSale("Apple", new BigDecimal("0.20"));
+    clock.advanceSeconds(10);
+
+    assertWindow("Apple", 3, "3.20");
+
+    //The first bucket expires, the later ones stay in the window
+    clock.advanceSeconds(10);
+    assertWindow("Apple", 1, "0.20");
+
+    clock.advanceSeconds(10);
+    assertWindow("Apple", 0, "0");
+    assertEquals(3, saleManager.fetchSaleAggregateForProductType("Apple").getSaleCount());
+  }
+
+  @Test
+  public void testExpiredBucketsAreReused() throws SaleProcessingException {
+    for (int i = 0; i < 100; i++) {
+      saleManager.recordSale("Apple", BigDecimal.ONE);
+      clock.advanceSeconds(10);
+    }
+    saleManager.recordSale("Apple", BigDecimal.ONE);
+
+    assertWindow("Apple", 3, "3");
+  }
+
+  @Test
+  public void testAdjustmentsApplyToSalesInWindow() throws SaleProcessingException {
+    saleManager.recordSales("Apple", new BigDecimal("2"), 2);
+    clock.advanceSeconds(10);
+    saleManager.recordSale("Apple", new BigDecimal("1"));
+    saleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.ADD, new BigDecimal("0.5")));
+    clock.advanceSeconds(10);
+    saleManager.recordSale("Apple", new BigDecimal("3"));
+    saleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("2")));
+
+    assertWindow("Apple", 4, "19.0");
+
+    clock.advanceSeconds(10);
+    assertWindow("Apple", 2, "9.0");
+  }
+
+  @Test
+  public void testWindowMatchesRunningAggregateWithinWindow() throws SaleProcessingException {
+    saleManager.recordSales("Apple", new BigDecimal("0.125"), 3);
+    saleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.SUBTRACT, new BigDecimal("0.1")));
+    clock.advanceSeconds(5);
+    saleManager.recordSales("Apple", new BigDecimal("7.000"), 2);
+    saleManager.recordSaleAdjustment(new SaleAdjustment("Apple", SaleAdjustmentOperation.MULTIPLY, new BigDecimal("1.5")));
+
+    assertEquals(saleManager.fetchSaleAggregateForProductType("Apple"), saleWindowDao.fetchForProductType("Apple"));
+  }
+
+  @Test
+  public void testWindowIsClearedWithSales() throws SaleProcessingException {
+    saleManager.recordSales("Apple", new BigDecimal("1.5"), 2);
+    saleManager.clearSalesForProductType("Apple");
+
+    assertWindow("Apple", 0, "0");
+  }
+
+  @Test
+  public void testDisabledWindowIsNotRecorded() throws SaleProcessingException {
+    saleWindowDao.setEnabled(false);
+    saleManager.recordSales("Apple", new BigDecimal("1.5"), 2);
+
+    assertWindow("Apple", 0, "0");
+    assertEquals(1, saleManager.snapshotSaleReport().size());
+  }
+
+  @Test
+  public void testReportHasWindowSection() throws SaleProcessingException, IOException {
+    saleManager.recordSales("Apple", new BigDecimal("1.5"), 2);
+    clock.advanceSeconds(30);
+    saleManager.recordSale("Apple", new BigDecimal("0.20"));
+
+    StringWriter writer = new StringWriter();
+    saleManager.snapshotSaleReport().writeTo(writer);
+    String report = writer.toString();
+
+    assertTrue(report, report.contains("Total Sale Vale (last 30s)"));
+    assertTrue(report, report.contains("Apple\t\t:\t\t3\t\t:\t\t3.20"));
+    assertTrue(report, report.contains("Apple\t\t:\t\t1\t\t:\t\t0.20"));
+    assertEquals(2, saleManager.snapshotSaleReport().size());
+  }
+
+  private void assertWindow(String productType, long saleCount, String totalValue) {
+    SaleAggregate saleAggregate = saleWindowDao.fetchForProductType(productType);
+    assertEquals(saleCount, saleAggregate.getSaleCount());
+    assertEquals(new BigDecimal(totalValue), saleAggregate.getTotalValue());
+  }
+
+  /**
+   * Clock only moved on by the tests
+   */
+  private static final class ManualClock extends Clock {
+
+    private long millis = 1_000_000;
+
+    void advanceSeconds(long seconds) {
+      millis += seconds * 1000;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+  }
+}
@@ -27,7 +27,8 @@ public class SalesManagerUnitTests {
 
   private final SaleDao saleDao = Mockito.mock(SaleDao.class);
   private final SaleAdjustmentDao saleAdjustmentDao = Mockito.mock(SaleAdjustmentDao.class);
-  private final SaleManager saleManager = new SaleManager(saleDao, saleAdjustmentDao);
+  private final SaleManager saleManager = new SaleManagerBuilder()
+    .saleDao(saleDao).saleAdjustmentDao(saleAdjustmentDao).build();
 
   private final String TEST_PRODUCT_TYPE_CHIPS = "Chips";
   private final String TEST_PRODUCT_TYPE_ORANGE = "Orange";
@@ -55,7 +56,7 @@ public class SalesManagerUnitTests {
 
     saleManager.recordSale(TEST_PRODUCT_TYPE_CHIPS, TEST_SALE_VALUE);
 
-    Mockito.verify(saleDao, Mockito.times(1)).recordSale(TEST_PRODUCT_TYPE_CHIPS, TEST_SALE_VALUE);
+    Mockito.verify(saleDao, Mockito.times(1)).recordSales(TEST_PRODUCT_TYPE_CHIPS, TEST_SALE_VALUE, 1);
   }
 
   @Test(expected = SaleProcessingException.class)
@@ -0,0 +1,87 @@
+package com.example.demo.notifications;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link BatchMessageListenerContainer}
+ */
+@RunWith(JUnit4.class)
+public class BatchMessageListenerContainerUnitTests {
+
+  private final Session session = Mockito.mock(Session.class);
+  private final MessageConsumer consumer = Mockito.mock(MessageConsumer.class);
+  private final Message message1 = Mockito.mock(Message.class);
+  private final Message message2 = Mockito.mock(Message.class);
+  private final Message message3 = Mockito.mock(Message.class);
+
+  private final List<List<Message>> batches = new ArrayList<>();
+  private final BatchMessageListenerContainer container = new BatchMessageListenerContainer() {
+
+    //Invoker bookkeeping needs a running container
+    @Override
+    protected void messageReceived(Object invoker, Session session) {
+    }
+
+    @Override
+    protected void noMessageReceived(Object invoker, Session session) {
+    }
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    Mockito.when(session.getAcknowledgeMode()).thenReturn(Session.CLIENT_ACKNOWLEDGE);
+    container.setAcceptMessagesWhileStopping(true);
+    container.setBatchMessageListener(messages -> batches.add(new ArrayList<>(messages)));
+    container.setBatchSize(2);
+    container.setBatchTimeout(1000);
+  }
+
+  @Test
+  public void testBatchIsAcknowledgedOnce() throws JMSException {
+    Mockito.when(consumer.receive(Mockito.anyLong())).thenReturn(message1, message2, message3, null);
+
+    assertTrue(container.doReceiveAndExecute(this, session, consumer, null));
+    assertTrue(container.doReceiveAndExecute(this, session, consumer, null));
+
+    assertEquals(Arrays.asList(Arrays.asList(message1, message2), Arrays.asList(message3)), batches);
+    Mockito.verify(message1, Mockito.never()).acknowledge();
+    Mockito.verify(message2).acknowledge();
+    Mockito.verify(message3).acknowledge();
+  }
+
+  @Test
+  public void testNoMessageReceived() throws JMSException {
+    assertFalse(container.doReceiveAndExecute(this, session, consumer, null));
+
+    assertTrue(batches.isEmpty());
+  }
+
+  @Test
+  public void testFailedBatchIsNotAcknowledged() throws JMSException {
+    Mockito.when(consumer.receive(Mockito.anyLong())).thenReturn(message1, message2);
+    container.setBatchMessageListener(messages -> {
+      throw new IllegalStateException("Failed");
+    });
+
+    assertTrue(container.doReceiveAndExecute(this, session, consumer, null));
+
+    Mockito.verify(message2, Mockito.never()).acknowledge();
+    Mockito.verify(session).recover();
+  }
+}
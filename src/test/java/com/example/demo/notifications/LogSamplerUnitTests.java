@@ -0,0 +1,42 @@
+package com.example.demo.notifications;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link LogSampler}
+ */
+@RunWith(JUnit4.class)
+public class LogSamplerUnitTests {
+
+  @Test
+  public void testUnlimitedSamplerLogsEveryEntry() {
+    LogSampler logSampler = new LogSampler();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, logSampler.sample(0));
+    }
+  }
+
+  @Test
+  public void testLimitsEntriesPerSecondAndCountsTheRest() {
+    AtomicLong nanoTime = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(500));
+    LogSampler logSampler = new LogSampler(nanoTime::get);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i < 3 ? 0 : -1, logSampler.sample(3));
+    }
+
+    //Still the same second
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+    assertEquals(-1, logSampler.sample(3));
+
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertEquals(8, logSampler.sample(3));
+    assertEquals(0, logSampler.sample(3));
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.notifications;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link NotificationDeduplicator}
+ */
+@RunWith(JUnit4.class)
+public class NotificationDeduplicatorUnitTests {
+
+  @Test
+  public void testSkipsIdsSeenBefore() {
+    NotificationDeduplicator notificationDeduplicator = new NotificationDeduplicator(100);
+
+    assertTrue(notificationDeduplicator.add("ID:host-1-1:1:1:1:1"));
+    assertTrue(notificationDeduplicator.add("ID:host-1-1:1:1:1:2"));
+    assertFalse(notificationDeduplicator.add("ID:host-1-1:1:1:1:1"));
+    assertFalse(notificationDeduplicator.add("ID:host-1-1:1:1:1:2"));
+    assertTrue(notificationDeduplicator.add(""));
+    assertFalse(notificationDeduplicator.add(""));
+  }
+
+  @Test
+  public void testRemembersAtLeastCapacityIds() {
+    int capacity = 1000;
+    NotificationDeduplicator notificationDeduplicator = new NotificationDeduplicator(capacity);
+
+    for (int i = 0; i < 10 * capacity; i++) {
+      assertTrue(notificationDeduplicator.add("ID:" + i));
+      //The last capacity ids, this one included, are remembered
+      assertFalse(notificationDeduplicator.add("ID:" + i));
+      assertFalse(notificationDeduplicator.add("ID:" + Math.max(0, i - capacity + 1)));
+    }
+  }
+
+  @Test
+  public void testForgetsIdsOnceTwiceCapacityIdsFollow() {
+    int capacity = 1000;
+    NotificationDeduplicator notificationDeduplicator = new NotificationDeduplicator(capacity);
+
+    for (int i = 0; i <= 2 * capacity; i++) {
+      assertTrue(notificationDeduplicator.add("ID:" + i));
+    }
+    assertTrue(notificationDeduplicator.add("ID:0"));
+    assertTrue(notificationDeduplicator.add("ID:" + (capacity - 1)));
+    assertFalse(notificationDeduplicator.add("ID:" + capacity));
+    assertFalse(notificationDeduplicator.add("ID:" + 2 * capacity));
+  }
+
+  @Test
+  public void testForgetsRemovedIds() {
+    int capacity = 1000;
+    NotificationDeduplicator notificationDeduplicator = new NotificationDeduplicator(capacity);
+    for (int i = 0; i < capacity + capacity / 2; i++) {
+      notificationDeduplicator.add("ID:" + i);
+    }
+
+    //Ids of both tables, the others still being found past the slots freed
+    for (int i = 0; i < capacity + capacity / 2; i += 3) {
+      notificationDeduplicator.remove("ID:" + i);
+    }
+    notificationDeduplicator.remove("ID:unknown");
+    for (int i = 0; i < capacity + capacity / 2; i++) {
+      assertEquals("ID:" + i, i % 3 == 0, notificationDeduplicator.add("ID:" + i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsInvalidCapacity() {
+    new NotificationDeduplicator(0);
+  }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.notifications;
+
+import com.example.demo.data.Sale;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the batch path of {@link SaleNotificationProcessor}
+ */
+@RunWith(JUnit4.class)
+public class SaleNotificationBatchUnitTests {
+
+  private final SaleManager serialSaleManager = Mockito.spy(new SaleManagerBuilder().build());
+  private final JmsListenerEndpointRegistry serialRegistry = Mockito.mock(JmsListenerEndpointRegistry.class);
+  private final SaleNotificationProcessor serialProcessor = new SaleNotificationProcessorBuilder(serialSaleManager)
+    .jmsListenerEndpointRegistry(serialRegistry).build();
+
+  private final SaleManager batchSaleManager = Mockito.spy(new SaleManagerBuilder().build());
+  private final JmsListenerEndpointRegistry batchRegistry = Mockito.mock(JmsListenerEndpointRegistry.class);
+  private final SaleNotificationProcessor batchProcessor = new SaleNotificationProcessorBuilder(batchSaleManager)
+    .jmsListenerEndpointRegistry(batchRegistry).build();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips", "Dates"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "-2.10", "7.000"};
+  private final String[] TEST_OPERATIONS = {"ADD", "SUBTRACT", "MULTIPLY", "INVALID"};
+
+  private final int reportFrequency = 10;
+  private final int messageThreshold = 200;
+
+  private final List<Integer> serialReportedSales = new ArrayList<>();
+  private final List<Integer> batchReportedSales = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    for (SaleNotificationProcessor processor : new SaleNotificationProcessor[]{serialProcessor, batchProcessor}) {
+      processor.setReportFrequency(reportFrequency);
+      processor.setMessageThreshold(messageThreshold);
+    }
+
+    //Record how many sales each report saw
+    Mockito.doAnswer(invocation -> serialReportedSales.add(countSales(serialSaleManager)))
+      .when(serialSaleManager).logSaleReport();
+    Mockito.doAnswer(invocation -> batchReportedSales.add(countSales(batchSaleManager)))
+      .when(batchSaleManager).logSaleReport();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    batchProcessor.stopPartitions();
+  }
+
+  @Test
+  public void testBatchMatchesSerial() {
+    assertBatchMatchesSerial();
+  }
+
+  @Test
+  public void testPartitionedBatchMatchesSerial() {
+    batchProcessor.setPartitions(3);
+    batchProcessor.startPartitions();
+
+    assertBatchMatchesSerial();
+  }
+
+  @Test
+  public void testBatchStopsAtThreshold() throws Exception {
+    List<SaleNotification> saleNotifications = new ArrayList<>();
+    for (int i = 0; i < messageThreshold + 15; i++) {
+      saleNotifications.add(new SaleNotification(TEST_PRODUCT_TYPES[i % TEST_PRODUCT_TYPES.length], "1", 1));
+    }
+
+    batchProcessor.receiveSaleNotifications(saleNotifications);
+
+    assertEquals(messageThreshold, countSales(batchSaleManager));
+    Mockito.verify(batchSaleManager, Mockito.times(messageThreshold / reportFrequency)).logSaleReport();
+    Mockito.verify(batchSaleManager).logSaleAdjustmentReport();
+    Mockito.verify(batchRegistry).stop();
+  }
+
+  private void assertBatchMatchesSerial() {
+    Random random = new Random(5);
+
+    int received = 0;
+    while (received < messageThreshold + 40) {
+      List<SaleNotification> saleNotifications = new ArrayList<>();
+      for (int i = 1 + random.nextInt(25); i > 0; i--, received++) {
+        SaleNotification saleNotification = randomSaleNotification(random);
+        serialProcessor.receiveSaleNotification(saleNotification);
+        saleNotifications.add(saleNotification);
+      }
+      batchProcessor.receiveSaleNotifications(saleNotifications);
+    }
+
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertEquals(productType, values(serialSaleManager, productType), values(batchSaleManager, productType));
+      assertEquals(productType, serialSaleManager.fetchSaleAdjustmentForProductType(productType).size(),
+        batchSaleManager.fetchSaleAdjustmentForProductType(productType).size());
+    }
+
+    assertEquals(messageThreshold / reportFrequency, batchReportedSales.size());
+    assertEquals(serialReportedSales, batchReportedSales);
+    Mockito.verify(batchSaleManager).logSaleAdjustmentReport();
+    Mockito.verify(batchRegistry).stop();
+  }
+
+  private SaleNotification randomSaleNotification(Random random) {
+    String productType = random.nextInt(30) == 0 ? "" : TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+    String saleValue = TEST_VALUES[random.nextInt(TEST_VALUES.length)];
+    int noOfOccurrences = random.nextInt(4);
+
+    if (random.nextInt(3) == 0) {
+      return new SaleNotification(productType, saleValue, noOfOccurrences,
+        TEST_OPERATIONS[random.nextInt(TEST_OPERATIONS.length)], TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+    }
+    return new SaleNotification(productType, saleValue, noOfOccurrences);
+  }
+
+  private List<BigDecimal> values(SaleManager saleManager, String productType) {
+    return saleManager.fetchSalesForProductType(productType).stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+
+  private int countSales(SaleManager saleManager) {
+    int count = 0;
+    for (String productType : TEST_PRODUCT_TYPES) {
+      count += saleManager.fetchSalesForProductType(productType).size();
+    }
+    return count;
+  }
+}
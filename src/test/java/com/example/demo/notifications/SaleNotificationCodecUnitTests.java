@@ -0,0 +1,100 @@
+package com.example.demo.notifications;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SaleNotificationCodec}
+ */
+@RunWith(JUnit4.class)
+public class SaleNotificationCodecUnitTests {
+
+  private final SaleNotificationCodec codec = new SaleNotificationCodec(Arrays.asList("Apple", "Banana", "Orange"));
+
+  private final SaleNotification[] TEST_NOTIFICATIONS = {
+    new SaleNotification("Apple", ".20", 3, "ADD", ".10"),
+    new SaleNotification("Orange", "-1E+3", -7, "MULTIPLY", "2"),
+    new SaleNotification("Pear", "12345678901234567890.5", Integer.MAX_VALUE, "DIVIDE", "abc"),
+    new SaleNotification("Banana", "0", Integer.MIN_VALUE, "SUBTRACT", null),
+    new SaleNotification(null, null, 0, null, null),
+    new SaleNotification("é", "", 1, "", "1.")
+  };
+
+  @Test
+  public void testRoundTripsDecimalValues() {
+    for (SaleNotification saleNotification : TEST_NOTIFICATIONS) {
+      byte[] bytes = codec.encode(saleNotification);
+      SaleNotification decoded = codec.decode(bytes, 0, bytes.length);
+
+      assertEquals(saleNotification.getProductType(), decoded.getProductType());
+      assertSameDecimal(saleNotification.getSaleValue(), decoded.getSaleValue());
+      assertEquals(saleNotification.getNoOfOccurrences(), decoded.getNoOfOccurrences());
+      assertEquals(saleNotification.getAdjustmentOperation(), decoded.getAdjustmentOperation());
+      assertSameDecimal(saleNotification.getAdjustmentValue(), decoded.getAdjustmentValue());
+    }
+  }
+
+  @Test
+  public void testDecodesWithinBuffer() {
+    byte[] bytes = codec.encode(TEST_NOTIFICATIONS[0]);
+    byte[] buffer = new byte[bytes.length + 8];
+    System.arraycopy(bytes, 0, buffer, 4, bytes.length);
+
+    assertEquals("Apple", codec.decode(buffer, 4, bytes.length).getProductType());
+  }
+
+  @Test
+  public void testInternsDictionaryProductTypes() {
+    byte[] bytes = codec.encode(new SaleNotification(new String("Apple"), "1", 1, null, null));
+
+    assertSame(codec.decode(bytes, 0, bytes.length).getProductType(), codec.decode(bytes, 0, bytes.length).getProductType());
+  }
+
+  @Test
+  public void testSmallerThanJson() {
+    byte[] bytes = codec.encode(TEST_NOTIFICATIONS[0]);
+
+    //version, kinds, product id, 2 x (scale, unscaled), occurrences and operation
+    assertEquals(9, bytes.length);
+    assertTrue(bytes.length * 10 < ("{\"productType\":\"Apple\",\"saleValue\":\".20\",\"noOfOccurrences\":3,"
+      + "\"adjustmentOperation\":\"ADD\",\"adjustmentValue\":\".10\"}").length());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsUnknownVersion() {
+    codec.decode(new byte[]{9, 0, 0}, 0, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsUnknownProductTypeId() {
+    codec.decode(new byte[]{SaleNotificationCodec.VERSION, 1, 5, 0}, 0, 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsTruncatedNotifications() {
+    byte[] bytes = codec.encode(TEST_NOTIFICATIONS[2]);
+
+    codec.decode(bytes, 0, bytes.length - 1);
+  }
+
+  private static void assertSameDecimal(String expected, String actual) {
+    if (expected == null) {
+      assertEquals(null, actual);
+      return;
+    }
+    try {
+      BigDecimal decimal = new BigDecimal(expected);
+      assertEquals(decimal, new BigDecimal(actual));
+    } catch (NumberFormatException e) {
+      assertEquals(expected, actual);
+    }
+  }
+}
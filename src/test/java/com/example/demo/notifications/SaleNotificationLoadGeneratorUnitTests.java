@@ -0,0 +1,126 @@
+package com.example.demo.notifications;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SaleNotificationLoadGenerator} and {@link SaleNotificationLatency}
+ */
+@RunWith(JUnit4.class)
+public class SaleNotificationLoadGeneratorUnitTests {
+
+  private static final int NOTIFICATIONS = 100000;
+
+  private final SaleNotificationLoadGenerator loadGenerator = new SaleNotificationLoadGenerator(
+    Mockito.mock(MessageConverter.class), new BrokerTuning(), new SaleNotificationLatency());
+
+  @Test
+  public void testUniformProductTypes() {
+    loadGenerator.setProductTypes(4);
+    loadGenerator.setSkew(0);
+    int[] counts = countProductTypes(4);
+    for (int count : counts) {
+      assertEquals(NOTIFICATIONS / 4, count, NOTIFICATIONS / 100);
+    }
+  }
+
+  @Test
+  public void testZipfProductTypes() {
+    loadGenerator.setProductTypes(10);
+    loadGenerator.setSkew(1);
+    int[] counts = countProductTypes(10);
+    //Frequencies of 1 / rank over the harmonic number of 10
+    double harmonic = 0;
+    for (int i = 1; i <= 10; i++) {
+      harmonic += 1.0 / i;
+    }
+    for (int i = 0; i < 10; i++) {
+      assertEquals(NOTIFICATIONS / (i + 1) / harmonic, counts[i], NOTIFICATIONS / 100);
+    }
+  }
+
+  @Test
+  public void testAdjustmentRatio() {
+    loadGenerator.setAdjustmentRatio(0.25);
+    SaleNotificationLoadGenerator.NotificationMix notificationMix = loadGenerator.newNotificationMix();
+    SplittableRandom random = new SplittableRandom(1);
+    int adjustments = 0;
+    for (int i = 0; i < NOTIFICATIONS; i++) {
+      SaleNotification saleNotification = notificationMix.next(random);
+      assertTrue(new BigDecimal(saleNotification.getSaleValue()).signum() > 0);
+      if (saleNotification.getAdjustmentOperation() != null) {
+        SaleAdjustmentOperation.valueOf(saleNotification.getAdjustmentOperation());
+        new BigDecimal(saleNotification.getAdjustmentValue());
+        adjustments++;
+      }
+    }
+    assertEquals(NOTIFICATIONS / 4, adjustments, NOTIFICATIONS / 100);
+  }
+
+  @Test
+  public void testSingleOccurrences() {
+    loadGenerator.setAdjustmentRatio(0);
+    SaleNotificationLoadGenerator.NotificationMix notificationMix = loadGenerator.newNotificationMix();
+    SplittableRandom random = new SplittableRandom(1);
+    for (int i = 0; i < 1000; i++) {
+      SaleNotification saleNotification = notificationMix.next(random);
+      assertEquals(1, saleNotification.getNoOfOccurrences());
+      assertNull(saleNotification.getAdjustmentOperation());
+    }
+  }
+
+  @Test
+  public void testMeanOccurrences() {
+    loadGenerator.setMeanOccurrences(3);
+    SaleNotificationLoadGenerator.NotificationMix notificationMix = loadGenerator.newNotificationMix();
+    SplittableRandom random = new SplittableRandom(1);
+    long occurrences = 0;
+    for (int i = 0; i < NOTIFICATIONS; i++) {
+      int noOfOccurrences = notificationMix.next(random).getNoOfOccurrences();
+      assertTrue(noOfOccurrences >= 1);
+      occurrences += noOfOccurrences;
+    }
+    assertEquals(3.0, (double) occurrences / NOTIFICATIONS, 0.05);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsMeanOccurrencesBelowOne() {
+    loadGenerator.setMeanOccurrences(0.5);
+    loadGenerator.newNotificationMix();
+  }
+
+  @Test
+  public void testLatencyOfNotificationsSent() {
+    SaleNotificationLatency saleNotificationLatency = new SaleNotificationLatency();
+    saleNotificationLatency.recordProcessed(null);
+    saleNotificationLatency.recordProcessed(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+    assertEquals(1, saleNotificationLatency.getProcessed());
+
+    Histogram interval = saleNotificationLatency.getIntervalHistogram();
+    assertEquals(1, interval.getTotalCount());
+    assertTrue(interval.getMaxValue() >= TimeUnit.MILLISECONDS.toMicros(5));
+    assertEquals(0, saleNotificationLatency.getIntervalHistogram().getTotalCount());
+  }
+
+  private int[] countProductTypes(int productTypes) {
+    SaleNotificationLoadGenerator.NotificationMix notificationMix = loadGenerator.newNotificationMix();
+    SplittableRandom random = new SplittableRandom(1);
+    int[] counts = new int[productTypes];
+    for (int i = 0; i < NOTIFICATIONS; i++) {
+      counts[Integer.parseInt(notificationMix.next(random).getProductType().substring("Product".length()))]++;
+    }
+    return counts;
+  }
+}
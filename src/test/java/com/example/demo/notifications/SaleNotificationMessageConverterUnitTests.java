@@ -0,0 +1,190 @@
+package com.example.demo.notifications;
+
+import com.example.demo.managers.SaleMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageType;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SaleNotificationMessageConverter}
+ */
+@RunWith(JUnit4.class)
+public class SaleNotificationMessageConverterUnitTests {
+
+  private final String TYPE_ID_PROPERTY = "_type";
+
+  private final MappingJackson2MessageConverter jacksonMessageConverter = new MappingJackson2MessageConverter();
+  private final SaleNotificationMessageConverter messageConverter = new SaleNotificationMessageConverter(jacksonMessageConverter, TYPE_ID_PROPERTY);
+  private final SaleNotificationCodec codec = new SaleNotificationCodec(Arrays.asList("Apple", "Banana"));
+  private final SaleNotificationMessageConverter binaryMessageConverter = new SaleNotificationMessageConverter(
+    jacksonMessageConverter, TYPE_ID_PROPERTY, codec, SaleNotificationFormat.BINARY);
+  private final Session session = Mockito.mock(Session.class);
+
+  private final String[] TEST_JSON = {
+    "{\"productType\":\"Apple\",\"saleValue\":\".20\",\"noOfOccurrences\":3,\"adjustmentOperation\":\"ADD\",\"adjustmentValue\":\".10\"}",
+    "{\"productType\":\"Apple\",\"saleValue\":0.20}",
+    "{\"saleValue\":\"1\",\"noOfOccurrences\":\"7\",\"unknown\":{\"nested\":[1,2,{\"a\":null}]},\"productType\":\"Pear\"}",
+    "{\"productType\":null,\"saleValue\":\"\\u00e9\",\"noOfOccurrences\":null,\"adjustmentOperation\":null}",
+    "{\"productType\":\"Fig\",\"noOfOccurrences\":2.0}",
+    "{}"
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    jacksonMessageConverter.setTargetType(MessageType.TEXT);
+    jacksonMessageConverter.setTypeIdPropertyName(TYPE_ID_PROPERTY);
+    Mockito.when(session.createTextMessage(Mockito.anyString())).thenAnswer(invocation -> {
+      ActiveMQTextMessage message = new ActiveMQTextMessage();
+      message.setText(invocation.getArgument(0));
+      return message;
+    });
+    Mockito.when(session.createBytesMessage()).thenAnswer(invocation -> new ActiveMQBytesMessage());
+  }
+
+  @Test
+  public void testReadsTextMessagesLikeDatabinding() throws JMSException {
+    for (String json : TEST_JSON) {
+      assertSameNotification(json, (SaleNotification) jacksonMessageConverter.fromMessage(textMessage(json)),
+        (SaleNotification) messageConverter.fromMessage(textMessage(json)));
+    }
+  }
+
+  @Test
+  public void testReadsBytesMessages() throws JMSException {
+    for (String json : TEST_JSON) {
+      assertSameNotification(json, (SaleNotification) jacksonMessageConverter.fromMessage(textMessage(json)),
+        (SaleNotification) messageConverter.fromMessage(bytesMessage(json)));
+    }
+  }
+
+  @Test
+  public void testWritesMessagesDatabindingReads() throws JMSException {
+    SaleNotification saleNotification = new SaleNotification("Apple", ".20", 3, "MULTIPLY", "2");
+
+    Message message = messageConverter.toMessage(saleNotification, session);
+
+    assertTrue(message instanceof TextMessage);
+    assertEquals(SaleNotification.class.getName(), message.getStringProperty(TYPE_ID_PROPERTY));
+    assertSameNotification("written", saleNotification, (SaleNotification) jacksonMessageConverter.fromMessage(message));
+  }
+
+  @Test
+  public void testDelegatesOtherTypes() throws JMSException {
+    Map<String, String> payload = Collections.singletonMap("key", "value");
+
+    Message message = messageConverter.toMessage(payload, session);
+
+    assertEquals(payload, messageConverter.fromMessage(message));
+  }
+
+  @Test
+  public void testWritesBinaryMessagesEveryFormatReads() throws JMSException {
+    SaleNotification saleNotification = new SaleNotification("Apple", "0.20", 3, "MULTIPLY", "2");
+    SaleNotificationMessageConverter jsonMessageConverter = new SaleNotificationMessageConverter(
+      jacksonMessageConverter, TYPE_ID_PROPERTY, codec, SaleNotificationFormat.JSON);
+
+    BytesMessage message = (BytesMessage) binaryMessageConverter.toMessage(saleNotification, session);
+    message.reset();
+
+    assertEquals(SaleNotification.class.getName(), message.getStringProperty(TYPE_ID_PROPERTY));
+    assertEquals(SaleNotificationFormat.BINARY.name(), message.getStringProperty(SaleNotificationMessageConverter.FORMAT_PROPERTY));
+    assertSameNotification("binary", saleNotification, (SaleNotification) jsonMessageConverter.fromMessage(message));
+  }
+
+  @Test
+  public void testBinaryFormatStillReadsJson() throws JMSException {
+    for (String json : TEST_JSON) {
+      assertSameNotification(json, (SaleNotification) jacksonMessageConverter.fromMessage(textMessage(json)),
+        (SaleNotification) binaryMessageConverter.fromMessage(bytesMessage(json)));
+    }
+  }
+
+  @Test
+  public void testMetersReadsAndFailures() throws JMSException {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SaleMetrics saleMetrics = new SaleMetrics(meterRegistry);
+    saleMetrics.setEnabled(true);
+    saleMetrics.register();
+    SaleNotificationMessageConverter meteredMessageConverter = new SaleNotificationMessageConverter(jacksonMessageConverter,
+      TYPE_ID_PROPERTY, codec, SaleNotificationFormat.JSON, saleMetrics);
+
+    Message message = textMessage(TEST_JSON[0]);
+    message.setJMSTimestamp(System.currentTimeMillis() - 1000);
+    meteredMessageConverter.fromMessage(message);
+    meteredMessageConverter.fromMessage(textMessage(TEST_JSON[1]));
+    try {
+      meteredMessageConverter.fromMessage(textMessage("[]"));
+    } catch (MessageConversionException e) {
+      //Counted as failed
+    }
+
+    assertEquals(2, meterRegistry.get("sale.notifications.stage").tag("stage", "deserialize").timer().count());
+    assertEquals(1, meterRegistry.get("sale.notifications.failed").counter().count(), 0);
+    assertEquals(1, meterRegistry.get("sale.notifications.lag").timer().count());
+    assertTrue(meterRegistry.get("sale.notifications.lag").timer().totalTime(TimeUnit.MILLISECONDS) >= 1000);
+  }
+
+  @Test(expected = MessageConversionException.class)
+  public void testRejectsMalformedBinary() throws JMSException {
+    ActiveMQBytesMessage message = new ActiveMQBytesMessage();
+    message.writeBytes(new byte[]{SaleNotificationCodec.VERSION, 1, 9});
+    message.setStringProperty(SaleNotificationMessageConverter.FORMAT_PROPERTY, SaleNotificationFormat.BINARY.name());
+    message.reset();
+
+    binaryMessageConverter.fromMessage(message);
+  }
+
+  @Test(expected = MessageConversionException.class)
+  public void testRejectsMalformedJson() throws JMSException {
+    messageConverter.fromMessage(textMessage("{\"productType\":\"Apple\""));
+  }
+
+  @Test(expected = MessageConversionException.class)
+  public void testRejectsNonObjectJson() throws JMSException {
+    messageConverter.fromMessage(textMessage("[]"));
+  }
+
+  private Message textMessage(String json) throws JMSException {
+    ActiveMQTextMessage message = new ActiveMQTextMessage();
+    message.setText(json);
+    message.setStringProperty(TYPE_ID_PROPERTY, SaleNotification.class.getName());
+    return message;
+  }
+
+  private Message bytesMessage(String json) throws JMSException {
+    ActiveMQBytesMessage message = new ActiveMQBytesMessage();
+    message.writeBytes(json.getBytes(StandardCharsets.UTF_8));
+    message.reset();
+    return message;
+  }
+
+  private void assertSameNotification(String json, SaleNotification expected, SaleNotification actual) {
+    assertEquals(json, expected.getProductType(), actual.getProductType());
+    assertEquals(json, expected.getSaleValue(), actual.getSaleValue());
+    assertEquals(json, expected.getNoOfOccurrences(), actual.getNoOfOccurrences());
+    assertEquals(json, expected.getAdjustmentOperation(), actual.getAdjustmentOperation());
+    assertEquals(json, expected.getAdjustmentValue(), actual.getAdjustmentValue());
+  }
+}
@@ -0,0 +1,256 @@
+package com.example.demo.notifications;
+
+import com.example.demo.data.Sale;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleManagerBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the partitioned mode of {@link SaleNotificationProcessor}
+ */
+@RunWith(JUnit4.class)
+public class SaleNotificationPartitionUnitTests {
+
+  private final SaleManager serialSaleManager = Mockito.spy(new SaleManagerBuilder().build());
+  private final JmsListenerEndpointRegistry serialRegistry = Mockito.mock(JmsListenerEndpointRegistry.class);
+  private final SaleNotificationProcessor serialProcessor = new SaleNotificationProcessorBuilder(serialSaleManager)
+    .jmsListenerEndpointRegistry(serialRegistry).build();
+
+  private final SaleManager partitionedSaleManager = Mockito.spy(new SaleManagerBuilder().build());
+  private final JmsListenerEndpointRegistry partitionedRegistry = Mockito.mock(JmsListenerEndpointRegistry.class);
+  private final SaleNotificationProcessor partitionedProcessor = new SaleNotificationProcessorBuilder(
+    partitionedSaleManager).jmsListenerEndpointRegistry(partitionedRegistry).build();
+
+  private final String[] TEST_PRODUCT_TYPES = {"Apple", "Banana", "Chips", "Dates", "Eggs", "Figs", "Grapes"};
+  private final String[] TEST_VALUES = {".20", "1.5", "3", "0.125", "-2.10", "7.000"};
+  private final String[] TEST_OPERATIONS = {"ADD", "SUBTRACT", "MULTIPLY"};
+
+  private final int reportFrequency = 25;
+  private final int messageThreshold = 300;
+
+  private final List<Integer> serialReportedSales = new ArrayList<>();
+  private final List<Integer> partitionedReportedSales = new ArrayList<>();
+  private final CountDownLatch partitionRelease = new CountDownLatch(1);
+
+  @Before
+  public void setUp() throws Exception {
+    for (SaleNotificationProcessor processor : new SaleNotificationProcessor[]{serialProcessor, partitionedProcessor}) {
+      processor.setReportFrequency(reportFrequency);
+      processor.setMessageThreshold(messageThreshold);
+    }
+    partitionedProcessor.setPartitions(4);
+    partitionedProcessor.startPartitions();
+
+    //Record how many sales each report saw
+    Mockito.doAnswer(invocation -> serialReportedSales.add(countSales(serialSaleManager)))
+      .when(serialSaleManager).logSaleReport();
+    Mockito.doAnswer(invocation -> partitionedReportedSales.add(countSales(partitionedSaleManager)))
+      .when(partitionedSaleManager).logSaleReport();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    partitionRelease.countDown();
+    partitionedProcessor.stopPartitions();
+  }
+
+  @Test
+  public void testPartitionedMatchesSerial() throws Exception {
+    Random random = new Random(11);
+
+    for (int i = 0; i < messageThreshold + 50; i++) {
+      SaleNotification saleNotification = randomSaleNotification(random);
+      serialProcessor.receiveSaleNotification(saleNotification);
+      partitionedProcessor.receiveSaleNotification(saleNotification);
+    }
+    partitionedProcessor.stopPartitions();
+
+    for (String productType : TEST_PRODUCT_TYPES) {
+      assertEquals(productType, values(serialSaleManager, productType), values(partitionedSaleManager, productType));
+      assertEquals(productType, serialSaleManager.fetchSaleAdjustmentForProductType(productType).size(),
+        partitionedSaleManager.fetchSaleAdjustmentForProductType(productType).size());
+    }
+
+    assertEquals(messageThreshold / reportFrequency, partitionedReportedSales.size());
+    assertEquals(serialReportedSales, partitionedReportedSales);
+    Mockito.verify(partitionedSaleManager).logSaleAdjustmentReport();
+    Mockito.verify(partitionedRegistry).stop();
+  }
+
+  @Test
+  public void testPartitionedStopsAtThreshold() throws Exception {
+
+    for (int i = 0; i < messageThreshold + 50; i++) {
+      partitionedProcessor.receiveSaleNotification(
+        new SaleNotification(TEST_PRODUCT_TYPES[i % TEST_PRODUCT_TYPES.length], "1", 1));
+    }
+    partitionedProcessor.stopPartitions();
+
+    assertEquals(messageThreshold, countSales(partitionedSaleManager));
+    Mockito.verify(partitionedSaleManager, Mockito.times(messageThreshold))
+      .recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
+    Mockito.verify(partitionedSaleManager, Mockito.times(messageThreshold / reportFrequency)).logSaleReport();
+    Mockito.verify(partitionedRegistry).stop();
+  }
+
+  @Test
+  public void testNotificationFailingBeforeHandedOverIsRecordedWhenRedelivered() throws Exception {
+    fillPartitionQueue();
+
+    //Interrupted while waiting for room in the queue, as on shutdown
+    Thread.currentThread().interrupt();
+    try {
+      partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:3");
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertTrue(Thread.interrupted());
+    }
+    partitionRelease.countDown();
+
+    partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:2");
+    partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:3");
+    partitionedProcessor.stopPartitions();
+
+    assertEquals(3, partitionedSaleManager.fetchSalesForProductType("Apple").size());
+  }
+
+  @Test
+  public void testNotificationFailingBeforeHandedOverIsCountedWhenRedelivered() throws Exception {
+    partitionedProcessor.setReportFrequency(3);
+    partitionedProcessor.setMessageThreshold(3);
+    fillPartitionQueue();
+
+    Thread.currentThread().interrupt();
+    try {
+      partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:3");
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertTrue(Thread.interrupted());
+    }
+    Mockito.verify(partitionedSaleManager, Mockito.never()).logSaleReport();
+    partitionRelease.countDown();
+
+    partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:3");
+    partitionedProcessor.stopPartitions();
+
+    assertEquals(Collections.singletonList(3), partitionedReportedSales);
+    Mockito.verify(partitionedSaleManager).logSaleAdjustmentReport();
+    Mockito.verify(partitionedRegistry).stop();
+  }
+
+  @Test
+  public void testBatchFailingBeforeHandedOverIsRecordedWhenRedelivered() throws Exception {
+    fillPartitionQueue();
+    List<SaleNotification> saleNotifications = Arrays.asList(new SaleNotification("Apple", "1", 1),
+      new SaleNotification("Banana", "1", 1));
+
+    Thread.currentThread().interrupt();
+    try {
+      partitionedProcessor.receiveSaleNotifications(saleNotifications, Arrays.asList("ID:3", "ID:4"));
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertTrue(Thread.interrupted());
+    }
+    partitionRelease.countDown();
+
+    partitionedProcessor.receiveSaleNotifications(saleNotifications, Arrays.asList("ID:3", "ID:4"));
+    partitionedProcessor.stopPartitions();
+
+    assertEquals(3, partitionedSaleManager.fetchSalesForProductType("Apple").size());
+    assertEquals(1, partitionedSaleManager.fetchSalesForProductType("Banana").size());
+  }
+
+  @Test
+  public void testBatchFailingBeforeHandedOverIsCountedWhenRedelivered() throws Exception {
+    partitionedProcessor.setReportFrequency(4);
+    partitionedProcessor.setMessageThreshold(4);
+    fillPartitionQueue();
+    List<SaleNotification> saleNotifications = Arrays.asList(new SaleNotification("Apple", "1", 1),
+      new SaleNotification("Banana", "1", 1));
+
+    Thread.currentThread().interrupt();
+    try {
+      partitionedProcessor.receiveSaleNotifications(saleNotifications, Arrays.asList("ID:3", "ID:4"));
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertTrue(Thread.interrupted());
+    }
+    Mockito.verify(partitionedSaleManager, Mockito.never()).logSaleReport();
+    partitionRelease.countDown();
+
+    partitionedProcessor.receiveSaleNotifications(saleNotifications, Arrays.asList("ID:3", "ID:4"));
+    partitionedProcessor.stopPartitions();
+
+    assertEquals(Collections.singletonList(4), partitionedReportedSales);
+    Mockito.verify(partitionedSaleManager).logSaleAdjustmentReport();
+    Mockito.verify(partitionedRegistry).stop();
+  }
+
+  /**
+   * Restarts the partitioned processor with a single partition, deduplicating, and leaves that partition recording a
+   * notification until {@link #partitionRelease} while another waits in its full queue
+   */
+  private void fillPartitionQueue() throws Exception {
+    partitionedProcessor.stopPartitions();
+    partitionedProcessor.setPartitions(1);
+    partitionedProcessor.setPartitionQueueCapacity(1);
+    partitionedProcessor.startPartitions();
+    partitionedProcessor.setDeduplicationEnabled(true);
+    partitionedProcessor.startDeduplication();
+
+    CountDownLatch recording = new CountDownLatch(1);
+    Mockito.doAnswer(invocation -> {
+      recording.countDown();
+      partitionRelease.await();
+      return invocation.callRealMethod();
+    }).when(partitionedSaleManager).recordSales(Mockito.eq("Apple"), Mockito.any(), Mockito.anyInt());
+
+    partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:1");
+    recording.await();
+    partitionedProcessor.receiveSaleNotification(new SaleNotification("Apple", "1", 1), "ID:2");
+  }
+
+  private SaleNotification randomSaleNotification(Random random) {
+    String productType = TEST_PRODUCT_TYPES[random.nextInt(TEST_PRODUCT_TYPES.length)];
+    String saleValue = TEST_VALUES[random.nextInt(TEST_VALUES.length)];
+    int noOfOccurrences = 1 + random.nextInt(3);
+
+    if (random.nextInt(4) == 0) {
+      return new SaleNotification(productType, saleValue, noOfOccurrences,
+        TEST_OPERATIONS[random.nextInt(TEST_OPERATIONS.length)], TEST_VALUES[random.nextInt(TEST_VALUES.length)]);
+    }
+    return new SaleNotification(productType, saleValue, noOfOccurrences);
+  }
+
+  private List<BigDecimal> values(SaleManager saleManager, String productType) {
+    return saleManager.fetchSalesForProductType(productType).stream().map(Sale::getValue).collect(Collectors.toList());
+  }
+
+  private int countSales(SaleManager saleManager) {
+    int count = 0;
+    for (String productType : TEST_PRODUCT_TYPES) {
+      count += saleManager.fetchSalesForProductType(productType).size();
+    }
+    return count;
+  }
+}
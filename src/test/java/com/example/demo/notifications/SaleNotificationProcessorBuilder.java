@@ -0,0 +1,56 @@
+package com.example.demo.notifications;
+
+import com.example.demo.dao.ProductTypeDictionary;
+import com.example.demo.managers.SaleManager;
+import com.example.demo.managers.SaleMetrics;
+import com.example.demo.managers.SaleReporter;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+
+/**
+ * Builds {@link SaleNotificationProcessor}s over a {@link SaleManager} for tests and benchmarks, with new collaborators
+ * for whatever is not given and reports logged through a {@link SaleReporter} of the same {@link SaleManager}
+ */
+public final class SaleNotificationProcessorBuilder {
+
+  private final SaleManager saleManager;
+  private JmsListenerEndpointRegistry jmsListenerEndpointRegistry = new JmsListenerEndpointRegistry();
+  private ProductTypeDictionary productTypeDictionary = new ProductTypeDictionary();
+  private SaleReporter saleReporter;
+  private SaleMetrics saleMetrics = new SaleMetrics();
+  private SaleNotificationLatency saleNotificationLatency = new SaleNotificationLatency();
+
+  public SaleNotificationProcessorBuilder(SaleManager saleManager) {
+    this.saleManager = saleManager;
+  }
+
+  public SaleNotificationProcessorBuilder jmsListenerEndpointRegistry(
+    JmsListenerEndpointRegistry jmsListenerEndpointRegistry) {
+    this.jmsListenerEndpointRegistry = jmsListenerEndpointRegistry;
+    return this;
+  }
+
+  public SaleNotificationProcessorBuilder productTypeDictionary(ProductTypeDictionary productTypeDictionary) {
+    this.productTypeDictionary = productTypeDictionary;
+    return this;
+  }
+
+  public SaleNotificationProcessorBuilder saleReporter(SaleReporter saleReporter) {
+    this.saleReporter = saleReporter;
+    return this;
+  }
+
+  public SaleNotificationProcessorBuilder saleMetrics(SaleMetrics saleMetrics) {
+    this.saleMetrics = saleMetrics;
+    return this;
+  }
+
+  public SaleNotificationProcessorBuilder saleNotificationLatency(SaleNotificationLatency saleNotificationLatency) {
+    this.saleNotificationLatency = saleNotificationLatency;
+    return this;
+  }
+
+  public SaleNotificationProcessor build() {
+    return new SaleNotificationProcessor(saleManager, jmsListenerEndpointRegistry, productTypeDictionary,
+      saleReporter != null ? saleReporter : new SaleReporter(saleManager), saleMetrics, saleNotificationLatency);
+  }
+}
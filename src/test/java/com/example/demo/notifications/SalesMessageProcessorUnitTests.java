@@ -1,5 +1,9 @@
 package com.example.demo.notifications;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.example.demo.exceptions.SaleProcessingException;
 import com.example.demo.managers.SaleManager;
 import org.apache.commons.lang3.StringUtils;
@@ -8,9 +12,18 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
 import org.springframework.jms.config.JmsListenerEndpointRegistry;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link SaleNotificationProcessor} JMS Listener
@@ -20,7 +33,8 @@ public class SalesMessageProcessorUnitTests {
 
   private final SaleManager saleManager = Mockito.mock(SaleManager.class);
   private final JmsListenerEndpointRegistry jmsListenerEndpointRegistry = Mockito.mock(JmsListenerEndpointRegistry.class);
-  private final SaleNotificationProcessor saleNotificationProcessor = new SaleNotificationProcessor(saleManager, jmsListenerEndpointRegistry);
+  private final SaleNotificationProcessor saleNotificationProcessor = new SaleNotificationProcessorBuilder(saleManager)
+    .jmsListenerEndpointRegistry(jmsListenerEndpointRegistry).build();
 
   private final int reportFrequency = 10;
   private final int messageThreshold = 50;
@@ -45,7 +59,7 @@ public class SalesMessageProcessorUnitTests {
       saleNotificationProcessor.receiveSaleNotification(appleSaleNotification);
     }
 
-    Mockito.verify(saleManager, Mockito.times(reportFrequency - 2)).recordSale(Mockito.isA(String.class), Mockito.isA(BigDecimal.class));
+    Mockito.verify(saleManager, Mockito.times(reportFrequency - 2)).recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
     Mockito.verify(saleManager, Mockito.never()).logSaleReport();
     Mockito.verify(saleManager, Mockito.never()).logSaleAdjustmentReport();
     Mockito.verify(jmsListenerEndpointRegistry, Mockito.never()).stop();
@@ -60,7 +74,7 @@ public class SalesMessageProcessorUnitTests {
 
     saleNotificationProcessor.receiveSaleNotification(appleSaleNotification);
 
-    Mockito.verify(saleManager, Mockito.never()).recordSale(Mockito.isA(String.class), Mockito.isA(BigDecimal.class));
+    Mockito.verify(saleManager, Mockito.never()).recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
     Mockito.verify(saleManager, Mockito.never()).logSaleReport();
     Mockito.verify(saleManager, Mockito.never()).logSaleAdjustmentReport();
     Mockito.verify(jmsListenerEndpointRegistry, Mockito.never()).stop();
@@ -75,7 +89,7 @@ public class SalesMessageProcessorUnitTests {
 
     saleNotificationProcessor.receiveSaleNotification(appleSaleNotification);
 
-    Mockito.verify(saleManager, Mockito.never()).recordSale(Mockito.isA(String.class), Mockito.isA(BigDecimal.class));
+    Mockito.verify(saleManager, Mockito.never()).recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
     Mockito.verify(saleManager, Mockito.never()).logSaleReport();
     Mockito.verify(saleManager, Mockito.never()).logSaleAdjustmentReport();
     Mockito.verify(jmsListenerEndpointRegistry, Mockito.never()).stop();
@@ -92,7 +106,7 @@ public class SalesMessageProcessorUnitTests {
       saleNotificationProcessor.receiveSaleNotification(appleSaleNotification);
     }
 
-    Mockito.verify(saleManager, Mockito.times(reportFrequency * 2)).recordSale(Mockito.isA(String.class), Mockito.isA(BigDecimal.class));
+    Mockito.verify(saleManager, Mockito.times(reportFrequency * 2)).recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
     Mockito.verify(saleManager, Mockito.times(2)).logSaleReport();
     Mockito.verify(saleManager, Mockito.never()).logSaleAdjustmentReport();
     Mockito.verify(jmsListenerEndpointRegistry, Mockito.never()).stop();
@@ -109,12 +123,62 @@ public class SalesMessageProcessorUnitTests {
       saleNotificationProcessor.receiveSaleNotification(appleSaleNotification);
     }
 
-    Mockito.verify(saleManager, Mockito.times(messageThreshold)).recordSale(Mockito.isA(String.class), Mockito.isA(BigDecimal.class));
+    Mockito.verify(saleManager, Mockito.times(messageThreshold)).recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
     Mockito.verify(saleManager, Mockito.times(5)).logSaleReport();
     Mockito.verify(saleManager).logSaleAdjustmentReport();
     Mockito.verify(jmsListenerEndpointRegistry).stop();
   }
 
+  @Test
+  public void testReceiveDuplicateSaleNotifications() throws SaleProcessingException {
+    saleNotificationProcessor.setDeduplicationEnabled(true);
+    saleNotificationProcessor.startDeduplication();
+    SaleNotification bananaSaleNotification = createSaleNotification(TEST_PRODUCT_TYPE_BANANA, TEST_SALE_VALUE, 1);
+
+    saleNotificationProcessor.receiveSaleNotification(bananaSaleNotification, "ID:1");
+    saleNotificationProcessor.receiveSaleNotification(bananaSaleNotification, "ID:1");
+    saleNotificationProcessor.receiveSaleNotifications(Arrays.asList(bananaSaleNotification, bananaSaleNotification,
+      bananaSaleNotification), Arrays.asList("ID:2", "ID:1", "ID:2"));
+    saleNotificationProcessor.receiveSaleNotification(bananaSaleNotification);
+    saleNotificationProcessor.receiveSaleNotification(bananaSaleNotification);
+
+    Mockito.verify(saleManager, Mockito.times(3)).recordSales(Mockito.isA(String.class), Mockito.isA(BigDecimal.class), Mockito.anyInt());
+    Mockito.verify(saleManager, Mockito.times(1)).recordSaleBatch(Mockito.eq(TEST_PRODUCT_TYPE_BANANA), Mockito.argThat(saleBatchEntries -> saleBatchEntries.size() == 1));
+  }
+
+  @Test
+  public void testLogsReceivedSaleNotificationsVerbatim() {
+    AtomicLong nanoTime = new AtomicLong();
+    saleNotificationProcessor.setReceivedLogSampler(new LogSampler(nanoTime::get));
+    Logger processorLogger = (Logger) LoggerFactory.getLogger(SaleNotificationProcessor.class);
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    appender.start();
+    processorLogger.addAppender(appender);
+    Level level = processorLogger.getLevel();
+    processorLogger.setLevel(Level.INFO);
+    try {
+      saleNotificationProcessor.receiveSaleNotification(createSaleNotification("{}", TEST_SALE_VALUE, 1));
+      saleNotificationProcessor.setMaxReceivedLogsPerSecond(1);
+      for (int i = 0; i < 3; i++) {
+        saleNotificationProcessor.receiveSaleNotification(createSaleNotification(TEST_PRODUCT_TYPE_BANANA, TEST_SALE_VALUE, 1));
+      }
+      nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+      saleNotificationProcessor.receiveSaleNotification(createSaleNotification(TEST_PRODUCT_TYPE_BANANA, TEST_SALE_VALUE, 1));
+    } finally {
+      processorLogger.detachAppender(appender);
+      processorLogger.setLevel(level);
+    }
+
+    List<String> messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+      .filter(message -> message.startsWith("Received")).collect(Collectors.toList());
+    assertEquals("Received SaleNotification <SaleNotification[productType={},saleValue=.20,noOfOccurrences=1,"
+      + "adjustmentOperation=null,adjustmentValue=null]>", messages.get(0));
+    assertEquals("Received SaleNotification <SaleNotification[productType=Banana,saleValue=.20,noOfOccurrences=1,"
+      + "adjustmentOperation=null,adjustmentValue=null]>", messages.get(1));
+    assertEquals(3, messages.size());
+    assertTrue(messages.get(2).endsWith(">, 2 more received since the last one logged"));
+  }
+
   private SaleNotification createSaleNotification(String productType, String saleValue, int saleOccurrences) {
     return new SaleNotification(productType, saleValue, saleOccurrences);
   }